@@ -0,0 +1,26 @@
+package com.example.bookMyShow.Configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+
+@Configuration
+public class AsyncConfiguration {
+
+    // runs the confirm phase of bookings, i.e. the payment and the short writes after it
+    @Bean(name = "bookingExecutor")
+    public Executor bookingExecutor(@Value("${bookmyshow.booking.executor.core-size:16}") int coreSize,
+                                    @Value("${bookmyshow.booking.executor.max-size:64}") int maxSize,
+                                    @Value("${bookmyshow.booking.executor.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("booking-");
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.bookMyShow.controller;
+
+import com.example.bookMyShow.dto.AdmissionRequest;
+import com.example.bookMyShow.dto.BestAvailableRequest;
+import com.example.bookMyShow.dto.BookingResponse;
+import com.example.bookMyShow.dto.ClusterMember;
+import com.example.bookMyShow.dto.HoldRequest;
+import com.example.bookMyShow.dto.SeatChange;
+import com.example.bookMyShow.dto.WaitingRoomStatus;
+import com.example.bookMyShow.exception.SelectedSeatsNotAvailableException;
+import com.example.bookMyShow.service.ClusterService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+public class ClusterController {
+    @Autowired
+    private ClusterService clusterService;
+
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    @GetMapping("/cluster/members")
+    public ResponseEntity<Map<String, String>> getMembers() {
+        return ResponseEntity.ok(clusterService.getMembers());
+    }
+
+    // announce=false when the call is itself the announcement of another node
+    @PostMapping("/cluster/members")
+    public ResponseEntity<Map<String, String>> join(@RequestBody ClusterMember member,
+                                                    @RequestParam(value = "announce", defaultValue = "true") boolean announce) {
+        clusterService.join(member.getNodeId(), member.getUrl(), announce);
+        return ResponseEntity.ok(clusterService.getMembers());
+    }
+
+    @DeleteMapping("/cluster/members/{nodeId}")
+    public ResponseEntity<Map<String, String>> leave(@PathVariable("nodeId") String nodeId,
+                                                     @RequestParam(value = "announce", defaultValue = "true") boolean announce) {
+        clusterService.leave(nodeId, announce);
+        return ResponseEntity.ok(clusterService.getMembers());
+    }
+
+    @GetMapping("/cluster/owner/{showId}")
+    public ResponseEntity<String> getOwner(@PathVariable("showId") int showId) {
+        return ResponseEntity.ok(clusterService.ownerOf(showId));
+    }
+
+    // holds forwarded by the other nodes, 409 if the seats are taken
+    @PostMapping("/cluster/hold")
+    public ResponseEntity<BookingResponse> holdForwarded(@RequestBody HoldRequest request,
+                                                         @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        try {
+            return ResponseEntity.ok(clusterService.holdForwarded(request, idempotencyKey));
+        } catch (SelectedSeatsNotAvailableException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @PostMapping("/cluster/hold/best")
+    public ResponseEntity<BookingResponse> holdBestAvailableForwarded(@RequestBody BestAvailableRequest request,
+                                                                      @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        try {
+            return ResponseEntity.ok(clusterService.holdBestAvailableForwarded(request, idempotencyKey));
+        } catch (SelectedSeatsNotAvailableException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    // seats another node moved in a show this node owns
+    @PostMapping("/cluster/seatsChanged")
+    public ResponseEntity<Void> seatsChanged(@RequestBody SeatChange change) {
+        clusterService.seatsChangedForwarded(change);
+        return ResponseEntity.ok().build();
+    }
+
+    // waiting room calls of shows this node owns, 403 if the token is not valid, 503 if the queue is full
+    @PostMapping("/cluster/admission")
+    public ResponseEntity<WaitingRoomStatus> admission(@RequestBody AdmissionRequest request) {
+        return ResponseEntity.ok(clusterService.admissionForwarded(request));
+    }
+}
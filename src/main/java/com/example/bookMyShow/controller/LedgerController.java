@@ -0,0 +1,31 @@
+package com.example.bookMyShow.controller;
+
+import com.example.bookMyShow.dto.SeatLedgerPage;
+import com.example.bookMyShow.model.constant.ShowSeatStatus;
+import com.example.bookMyShow.service.SeatLedgerService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.Map;
+
+@RestController
+public class LedgerController {
+    @Autowired
+    private SeatLedgerService seatLedgerService;
+
+    // change feed of seat transitions, page on with the returned nextSequence
+    @GetMapping("/ledger/changes")
+    public ResponseEntity<SeatLedgerPage> getChanges(@RequestParam(value = "since", defaultValue = "1") long since,
+                                                     @RequestParam(value = "limit", defaultValue = "1000") int limit,
+                                                     @RequestParam(value = "showId", required = false) Integer showId)
+            throws IOException {
+        return ResponseEntity.ok(seatLedgerService.getChanges(since, Math.min(Math.max(limit, 1), 10000), showId));
+    }
+
+    @GetMapping("/ledger/show/{showId}")
+    public ResponseEntity<Map<Integer, ShowSeatStatus>> getShowState(@PathVariable("showId") int showId) {
+        return ResponseEntity.ok(seatLedgerService.getShowState(showId));
+    }
+}
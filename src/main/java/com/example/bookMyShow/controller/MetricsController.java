@@ -0,0 +1,36 @@
+package com.example.bookMyShow.controller;
+
+import com.example.bookMyShow.dto.ContentionStats;
+import com.example.bookMyShow.dto.ShowLockStats;
+import com.example.bookMyShow.service.ContentionMetricsService;
+import com.example.bookMyShow.service.ShowLockManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+public class MetricsController {
+    @Autowired
+    private ContentionMetricsService contentionMetricsService;
+    @Autowired
+    private ShowLockManager showLockManager;
+
+    @GetMapping("/metrics/contention")
+    public ResponseEntity<List<ContentionStats>> getContention() {
+        return ResponseEntity.ok(contentionMetricsService.getAllStats());
+    }
+
+    @GetMapping("/metrics/contention/{showId}")
+    public ResponseEntity<ContentionStats> getContention(@PathVariable("showId") int showId) {
+        return ResponseEntity.ok(contentionMetricsService.getStats(showId));
+    }
+
+    @GetMapping("/metrics/show-locks")
+    public ResponseEntity<ShowLockStats> getShowLocks() {
+        return ResponseEntity.ok(showLockManager.getStats());
+    }
+}
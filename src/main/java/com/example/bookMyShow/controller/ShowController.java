@@ -1,6 +1,11 @@
 package com.example.bookMyShow.controller;
 
+import com.example.bookMyShow.dto.BulkScheduleResponse;
+import com.example.bookMyShow.dto.SeatMapEntry;
+import com.example.bookMyShow.dto.ShowAvailabilityResponse;
+import com.example.bookMyShow.dto.ShowScheduleRequest;
 import com.example.bookMyShow.model.Showw;
+import com.example.bookMyShow.service.ShowAvailabilityService;
 import com.example.bookMyShow.service.ShowService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -12,17 +17,40 @@ import java.util.List;
 public class ShowController {
     @Autowired
     private ShowService showService;
+    @Autowired
+    private ShowAvailabilityService showAvailabilityService;
 
     @PostMapping("/show")
     public ResponseEntity<Showw> createShow(@RequestBody Showw show) {
         return ResponseEntity.ok(showService.createShow(show));
     }
 
+    @PostMapping("/shows/bulk")
+    public ResponseEntity<BulkScheduleResponse> scheduleShows(@RequestBody List<ShowScheduleRequest> requests) {
+        return ResponseEntity.ok(showService.scheduleShows(requests));
+    }
+
     @GetMapping("/show/{id}")
     public ResponseEntity<Showw> getShow(@PathVariable("id") int id) {
         return ResponseEntity.ok(showService.getShowById(id));
     }
 
+    @GetMapping("/show/{id}/seatMap")
+    public ResponseEntity<List<SeatMapEntry>> getSeatMap(@PathVariable("id") int id) {
+        return ResponseEntity.ok(showService.getSeatMap(id));
+    }
+
+    @GetMapping("/show/{id}/availability")
+    public ResponseEntity<ShowAvailabilityResponse> getAvailability(@PathVariable("id") int id) {
+        return ResponseEntity.ok(showAvailabilityService.getAvailability(id));
+    }
+
+    // seat counts of many shows at once, e.g. ?ids=1,2,3 for the shows of a listing page
+    @GetMapping("/shows/availability")
+    public ResponseEntity<List<ShowAvailabilityResponse>> getAvailabilities(@RequestParam("ids") List<Integer> ids) {
+        return ResponseEntity.ok(showAvailabilityService.getAvailabilities(ids));
+    }
+
     @GetMapping("/shows")
     public ResponseEntity<List<Showw>> getAllShows() {
         return ResponseEntity.ok(showService.getAllShows());
@@ -1,10 +1,16 @@
 package com.example.bookMyShow.controller;
 
+import com.example.bookMyShow.dto.SeatMapResponse;
 import com.example.bookMyShow.model.ShowSeat;
+import com.example.bookMyShow.service.SeatMapService;
+import com.example.bookMyShow.service.SeatStreamService;
 import com.example.bookMyShow.service.ShowSeatService;
+import com.example.bookMyShow.service.ShowSeatStateService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -12,6 +18,12 @@ import java.util.List;
 public class ShowSeatController {
     @Autowired
     private ShowSeatService showSeatService;
+    @Autowired
+    private ShowSeatStateService showSeatStateService;
+    @Autowired
+    private SeatMapService seatMapService;
+    @Autowired
+    private SeatStreamService seatStreamService;
 
     @PostMapping("/showSeat")
     public ResponseEntity<ShowSeat> createShowSeat(@RequestBody ShowSeat showSeat) {
@@ -28,6 +40,27 @@ public class ShowSeatController {
         return ResponseEntity.ok(showSeatService.getAllShowSeats());
     }
 
+    // all seats of a show from the packed seat state row, one row read
+    @GetMapping("/show/{id}/showSeats")
+    public ResponseEntity<List<ShowSeat>> getShowSeatsOfShow(@PathVariable("id") int id) {
+        return ResponseEntity.ok(showSeatStateService.getShowSeatViews(id));
+    }
+
+    // compact seat map of a show, send the version of the last response to get only the changed seats
+    @GetMapping("/show/{id}/seatMap/compact")
+    public ResponseEntity<SeatMapResponse> getSeatMap(@PathVariable("id") int id,
+                                                      @RequestParam(value = "since", required = false) Long since) {
+        return ResponseEntity.ok(seatMapService.getSeatMap(id, since));
+    }
+
+    // live seat map over Server-Sent Events: the map first, then one delta per version
+    @GetMapping(value = "/show/{id}/seatMap/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSeatMap(@PathVariable("id") int id,
+                                    @RequestParam(value = "since", required = false) Long since,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return seatStreamService.subscribe(id, lastEventId != null ? lastEventId : since);
+    }
+
     @DeleteMapping("/showSeat/{id}")
     public ResponseEntity<Boolean> removeShowSeat(@PathVariable("id") int id) {
         showSeatService.deleteShowSeatById(id);
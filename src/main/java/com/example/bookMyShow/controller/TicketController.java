@@ -1,18 +1,96 @@
 package com.example.bookMyShow.controller;
 
+import com.example.bookMyShow.dto.BestAvailableRequest;
+import com.example.bookMyShow.dto.BookingResponse;
+import com.example.bookMyShow.dto.CartRequest;
+import com.example.bookMyShow.dto.CartResponse;
+import com.example.bookMyShow.dto.ConfirmCartRequest;
+import com.example.bookMyShow.dto.ConfirmBookingRequest;
+import com.example.bookMyShow.dto.HoldRequest;
+import com.example.bookMyShow.exception.PaymentProcessingException;
+import com.example.bookMyShow.exception.SelectedSeatsNotAvailableException;
+import com.example.bookMyShow.service.ClusterService;
 import com.example.bookMyShow.service.TicketService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Controller;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
 
 @RestController
 public class TicketController {
     @Autowired
     private TicketService ticketService;
+    @Autowired
+    private ClusterService clusterService;
+
+    // retries of a request carrying the same key get the first result back
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
 
     @GetMapping("/hello")
     public String hello(){
         return "HELLO! My baby";
     }
+
+    // phase 1: lock the seats, the response carries the hold token. Runs on the node owning the show.
+    @PostMapping("/ticket/hold")
+    public ResponseEntity<BookingResponse> holdSeats(@RequestBody HoldRequest request,
+                                                     @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey)
+            throws SelectedSeatsNotAvailableException {
+        return ResponseEntity.ok(clusterService.hold(request, idempotencyKey));
+    }
+
+    // phase 1 with the seats picked by the server, the best block of adjacent seats
+    @PostMapping("/ticket/hold/best")
+    public ResponseEntity<BookingResponse> holdBestAvailable(@RequestBody BestAvailableRequest request,
+                                                             @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey)
+            throws SelectedSeatsNotAvailableException {
+        return ResponseEntity.ok(clusterService.holdBestAvailable(request, idempotencyKey));
+    }
+
+    // phase 2: payment runs in the background, poll GET /ticket/{id} for the outcome
+    @PostMapping("/ticket/confirm")
+    public ResponseEntity<Boolean> confirmBooking(@RequestBody ConfirmBookingRequest request,
+                                                  @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey)
+            throws PaymentProcessingException {
+        ticketService.confirmBooking(request.getHoldToken(), request.getPaymentMethod(), idempotencyKey);
+        return ResponseEntity.accepted().body(true);
+    }
+
+    @DeleteMapping("/ticket/hold/{holdToken}")
+    public ResponseEntity<BookingResponse> releaseHold(@PathVariable("holdToken") String holdToken)
+            throws PaymentProcessingException {
+        return ResponseEntity.ok(BookingResponse.from(ticketService.releaseHold(holdToken)));
+    }
+
+    // phase 1 for several shows at once, all seats are held or none. Runs on this node for every show of the cart.
+    @PostMapping("/cart/hold")
+    public ResponseEntity<CartResponse> holdCart(@RequestBody CartRequest request,
+                                                 @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey)
+            throws SelectedSeatsNotAvailableException {
+        return ResponseEntity.ok(CartResponse.from(ticketService.holdCart(request.getUserId(), request.getItems(), idempotencyKey)));
+    }
+
+    // phase 2 for a cart: one payment, then every ticket is booked or none is. Poll GET /cart/{cartToken}
+    @PostMapping("/cart/confirm")
+    public ResponseEntity<Boolean> confirmCart(@RequestBody ConfirmCartRequest request,
+                                               @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey)
+            throws PaymentProcessingException {
+        ticketService.confirmCart(request.getCartToken(), request.getPaymentMethod(), idempotencyKey);
+        return ResponseEntity.accepted().body(true);
+    }
+
+    @DeleteMapping("/cart/{cartToken}")
+    public ResponseEntity<CartResponse> releaseCart(@PathVariable("cartToken") String cartToken)
+            throws PaymentProcessingException {
+        return ResponseEntity.ok(CartResponse.from(ticketService.releaseCart(cartToken)));
+    }
+
+    @GetMapping("/cart/{cartToken}")
+    public ResponseEntity<CartResponse> getCart(@PathVariable("cartToken") String cartToken) {
+        return ResponseEntity.ok(CartResponse.from(ticketService.getCart(cartToken)));
+    }
+
+    @GetMapping("/ticket/{id}")
+    public ResponseEntity<BookingResponse> getTicket(@PathVariable("id") int id) {
+        return ResponseEntity.ok(BookingResponse.from(ticketService.getTicketById(id)));
+    }
 }
@@ -0,0 +1,25 @@
+package com.example.bookMyShow.controller;
+
+import com.example.bookMyShow.dto.WaitingRoomStatus;
+import com.example.bookMyShow.service.AdmissionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+public class WaitingRoomController {
+    @Autowired
+    private AdmissionService admissionService;
+
+    @PostMapping("/waitingRoom/{showId}")
+    public ResponseEntity<WaitingRoomStatus> join(@PathVariable("showId") int showId,
+                                                  @RequestParam("userId") int userId) {
+        return ResponseEntity.ok(admissionService.join(showId, userId));
+    }
+
+    // poll until ADMITTED, then hold seats with the admission token
+    @GetMapping("/waitingRoom/entry/{queueId}")
+    public ResponseEntity<WaitingRoomStatus> getStatus(@PathVariable("queueId") String queueId) {
+        return ResponseEntity.ok(admissionService.getStatus(queueId));
+    }
+}
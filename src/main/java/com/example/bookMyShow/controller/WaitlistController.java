@@ -0,0 +1,33 @@
+package com.example.bookMyShow.controller;
+
+import com.example.bookMyShow.dto.WaitlistEntryStatus;
+import com.example.bookMyShow.dto.WaitlistRequest;
+import com.example.bookMyShow.exception.PaymentProcessingException;
+import com.example.bookMyShow.service.WaitlistService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+public class WaitlistController {
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @PostMapping("/waitlist")
+    public ResponseEntity<WaitlistEntryStatus> join(@RequestBody WaitlistRequest request) {
+        return ResponseEntity.ok(waitlistService.join(request.getShowId(), request.getUserId(),
+                request.getQuantity(), request.getSeatType()));
+    }
+
+    // once OFFERED, confirm the hold token with POST /ticket/confirm before it expires
+    @GetMapping("/waitlist/{entryId}")
+    public ResponseEntity<WaitlistEntryStatus> getStatus(@PathVariable("entryId") int entryId) {
+        return ResponseEntity.ok(waitlistService.getStatus(entryId));
+    }
+
+    @DeleteMapping("/waitlist/{entryId}")
+    public ResponseEntity<WaitlistEntryStatus> cancel(@PathVariable("entryId") int entryId)
+            throws PaymentProcessingException {
+        return ResponseEntity.ok(waitlistService.cancel(entryId));
+    }
+}
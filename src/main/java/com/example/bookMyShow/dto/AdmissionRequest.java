@@ -0,0 +1,55 @@
+package com.example.bookMyShow.dto;
+
+import com.example.bookMyShow.model.constant.AdmissionOperation;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class AdmissionRequest {
+    private AdmissionOperation operation;
+    private int showId;
+    private int userId;
+    private String queueId; // for STATUS
+    private String admissionToken; // for TAKE, RESTORE and CONSUME
+
+    public AdmissionOperation getOperation() {
+        return operation;
+    }
+
+    public void setOperation(AdmissionOperation operation) {
+        this.operation = operation;
+    }
+
+    public int getShowId() {
+        return showId;
+    }
+
+    public void setShowId(int showId) {
+        this.showId = showId;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public String getQueueId() {
+        return queueId;
+    }
+
+    public void setQueueId(String queueId) {
+        this.queueId = queueId;
+    }
+
+    public String getAdmissionToken() {
+        return admissionToken;
+    }
+
+    public void setAdmissionToken(String admissionToken) {
+        this.admissionToken = admissionToken;
+    }
+}
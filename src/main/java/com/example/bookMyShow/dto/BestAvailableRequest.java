@@ -0,0 +1,55 @@
+package com.example.bookMyShow.dto;
+
+import com.example.bookMyShow.model.constant.SeatType;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class BestAvailableRequest {
+    private int userId;
+    private int showId;
+    private int quantity;
+    private SeatType seatType; // null for any type
+    private String admissionToken; // from the waiting room, needed while it is enabled
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public int getShowId() {
+        return showId;
+    }
+
+    public void setShowId(int showId) {
+        this.showId = showId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public SeatType getSeatType() {
+        return seatType;
+    }
+
+    public void setSeatType(SeatType seatType) {
+        this.seatType = seatType;
+    }
+
+    public String getAdmissionToken() {
+        return admissionToken;
+    }
+
+    public void setAdmissionToken(String admissionToken) {
+        this.admissionToken = admissionToken;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.bookMyShow.dto;
+
+import com.example.bookMyShow.model.ShowSeat;
+import com.example.bookMyShow.model.Ticket;
+import com.example.bookMyShow.model.constant.PaymentStatus;
+import com.example.bookMyShow.model.constant.TicketStatus;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+Flat view of a Ticket for the booking endpoints, the entity itself drags the whole show and user graph along.
+ */
+@Getter
+@Setter
+public class BookingResponse {
+    private int ticketId;
+    private int showId;
+    private List<Integer> showSeatIds;
+    private double totalCost;
+    private TicketStatus ticketStatus;
+    private String holdToken;
+    private LocalDateTime holdExpiresAt;
+    private PaymentStatus paymentStatus;
+
+    public static BookingResponse from(Ticket ticket) {
+        BookingResponse response = new BookingResponse();
+        response.setTicketId(ticket.getId());
+        response.setShowId(ticket.getShow().getId());
+        List<Integer> showSeatIds = new ArrayList<>();
+        for (ShowSeat showSeat : ticket.getShowSeats()) {
+            showSeatIds.add(showSeat.getId());
+        }
+        response.setShowSeatIds(showSeatIds);
+        response.setTotalCost(ticket.getTotalCost());
+        response.setTicketStatus(ticket.getTicketStatus());
+        response.setHoldToken(ticket.getHoldToken());
+        response.setHoldExpiresAt(ticket.getHoldExpiresAt());
+        if (ticket.getPayment() != null) {
+            response.setPaymentStatus(ticket.getPayment().getPaymentStatus());
+        }
+        return response;
+    }
+
+    public int getTicketId() {
+        return ticketId;
+    }
+
+    public void setTicketId(int ticketId) {
+        this.ticketId = ticketId;
+    }
+
+    public int getShowId() {
+        return showId;
+    }
+
+    public void setShowId(int showId) {
+        this.showId = showId;
+    }
+
+    public List<Integer> getShowSeatIds() {
+        return showSeatIds;
+    }
+
+    public void setShowSeatIds(List<Integer> showSeatIds) {
+        this.showSeatIds = showSeatIds;
+    }
+
+    public double getTotalCost() {
+        return totalCost;
+    }
+
+    public void setTotalCost(double totalCost) {
+        this.totalCost = totalCost;
+    }
+
+    public TicketStatus getTicketStatus() {
+        return ticketStatus;
+    }
+
+    public void setTicketStatus(TicketStatus ticketStatus) {
+        this.ticketStatus = ticketStatus;
+    }
+
+    public String getHoldToken() {
+        return holdToken;
+    }
+
+    public void setHoldToken(String holdToken) {
+        this.holdToken = holdToken;
+    }
+
+    public LocalDateTime getHoldExpiresAt() {
+        return holdExpiresAt;
+    }
+
+    public void setHoldExpiresAt(LocalDateTime holdExpiresAt) {
+        this.holdExpiresAt = holdExpiresAt;
+    }
+
+    public PaymentStatus getPaymentStatus() {
+        return paymentStatus;
+    }
+
+    public void setPaymentStatus(PaymentStatus paymentStatus) {
+        this.paymentStatus = paymentStatus;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.bookMyShow.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class BulkScheduleResponse {
+    private List<Integer> showIds;
+    private long showSeatCount;
+    private long elapsedMillis;
+    private long rowsPerSecond;
+
+    public List<Integer> getShowIds() {
+        return showIds;
+    }
+
+    public void setShowIds(List<Integer> showIds) {
+        this.showIds = showIds;
+    }
+
+    public long getShowSeatCount() {
+        return showSeatCount;
+    }
+
+    public void setShowSeatCount(long showSeatCount) {
+        this.showSeatCount = showSeatCount;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(long rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+}
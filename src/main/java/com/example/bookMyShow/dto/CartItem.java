@@ -0,0 +1,47 @@
+package com.example.bookMyShow.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class CartItem {
+    private int showId;
+    private List<Integer> seatIds; // seats picked from the seat map of the show
+    private List<Integer> showSeatIds; // alternative to seatIds
+    private String admissionToken; // from the waiting room of the show, needed while it is enabled
+
+    public int getShowId() {
+        return showId;
+    }
+
+    public void setShowId(int showId) {
+        this.showId = showId;
+    }
+
+    public List<Integer> getSeatIds() {
+        return seatIds;
+    }
+
+    public void setSeatIds(List<Integer> seatIds) {
+        this.seatIds = seatIds;
+    }
+
+    public List<Integer> getShowSeatIds() {
+        return showSeatIds;
+    }
+
+    public void setShowSeatIds(List<Integer> showSeatIds) {
+        this.showSeatIds = showSeatIds;
+    }
+
+    public String getAdmissionToken() {
+        return admissionToken;
+    }
+
+    public void setAdmissionToken(String admissionToken) {
+        this.admissionToken = admissionToken;
+    }
+}
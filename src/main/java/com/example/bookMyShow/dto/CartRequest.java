@@ -0,0 +1,32 @@
+package com.example.bookMyShow.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/*
+Seats of several shows booked together, e.g. a movie marathon, held and paid for as one
+ */
+@Getter
+@Setter
+public class CartRequest {
+    private int userId;
+    private List<CartItem> items;
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public List<CartItem> getItems() {
+        return items;
+    }
+
+    public void setItems(List<CartItem> items) {
+        this.items = items;
+    }
+}
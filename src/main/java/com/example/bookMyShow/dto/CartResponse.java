@@ -0,0 +1,72 @@
+package com.example.bookMyShow.dto;
+
+import com.example.bookMyShow.model.Ticket;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+One ticket per show of a cart, the cart token confirms or releases all of them together
+ */
+@Getter
+@Setter
+public class CartResponse {
+    private String cartToken;
+    private double totalCost; // one payment for the whole cart
+    private LocalDateTime holdExpiresAt; // earliest deadline of the holds
+    private List<BookingResponse> tickets;
+
+    public static CartResponse from(List<Ticket> tickets) {
+        CartResponse response = new CartResponse();
+        List<BookingResponse> bookings = new ArrayList<>(tickets.size());
+        double totalCost = 0;
+        LocalDateTime holdExpiresAt = null;
+        for (Ticket ticket : tickets) {
+            bookings.add(BookingResponse.from(ticket));
+            totalCost += ticket.getTotalCost();
+            if (holdExpiresAt == null || (ticket.getHoldExpiresAt() != null && ticket.getHoldExpiresAt().isBefore(holdExpiresAt))) {
+                holdExpiresAt = ticket.getHoldExpiresAt();
+            }
+        }
+        response.setCartToken(tickets.isEmpty() ? null : tickets.get(0).getCartToken());
+        response.setTotalCost(totalCost);
+        response.setHoldExpiresAt(holdExpiresAt);
+        response.setTickets(bookings);
+        return response;
+    }
+
+    public String getCartToken() {
+        return cartToken;
+    }
+
+    public void setCartToken(String cartToken) {
+        this.cartToken = cartToken;
+    }
+
+    public double getTotalCost() {
+        return totalCost;
+    }
+
+    public void setTotalCost(double totalCost) {
+        this.totalCost = totalCost;
+    }
+
+    public LocalDateTime getHoldExpiresAt() {
+        return holdExpiresAt;
+    }
+
+    public void setHoldExpiresAt(LocalDateTime holdExpiresAt) {
+        this.holdExpiresAt = holdExpiresAt;
+    }
+
+    public List<BookingResponse> getTickets() {
+        return tickets;
+    }
+
+    public void setTickets(List<BookingResponse> tickets) {
+        this.tickets = tickets;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.bookMyShow.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class ClusterMember {
+    private String nodeId;
+    private String url; // base URL the other nodes reach it at, e.g. http://10.0.0.5:8080
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+}
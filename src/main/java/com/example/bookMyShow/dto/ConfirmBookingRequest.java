@@ -0,0 +1,28 @@
+package com.example.bookMyShow.dto;
+
+import com.example.bookMyShow.model.constant.PaymentMethod;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class ConfirmBookingRequest {
+    private String holdToken;
+    private PaymentMethod paymentMethod;
+
+    public String getHoldToken() {
+        return holdToken;
+    }
+
+    public void setHoldToken(String holdToken) {
+        this.holdToken = holdToken;
+    }
+
+    public PaymentMethod getPaymentMethod() {
+        return paymentMethod;
+    }
+
+    public void setPaymentMethod(PaymentMethod paymentMethod) {
+        this.paymentMethod = paymentMethod;
+    }
+}
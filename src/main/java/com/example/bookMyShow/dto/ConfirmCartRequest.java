@@ -0,0 +1,28 @@
+package com.example.bookMyShow.dto;
+
+import com.example.bookMyShow.model.constant.PaymentMethod;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class ConfirmCartRequest {
+    private String cartToken;
+    private PaymentMethod paymentMethod;
+
+    public String getCartToken() {
+        return cartToken;
+    }
+
+    public void setCartToken(String cartToken) {
+        this.cartToken = cartToken;
+    }
+
+    public PaymentMethod getPaymentMethod() {
+        return paymentMethod;
+    }
+
+    public void setPaymentMethod(PaymentMethod paymentMethod) {
+        this.paymentMethod = paymentMethod;
+    }
+}
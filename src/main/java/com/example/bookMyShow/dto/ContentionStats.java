@@ -0,0 +1,63 @@
+package com.example.bookMyShow.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class ContentionStats {
+    private int showId;
+    private long attempts;      // seat lock/update operations started
+    private long conflicts;     // concurrency failures, each one is retried unless the attempts ran out
+    private long exhausted;     // operations that failed after the last retry
+    private long unavailable;   // holds rejected because a seat was already taken
+    private double conflictRate;
+
+    public int getShowId() {
+        return showId;
+    }
+
+    public void setShowId(int showId) {
+        this.showId = showId;
+    }
+
+    public long getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(long attempts) {
+        this.attempts = attempts;
+    }
+
+    public long getConflicts() {
+        return conflicts;
+    }
+
+    public void setConflicts(long conflicts) {
+        this.conflicts = conflicts;
+    }
+
+    public long getExhausted() {
+        return exhausted;
+    }
+
+    public void setExhausted(long exhausted) {
+        this.exhausted = exhausted;
+    }
+
+    public long getUnavailable() {
+        return unavailable;
+    }
+
+    public void setUnavailable(long unavailable) {
+        this.unavailable = unavailable;
+    }
+
+    public double getConflictRate() {
+        return conflictRate;
+    }
+
+    public void setConflictRate(double conflictRate) {
+        this.conflictRate = conflictRate;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.bookMyShow.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class HoldRequest {
+    private int userId;
+    private List<Integer> showSeatIds;
+    // alternative to showSeatIds: seats picked from the seat map of a show
+    private int showId;
+    private List<Integer> seatIds;
+    private String admissionToken; // from the waiting room, needed while it is enabled
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public List<Integer> getShowSeatIds() {
+        return showSeatIds;
+    }
+
+    public void setShowSeatIds(List<Integer> showSeatIds) {
+        this.showSeatIds = showSeatIds;
+    }
+
+    public int getShowId() {
+        return showId;
+    }
+
+    public void setShowId(int showId) {
+        this.showId = showId;
+    }
+
+    public List<Integer> getSeatIds() {
+        return seatIds;
+    }
+
+    public void setSeatIds(List<Integer> seatIds) {
+        this.seatIds = seatIds;
+    }
+
+    public String getAdmissionToken() {
+        return admissionToken;
+    }
+
+    public void setAdmissionToken(String admissionToken) {
+        this.admissionToken = admissionToken;
+    }
+}
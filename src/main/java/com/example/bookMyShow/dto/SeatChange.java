@@ -0,0 +1,74 @@
+package com.example.bookMyShow.dto;
+
+import com.example.bookMyShow.event.SeatTransitionEvent;
+import com.example.bookMyShow.model.constant.SeatTransitionKind;
+import com.example.bookMyShow.model.constant.ShowSeatStatus;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+// a committed seat transition, sent to the node owning the show when another node wrote it
+@Getter
+@Setter
+public class SeatChange {
+    private int showId;
+    private SeatTransitionKind kind;
+    private ShowSeatStatus from; // null if not known
+    private ShowSeatStatus to;
+    private List<Integer> showSeatIds;
+
+    public static SeatChange from(SeatTransitionEvent event) {
+        SeatChange change = new SeatChange();
+        change.setShowId(event.getShowId());
+        change.setKind(event.getKind());
+        change.setFrom(event.getFrom());
+        change.setTo(event.getTo());
+        change.setShowSeatIds(event.getShowSeatIds());
+        return change;
+    }
+
+    public SeatTransitionEvent toEvent() {
+        return new SeatTransitionEvent(showId, kind, from, to, showSeatIds);
+    }
+
+    public int getShowId() {
+        return showId;
+    }
+
+    public void setShowId(int showId) {
+        this.showId = showId;
+    }
+
+    public SeatTransitionKind getKind() {
+        return kind;
+    }
+
+    public void setKind(SeatTransitionKind kind) {
+        this.kind = kind;
+    }
+
+    public ShowSeatStatus getFrom() {
+        return from;
+    }
+
+    public void setFrom(ShowSeatStatus from) {
+        this.from = from;
+    }
+
+    public ShowSeatStatus getTo() {
+        return to;
+    }
+
+    public void setTo(ShowSeatStatus to) {
+        this.to = to;
+    }
+
+    public List<Integer> getShowSeatIds() {
+        return showSeatIds;
+    }
+
+    public void setShowSeatIds(List<Integer> showSeatIds) {
+        this.showSeatIds = showSeatIds;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.bookMyShow.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class SeatLedgerPage {
+    private List<SeatTransitionEntry> transitions;
+    private long nextSequence; // pass it as since to read on
+
+    public List<SeatTransitionEntry> getTransitions() {
+        return transitions;
+    }
+
+    public void setTransitions(List<SeatTransitionEntry> transitions) {
+        this.transitions = transitions;
+    }
+
+    public long getNextSequence() {
+        return nextSequence;
+    }
+
+    public void setNextSequence(long nextSequence) {
+        this.nextSequence = nextSequence;
+    }
+}
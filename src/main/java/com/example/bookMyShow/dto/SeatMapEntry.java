@@ -0,0 +1,83 @@
+package com.example.bookMyShow.dto;
+
+import com.example.bookMyShow.model.constant.SeatType;
+import com.example.bookMyShow.model.constant.ShowSeatStatus;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class SeatMapEntry {
+    private int seatId;
+    private String seatNumber;
+    private int row;
+    private int col;
+    private SeatType seatType;
+    private int showSeatId; // 0 while the seat has no ShowSeat row
+    private ShowSeatStatus showSeatStatus;
+    private int price;
+
+    public int getSeatId() {
+        return seatId;
+    }
+
+    public void setSeatId(int seatId) {
+        this.seatId = seatId;
+    }
+
+    public String getSeatNumber() {
+        return seatNumber;
+    }
+
+    public void setSeatNumber(String seatNumber) {
+        this.seatNumber = seatNumber;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public void setRow(int row) {
+        this.row = row;
+    }
+
+    public int getCol() {
+        return col;
+    }
+
+    public void setCol(int col) {
+        this.col = col;
+    }
+
+    public SeatType getSeatType() {
+        return seatType;
+    }
+
+    public void setSeatType(SeatType seatType) {
+        this.seatType = seatType;
+    }
+
+    public int getShowSeatId() {
+        return showSeatId;
+    }
+
+    public void setShowSeatId(int showSeatId) {
+        this.showSeatId = showSeatId;
+    }
+
+    public ShowSeatStatus getShowSeatStatus() {
+        return showSeatStatus;
+    }
+
+    public void setShowSeatStatus(ShowSeatStatus showSeatStatus) {
+        this.showSeatStatus = showSeatStatus;
+    }
+
+    public int getPrice() {
+        return price;
+    }
+
+    public void setPrice(int price) {
+        this.price = price;
+    }
+}
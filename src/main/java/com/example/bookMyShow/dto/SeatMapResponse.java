@@ -0,0 +1,105 @@
+package com.example.bookMyShow.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+/*
+Compact seat map of a show, see SeatMap for the encoding of the base64 fields.
+A full map carries rows, cols, grid, seatIds, encoding and statuses; a delta only since and changes.
+ */
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SeatMapResponse {
+    private int showId;
+    private long version;
+    private Long since; // set for a delta, the version the changes start after
+    private Integer rows;
+    private Integer cols;
+    private String grid;
+    private String seatIds;
+    private String encoding; // BITMAP or RLE
+    private String statuses;
+    private String changes;
+
+    public int getShowId() {
+        return showId;
+    }
+
+    public void setShowId(int showId) {
+        this.showId = showId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public Long getSince() {
+        return since;
+    }
+
+    public void setSince(Long since) {
+        this.since = since;
+    }
+
+    public Integer getRows() {
+        return rows;
+    }
+
+    public void setRows(Integer rows) {
+        this.rows = rows;
+    }
+
+    public Integer getCols() {
+        return cols;
+    }
+
+    public void setCols(Integer cols) {
+        this.cols = cols;
+    }
+
+    public String getGrid() {
+        return grid;
+    }
+
+    public void setGrid(String grid) {
+        this.grid = grid;
+    }
+
+    public String getSeatIds() {
+        return seatIds;
+    }
+
+    public void setSeatIds(String seatIds) {
+        this.seatIds = seatIds;
+    }
+
+    public String getEncoding() {
+        return encoding;
+    }
+
+    public void setEncoding(String encoding) {
+        this.encoding = encoding;
+    }
+
+    public String getStatuses() {
+        return statuses;
+    }
+
+    public void setStatuses(String statuses) {
+        this.statuses = statuses;
+    }
+
+    public String getChanges() {
+        return changes;
+    }
+
+    public void setChanges(String changes) {
+        this.changes = changes;
+    }
+}
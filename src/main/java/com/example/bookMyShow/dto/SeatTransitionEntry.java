@@ -0,0 +1,76 @@
+package com.example.bookMyShow.dto;
+
+import com.example.bookMyShow.model.constant.SeatTransitionKind;
+import com.example.bookMyShow.model.constant.ShowSeatStatus;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+public class SeatTransitionEntry {
+    private long sequence;
+    private Instant occurredAt;
+    private int showId;
+    private int showSeatId;
+    private SeatTransitionKind kind;
+    private ShowSeatStatus from; // null if not known
+    private ShowSeatStatus to;
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public Instant getOccurredAt() {
+        return occurredAt;
+    }
+
+    public void setOccurredAt(Instant occurredAt) {
+        this.occurredAt = occurredAt;
+    }
+
+    public int getShowId() {
+        return showId;
+    }
+
+    public void setShowId(int showId) {
+        this.showId = showId;
+    }
+
+    public int getShowSeatId() {
+        return showSeatId;
+    }
+
+    public void setShowSeatId(int showSeatId) {
+        this.showSeatId = showSeatId;
+    }
+
+    public SeatTransitionKind getKind() {
+        return kind;
+    }
+
+    public void setKind(SeatTransitionKind kind) {
+        this.kind = kind;
+    }
+
+    public ShowSeatStatus getFrom() {
+        return from;
+    }
+
+    public void setFrom(ShowSeatStatus from) {
+        this.from = from;
+    }
+
+    public ShowSeatStatus getTo() {
+        return to;
+    }
+
+    public void setTo(ShowSeatStatus to) {
+        this.to = to;
+    }
+}
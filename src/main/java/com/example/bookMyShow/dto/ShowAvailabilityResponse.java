@@ -0,0 +1,88 @@
+package com.example.bookMyShow.dto;
+
+import com.example.bookMyShow.model.constant.SeatType;
+import com.example.bookMyShow.model.constant.ShowStatus;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Map;
+
+/*
+Seat counts of a show, read from its availability counters
+ */
+@Getter
+@Setter
+public class ShowAvailabilityResponse {
+    private int showId;
+    private ShowStatus showStatus;
+    private int available;
+    private int locked;
+    private int booked;
+    private Map<SeatType, Integer> availableBySeatType;
+    private Map<SeatType, Integer> lockedBySeatType;
+    private Map<SeatType, Integer> bookedBySeatType;
+
+    public int getShowId() {
+        return showId;
+    }
+
+    public void setShowId(int showId) {
+        this.showId = showId;
+    }
+
+    public ShowStatus getShowStatus() {
+        return showStatus;
+    }
+
+    public void setShowStatus(ShowStatus showStatus) {
+        this.showStatus = showStatus;
+    }
+
+    public int getAvailable() {
+        return available;
+    }
+
+    public void setAvailable(int available) {
+        this.available = available;
+    }
+
+    public int getLocked() {
+        return locked;
+    }
+
+    public void setLocked(int locked) {
+        this.locked = locked;
+    }
+
+    public int getBooked() {
+        return booked;
+    }
+
+    public void setBooked(int booked) {
+        this.booked = booked;
+    }
+
+    public Map<SeatType, Integer> getAvailableBySeatType() {
+        return availableBySeatType;
+    }
+
+    public void setAvailableBySeatType(Map<SeatType, Integer> availableBySeatType) {
+        this.availableBySeatType = availableBySeatType;
+    }
+
+    public Map<SeatType, Integer> getLockedBySeatType() {
+        return lockedBySeatType;
+    }
+
+    public void setLockedBySeatType(Map<SeatType, Integer> lockedBySeatType) {
+        this.lockedBySeatType = lockedBySeatType;
+    }
+
+    public Map<SeatType, Integer> getBookedBySeatType() {
+        return bookedBySeatType;
+    }
+
+    public void setBookedBySeatType(Map<SeatType, Integer> bookedBySeatType) {
+        this.bookedBySeatType = bookedBySeatType;
+    }
+}
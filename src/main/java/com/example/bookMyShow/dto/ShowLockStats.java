@@ -0,0 +1,72 @@
+package com.example.bookMyShow.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class ShowLockStats {
+    private int stripes;
+    private long acquisitions;
+    private long timeouts;
+    private double averageWaitMicros;
+    private long maxWaitMicros;
+    private int queueDepth;
+    private int maxStripeQueueDepth;
+
+    public int getStripes() {
+        return stripes;
+    }
+
+    public void setStripes(int stripes) {
+        this.stripes = stripes;
+    }
+
+    public long getAcquisitions() {
+        return acquisitions;
+    }
+
+    public void setAcquisitions(long acquisitions) {
+        this.acquisitions = acquisitions;
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    public void setTimeouts(long timeouts) {
+        this.timeouts = timeouts;
+    }
+
+    public double getAverageWaitMicros() {
+        return averageWaitMicros;
+    }
+
+    public void setAverageWaitMicros(double averageWaitMicros) {
+        this.averageWaitMicros = averageWaitMicros;
+    }
+
+    public long getMaxWaitMicros() {
+        return maxWaitMicros;
+    }
+
+    public void setMaxWaitMicros(long maxWaitMicros) {
+        this.maxWaitMicros = maxWaitMicros;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public void setQueueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    public int getMaxStripeQueueDepth() {
+        return maxStripeQueueDepth;
+    }
+
+    public void setMaxStripeQueueDepth(int maxStripeQueueDepth) {
+        this.maxStripeQueueDepth = maxStripeQueueDepth;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.bookMyShow.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+public class ShowScheduleRequest {
+    private int auditoriumId;
+    private int movieId;
+    private String language;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private int seatPrice = 100;
+    private boolean sparseInventory;
+
+    public int getAuditoriumId() {
+        return auditoriumId;
+    }
+
+    public void setAuditoriumId(int auditoriumId) {
+        this.auditoriumId = auditoriumId;
+    }
+
+    public int getMovieId() {
+        return movieId;
+    }
+
+    public void setMovieId(int movieId) {
+        this.movieId = movieId;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public void setLanguage(String language) {
+        this.language = language;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(LocalDateTime endTime) {
+        this.endTime = endTime;
+    }
+
+    public int getSeatPrice() {
+        return seatPrice;
+    }
+
+    public void setSeatPrice(int seatPrice) {
+        this.seatPrice = seatPrice;
+    }
+
+    public boolean isSparseInventory() {
+        return sparseInventory;
+    }
+
+    public void setSparseInventory(boolean sparseInventory) {
+        this.sparseInventory = sparseInventory;
+    }
+}
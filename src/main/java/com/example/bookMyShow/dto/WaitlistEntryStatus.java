@@ -0,0 +1,97 @@
+package com.example.bookMyShow.dto;
+
+import com.example.bookMyShow.model.constant.SeatType;
+import com.example.bookMyShow.model.constant.WaitlistStatus;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/*
+Place of a user on the waitlist of a show, once OFFERED the hold token confirms the offered seats.
+ */
+@Getter
+@Setter
+public class WaitlistEntryStatus {
+    private int entryId;
+    private int showId;
+    private WaitlistStatus status;
+    private long position; // entries ahead while WAITING
+    private int quantity;
+    private SeatType seatType;
+    private Integer ticketId;
+    private String holdToken; // pass it to POST /ticket/confirm before holdExpiresAt
+    private LocalDateTime holdExpiresAt;
+
+    public int getEntryId() {
+        return entryId;
+    }
+
+    public void setEntryId(int entryId) {
+        this.entryId = entryId;
+    }
+
+    public int getShowId() {
+        return showId;
+    }
+
+    public void setShowId(int showId) {
+        this.showId = showId;
+    }
+
+    public WaitlistStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(WaitlistStatus status) {
+        this.status = status;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public void setPosition(long position) {
+        this.position = position;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public SeatType getSeatType() {
+        return seatType;
+    }
+
+    public void setSeatType(SeatType seatType) {
+        this.seatType = seatType;
+    }
+
+    public Integer getTicketId() {
+        return ticketId;
+    }
+
+    public void setTicketId(Integer ticketId) {
+        this.ticketId = ticketId;
+    }
+
+    public String getHoldToken() {
+        return holdToken;
+    }
+
+    public void setHoldToken(String holdToken) {
+        this.holdToken = holdToken;
+    }
+
+    public LocalDateTime getHoldExpiresAt() {
+        return holdExpiresAt;
+    }
+
+    public void setHoldExpiresAt(LocalDateTime holdExpiresAt) {
+        this.holdExpiresAt = holdExpiresAt;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.bookMyShow.dto;
+
+import com.example.bookMyShow.model.constant.SeatType;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class WaitlistRequest {
+    private int showId;
+    private int userId;
+    private int quantity;
+    private SeatType seatType; // null for any type
+
+    public int getShowId() {
+        return showId;
+    }
+
+    public void setShowId(int showId) {
+        this.showId = showId;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public SeatType getSeatType() {
+        return seatType;
+    }
+
+    public void setSeatType(SeatType seatType) {
+        this.seatType = seatType;
+    }
+}
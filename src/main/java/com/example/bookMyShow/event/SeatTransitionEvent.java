@@ -0,0 +1,53 @@
+package com.example.bookMyShow.event;
+
+import com.example.bookMyShow.model.constant.SeatTransitionKind;
+import com.example.bookMyShow.model.constant.ShowSeatStatus;
+
+import java.util.List;
+
+/*
+Published by the seat writes inside their transaction, listeners that only care about committed
+changes use @TransactionalEventListener.
+ */
+public class SeatTransitionEvent {
+    private final int showId;
+    private final SeatTransitionKind kind;
+    private final ShowSeatStatus from; // null if not known, e.g. for SET
+    private final ShowSeatStatus to;
+    private final List<Integer> showSeatIds;
+    private final long occurredAtMillis;
+
+    public SeatTransitionEvent(int showId, SeatTransitionKind kind, ShowSeatStatus from, ShowSeatStatus to,
+                               List<Integer> showSeatIds) {
+        this.showId = showId;
+        this.kind = kind;
+        this.from = from;
+        this.to = to;
+        this.showSeatIds = showSeatIds;
+        this.occurredAtMillis = System.currentTimeMillis();
+    }
+
+    public int getShowId() {
+        return showId;
+    }
+
+    public SeatTransitionKind getKind() {
+        return kind;
+    }
+
+    public ShowSeatStatus getFrom() {
+        return from;
+    }
+
+    public ShowSeatStatus getTo() {
+        return to;
+    }
+
+    public List<Integer> getShowSeatIds() {
+        return showSeatIds;
+    }
+
+    public long getOccurredAtMillis() {
+        return occurredAtMillis;
+    }
+}
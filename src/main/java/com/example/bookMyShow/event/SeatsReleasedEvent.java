@@ -0,0 +1,25 @@
+package com.example.bookMyShow.event;
+
+import java.util.List;
+
+/*
+Published once seats of a show went back to AVAILABLE and the change is committed: a cancelled ticket,
+a released or expired hold, a failed payment.
+ */
+public class SeatsReleasedEvent {
+    private final int showId;
+    private final List<Integer> showSeatIds;
+
+    public SeatsReleasedEvent(int showId, List<Integer> showSeatIds) {
+        this.showId = showId;
+        this.showSeatIds = showSeatIds;
+    }
+
+    public int getShowId() {
+        return showId;
+    }
+
+    public List<Integer> getShowSeatIds() {
+        return showSeatIds;
+    }
+}
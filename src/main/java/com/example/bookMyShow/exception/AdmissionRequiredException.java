@@ -0,0 +1,15 @@
+package com.example.bookMyShow.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// the show is behind the waiting room and the request carries no valid admission token
+@ResponseStatus(HttpStatus.FORBIDDEN)
+public class AdmissionRequiredException extends RuntimeException {
+    public AdmissionRequiredException() {
+    }
+
+    public AdmissionRequiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.bookMyShow.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// the idempotency key is still being processed, or was used for a different request
+@ResponseStatus(HttpStatus.CONFLICT)
+public class IdempotencyConflictException extends RuntimeException {
+    public IdempotencyConflictException() {
+    }
+
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
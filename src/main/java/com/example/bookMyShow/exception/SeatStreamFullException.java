@@ -0,0 +1,14 @@
+package com.example.bookMyShow.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class SeatStreamFullException extends RuntimeException {
+    public SeatStreamFullException() {
+    }
+
+    public SeatStreamFullException(String message) {
+        super(message);
+    }
+}
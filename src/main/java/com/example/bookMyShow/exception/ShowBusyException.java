@@ -0,0 +1,15 @@
+package com.example.bookMyShow.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// too many bookings for the same show are queued on this node, the client should retry shortly
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ShowBusyException extends RuntimeException {
+    public ShowBusyException() {
+    }
+
+    public ShowBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.bookMyShow.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// the show seat was changed by someone else since it was read, re-read it and try again
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ShowSeatConflictException extends RuntimeException {
+    public ShowSeatConflictException() {
+    }
+
+    public ShowSeatConflictException(String message) {
+        super(message);
+    }
+}
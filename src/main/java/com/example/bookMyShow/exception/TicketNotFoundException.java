@@ -0,0 +1,10 @@
+package com.example.bookMyShow.exception;
+
+public class TicketNotFoundException extends RuntimeException {
+    public TicketNotFoundException() {
+    }
+
+    public TicketNotFoundException(String message){
+        super(message);
+    }
+}
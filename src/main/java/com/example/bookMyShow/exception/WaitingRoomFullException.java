@@ -0,0 +1,14 @@
+package com.example.bookMyShow.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class WaitingRoomFullException extends RuntimeException {
+    public WaitingRoomFullException() {
+    }
+
+    public WaitingRoomFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.bookMyShow.exception;
+
+public class WaitlistEntryNotFoundException extends RuntimeException {
+    public WaitlistEntryNotFoundException() {
+    }
+
+    public WaitlistEntryNotFoundException(String message) {
+        super(message);
+    }
+}
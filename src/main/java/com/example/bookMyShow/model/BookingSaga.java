@@ -0,0 +1,88 @@
+package com.example.bookMyShow.model;
+
+import com.example.bookMyShow.model.constant.SagaStep;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/*
+Progress of one booking, a single show or a cart, from the hold to its outcome. TicketService moves it
+forward at every step, so a booking cut short by a crash can be finished or undone by the saga recovery.
+Kept small on purpose: the recovery pages through the unfinished ones by (step, id) and reads the tickets
+and payments of a saga by key, it never scans the ticket table.
+ */
+@Getter
+@Setter
+@Entity
+@Table(indexes = @Index(name = "idx_booking_saga_step", columnList = "step, id"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_booking_saga_ticket", columnNames = "ticket_id"))
+public class BookingSaga extends BaseModel {
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private SagaStep step;
+    @Column(name = "ticket_id")
+    private Integer ticketId; // the ticket, or the first ticket of a cart
+    @Column(length = 36)
+    private String cartToken;
+    @Column(length = 4000)
+    private String showSeatIds; // comma separated, only kept until the ticket exists
+    private LocalDateTime holdExpiresAt;
+    @Column(length = 36)
+    private String holdId; // the seats are held under it, see ShowSeat.holdId
+
+    public SagaStep getStep() {
+        return step;
+    }
+
+    public void setStep(SagaStep step) {
+        this.step = step;
+    }
+
+    public Integer getTicketId() {
+        return ticketId;
+    }
+
+    public void setTicketId(Integer ticketId) {
+        this.ticketId = ticketId;
+    }
+
+    public String getCartToken() {
+        return cartToken;
+    }
+
+    public void setCartToken(String cartToken) {
+        this.cartToken = cartToken;
+    }
+
+    public String getShowSeatIds() {
+        return showSeatIds;
+    }
+
+    public void setShowSeatIds(String showSeatIds) {
+        this.showSeatIds = showSeatIds;
+    }
+
+    public LocalDateTime getHoldExpiresAt() {
+        return holdExpiresAt;
+    }
+
+    public void setHoldExpiresAt(LocalDateTime holdExpiresAt) {
+        this.holdExpiresAt = holdExpiresAt;
+    }
+
+    public String getHoldId() {
+        return holdId;
+    }
+
+    public void setHoldId(String holdId) {
+        this.holdId = holdId;
+    }
+}
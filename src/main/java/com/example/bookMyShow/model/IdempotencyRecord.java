@@ -0,0 +1,81 @@
+package com.example.bookMyShow.model;
+
+import com.example.bookMyShow.model.constant.IdempotencyStatus;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/*
+One request made with an Idempotency-Key. The unique key lets exactly one node claim the request,
+retries with the same key get the ticket or payment it produced instead of running it again.
+ */
+@Getter
+@Setter
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_record_key", columnNames = "idempotency_key"))
+public class IdempotencyRecord extends BaseModel {
+    @Column(name = "idempotency_key", length = 200)
+    private String idempotencyKey; // operation:client key
+    private String operation;
+    @Column(length = 64)
+    private String fingerprint; // SHA-256 of the request, a key reused for another request is rejected
+    @Enumerated(EnumType.STRING)
+    private IdempotencyStatus status;
+    private Integer resourceId; // ticket or payment id once COMPLETED
+    private LocalDateTime expiresAt;
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public IdempotencyStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(IdempotencyStatus status) {
+        this.status = status;
+    }
+
+    public Integer getResourceId() {
+        return resourceId;
+    }
+
+    public void setResourceId(Integer resourceId) {
+        this.resourceId = resourceId;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
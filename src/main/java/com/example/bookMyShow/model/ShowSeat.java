@@ -4,13 +4,21 @@ import com.example.bookMyShow.model.constant.ShowSeatStatus;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.time.LocalDateTime;
+
 @Getter
 @Setter
 @Entity
+@Table(indexes = @Index(name = "idx_show_seat_status_locked_until", columnList = "show_seat_status, locked_until"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_show_seat_show_seat", columnNames = {"show_id", "seat_id"}))
 public class ShowSeat extends BaseModel{
     private int price;
     @ManyToOne
@@ -19,6 +27,10 @@ public class ShowSeat extends BaseModel{
     private Seat seat;
     @Enumerated(EnumType.STRING)
     private ShowSeatStatus showSeatStatus;
+    private LocalDateTime lockedUntil; // deadline of a LOCKED seat, after that the hold expires
+    private String holdId; // hold of a LOCKED seat, so a late confirm or release of an earlier hold misses it
+    @Version // bumped by every write, a stale update fails instead of overwriting
+    private long version;
 
     public int getPrice() {
         return price;
@@ -51,4 +63,28 @@ public class ShowSeat extends BaseModel{
     public void setShowSeatStatus(ShowSeatStatus showSeatStatus) {
         this.showSeatStatus = showSeatStatus;
     }
+
+    public LocalDateTime getLockedUntil() {
+        return lockedUntil;
+    }
+
+    public void setLockedUntil(LocalDateTime lockedUntil) {
+        this.lockedUntil = lockedUntil;
+    }
+
+    public String getHoldId() {
+        return holdId;
+    }
+
+    public void setHoldId(String holdId) {
+        this.holdId = holdId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
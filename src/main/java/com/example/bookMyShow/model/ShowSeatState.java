@@ -0,0 +1,59 @@
+package com.example.bookMyShow.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.OneToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.Setter;
+
+/*
+Seat statuses of a whole show packed into one row, 2 bits per seat in auditorium layout order
+(see SeatBitmap.toBytes), so a 400 seat hall takes 100 bytes instead of 400 ShowSeat rows.
+The version is compared and bumped by every update, see ShowSeatStateRepository.compareAndSet.
+ */
+@Getter
+@Setter
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_show_seat_state_show", columnNames = "show_id"))
+public class ShowSeatState extends BaseModel {
+    @OneToOne
+    private Showw show;
+    private int seatCount;
+    @Column(length = 8192)
+    private byte[] seatStates;
+    private long version;
+
+    public Showw getShow() {
+        return show;
+    }
+
+    public void setShow(Showw show) {
+        this.show = show;
+    }
+
+    public int getSeatCount() {
+        return seatCount;
+    }
+
+    public void setSeatCount(int seatCount) {
+        this.seatCount = seatCount;
+    }
+
+    public byte[] getSeatStates() {
+        return seatStates;
+    }
+
+    public void setSeatStates(byte[] seatStates) {
+        this.seatStates = seatStates;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
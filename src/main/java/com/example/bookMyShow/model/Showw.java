@@ -19,10 +19,13 @@ public class Showw extends BaseModel{
     private Auditorium auditorium;
     @ManyToOne
     private Movie movie;
-    @OneToMany
+    @OneToMany(mappedBy = "show") // owned by ShowSeat.show, no join table rows to write per seat
     private List<ShowSeat> showSeats;
     @Enumerated(EnumType.STRING)
     private ShowStatus showStatus;
+    // only seats that were held or booked get a ShowSeat row, all others are AVAILABLE at defaultPrice
+    private boolean sparseInventory;
+    private int defaultPrice = 100;
 
     public LocalDateTime getStartTime() {
         return startTime;
@@ -79,4 +82,20 @@ public class Showw extends BaseModel{
     public void setShowStatus(ShowStatus showStatus) {
         this.showStatus = showStatus;
     }
+
+    public boolean isSparseInventory() {
+        return sparseInventory;
+    }
+
+    public void setSparseInventory(boolean sparseInventory) {
+        this.sparseInventory = sparseInventory;
+    }
+
+    public int getDefaultPrice() {
+        return defaultPrice;
+    }
+
+    public void setDefaultPrice(int defaultPrice) {
+        this.defaultPrice = defaultPrice;
+    }
 }
@@ -11,10 +11,11 @@ import java.util.List;
 @Getter
 @Setter
 @Entity
+@Table(indexes = @Index(name = "idx_ticket_cart_token", columnList = "cart_token"))
 public class Ticket extends BaseModel{
 
     private double totalCost;
-    @OneToMany
+    @ManyToMany // a seat can be on several tickets over time, e.g. after a cancelled or expired hold
     private List<ShowSeat> showSeats;
     @ManyToOne
     private Showw show;
@@ -25,7 +26,7 @@ public class Ticket extends BaseModel{
     private TicketStatus ticketStatus;
 
     // Add new fields
-    @OneToOne
+    @ManyToOne // the tickets of a cart share one payment
     private Payment payment; // Reference to Payment entity
 
     // Optional: If you need custom setter logic for cancelled
@@ -33,6 +34,12 @@ public class Ticket extends BaseModel{
 
     private boolean cancelled; // Cancellation status, default to false
 
+    @Column(unique = true)
+    private String holdToken; // handed out by the hold phase, used to confirm or release the booking; the seats
+                              // are held under it (ShowSeat.holdId), those of a cart under the cart token
+    private LocalDateTime holdExpiresAt; // same as ShowSeat.lockedUntil of the held seats
+    private String cartToken; // shared by the tickets of a cart, one per show, null for a single booking
+
     public double getTotalCost() {
         return totalCost;
     }
@@ -96,4 +103,28 @@ public class Ticket extends BaseModel{
     public void setCancelled(boolean cancelled) {
         this.cancelled = cancelled;
     }
+
+    public String getHoldToken() {
+        return holdToken;
+    }
+
+    public void setHoldToken(String holdToken) {
+        this.holdToken = holdToken;
+    }
+
+    public LocalDateTime getHoldExpiresAt() {
+        return holdExpiresAt;
+    }
+
+    public void setHoldExpiresAt(LocalDateTime holdExpiresAt) {
+        this.holdExpiresAt = holdExpiresAt;
+    }
+
+    public String getCartToken() {
+        return cartToken;
+    }
+
+    public void setCartToken(String cartToken) {
+        this.cartToken = cartToken;
+    }
 }
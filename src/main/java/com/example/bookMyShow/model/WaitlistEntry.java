@@ -0,0 +1,88 @@
+package com.example.bookMyShow.model;
+
+import com.example.bookMyShow.model.constant.SeatType;
+import com.example.bookMyShow.model.constant.WaitlistStatus;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/*
+A user waiting for seats of a sold out show. Entries are served first come first served by id,
+an entry that got seats is OFFERED and its ticket holds them until the ticket's holdExpiresAt.
+ */
+@Getter
+@Setter
+@Entity
+@Table(indexes = @Index(name = "idx_waitlist_entry_show_status", columnList = "show_id, status, id"))
+public class WaitlistEntry extends BaseModel {
+    @ManyToOne
+    private Showw show;
+    @ManyToOne
+    private User user;
+    private int quantity;
+    @Enumerated(EnumType.STRING)
+    private SeatType seatType; // null for any type
+    @Enumerated(EnumType.STRING)
+    private WaitlistStatus status;
+    @ManyToOne
+    private Ticket ticket; // the offered hold
+    private LocalDateTime offeredAt;
+
+    public Showw getShow() {
+        return show;
+    }
+
+    public void setShow(Showw show) {
+        this.show = show;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public SeatType getSeatType() {
+        return seatType;
+    }
+
+    public void setSeatType(SeatType seatType) {
+        this.seatType = seatType;
+    }
+
+    public WaitlistStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(WaitlistStatus status) {
+        this.status = status;
+    }
+
+    public Ticket getTicket() {
+        return ticket;
+    }
+
+    public void setTicket(Ticket ticket) {
+        this.ticket = ticket;
+    }
+
+    public LocalDateTime getOfferedAt() {
+        return offeredAt;
+    }
+
+    public void setOfferedAt(LocalDateTime offeredAt) {
+        this.offeredAt = offeredAt;
+    }
+}
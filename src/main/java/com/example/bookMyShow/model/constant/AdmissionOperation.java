@@ -0,0 +1,10 @@
+package com.example.bookMyShow.model.constant;
+
+// waiting room calls, run on the node owning the show when clustering is on
+public enum AdmissionOperation {
+    JOIN,
+    STATUS,
+    TAKE,
+    RESTORE,
+    CONSUME;
+}
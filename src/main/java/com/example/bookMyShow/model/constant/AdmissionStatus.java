@@ -0,0 +1,7 @@
+package com.example.bookMyShow.model.constant;
+
+public enum AdmissionStatus {
+    QUEUED,
+    ADMITTED,
+    EXPIRED;
+}
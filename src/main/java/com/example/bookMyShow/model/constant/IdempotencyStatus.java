@@ -0,0 +1,6 @@
+package com.example.bookMyShow.model.constant;
+
+public enum IdempotencyStatus {
+    IN_PROGRESS,
+    COMPLETED;
+}
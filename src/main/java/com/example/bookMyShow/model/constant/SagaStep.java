@@ -0,0 +1,9 @@
+package com.example.bookMyShow.model.constant;
+
+public enum SagaStep {
+    HELD, // seats locked, no ticket yet
+    TICKET_CREATED,
+    PAYMENT_PENDING,
+    CONFIRMED,
+    COMPENSATED; // holds released and tickets cancelled, a payment taken is refunded
+}
@@ -0,0 +1,11 @@
+package com.example.bookMyShow.model.constant;
+
+public enum SeatTransitionKind {
+    HOLD,
+    CONFIRM,
+    RELEASE,
+    EXPIRE,
+    CANCEL,
+    SET, // written directly, or the outcome of a partial transition read back from the database
+    ROLLBACK; // a transition the ledger recorded whose transaction did not commit, taken back
+}
@@ -0,0 +1,9 @@
+package com.example.bookMyShow.model.constant;
+
+public enum WaitlistStatus {
+    WAITING,
+    OFFERED,
+    BOOKED, // the offered hold was paid for
+    EXPIRED, // the offered hold ran out, was released or its payment failed
+    CANCELLED;
+}
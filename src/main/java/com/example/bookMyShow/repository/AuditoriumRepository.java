@@ -2,8 +2,16 @@ package com.example.bookMyShow.repository;
 
 import com.example.bookMyShow.model.Auditorium;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface AuditoriumRepository extends JpaRepository<Auditorium, Integer> {
+
+    // only the ids, seat entities are not needed to build show seats
+    @Query("SELECT s.id FROM Auditorium a JOIN a.seats s WHERE a.id = :auditoriumId ORDER BY s.id")
+    List<Integer> findSeatIdsByAuditoriumId(@Param("auditoriumId") int auditoriumId);
 }
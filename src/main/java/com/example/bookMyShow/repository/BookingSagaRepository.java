@@ -0,0 +1,52 @@
+package com.example.bookMyShow.repository;
+
+import com.example.bookMyShow.model.BookingSaga;
+import com.example.bookMyShow.model.constant.SagaStep;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BookingSagaRepository extends JpaRepository<BookingSaga, Integer> {
+
+    // keyset page: the sagas in one of the steps with an id above the last one seen, in id order
+    @Query("SELECT s FROM BookingSaga s WHERE s.step IN :steps AND s.id > :afterId ORDER BY s.id")
+    List<BookingSaga> findByStepAfter(@Param("steps") Collection<SagaStep> steps, @Param("afterId") int afterId,
+                                      Pageable pageable);
+
+    // moves the saga only if it is still in one of "from", returns 0 otherwise
+    @Transactional
+    @Modifying
+    @Query("UPDATE BookingSaga s SET s.step = :to, s.updatedAt = :now WHERE s.id = :id AND s.step IN :from")
+    int updateStep(@Param("id") int id, @Param("from") Collection<SagaStep> from, @Param("to") SagaStep to,
+                   @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE BookingSaga s SET s.step = :to, s.updatedAt = :now WHERE s.ticketId = :ticketId AND s.step IN :from")
+    int updateStepByTicketId(@Param("ticketId") int ticketId, @Param("from") Collection<SagaStep> from,
+                             @Param("to") SagaStep to, @Param("now") LocalDateTime now);
+
+    // lets one recovery worker take a saga: only the first to bump updatedAt from the value it read wins
+    @Transactional
+    @Modifying
+    @Query("UPDATE BookingSaga s SET s.updatedAt = :now WHERE s.id = :id AND s.step = :step AND s.updatedAt = :seen")
+    int claim(@Param("id") int id, @Param("step") SagaStep step, @Param("seen") LocalDateTime seen,
+              @Param("now") LocalDateTime now);
+
+    // the seats are known from the ticket from now on
+    @Transactional
+    @Modifying
+    @Query("UPDATE BookingSaga s SET s.step = :to, s.ticketId = :ticketId, s.cartToken = :cartToken, " +
+            "s.showSeatIds = null, s.updatedAt = :now WHERE s.id = :id AND s.step = :from")
+    int attachTicket(@Param("id") int id, @Param("ticketId") int ticketId, @Param("cartToken") String cartToken,
+                     @Param("from") SagaStep from, @Param("to") SagaStep to, @Param("now") LocalDateTime now);
+}
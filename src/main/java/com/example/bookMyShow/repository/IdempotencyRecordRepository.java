@@ -0,0 +1,41 @@
+package com.example.bookMyShow.repository;
+
+import com.example.bookMyShow.model.IdempotencyRecord;
+import com.example.bookMyShow.model.constant.IdempotencyStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Integer> {
+
+    Optional<IdempotencyRecord> findByIdempotencyKey(String idempotencyKey);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+
+    // only one of several requests taking over an expired record deletes it
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.expiresAt < :now")
+    int deleteExpiredById(@Param("id") int id, @Param("now") LocalDateTime now);
+
+    // extends the lease of a key still being processed, 0 once it completed or was taken over
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.expiresAt = :expiresAt WHERE r.id = :id AND r.status = :status")
+    int renewLease(@Param("id") int id, @Param("status") IdempotencyStatus status, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.status = :status")
+    int deleteByIdAndStatus(@Param("id") int id, @Param("status") IdempotencyStatus status);
+}
@@ -2,8 +2,17 @@ package com.example.bookMyShow.repository;
 
 import com.example.bookMyShow.model.Seat;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface SeatRepository extends JpaRepository<Seat, Integer> {
+
+    // [seatId, seatType] of the given seats
+    @Query("SELECT s.id, s.seatType FROM Seat s WHERE s.id IN :ids")
+    List<Object[]> findSeatTypesByIds(@Param("ids") Collection<Integer> ids);
 }
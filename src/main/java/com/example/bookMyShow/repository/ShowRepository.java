@@ -1,9 +1,40 @@
 package com.example.bookMyShow.repository;
 
 import com.example.bookMyShow.model.Showw;
+import com.example.bookMyShow.model.constant.ShowStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
 
 @Repository
 public interface ShowRepository extends JpaRepository<Showw, Integer> {
+
+    @Query("SELECT s.auditorium.id FROM Showw s WHERE s.id = :id")
+    Optional<Integer> findAuditoriumIdById(@Param("id") int id);
+
+    @Query("SELECT s.showStatus FROM Showw s WHERE s.id = :id")
+    Optional<ShowStatus> findShowStatusById(@Param("id") int id);
+
+    @Query("SELECT s.startTime FROM Showw s WHERE s.id = :id")
+    Optional<LocalDateTime> findStartTimeById(@Param("id") int id);
+
+    // changes the status only if it is still one of "from", returns 0 otherwise
+    @Transactional
+    @Modifying
+    @Query("UPDATE Showw s SET s.showStatus = :to WHERE s.id = :id AND s.showStatus IN :from")
+    int updateShowStatus(@Param("id") int id, @Param("from") Collection<ShowStatus> from, @Param("to") ShowStatus to);
+
+    // like updateShowStatus, for shows created without a status too
+    @Transactional
+    @Modifying
+    @Query("UPDATE Showw s SET s.showStatus = :to WHERE s.id = :id AND (s.showStatus IS NULL OR s.showStatus IN :from)")
+    int updateShowStatusOrUnset(@Param("id") int id, @Param("from") Collection<ShowStatus> from,
+                                @Param("to") ShowStatus to);
 }
@@ -1,9 +1,118 @@
 package com.example.bookMyShow.repository;
 
 import com.example.bookMyShow.model.ShowSeat;
+import com.example.bookMyShow.model.constant.ShowSeatStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ShowSeatRepository extends JpaRepository<ShowSeat, Integer> {
+
+    @Query("SELECT s.show.id FROM ShowSeat s WHERE s.id = :id")
+    Optional<Integer> findShowIdById(@Param("id") int id);
+
+    // [showSeatId, seatId, showSeatStatus] of every show seat row of a show, in seat order
+    @Query("SELECT s.id, s.seat.id, s.showSeatStatus FROM ShowSeat s WHERE s.show.id = :showId ORDER BY s.seat.id")
+    List<Object[]> findSeatStatesByShowId(@Param("showId") int showId);
+
+    // [showSeatId, showSeatStatus] of the given rows
+    @Query("SELECT s.id, s.showSeatStatus FROM ShowSeat s WHERE s.id IN :ids")
+    List<Object[]> findStatusesByIds(@Param("ids") Collection<Integer> ids);
+
+    @Query("SELECT s FROM ShowSeat s WHERE s.show.id = :showId AND s.seat.id IN :seatIds")
+    List<ShowSeat> findByShowIdAndSeatIds(@Param("showId") int showId, @Param("seatIds") Collection<Integer> seatIds);
+
+    @Query("SELECT s FROM ShowSeat s WHERE s.show.id = :showId")
+    List<ShowSeat> findByShowId(@Param("showId") int showId);
+
+    @Query("SELECT s FROM ShowSeat s WHERE s.show.id = :showId AND s.id IN :ids ORDER BY s.id")
+    List<ShowSeat> findByShowIdAndIds(@Param("showId") int showId, @Param("ids") Collection<Integer> ids);
+
+    // row locks are taken in id order, so overlapping holds never wait on each other in a cycle
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ShowSeat s WHERE s.show.id = :showId AND s.id IN :ids ORDER BY s.id")
+    List<ShowSeat> findForUpdate(@Param("showId") int showId, @Param("ids") Collection<Integer> ids);
+
+    // lock timeout -2 is SKIP LOCKED: rows locked by others are left out of the result
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT s FROM ShowSeat s WHERE s.show.id = :showId AND s.id IN :ids ORDER BY s.id")
+    List<ShowSeat> findForUpdateSkipLocked(@Param("showId") int showId, @Param("ids") Collection<Integer> ids);
+
+    // moves every seat that is still in status "from" in one statement, returns the number of rows changed
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ShowSeat s SET s.showSeatStatus = :to, s.lockedUntil = :lockedUntil, s.holdId = :holdId, " +
+            "s.version = s.version + 1 WHERE s.show.id = :showId AND s.id IN :ids AND s.showSeatStatus = :from")
+    int updateStatus(@Param("showId") int showId,
+                     @Param("ids") Collection<Integer> ids,
+                     @Param("from") ShowSeatStatus from,
+                     @Param("to") ShowSeatStatus to,
+                     @Param("lockedUntil") LocalDateTime lockedUntil,
+                     @Param("holdId") String holdId);
+
+    // like updateStatus but only for the seats of one hold, identified by its id
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ShowSeat s SET s.showSeatStatus = :to, s.lockedUntil = NULL, s.holdId = NULL, s.version = s.version + 1 " +
+            "WHERE s.show.id = :showId AND s.id IN :ids AND s.showSeatStatus = :from AND s.holdId = :holdId")
+    int updateHeldStatus(@Param("showId") int showId,
+                         @Param("ids") Collection<Integer> ids,
+                         @Param("from") ShowSeatStatus from,
+                         @Param("to") ShowSeatStatus to,
+                         @Param("holdId") String holdId);
+
+    // ids out of the given ones whose hold is over; a missing deadline is a hold from before holds expired
+    @Query("SELECT s.id FROM ShowSeat s WHERE s.id IN :ids AND s.showSeatStatus = :status " +
+            "AND (s.lockedUntil IS NULL OR s.lockedUntil <= :now)")
+    List<Integer> findExpiredLockIds(@Param("ids") Collection<Integer> ids,
+                                     @Param("status") ShowSeatStatus status,
+                                     @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ShowSeat s SET s.showSeatStatus = :to, s.lockedUntil = NULL, s.holdId = NULL, s.version = s.version + 1 " +
+            "WHERE s.id IN :ids AND s.showSeatStatus = :from AND (s.lockedUntil IS NULL OR s.lockedUntil <= :now)")
+    int releaseExpiredLocks(@Param("ids") Collection<Integer> ids,
+                            @Param("from") ShowSeatStatus from,
+                            @Param("to") ShowSeatStatus to,
+                            @Param("now") LocalDateTime now);
+
+    // [showId, showSeatId] of every expired hold, used once at startup
+    @Query("SELECT s.show.id, s.id FROM ShowSeat s WHERE s.showSeatStatus = :status " +
+            "AND (s.lockedUntil IS NULL OR s.lockedUntil <= :now)")
+    List<Object[]> findExpiredLocks(@Param("status") ShowSeatStatus status, @Param("now") LocalDateTime now);
+
+    // [showId, showSeatId, lockedUntil] of every hold that is still running, used once at startup
+    @Query("SELECT s.show.id, s.id, s.lockedUntil FROM ShowSeat s WHERE s.showSeatStatus = :status " +
+            "AND s.lockedUntil > :now")
+    List<Object[]> findLiveLocks(@Param("status") ShowSeatStatus status, @Param("now") LocalDateTime now);
+
+    // [showSeatId, showId, showSeatStatus, lockedUntil, holdId] of the given rows
+    @Query("SELECT s.id, s.show.id, s.showSeatStatus, s.lockedUntil, s.holdId FROM ShowSeat s WHERE s.id IN :ids")
+    List<Object[]> findHoldStatesByIds(@Param("ids") Collection<Integer> ids);
+
+    // [showSeatId, showSeatStatus, lockedUntil, holdId] of every show seat row of a show
+    @Query("SELECT s.id, s.showSeatStatus, s.lockedUntil, s.holdId FROM ShowSeat s WHERE s.show.id = :showId")
+    List<Object[]> findHoldStatesByShowId(@Param("showId") int showId);
+
+    // unconditional write of seats whose state is owned elsewhere, e.g. flushed from the write-ahead log
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ShowSeat s SET s.showSeatStatus = :status, s.lockedUntil = :lockedUntil, s.holdId = :holdId, " +
+            "s.version = s.version + 1 WHERE s.id IN :ids")
+    int overwriteStatus(@Param("ids") Collection<Integer> ids,
+                        @Param("status") ShowSeatStatus status,
+                        @Param("lockedUntil") LocalDateTime lockedUntil,
+                        @Param("holdId") String holdId);
 }
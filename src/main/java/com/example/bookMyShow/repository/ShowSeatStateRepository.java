@@ -0,0 +1,32 @@
+package com.example.bookMyShow.repository;
+
+import com.example.bookMyShow.model.ShowSeatState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface ShowSeatStateRepository extends JpaRepository<ShowSeatState, Integer> {
+
+    @Query("SELECT s FROM ShowSeatState s WHERE s.show.id = :showId")
+    Optional<ShowSeatState> findByShowId(@Param("showId") int showId);
+
+    // writes the new states only if nobody else wrote since they were read, returns 0 otherwise
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE ShowSeatState s SET s.seatStates = :seatStates, s.version = s.version + 1 " +
+            "WHERE s.show.id = :showId AND s.version = :version")
+    int compareAndSet(@Param("showId") int showId,
+                      @Param("version") long version,
+                      @Param("seatStates") byte[] seatStates);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ShowSeatState s WHERE s.show.id = :showId")
+    int deleteByShowId(@Param("showId") int showId);
+}
@@ -1,10 +1,16 @@
 package com.example.bookMyShow.repository;
 
 import com.example.bookMyShow.model.Ticket;
+import com.example.bookMyShow.model.constant.TicketStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 /*
@@ -13,4 +19,20 @@ I need to create an object of that and keep it available whereEver U inject I wi
  */
 public interface TicketRepository extends JpaRepository<Ticket, Integer> {
     List<Ticket> findByUserId(int userId);
+
+    @Query("SELECT t FROM Ticket t LEFT JOIN FETCH t.showSeats WHERE t.holdToken = :holdToken")
+    Optional<Ticket> findByHoldToken(@Param("holdToken") String holdToken);
+
+    @Query("SELECT t FROM Ticket t LEFT JOIN FETCH t.showSeats WHERE t.id = :id")
+    Optional<Ticket> findWithShowSeatsById(@Param("id") int id);
+
+    // the tickets of a cart in show order, the order its seats are held and booked in
+    @Query("SELECT t FROM Ticket t LEFT JOIN FETCH t.showSeats WHERE t.cartToken = :cartToken ORDER BY t.show.id")
+    List<Ticket> findByCartToken(@Param("cartToken") String cartToken);
+
+    // only one of several concurrent cancellations of a ticket moves it, the row count tells which
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Ticket t SET t.ticketStatus = :to, t.cancelled = true WHERE t.id = :id AND t.ticketStatus = :from")
+    int cancel(@Param("id") int id, @Param("from") TicketStatus from, @Param("to") TicketStatus to);
 }
@@ -0,0 +1,27 @@
+package com.example.bookMyShow.repository;
+
+import com.example.bookMyShow.model.WaitlistEntry;
+import com.example.bookMyShow.model.constant.WaitlistStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Integer> {
+
+    // oldest first, the order entries are served in
+    @Query("SELECT w FROM WaitlistEntry w WHERE w.show.id = :showId AND w.status = :status ORDER BY w.id")
+    List<WaitlistEntry> findByShowIdAndStatus(@Param("showId") int showId,
+                                              @Param("status") WaitlistStatus status,
+                                              Pageable pageable);
+
+    @Query("SELECT COUNT(w) FROM WaitlistEntry w WHERE w.show.id = :showId AND w.status = :status AND w.id < :id")
+    long countAhead(@Param("showId") int showId, @Param("status") WaitlistStatus status, @Param("id") int id);
+
+    @Query("SELECT COUNT(w) > 0 FROM WaitlistEntry w WHERE w.show.id = :showId AND w.status = :status")
+    boolean existsByShowIdAndStatus(@Param("showId") int showId, @Param("status") WaitlistStatus status);
+}
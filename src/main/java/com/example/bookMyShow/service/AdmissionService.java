@@ -0,0 +1,305 @@
+package com.example.bookMyShow.service;
+
+import com.example.bookMyShow.dto.AdmissionRequest;
+import com.example.bookMyShow.dto.WaitingRoomStatus;
+import com.example.bookMyShow.exception.AdmissionRequiredException;
+import com.example.bookMyShow.exception.WaitingRoomFullException;
+import com.example.bookMyShow.model.constant.AdmissionOperation;
+import com.example.bookMyShow.model.constant.AdmissionStatus;
+import com.example.bookMyShow.service.admission.QueueEntry;
+import com.example.bookMyShow.service.admission.WaitingRoom;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/*
+Virtual waiting room in front of the seat hold path.
+When a blockbuster opens, users join a bounded FIFO queue per show and poll their position; a tick lets
+them out at a fixed rate per show with an admission token, and only a valid token reaches the seat engine.
+Overload becomes fair queueing with a known wait instead of timeouts and a collapsing database.
+Disabled by default, then holds need no token.
+With clustering on, every call is run by the node owning the show, so a token is checked where it was issued;
+queue IDs start with the show ID so a status poll can be routed there too.
+ */
+@Service
+public class AdmissionService {
+
+    @Value("${bookmyshow.waiting-room.enabled:false}")
+    private boolean enabled;
+    @Value("${bookmyshow.waiting-room.capacity:50000}")
+    private int capacity;
+    @Value("${bookmyshow.waiting-room.admissions-per-second:50}")
+    private double admissionsPerSecond;
+    @Value("${bookmyshow.waiting-room.burst:50}")
+    private int burst;
+    @Value("${bookmyshow.waiting-room.token-ttl-seconds:120}")
+    private long tokenTtlSeconds;
+    @Value("${bookmyshow.waiting-room.tick-millis:100}")
+    private long tickMillis;
+
+    private final Map<Integer, WaitingRoom> rooms = new ConcurrentHashMap<>();
+    private final Map<String, QueueEntry> entriesByQueueId = new ConcurrentHashMap<>();
+    private final Map<String, QueueEntry> entriesByUser = new ConcurrentHashMap<>();
+    private final Map<String, QueueEntry> entriesByToken = new ConcurrentHashMap<>();
+    // tokens of holds in flight, taken out so a second hold cannot use them at the same time
+    private final Map<String, QueueEntry> takenByToken = new ConcurrentHashMap<>();
+
+    // runs a call on the node owning its show, replaced by ClusterService while clustering is on
+    private volatile Function<AdmissionRequest, WaitingRoomStatus> router = this::runLocally;
+
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "waiting-room");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void start() {
+        ticker.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Send every call to the node owning its show, which may be this one
+     * @param router Runs a call on the owner, ending in runLocally there
+     */
+    public void setRouter(Function<AdmissionRequest, WaitingRoomStatus> router) {
+        this.router = router;
+    }
+
+    /**
+     * Run a call on this node, for calls routed here by the owner lookup
+     * @param request Waiting room call
+     * @return Place in the queue for JOIN and STATUS, null otherwise
+     */
+    public WaitingRoomStatus runLocally(AdmissionRequest request) {
+        switch (request.getOperation()) {
+            case JOIN:
+                return joinLocally(request.getShowId(), request.getUserId());
+            case STATUS:
+                return getStatusLocally(request.getQueueId());
+            case TAKE:
+                take(request.getShowId(), request.getUserId(), request.getAdmissionToken());
+                return null;
+            case RESTORE:
+                restoreLocally(request.getAdmissionToken());
+                return null;
+            case CONSUME:
+                consumeLocally(request.getAdmissionToken());
+                return null;
+            default:
+                throw new IllegalArgumentException("Unknown waiting room call " + request.getOperation());
+        }
+    }
+
+    /**
+     * Join the queue of a show, joining again returns the existing place
+     * @param showId Show ID
+     * @param userId User ID
+     * @return Place in the queue
+     * @throws WaitingRoomFullException if the queue of the show is full
+     */
+    public WaitingRoomStatus join(int showId, int userId) {
+        return router.apply(request(AdmissionOperation.JOIN, showId, userId, null, null));
+    }
+
+    private WaitingRoomStatus joinLocally(int showId, int userId) {
+        QueueEntry existing = entriesByUser.get(userKey(showId, userId));
+        if (existing != null) {
+            return statusOf(existing);
+        }
+        WaitingRoom room = rooms.computeIfAbsent(showId, WaitingRoom::new);
+        // the user key is taken while joining, so two concurrent joins of a user put one entry in the queue
+        boolean[] joined = new boolean[1];
+        QueueEntry entry = entriesByUser.computeIfAbsent(userKey(showId, userId), key -> {
+            joined[0] = true;
+            return room.join(showId + "-" + UUID.randomUUID(), userId, capacity);
+        });
+        if (entry == null) {
+            throw new WaitingRoomFullException("The waiting room of show " + showId + " is full, please try again later");
+        }
+        if (joined[0]) {
+            entriesByQueueId.put(entry.getQueueId(), entry);
+        }
+        return statusOf(entry);
+    }
+
+    /**
+     * Poll the place of a queue entry
+     * @param queueId Queue ID returned by join
+     * @return Status, EXPIRED if the entry is unknown or its token ran out
+     */
+    public WaitingRoomStatus getStatus(String queueId) {
+        int separator = queueId.indexOf('-');
+        int showId;
+        try {
+            showId = Integer.parseInt(queueId.substring(0, Math.max(separator, 0)));
+        } catch (NumberFormatException e) {
+            return getStatusLocally(queueId); // not one of ours, unknown
+        }
+        return router.apply(request(AdmissionOperation.STATUS, showId, 0, queueId, null));
+    }
+
+    private WaitingRoomStatus getStatusLocally(String queueId) {
+        QueueEntry entry = entriesByQueueId.get(queueId);
+        if (entry == null) {
+            WaitingRoomStatus status = new WaitingRoomStatus();
+            status.setQueueId(queueId);
+            status.setAdmissionStatus(AdmissionStatus.EXPIRED);
+            return status;
+        }
+        return statusOf(entry);
+    }
+
+    /**
+     * Let a seat hold through if the user was admitted for the show. The token is taken out at once,
+     * so one admission lets only one hold through at a time: pass it to consume once the hold
+     * succeeded, or to restoreAdmission if it failed.
+     * @throws AdmissionRequiredException if the waiting room is on and the token is missing, expired, in use
+     * or not for this show and user
+     */
+    public void checkAdmission(int showId, int userId, String admissionToken) {
+        if (enabled) {
+            router.apply(request(AdmissionOperation.TAKE, showId, userId, null, admissionToken));
+        }
+    }
+
+    private void take(int showId, int userId, String admissionToken) {
+        QueueEntry entry = admissionToken == null ? null : entriesByToken.get(admissionToken);
+        if (entry != null && (entry.getShowId() != showId || entry.getUserId() != userId)) {
+            entry = null;
+        }
+        if (entry != null && entry.getTokenExpiresAtMillis() < System.currentTimeMillis()) {
+            remove(entry);
+            entry = null;
+        }
+        // only one of several holds racing with the same token gets it
+        if (entry == null || !entriesByToken.remove(admissionToken, entry)) {
+            throw new AdmissionRequiredException("Show " + showId + " is behind the waiting room, join it with POST /waitingRoom/"
+                    + showId + " and hold seats with the admission token");
+        }
+        takenByToken.put(admissionToken, entry);
+    }
+
+    /**
+     * Give a token taken by checkAdmission back after the hold it admitted failed, it can be used again until it expires
+     * @param showId Show ID the token was checked for
+     * @param admissionToken Admission token
+     */
+    public void restoreAdmission(int showId, String admissionToken) {
+        if (enabled && admissionToken != null) {
+            router.apply(request(AdmissionOperation.RESTORE, showId, 0, null, admissionToken));
+        }
+    }
+
+    /**
+     * Use up a token after the hold it admitted succeeded
+     * @param showId Show ID the token was checked for
+     * @param admissionToken Admission token
+     */
+    public void consume(int showId, String admissionToken) {
+        if (enabled && admissionToken != null) {
+            router.apply(request(AdmissionOperation.CONSUME, showId, 0, null, admissionToken));
+        }
+    }
+
+    private void restoreLocally(String admissionToken) {
+        QueueEntry entry = takenByToken.remove(admissionToken);
+        if (entry != null) {
+            entriesByToken.put(admissionToken, entry);
+        }
+    }
+
+    private void consumeLocally(String admissionToken) {
+        QueueEntry entry = takenByToken.remove(admissionToken);
+        if (entry == null) {
+            entry = entriesByToken.get(admissionToken);
+        }
+        if (entry != null) {
+            remove(entry);
+        }
+    }
+
+    public int getQueueLength(int showId) {
+        WaitingRoom room = rooms.get(showId);
+        return room == null ? 0 : room.size();
+    }
+
+    private void tick() {
+        try {
+            long now = System.currentTimeMillis();
+            for (WaitingRoom room : rooms.values()) {
+                for (QueueEntry entry : room.admit(admissionsPerSecond, burst)) {
+                    String token = UUID.randomUUID().toString();
+                    entry.admit(token, now + tokenTtlSeconds * 1000);
+                    entriesByToken.put(token, entry);
+                }
+            }
+            for (QueueEntry entry : entriesByToken.values()) {
+                if (entry.getTokenExpiresAtMillis() < now) {
+                    remove(entry);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Waiting room tick failed: " + e.getMessage());
+        }
+    }
+
+    private void remove(QueueEntry entry) {
+        if (entry.getAdmissionToken() != null) {
+            entriesByToken.remove(entry.getAdmissionToken());
+        }
+        entriesByQueueId.remove(entry.getQueueId());
+        entriesByUser.remove(userKey(entry.getShowId(), entry.getUserId()), entry);
+    }
+
+    private WaitingRoomStatus statusOf(QueueEntry entry) {
+        WaitingRoomStatus status = new WaitingRoomStatus();
+        status.setQueueId(entry.getQueueId());
+        status.setShowId(entry.getShowId());
+        if (entry.getAdmissionToken() != null) {
+            status.setAdmissionStatus(AdmissionStatus.ADMITTED);
+            status.setAdmissionToken(entry.getAdmissionToken());
+            status.setTokenExpiresAt(Instant.ofEpochMilli(entry.getTokenExpiresAtMillis()));
+            return status;
+        }
+        long position = rooms.get(entry.getShowId()).positionOf(entry);
+        status.setAdmissionStatus(AdmissionStatus.QUEUED);
+        status.setPosition(position);
+        status.setEstimatedWaitSeconds((long) Math.ceil(position / admissionsPerSecond));
+        return status;
+    }
+
+    private static AdmissionRequest request(AdmissionOperation operation, int showId, int userId,
+                                            String queueId, String admissionToken) {
+        AdmissionRequest request = new AdmissionRequest();
+        request.setOperation(operation);
+        request.setShowId(showId);
+        request.setUserId(userId);
+        request.setQueueId(queueId);
+        request.setAdmissionToken(admissionToken);
+        return request;
+    }
+
+    private static String userKey(int showId, int userId) {
+        return showId + ":" + userId;
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.bookMyShow.service;
+
+import com.example.bookMyShow.exception.PaymentProcessingException;
+import com.example.bookMyShow.model.BookingSaga;
+import com.example.bookMyShow.model.Payment;
+import com.example.bookMyShow.model.Ticket;
+import com.example.bookMyShow.model.constant.PaymentStatus;
+import com.example.bookMyShow.model.constant.SagaStep;
+import com.example.bookMyShow.model.constant.TicketStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+Finishes or undoes bookings left half done by a crash, from their saga rows. Runs after startup and then
+periodically, paging through the unfinished sagas by id and working on each page in parallel.
+A saga is only touched once it has not moved for a while, a live booking finishes in seconds:
+HELD - the ticket was never written, the hold is released
+TICKET_CREATED - not paid yet, undone once the hold expired, until then the user may still confirm
+PAYMENT_PENDING - the gateway is asked for the outcome, a paid booking is booked (or refunded if its
+                  holds expired meanwhile), an unpaid one is undone
+Tickets and payments are read by key, the ticket table is never scanned.
+ */
+@Service
+public class BookingSagaRecoveryService {
+
+    @Autowired
+    private BookingSagaService bookingSagaService;
+    @Autowired
+    private TicketService ticketService;
+    @Autowired
+    private PaymentService paymentService;
+    @Value("${bookmyshow.saga.recovery.batch-size:200}")
+    private int batchSize;
+    @Value("${bookmyshow.saga.recovery.threads:4}")
+    private int threads;
+    @Value("${bookmyshow.saga.recovery.interval-seconds:60}")
+    private long intervalSeconds;
+    @Value("${bookmyshow.saga.recovery.stale-after-seconds:120}")
+    private long staleAfterSeconds;
+
+    private ExecutorService workers;
+    private final LongAdder confirmed = new LongAdder();
+    private final LongAdder compensated = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "saga-recovery");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger count = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "saga-recovery-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    // the first run picks up what the previous run of this node left behind
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleRecovery() {
+        scheduler.scheduleWithFixedDelay(this::recoverQuietly, 0, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Look at every unfinished saga once
+     * @return Number of sagas seen
+     */
+    public int recover() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime staleBefore = now.minusSeconds(staleAfterSeconds);
+        int seen = 0;
+        int afterId = 0;
+        while (true) {
+            List<BookingSaga> page = bookingSagaService.findInFlight(afterId, batchSize);
+            if (page.isEmpty()) {
+                break;
+            }
+            List<CompletableFuture<Void>> running = new ArrayList<>(page.size());
+            for (BookingSaga saga : page) {
+                running.add(CompletableFuture.runAsync(() -> recover(saga, now, staleBefore), workers));
+            }
+            CompletableFuture.allOf(running.toArray(new CompletableFuture[0])).join();
+            seen += page.size();
+            afterId = page.get(page.size() - 1).getId();
+            if (page.size() < batchSize) {
+                break;
+            }
+        }
+        return seen;
+    }
+
+    public long getConfirmed() {
+        return confirmed.sum();
+    }
+
+    public long getCompensated() {
+        return compensated.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    private void recoverQuietly() {
+        try {
+            long confirmedBefore = confirmed.sum();
+            long compensatedBefore = compensated.sum();
+            int seen = recover();
+            if (seen > 0) {
+                System.out.println("Saga recovery: " + seen + " unfinished sagas, confirmed "
+                        + (confirmed.sum() - confirmedBefore) + ", compensated " + (compensated.sum() - compensatedBefore));
+            }
+        } catch (RuntimeException e) {
+            // the next run starts over
+            System.err.println("Saga recovery failed: " + e.getMessage());
+        }
+    }
+
+    private void recover(BookingSaga saga, LocalDateTime now, LocalDateTime staleBefore) {
+        if (saga.getUpdatedAt() != null && saga.getUpdatedAt().isAfter(staleBefore)) {
+            return; // a live booking may still move it
+        }
+        boolean holdExpired = saga.getHoldExpiresAt() == null || saga.getHoldExpiresAt().isBefore(now);
+        if (saga.getStep() == SagaStep.TICKET_CREATED && !holdExpired) {
+            return; // the user may still confirm
+        }
+        if (!bookingSagaService.claim(saga)) {
+            return; // another node is on it
+        }
+        try {
+            switch (saga.getStep()) {
+                case HELD -> {
+                    ticketService.releaseAbandonedHold(showSeatIdsOf(saga), saga.getHoldId());
+                    finish(saga, SagaStep.COMPENSATED);
+                }
+                case TICKET_CREATED -> {
+                    List<Ticket> tickets = ticketService.getTicketsOfSaga(saga);
+                    if (!settle(saga, tickets)) {
+                        ticketService.abandonBooking(tickets);
+                        finish(saga, SagaStep.COMPENSATED);
+                    }
+                }
+                case PAYMENT_PENDING -> recoverPayment(saga, holdExpired);
+                default -> {
+                }
+            }
+        } catch (RuntimeException e) {
+            failed.increment();
+            System.err.println("Could not recover booking saga " + saga.getId() + ": " + e.getMessage());
+        }
+    }
+
+    private void recoverPayment(BookingSaga saga, boolean holdExpired) {
+        List<Ticket> tickets = ticketService.getTicketsOfSaga(saga);
+        if (settle(saga, tickets)) {
+            return;
+        }
+        Payment payment = null;
+        for (Payment candidate : paymentService.getPaymentsByTicketId(tickets.get(0).getId())) {
+            // refunds point at their original payment, the charge of the booking is the latest without one
+            if (candidate.getOriginalPayment() == null && (payment == null || candidate.getId() > payment.getId())) {
+                payment = candidate;
+            }
+        }
+        if (payment == null) {
+            // the node died before the payment was recorded, nothing was charged
+            if (holdExpired) {
+                ticketService.abandonBooking(tickets);
+                finish(saga, SagaStep.COMPENSATED);
+            }
+            return;
+        }
+        if (payment.getPaymentStatus() == PaymentStatus.PENDING) {
+            try {
+                payment = paymentService.verifyPaymentStatus(payment.getId());
+            } catch (PaymentProcessingException e) {
+                failed.increment();
+                System.err.println("Could not verify payment " + payment.getId() + " of booking saga " + saga.getId()
+                        + ": " + e.getMessage());
+                return;
+            }
+        }
+        if (payment.getPaymentStatus() == PaymentStatus.PENDING) {
+            return; // the gateway does not know yet, asked again on the next run
+        }
+        try {
+            ticketService.resumeBooking(tickets, payment);
+            confirmed.increment();
+        } catch (PaymentProcessingException e) {
+            // not paid, or paid too late and refunded, the booking was undone and its saga compensated
+            compensated.increment();
+        }
+    }
+
+    // the booking got further than its saga, e.g. the node died right after writing the tickets
+    private boolean settle(BookingSaga saga, List<Ticket> tickets) {
+        boolean booked = !tickets.isEmpty();
+        for (Ticket ticket : tickets) {
+            if (ticket.getTicketStatus() == TicketStatus.INPROGRESS) {
+                return false;
+            }
+            booked &= ticket.getTicketStatus() == TicketStatus.BOOKED;
+        }
+        finish(saga, booked ? SagaStep.CONFIRMED : SagaStep.COMPENSATED);
+        return true;
+    }
+
+    private void finish(BookingSaga saga, SagaStep step) {
+        if (bookingSagaService.updateStep(saga.getId(), EnumSet.of(saga.getStep()), step)) {
+            (step == SagaStep.CONFIRMED ? confirmed : compensated).increment();
+        }
+    }
+
+    private static List<Integer> showSeatIdsOf(BookingSaga saga) {
+        List<Integer> ids = new ArrayList<>();
+        if (saga.getShowSeatIds() != null && !saga.getShowSeatIds().isBlank()) {
+            for (String id : saga.getShowSeatIds().split(",")) {
+                ids.add(Integer.parseInt(id.trim()));
+            }
+        }
+        return ids;
+    }
+}
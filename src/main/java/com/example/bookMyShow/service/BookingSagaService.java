@@ -0,0 +1,116 @@
+package com.example.bookMyShow.service;
+
+import com.example.bookMyShow.model.BookingSaga;
+import com.example.bookMyShow.model.Ticket;
+import com.example.bookMyShow.model.constant.SagaStep;
+import com.example.bookMyShow.repository.BookingSagaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/*
+Records the steps of a booking saga: HELD -> TICKET_CREATED -> PAYMENT_PENDING -> CONFIRMED, or
+COMPENSATED from any of the first three. Every step is a conditional UPDATE of one small row, so a step
+that comes late, e.g. from the saga recovery racing a slow booking, never moves a saga backwards.
+ */
+@Service
+public class BookingSagaService {
+    public static final Set<SagaStep> IN_FLIGHT = EnumSet.of(SagaStep.HELD, SagaStep.TICKET_CREATED, SagaStep.PAYMENT_PENDING);
+
+    @Autowired
+    private BookingSagaRepository bookingSagaRepository;
+
+    /**
+     * Start the saga of a booking whose seats were just held
+     * @param showSeatIds Held show seats
+     * @param holdExpiresAt Deadline of the hold
+     * @param holdId Id the seats are held under
+     * @return Saga in step HELD
+     */
+    public BookingSaga start(List<Integer> showSeatIds, LocalDateTime holdExpiresAt, String holdId) {
+        BookingSaga saga = new BookingSaga();
+        saga.setStep(SagaStep.HELD);
+        saga.setShowSeatIds(showSeatIds.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        saga.setHoldExpiresAt(holdExpiresAt);
+        saga.setHoldId(holdId);
+        return bookingSagaRepository.save(saga);
+    }
+
+    /**
+     * HELD -> TICKET_CREATED
+     * @param saga Saga of the booking
+     * @param ticket The ticket, or the first ticket of a cart
+     */
+    public void ticketCreated(BookingSaga saga, Ticket ticket) {
+        bookingSagaRepository.attachTicket(saga.getId(), ticket.getId(), ticket.getCartToken(),
+                SagaStep.HELD, SagaStep.TICKET_CREATED, LocalDateTime.now());
+    }
+
+    /**
+     * TICKET_CREATED -> PAYMENT_PENDING, right before the gateway is called
+     * @param ticketId The ticket, or the first ticket of a cart
+     */
+    public void paymentPending(int ticketId) {
+        bookingSagaRepository.updateStepByTicketId(ticketId, EnumSet.of(SagaStep.TICKET_CREATED),
+                SagaStep.PAYMENT_PENDING, LocalDateTime.now());
+    }
+
+    /**
+     * PAYMENT_PENDING -> CONFIRMED
+     * @param ticketId The ticket, or the first ticket of a cart
+     */
+    public void confirmed(int ticketId) {
+        bookingSagaRepository.updateStepByTicketId(ticketId, EnumSet.of(SagaStep.PAYMENT_PENDING),
+                SagaStep.CONFIRMED, LocalDateTime.now());
+    }
+
+    /**
+     * Any unfinished step -> COMPENSATED, nothing happens for a ticket without a saga
+     * @param ticketId The ticket, or the first ticket of a cart
+     */
+    public void compensated(int ticketId) {
+        bookingSagaRepository.updateStepByTicketId(ticketId, IN_FLIGHT, SagaStep.COMPENSATED, LocalDateTime.now());
+    }
+
+    /**
+     * HELD -> COMPENSATED, for a hold given up before its ticket existed
+     * @param saga Saga of the booking
+     */
+    public void compensated(BookingSaga saga) {
+        bookingSagaRepository.updateStep(saga.getId(), EnumSet.of(SagaStep.HELD), SagaStep.COMPENSATED, LocalDateTime.now());
+    }
+
+    /**
+     * Move a saga on if it is still in one of the given steps
+     * @return true if this call moved it
+     */
+    public boolean updateStep(int sagaId, Set<SagaStep> from, SagaStep to) {
+        return bookingSagaRepository.updateStep(sagaId, from, to, LocalDateTime.now()) > 0;
+    }
+
+    /**
+     * Take a saga for recovery, so no other node works on it at the same time
+     * @param saga Saga as read, its updatedAt is compared
+     * @return true if this call took it
+     */
+    public boolean claim(BookingSaga saga) {
+        return saga.getUpdatedAt() != null
+                && bookingSagaRepository.claim(saga.getId(), saga.getStep(), saga.getUpdatedAt(), LocalDateTime.now()) > 0;
+    }
+
+    /**
+     * One page of the unfinished sagas, by keyset on the id so every page is an index range read
+     * @param afterId Last id of the previous page, 0 for the first
+     * @param limit Page size
+     * @return Sagas in id order
+     */
+    public List<BookingSaga> findInFlight(int afterId, int limit) {
+        return bookingSagaRepository.findByStepAfter(IN_FLIGHT, afterId, PageRequest.of(0, limit));
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.bookMyShow.service;
+
+import com.example.bookMyShow.dto.AdmissionRequest;
+import com.example.bookMyShow.dto.BestAvailableRequest;
+import com.example.bookMyShow.dto.BookingResponse;
+import com.example.bookMyShow.dto.HoldRequest;
+import com.example.bookMyShow.dto.SeatChange;
+import com.example.bookMyShow.dto.WaitingRoomStatus;
+import com.example.bookMyShow.event.SeatTransitionEvent;
+import com.example.bookMyShow.exception.SelectedSeatsNotAvailableException;
+import com.example.bookMyShow.model.Ticket;
+import com.example.bookMyShow.service.cluster.ClusterNode;
+import com.example.bookMyShow.service.cluster.HttpNodeTransport;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.client.RestClient;
+
+import java.util.Map;
+import java.util.Objects;
+
+/*
+Splits seat inventory ownership across the nodes of a deployment by consistent hashing on the show ID.
+Holds of a show are run by the one node that owns it, every other node forwards them there, so the
+show lock, the in-memory inventory and the ShowSeat rows of a show are only contended on one node.
+Members are listed in bookmyshow.cluster.members and can join or leave at runtime through /cluster/members;
+when the ring changes, cached inventories of the shows that moved are dropped and reloaded by the new owner.
+Seat writes that still run on any node (confirm, release, carts, cancellations, expiry) are sent to the owner
+once committed, so its in-memory inventory, seat map and counters follow them; the writing node drops its own copy.
+The waiting room of a show runs on its owner, so admission tokens are checked where they were issued.
+With the cluster disabled every hold runs locally.
+ */
+@Service
+public class ClusterService {
+
+    @Autowired
+    private TicketService ticketService;
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+    @Autowired
+    private SeatMapService seatMapService;
+    @Autowired
+    private ShowAvailabilityService showAvailabilityService;
+    @Autowired
+    private AdmissionService admissionService;
+    @Value("${bookmyshow.cluster.enabled:false}")
+    private boolean enabled;
+    @Value("${bookmyshow.cluster.node-id:node-1}")
+    private String nodeId;
+    @Value("${bookmyshow.cluster.url:http://localhost:8080}")
+    private String url;
+    @Value("${bookmyshow.cluster.members:}")
+    private String members;
+    @Value("${bookmyshow.cluster.virtual-nodes:128}")
+    private int virtualNodes;
+    @Value("${bookmyshow.cluster.timeout-ms:2000}")
+    private int timeoutMs;
+
+    private ClusterNode node;
+
+    @PostConstruct
+    public void start() {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeoutMs);
+        requestFactory.setReadTimeout(timeoutMs);
+        RestClient restClient = RestClient.builder().requestFactory(requestFactory).build();
+
+        node = new ClusterNode(nodeId, url, virtualNodes,
+                new HttpNodeTransport(restClient, memberId -> node.urlOf(memberId)),
+                new ClusterNode.LocalHandler() {
+                    @Override
+                    public BookingResponse hold(HoldRequest request, String idempotencyKey)
+                            throws SelectedSeatsNotAvailableException {
+                        return holdLocally(request, idempotencyKey);
+                    }
+
+                    @Override
+                    public BookingResponse holdBestAvailable(BestAvailableRequest request, String idempotencyKey)
+                            throws SelectedSeatsNotAvailableException {
+                        return holdBestAvailableLocally(request, idempotencyKey);
+                    }
+
+                    @Override
+                    public void seatsChanged(SeatChange change) {
+                        applySeatChange(change);
+                    }
+
+                    @Override
+                    public WaitingRoomStatus admission(AdmissionRequest request) {
+                        return admissionService.runLocally(request);
+                    }
+                },
+                seatInventoryService::findShowId);
+        // a show that moved is reloaded from the database by whoever owns it now
+        node.setRebalanceListener((before, after) -> seatInventoryService.evictIf(
+                showId -> !Objects.equals(before.nodeFor(showId), after.nodeFor(showId))));
+
+        if (!enabled) {
+            return;
+        }
+        admissionService.setRouter(request -> node.admission(request));
+        // members are listed as id=url pairs, e.g. node-2=http://10.0.0.6:8080
+        for (String member : members.split(",")) {
+            int separator = member.indexOf('=');
+            if (separator > 0) {
+                node.join(member.substring(0, separator).trim(), member.substring(separator + 1).trim(), false);
+            }
+        }
+        System.out.println("Cluster: node " + nodeId + " with members " + node.getMembers().keySet());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (enabled && node.getMembers().size() > 1) {
+            // hand the shows of this node to the others before it goes away
+            node.leave(nodeId, true);
+        }
+    }
+
+    /**
+     * Hold seats on the node owning their show
+     * @param request Hold request, either show seat IDs or a show with seat IDs
+     * @param idempotencyKey Key chosen by the client, may be null
+     * @return Hold created by the owner
+     */
+    public BookingResponse hold(HoldRequest request, String idempotencyKey) throws SelectedSeatsNotAvailableException {
+        return enabled ? node.hold(request, idempotencyKey) : holdLocally(request, idempotencyKey);
+    }
+
+    /**
+     * Hold the best available seats on the node owning the show
+     * @param request Best available request
+     * @param idempotencyKey Key chosen by the client, may be null
+     * @return Hold created by the owner
+     */
+    public BookingResponse holdBestAvailable(BestAvailableRequest request, String idempotencyKey)
+            throws SelectedSeatsNotAvailableException {
+        return enabled ? node.holdBestAvailable(request, idempotencyKey) : holdBestAvailableLocally(request, idempotencyKey);
+    }
+
+    /**
+     * Run a hold forwarded by another node, it is not forwarded again
+     */
+    public BookingResponse holdForwarded(HoldRequest request, String idempotencyKey)
+            throws SelectedSeatsNotAvailableException {
+        return node.holdLocally(request, idempotencyKey);
+    }
+
+    /**
+     * Run a best available hold forwarded by another node, it is not forwarded again
+     */
+    public BookingResponse holdBestAvailableForwarded(BestAvailableRequest request, String idempotencyKey)
+            throws SelectedSeatsNotAvailableException {
+        return node.holdBestAvailableLocally(request, idempotencyKey);
+    }
+
+    /**
+     * Apply seats another node moved in a show this node owns
+     */
+    public void seatsChangedForwarded(SeatChange change) {
+        node.seatsChangedLocally(change);
+    }
+
+    /**
+     * Run a waiting room call forwarded by another node, it is not forwarded again
+     */
+    public WaitingRoomStatus admissionForwarded(AdmissionRequest request) {
+        return node.admissionLocally(request);
+    }
+
+    // a seat write on a node that does not own the show: the owner follows it, this node's copy is dropped
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSeatTransition(SeatTransitionEvent event) {
+        if (!enabled || event.getShowSeatIds().isEmpty() || node.owns(event.getShowId())) {
+            return;
+        }
+        seatInventoryService.evict(event.getShowId());
+        try {
+            node.seatsChanged(SeatChange.from(event));
+        } catch (RuntimeException e) {
+            // the write is committed, the owner catches up when the show is reloaded
+            System.err.println("Could not tell the owner of show " + event.getShowId() + " about changed seats: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Add a member to the ring
+     * @param memberId Node that joined
+     * @param memberUrl Base URL of that node
+     * @param announce Whether to tell the other members
+     */
+    public void join(String memberId, String memberUrl, boolean announce) {
+        node.join(memberId, memberUrl, announce);
+    }
+
+    /**
+     * Remove a member from the ring
+     * @param memberId Node that left
+     * @param announce Whether to tell the other members
+     */
+    public void leave(String memberId, boolean announce) {
+        node.leave(memberId, announce);
+    }
+
+    public Map<String, String> getMembers() {
+        return node.getMembers();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public String ownerOf(int showId) {
+        return node.ownerOf(showId);
+    }
+
+    public long getLocalHolds() {
+        return node.getLocalHolds();
+    }
+
+    public long getForwardedHolds() {
+        return node.getForwardedHolds();
+    }
+
+    private BookingResponse holdLocally(HoldRequest request, String idempotencyKey)
+            throws SelectedSeatsNotAvailableException {
+        Ticket ticket = request.getSeatIds() != null
+                ? ticketService.holdSeats(request.getUserId(), request.getShowId(), request.getSeatIds(),
+                        request.getAdmissionToken(), idempotencyKey)
+                : ticketService.holdSeats(request.getUserId(), request.getShowSeatIds(), request.getAdmissionToken(), idempotencyKey);
+        return BookingResponse.from(ticket);
+    }
+
+    // the listeners that follow committed transitions on the writing node are run here for the owner's copies
+    private void applySeatChange(SeatChange change) {
+        seatInventoryService.apply(change.getShowId(), change.getShowSeatIds(), change.getFrom(), change.getTo());
+        SeatTransitionEvent event = change.toEvent();
+        seatMapService.onSeatTransition(event);
+        showAvailabilityService.onSeatTransition(event);
+    }
+
+    private BookingResponse holdBestAvailableLocally(BestAvailableRequest request, String idempotencyKey)
+            throws SelectedSeatsNotAvailableException {
+        Ticket ticket = ticketService.holdBestAvailable(request.getUserId(), request.getShowId(),
+                request.getQuantity(), request.getSeatType(), request.getAdmissionToken(), idempotencyKey);
+        return BookingResponse.from(ticket);
+    }
+}
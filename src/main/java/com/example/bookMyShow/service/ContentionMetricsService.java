@@ -0,0 +1,91 @@
+package com.example.bookMyShow.service;
+
+import com.example.bookMyShow.dto.ContentionStats;
+import com.example.bookMyShow.util.RetryPolicy;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+Per show counters of seat contention, to see which shows are hot instead of guessing.
+LongAdder keeps recording cheap when many threads hit the same show.
+ */
+@Service
+public class ContentionMetricsService {
+
+    private static class Counters {
+        final LongAdder attempts = new LongAdder();
+        final LongAdder conflicts = new LongAdder();
+        final LongAdder exhausted = new LongAdder();
+        final LongAdder unavailable = new LongAdder();
+    }
+
+    private final Map<Integer, Counters> countersByShow = new ConcurrentHashMap<>();
+
+    public void recordAttempt(int showId) {
+        countersOf(showId).attempts.increment();
+    }
+
+    public void recordConflict(int showId) {
+        countersOf(showId).conflicts.increment();
+    }
+
+    public void recordUnavailable(int showId) {
+        countersOf(showId).unavailable.increment();
+    }
+
+    /**
+     * Retry listener that counts the conflicts of one show
+     * @param showId Show ID
+     * @return Listener for RetryPolicy.execute
+     */
+    public RetryPolicy.Listener listenerFor(int showId) {
+        Counters counters = countersOf(showId);
+        return new RetryPolicy.Listener() {
+            @Override
+            public void onConflict(ConcurrencyFailureException e) {
+                counters.conflicts.increment();
+            }
+
+            @Override
+            public void onExhausted(ConcurrencyFailureException e) {
+                counters.exhausted.increment();
+            }
+        };
+    }
+
+    public ContentionStats getStats(int showId) {
+        Counters counters = countersByShow.get(showId);
+        return counters == null ? statsOf(showId, new Counters()) : statsOf(showId, counters);
+    }
+
+    /**
+     * @return Stats of every show seen so far, most conflicts first
+     */
+    public List<ContentionStats> getAllStats() {
+        List<ContentionStats> stats = new ArrayList<>(countersByShow.size());
+        countersByShow.forEach((showId, counters) -> stats.add(statsOf(showId, counters)));
+        stats.sort((a, b) -> Long.compare(b.getConflicts(), a.getConflicts()));
+        return stats;
+    }
+
+    private Counters countersOf(int showId) {
+        return countersByShow.computeIfAbsent(showId, id -> new Counters());
+    }
+
+    private static ContentionStats statsOf(int showId, Counters counters) {
+        ContentionStats stats = new ContentionStats();
+        stats.setShowId(showId);
+        stats.setAttempts(counters.attempts.sum());
+        stats.setConflicts(counters.conflicts.sum());
+        stats.setExhausted(counters.exhausted.sum());
+        stats.setUnavailable(counters.unavailable.sum());
+        stats.setConflictRate(stats.getAttempts() == 0 ? 0 : (double) stats.getConflicts() / stats.getAttempts());
+        return stats;
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.bookMyShow.service;
+
+import com.example.bookMyShow.exception.IdempotencyConflictException;
+import com.example.bookMyShow.model.IdempotencyRecord;
+import com.example.bookMyShow.model.constant.IdempotencyStatus;
+import com.example.bookMyShow.repository.IdempotencyRecordRepository;
+import com.example.bookMyShow.util.ExpiringLruCache;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/*
+Runs a booking or payment operation at most once per Idempotency-Key, so client retries after a timeout
+get the first result back instead of a second hold or a second charge.
+Finished keys are answered from a bounded in-memory LRU, the IdempotencyRecord table makes the claim
+safe across nodes and restarts. Keys expire after the ttl, a failed operation frees its key for a retry.
+A key being processed is leased for a few seconds and the lease is renewed while the operation runs, so a
+retry after a crash mid-operation takes it over soon. An operation that creates its ticket calls
+completeInTransaction in the same transaction, so the key is COMPLETED exactly when the ticket is committed.
+ */
+@Service
+public class IdempotencyService {
+
+    public interface Action<T, E extends Throwable> {
+        T run() throws E;
+    }
+
+    // the IN_PROGRESS record of this call, or the record of the request that holds the key
+    private static class Claim {
+        final IdempotencyRecord record;
+        final boolean owned;
+
+        Claim(IdempotencyRecord record, boolean owned) {
+            this.record = record;
+            this.owned = owned;
+        }
+    }
+
+    // the claim of the operation running on a thread, and the resource it recorded once that committed
+    private static class Running {
+        final IdempotencyRecord claimed;
+        volatile Integer resourceId;
+
+        Running(IdempotencyRecord claimed) {
+            this.claimed = claimed;
+        }
+    }
+
+    private static class Completed {
+        final String fingerprint;
+        final int resourceId;
+
+        Completed(String fingerprint, int resourceId) {
+            this.fingerprint = fingerprint;
+            this.resourceId = resourceId;
+        }
+    }
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+    @Value("${bookmyshow.idempotency.ttl-hours:24}")
+    private long ttlHours;
+    @Value("${bookmyshow.idempotency.lease-seconds:10}")
+    private long leaseSeconds;
+    @Value("${bookmyshow.idempotency.cache-size:100000}")
+    private int cacheSize;
+    @Value("${bookmyshow.idempotency.purge-interval-minutes:10}")
+    private long purgeIntervalMinutes;
+
+    private ExpiringLruCache<String, Completed> completed;
+    private final ThreadLocal<Running> running = new ThreadLocal<>();
+
+    private final ScheduledExecutorService purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "idempotency-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void start() {
+        completed = new ExpiringLruCache<>(cacheSize, TimeUnit.HOURS.toMillis(ttlHours));
+        purger.scheduleWithFixedDelay(this::purgeExpired, purgeIntervalMinutes, purgeIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    private final ScheduledExecutorService leaseRenewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "idempotency-lease");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void shutdown() {
+        purger.shutdownNow();
+        leaseRenewer.shutdownNow();
+    }
+
+    /**
+     * Run an operation once per key
+     * @param key Idempotency-Key sent by the client, without one the action simply runs
+     * @param operation Name of the operation, the same key may be used for different operations
+     * @param request Description of the request, a key sent again with another request is rejected
+     * @param action The operation
+     * @param idOf ID of the ticket or payment the operation produced
+     * @param load Load that ticket or payment again for a repeated request
+     * @return Result of the action, or for a repeated key the resource it produced the first time
+     * @throws IdempotencyConflictException if the first request with the key is still running and its lease
+     * has not run out, or the key was used for a different request
+     */
+    public <T, E extends Throwable> T execute(String key, String operation, String request, Action<T, E> action,
+                                              ToIntFunction<T> idOf, IntFunction<T> load) throws E {
+        if (key == null || key.isBlank()) {
+            return action.run();
+        }
+        String scopedKey = operation + ":" + key;
+        String fingerprint = fingerprint(operation + ":" + request);
+
+        Completed done = completed.get(scopedKey);
+        if (done == null) {
+            Claim claim = claim(scopedKey, operation, fingerprint);
+            if (claim.owned) {
+                return runClaimed(claim.record, action, idOf);
+            }
+            IdempotencyRecord existing = claim.record;
+            if (existing.getStatus() != IdempotencyStatus.COMPLETED) {
+                checkFingerprint(key, fingerprint, existing.getFingerprint());
+                throw new IdempotencyConflictException("Request with Idempotency-Key " + key + " is still being processed");
+            }
+            done = new Completed(existing.getFingerprint(), existing.getResourceId());
+            completed.put(scopedKey, done);
+        }
+        checkFingerprint(key, fingerprint, done.fingerprint);
+        return load.apply(done.resourceId);
+    }
+
+    /**
+     * Mark the key of the operation running on this thread COMPLETED, in the caller's transaction.
+     * Called where the operation saves what it produced, so a crash can never leave a committed ticket
+     * behind a key that a retry runs again. Does nothing outside an operation with a key.
+     * @param resourceId ID of the ticket or payment the operation produced
+     */
+    public void completeInTransaction(int resourceId) {
+        Running current = running.get();
+        if (current == null) {
+            return;
+        }
+        saveCompleted(current.claimed, resourceId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    current.resourceId = resourceId;
+                }
+            });
+        } else {
+            current.resourceId = resourceId;
+        }
+    }
+
+    private <T, E extends Throwable> T runClaimed(IdempotencyRecord claimed, Action<T, E> action,
+                                                  ToIntFunction<T> idOf) throws E {
+        Running current = new Running(claimed);
+        Running outer = running.get();
+        running.set(current);
+        long renewMillis = Math.max(1, TimeUnit.SECONDS.toMillis(leaseSeconds) / 3);
+        ScheduledFuture<?> renewal = leaseRenewer.scheduleWithFixedDelay(() -> renewLease(claimed),
+                renewMillis, renewMillis, TimeUnit.MILLISECONDS);
+        T result;
+        try {
+            result = action.run();
+        } catch (Throwable e) {
+            // nothing was produced, let a retry run the operation again; a COMPLETED record is kept
+            idempotencyRecordRepository.deleteByIdAndStatus(claimed.getId(), IdempotencyStatus.IN_PROGRESS);
+            throw e;
+        } finally {
+            renewal.cancel(false);
+            running.set(outer);
+        }
+        int resourceId = idOf.applyAsInt(result);
+        if (current.resourceId == null || current.resourceId != resourceId) {
+            // an operation that did not record its result with what it saved
+            saveCompleted(claimed, resourceId);
+        }
+        completed.put(claimed.getIdempotencyKey(), new Completed(claimed.getFingerprint(), resourceId));
+        return result;
+    }
+
+    private void saveCompleted(IdempotencyRecord claimed, int resourceId) {
+        // also overwrites a retry that took the key over after our lease ran out, this call did the work
+        IdempotencyRecord record = idempotencyRecordRepository.findByIdempotencyKey(claimed.getIdempotencyKey())
+                .orElseGet(IdempotencyRecord::new);
+        record.setIdempotencyKey(claimed.getIdempotencyKey());
+        record.setOperation(claimed.getOperation());
+        record.setFingerprint(claimed.getFingerprint());
+        record.setStatus(IdempotencyStatus.COMPLETED);
+        record.setResourceId(resourceId);
+        record.setExpiresAt(LocalDateTime.now().plusHours(ttlHours));
+        idempotencyRecordRepository.save(record);
+    }
+
+    private void renewLease(IdempotencyRecord claimed) {
+        try {
+            idempotencyRecordRepository.renewLease(claimed.getId(), IdempotencyStatus.IN_PROGRESS,
+                    LocalDateTime.now().plusSeconds(leaseSeconds));
+        } catch (RuntimeException e) {
+            System.err.println("Renewing the lease of idempotency key " + claimed.getIdempotencyKey() + " failed: "
+                    + e.getMessage());
+        }
+    }
+
+    // insert an IN_PROGRESS record leased for a short while, or find the record of the request that holds the key
+    private Claim claim(String scopedKey, String operation, String fingerprint) {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Optional<IdempotencyRecord> existing = idempotencyRecordRepository.findByIdempotencyKey(scopedKey);
+            if (existing.isPresent()) {
+                if (!existing.get().getExpiresAt().isBefore(LocalDateTime.now())) {
+                    return new Claim(existing.get(), false);
+                }
+                // a finished key past its ttl, or a lease whose holder died mid-operation; one retry takes it over
+                if (idempotencyRecordRepository.deleteExpiredById(existing.get().getId(), LocalDateTime.now()) == 0) {
+                    continue;
+                }
+            }
+            IdempotencyRecord record = new IdempotencyRecord();
+            record.setIdempotencyKey(scopedKey);
+            record.setOperation(operation);
+            record.setFingerprint(fingerprint);
+            record.setStatus(IdempotencyStatus.IN_PROGRESS);
+            record.setExpiresAt(LocalDateTime.now().plusSeconds(leaseSeconds));
+            try {
+                return new Claim(idempotencyRecordRepository.saveAndFlush(record), true);
+            } catch (DataIntegrityViolationException e) {
+                // a concurrent request with the same key inserted first, read its record
+            }
+        }
+        throw new IdempotencyConflictException("Request with Idempotency-Key " + scopedKey + " is still being processed");
+    }
+
+    private void checkFingerprint(String key, String fingerprint, String expected) {
+        if (expected != null && !expected.equals(fingerprint)) {
+            throw new IdempotencyConflictException("Idempotency-Key " + key + " was already used for a different request");
+        }
+    }
+
+    private void purgeExpired() {
+        try {
+            int purged = idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+            if (purged > 0) {
+                System.out.println("Purged " + purged + " expired idempotency keys");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Purging idempotency keys failed: " + e.getMessage());
+        }
+    }
+
+    private static String fingerprint(String request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(request.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
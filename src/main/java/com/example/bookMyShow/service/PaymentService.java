@@ -8,138 +8,176 @@ import com.example.bookMyShow.model.User;
 import com.example.bookMyShow.model.constant.PaymentMethod;
 import com.example.bookMyShow.model.constant.PaymentStatus;
 import com.example.bookMyShow.repository.PaymentRepository;
+import com.example.bookMyShow.service.payment.PaymentGateway;
+import com.example.bookMyShow.util.SnowflakeIdGenerator;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class PaymentService {
     @Autowired
     private PaymentRepository paymentRepository;
+    @Autowired
+    private PaymentGateway paymentGateway;
+    @Autowired
+    private SnowflakeIdGenerator idGenerator;
+    @Autowired
+    @Qualifier("bookingExecutor")
+    private Executor bookingExecutor;
 
-    private final Random random = new Random();
+    @Value("${bookmyshow.payment.gateway.charge-timeout-ms:5000}")
+    private long chargeTimeoutMillis;
+    @Value("${bookmyshow.payment.gateway.refund-timeout-ms:5000}")
+    private long refundTimeoutMillis;
+    @Value("${bookmyshow.payment.gateway.verify-timeout-ms:3000}")
+    private long verifyTimeoutMillis;
 
 
-    @Transactional
+    /**
+     * Process a payment, blocking until the gateway answered
+     * @see #processPaymentAsync(User, Ticket, PaymentMethod, double)
+     */
     public Payment processPayment(User user, Ticket ticket, PaymentMethod paymentMethod, double amount) throws PaymentProcessingException {
+        return await(processPaymentAsync(user, ticket, paymentMethod, amount));
+    }
+
+    /**
+     * Process a payment without blocking.
+     * Not @Transactional: the PENDING record and the outcome are saved in their own short transactions,
+     * nothing is held while the gateway responds.
+     * @return Future of the SUCCESS or FAILED payment, or of the still PENDING payment when the gateway
+     * did not answer in time or the call failed: the charge may still go through, verifyPaymentStatus settles it
+     */
+    public CompletableFuture<Payment> processPaymentAsync(User user, Ticket ticket, PaymentMethod paymentMethod, double amount) {
         if(amount <= 0){
-            throw  new PaymentProcessingException("Payment amount must be greater than 0");
+            return CompletableFuture.failedFuture(new PaymentProcessingException("Payment amount must be greater than 0"));
         }
 
         // Create payment record
-        Payment payment = new Payment();
-        payment.setUser(user);
-        payment.setTicket(ticket);
-        payment.setAmount(amount);
-        payment.setPaymentMethod(paymentMethod);
-        payment.setPaymentStatus(PaymentStatus.PENDING);
-        payment.setCreatedAt(LocalDateTime.now());
-        payment.setTransactionId(generateTransactionId());
+        Payment pending = new Payment();
+        pending.setUser(user);
+        pending.setTicket(ticket);
+        pending.setAmount(amount);
+        pending.setPaymentMethod(paymentMethod);
+        pending.setPaymentStatus(PaymentStatus.PENDING);
+        pending.setCreatedAt(LocalDateTime.now());
+        pending.setTransactionId(generateTransactionId());
 
-        payment = paymentRepository.save(payment);
+        Payment payment = paymentRepository.save(pending);
 
         /*
-        Why that try … catch block exists
-        External‐gateway risk
-        processWithPaymentGateway() talks to a bank/PSP, so it can:
+        Why the error handling below exists
+        External-gateway risk
+        the gateway talks to a bank/PSP, so it can:
 
-        return false (declined)
+        answer FAILED (declined)
 
-        throw an exception (timeout, 5xx, network error)
+        fail the future (timeout, 5xx, network error)
 
         Update domain state
         Whatever happens must be reflected in the Payment entity:
 
-        SUCCESS → set completedAt, success message
+        SUCCESS -> set completedAt, success message
 
-        Any failure → mark FAILED, capture gateway response
+        Declined -> mark FAILED, capture gateway response
 
-        Persist the outcome
-        The method writes the status back to the database (paymentRepository.save(payment)) so the rest of the system sees the final state.
+        No answer -> stays PENDING: the bank may have charged anyway, only the gateway knows.
+        verifyPaymentStatus asks it later (the saga recovery does so for unfinished bookings)
 
-        Propagate a clean error
-        Instead of leaking low‑level IO/JSON exceptions up the stack, it wraps everything in a business‑level PaymentProcessingException.
+        Persist the outcome
+        The status is written back to the database (paymentRepository.save(payment)) so the rest of the system sees the final state.
          */
 
-        try{
-            //Simulate payment processing with external payment gateway
-            boolean paymentSuccess = processWithPaymentGateway(payment);
-
-            if(paymentSuccess){
-                payment.setPaymentStatus(PaymentStatus.SUCCESS);
-                payment.setCompletedAt(LocalDateTime.now());
-                payment.setGatewayResponse("Payment processed Successfully");
-            }
-            else{
-                payment.setPaymentStatus(PaymentStatus.FAILED);
-                payment.setCompletedAt(LocalDateTime.now());
-                payment.setGatewayResponse("Payment declined by bank");
-            }
-
-        } catch (Exception e) {
-            payment.setPaymentStatus(PaymentStatus.FAILED);
-            payment.setGatewayResponse("Payment Processing error: " + e.getMessage());
-            throw new PaymentProcessingException("Payment failed: " + payment.getGatewayResponse());
-        }
-        return paymentRepository.save(payment);
+        return paymentGateway.charge(payment)
+                .orTimeout(chargeTimeoutMillis, TimeUnit.MILLISECONDS)
+                .handleAsync((status, error) -> {
+                    if (error != null) {
+                        payment.setGatewayResponse("Payment outcome unknown: " + describe(error));
+                    } else if (status == PaymentStatus.SUCCESS) {
+                        payment.setPaymentStatus(PaymentStatus.SUCCESS);
+                        payment.setCompletedAt(LocalDateTime.now());
+                        payment.setGatewayResponse("Payment processed Successfully");
+                    } else if (status == PaymentStatus.FAILED) {
+                        payment.setPaymentStatus(PaymentStatus.FAILED);
+                        payment.setCompletedAt(LocalDateTime.now());
+                        payment.setGatewayResponse("Payment declined by bank");
+                    } else {
+                        // e.g. PENDING, the gateway has not decided yet
+                        payment.setGatewayResponse("Payment outcome unknown: gateway answered " + status);
+                    }
+                    return paymentRepository.save(payment);
+                }, bookingExecutor);
     }
+
     /**
-     * Process refund for a cancelled ticket
+     * Process refund for a cancelled ticket, blocking until the gateway answered
      * @param originalPayment The original payment to refund
      * @param refundAmount The amount to refund
      * @return Payment object representing the refund
      */
-
-    @Transactional
     public Payment processRefund(Payment originalPayment, double refundAmount) throws PaymentProcessingException {
+        return await(processRefundAsync(originalPayment, refundAmount));
+    }
+
+    /**
+     * Process refund without blocking, not @Transactional for the same reason as processPaymentAsync
+     * @return Future of the successful refund, completes exceptionally with PaymentProcessingException
+     */
+    public CompletableFuture<Payment> processRefundAsync(Payment originalPayment, double refundAmount) {
         if(refundAmount <= 0 || refundAmount > originalPayment.getAmount()){
-            throw new PaymentProcessingException("Invalid refund amount");
+            return CompletableFuture.failedFuture(new PaymentProcessingException("Invalid refund amount"));
         }
 
         // check if original payment was successful
         if(!originalPayment.getPaymentStatus().equals(PaymentStatus.SUCCESS)){
-            throw new PaymentProcessingException("Cannot refund unsuccessful payment");
+            return CompletableFuture.failedFuture(new PaymentProcessingException("Cannot refund unsuccessful payment"));
         }
 
         // create refund record
-        Payment refund = new Payment();
-        refund.setUser(originalPayment.getUser());
-        refund.setTicket(originalPayment.getTicket());
-        refund.setAmount(-refundAmount);
-        refund.setPaymentMethod(originalPayment.getPaymentMethod());
-        refund.setPaymentStatus(PaymentStatus.PENDING);
-        refund.setCreatedAt(LocalDateTime.now());
-        refund.setTransactionId(generateTransactionId());
-        refund.setOriginalPayment(originalPayment);
-
-        refund = paymentRepository.save(refund);
-
-        try {
-            // Simulate refund processing with external payment gateway
-            boolean refundSuccess = processRefundWithPaymentGateway(refund);
-
-            if (refundSuccess) {
-                refund.setPaymentStatus(PaymentStatus.SUCCESS);
-                refund.setCompletedAt(LocalDateTime.now());
-                refund.setGatewayResponse("Refund processed successfully");
-            } else {
-                refund.setPaymentStatus(PaymentStatus.FAILED);
-                refund.setGatewayResponse("Refund failed");
-                throw new PaymentProcessingException("Refund failed: " + refund.getGatewayResponse());
-            }
-
-        } catch (Exception e) {
-            refund.setPaymentStatus(PaymentStatus.FAILED);
-            refund.setGatewayResponse("Refund processing error: " + e.getMessage());
-            paymentRepository.save(refund);
-            throw new PaymentProcessingException("Refund processing failed: " + e.getMessage());
-        }
-
-        return paymentRepository.save(refund);
+        Payment pending = new Payment();
+        pending.setUser(originalPayment.getUser());
+        pending.setTicket(originalPayment.getTicket());
+        pending.setAmount(-refundAmount);
+        pending.setPaymentMethod(originalPayment.getPaymentMethod());
+        pending.setPaymentStatus(PaymentStatus.PENDING);
+        pending.setCreatedAt(LocalDateTime.now());
+        pending.setTransactionId(generateTransactionId());
+        pending.setOriginalPayment(originalPayment);
+
+        Payment refund = paymentRepository.save(pending);
+
+        return paymentGateway.refund(refund)
+                .orTimeout(refundTimeoutMillis, TimeUnit.MILLISECONDS)
+                .handleAsync((status, error) -> {
+                    if (error == null && status == PaymentStatus.SUCCESS) {
+                        refund.setPaymentStatus(PaymentStatus.SUCCESS);
+                        refund.setCompletedAt(LocalDateTime.now());
+                        refund.setGatewayResponse("Refund processed successfully");
+                        return paymentRepository.save(refund);
+                    }
+                    if (error == null && status == PaymentStatus.FAILED) {
+                        refund.setPaymentStatus(PaymentStatus.FAILED);
+                        refund.setGatewayResponse("Refund failed");
+                    } else {
+                        // no answer, the refund may still be made, it stays PENDING for verifyPaymentStatus
+                        refund.setGatewayResponse("Refund outcome unknown: "
+                                + (error == null ? "gateway answered " + status : describe(error)));
+                    }
+                    paymentRepository.save(refund);
+                    throw new CompletionException(
+                            new PaymentProcessingException("Refund processing failed: " + refund.getGatewayResponse()));
+                }, bookingExecutor);
     }
     /**
      * Get payment by ID
@@ -210,11 +248,11 @@ public class PaymentService {
     }
 
     /**
-     * Verify payment status with payment gateway
+     * Verify payment status with payment gateway, settles a payment left PENDING when the gateway did not answer
      * @param paymentId Payment ID
      * @return Updated payment object
      */
-    @Transactional
+    // not @Transactional, the gateway is asked without a transaction open
     public Payment verifyPaymentStatus(int paymentId) throws PaymentProcessingException {
         Payment payment = getPaymentById(paymentId);
 
@@ -223,21 +261,22 @@ public class PaymentService {
             return payment; // Already processed
         }
 
+        PaymentStatus verifiedStatus;
         try {
-            // Simulate verification with payment gateway
-            PaymentStatus verifiedStatus = verifyWithPaymentGateway(payment.getTransactionId());
-
-            if (!payment.getPaymentStatus().equals(verifiedStatus)) {
-                payment.setPaymentStatus(verifiedStatus);
-                if (verifiedStatus.equals(PaymentStatus.SUCCESS) ||
-                        verifiedStatus.equals(PaymentStatus.FAILED)) {
-                    payment.setCompletedAt(LocalDateTime.now());
-                }
-                payment = paymentRepository.save(payment);
-            }
+            verifiedStatus = paymentGateway.verify(payment.getTransactionId())
+                    .orTimeout(verifyTimeoutMillis, TimeUnit.MILLISECONDS)
+                    .join();
+        } catch (CompletionException e) {
+            throw new PaymentProcessingException("Payment verification failed: " + describe(e));
+        }
 
-        } catch (Exception e) {
-            throw new PaymentProcessingException("Payment verification failed: " + e.getMessage());
+        if (!payment.getPaymentStatus().equals(verifiedStatus)) {
+            payment.setPaymentStatus(verifiedStatus);
+            if (verifiedStatus.equals(PaymentStatus.SUCCESS) ||
+                    verifiedStatus.equals(PaymentStatus.FAILED)) {
+                payment.setCompletedAt(LocalDateTime.now());
+            }
+            payment = paymentRepository.save(payment);
         }
 
         return payment;
@@ -259,80 +298,39 @@ public class PaymentService {
     // Private helper methods
 
     /**
-     * Generate unique transaction ID
+     * Generate unique transaction ID, zero padded so that the ids sort by time as strings too
      * @return Transaction ID
      */
     private String generateTransactionId() {
-        return "TXN" + System.currentTimeMillis() + random.nextInt(1000);
-    }
-
-    /**
-     * Simulate payment processing with external payment gateway
-     * @param payment Payment object
-     * @return Success status
-     */
-    private boolean processWithPaymentGateway(Payment payment) {
-        // Simulate payment gateway processing
-        try {
-            Thread.sleep(1000); // Simulate network delay
-
-            // Simulate success/failure (90% success rate)
-            return random.nextInt(10) < 9;
-
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            return false;
+        String id = Long.toString(idGenerator.nextId());
+        StringBuilder transactionId = new StringBuilder(22).append("TXN");
+        for (int i = id.length(); i < 19; i++) {
+            transactionId.append('0');
         }
+        return transactionId.append(id).toString();
     }
 
-    /**
-     * Simulate refund processing with external payment gateway
-     * @param refund Refund payment object
-     * @return Success status
-     */
-    private boolean processRefundWithPaymentGateway(Payment refund) {
-        // Simulate refund gateway processing
+    private static Payment await(CompletableFuture<Payment> future) throws PaymentProcessingException {
         try {
-            Thread.sleep(1000); // Simulate network delay
-
-            // Simulate success/failure (95% success rate for refunds)
-            return random.nextInt(10) < 9.5;
-
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            return false;
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof PaymentProcessingException) {
+                throw (PaymentProcessingException) e.getCause();
+            }
+            throw new PaymentProcessingException("Payment failed: " + describe(e));
         }
     }
 
-    /**
-     * Simulate payment status verification with external payment gateway
-     * @param transactionId Transaction ID
-     * @return Payment status
-     */
-    private PaymentStatus verifyWithPaymentGateway(String transactionId) {
-        // Simulate gateway verification
-        try {
-            Thread.sleep(500); // Simulate network delay
-
-            // Simulate different statuses
-            int statusCode = random.nextInt(10);
-            if (statusCode < 7) {
-                return PaymentStatus.SUCCESS;
-            } else if (statusCode < 9) {
-                return PaymentStatus.FAILED;
-            } else {
-                return PaymentStatus.PENDING;
-            }
-
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            return PaymentStatus.FAILED;
+    private static String describe(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof TimeoutException) {
+            return "gateway did not respond in time";
         }
+        return cause.getMessage();
     }
 }
 
 
-
 //package com.example.bookMyShow.service;
 //
 //import com.example.bookMyShow.exception.PaymentProcessingException;
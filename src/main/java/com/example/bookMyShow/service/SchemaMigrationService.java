@@ -0,0 +1,106 @@
+package com.example.bookMyShow.service;
+
+import com.example.bookMyShow.model.BaseModel;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Table;
+import jakarta.persistence.metamodel.EntityType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/*
+Schema changes that ddl-auto=update does not make on a database created by an older version.
+Ticket.payment used to be @OneToOne, which left a unique key on ticket.payment_id; the tickets of a cart
+share one payment, so that key is dropped. Ticket.showSeats used to be @OneToMany, whose join table has a
+unique key on ticket_show_seats.show_seats_id; a seat is on a new ticket after a cancelled or expired one,
+so that key is dropped too. A plain index takes their place first, MySQL needs one for the foreign key.
+Ids moved from IDENTITY to a <entity>_seq table per entity, which ddl-auto=update creates starting at 1;
+each is moved past the largest id its entity table already has, or inserts would collide with old rows.
+Runs once Hibernate has updated the schema, before the node takes requests, and only on MySQL.
+ */
+@Service
+public class SchemaMigrationService {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory; // the schema update has run once this exists
+
+    @PostConstruct
+    public void migrate() {
+        if (!isMySql()) {
+            return;
+        }
+        dropUniqueKeys("ticket", "payment_id", "idx_ticket_payment_id");
+        dropUniqueKeys("ticket_show_seats", "show_seats_id", "idx_ticket_show_seats_show_seat");
+        for (EntityType<?> entity : entityManagerFactory.getMetamodel().getEntities()) {
+            if (BaseModel.class.isAssignableFrom(entity.getJavaType())) {
+                Table table = entity.getJavaType().getAnnotation(Table.class);
+                String tableName = table != null && !table.name().isEmpty() ? table.name() : snakeCase(entity.getName());
+                seedSequence(snakeCase(entity.getName()) + "_seq", tableName);
+            }
+        }
+    }
+
+    // the sequence table hands out blocks starting at next_val, so it must start above every existing id
+    private void seedSequence(String sequence, String table) {
+        if (!tableExists(sequence) || !tableExists(table)) {
+            return;
+        }
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        if (maxId == null || maxId == 0) {
+            return;
+        }
+        if (jdbcTemplate.update("UPDATE " + sequence + " SET next_val = ? WHERE next_val <= ?", maxId + 1, maxId) > 0) {
+            System.out.println("Schema migration: " + sequence + " now starts after id " + maxId + " of " + table);
+        }
+    }
+
+    private boolean tableExists(String table) {
+        Integer tables = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.tables WHERE table_schema = DATABASE() AND table_name = ?",
+                Integer.class, table);
+        return tables != null && tables > 0;
+    }
+
+    // entity and table names as Spring's default naming strategy writes them, e.g. ShowSeat -> show_seat
+    private static String snakeCase(String name) {
+        return name.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toLowerCase();
+    }
+
+    // replace every unique key on the column by one plain index with the given name
+    private void dropUniqueKeys(String table, String column, String plainIndex) {
+        List<String> uniqueKeys = jdbcTemplate.queryForList(
+                "SELECT DISTINCT index_name FROM information_schema.statistics"
+                        + " WHERE table_schema = DATABASE() AND table_name = ? AND column_name = ? AND non_unique = 0",
+                String.class, table, column);
+        if (uniqueKeys.isEmpty()) {
+            return;
+        }
+        Integer plainIndexes = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.statistics"
+                        + " WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ?",
+                Integer.class, table, plainIndex);
+        if (plainIndexes == null || plainIndexes == 0) {
+            jdbcTemplate.execute("CREATE INDEX " + plainIndex + " ON " + table + " (" + column + ")");
+        }
+        for (String uniqueKey : uniqueKeys) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " DROP INDEX `" + uniqueKey + "`");
+            System.out.println("Schema migration: dropped unique key " + uniqueKey + " on " + table + "." + column);
+        }
+    }
+
+    private boolean isMySql() {
+        try (Connection connection = jdbcTemplate.getDataSource().getConnection()) {
+            return "MySQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+        } catch (SQLException e) {
+            System.err.println("Schema migration: could not read the database type: " + e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.bookMyShow.service;
+
+import com.example.bookMyShow.exception.SelectedSeatsNotAvailableException;
+import com.example.bookMyShow.model.Seat;
+import com.example.bookMyShow.model.constant.SeatType;
+import com.example.bookMyShow.repository.SeatRepository;
+import com.example.bookMyShow.service.inventory.SeatLayout;
+import com.example.bookMyShow.service.inventory.ShowInventory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+Picks seats for the client: finds the best block of adjacent free seats of a show from the seat rows and
+columns. The layout of a show is built once per loaded inventory and follows its bitmap from then on.
+ */
+@Service
+public class SeatAllocationService {
+
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+    @Autowired
+    private SeatRepository seatRepository;
+
+    private final ConcurrentHashMap<Integer, SeatLayout> layouts = new ConcurrentHashMap<>();
+
+    /**
+     * Find the best block of adjacent available seats of a show, nothing is held yet.
+     * Blocks that leave a single free seat beside them are only taken when there is no other.
+     * @param showId Show ID
+     * @param quantity Number of seats
+     * @param seatType Type of seat, null for any
+     * @return Seat IDs of the block in column order
+     * @throws SelectedSeatsNotAvailableException if no block of that size is free
+     */
+    public List<Integer> findBestAvailable(int showId, int quantity, SeatType seatType)
+            throws SelectedSeatsNotAvailableException {
+        try {
+            return findBestAvailable(showId, quantity, seatType, true);
+        } catch (SelectedSeatsNotAvailableException e) {
+            // e.g. a nearly full show, a block beside a single seat is better than none
+            return findBestAvailable(showId, quantity, seatType, false);
+        }
+    }
+
+    /**
+     * Find the best block of adjacent available seats of a show, nothing is held yet
+     * @param showId Show ID
+     * @param quantity Number of seats
+     * @param seatType Type of seat, null for any
+     * @param avoidSingleGaps false to also accept blocks that leave a single free seat beside them
+     * @return Seat IDs of the block in column order
+     * @throws SelectedSeatsNotAvailableException if no block of that size is free
+     */
+    public List<Integer> findBestAvailable(int showId, int quantity, SeatType seatType, boolean avoidSingleGaps)
+            throws SelectedSeatsNotAvailableException {
+        if (quantity < 1) {
+            throw new SelectedSeatsNotAvailableException("At least one seat must be requested");
+        }
+        ShowInventory inventory = seatInventoryService.getInventory(showId);
+        SeatLayout layout = layouts.compute(showId, (id, current) ->
+                current != null && current.getInventory() == inventory ? current : build(inventory));
+
+        int[] positions = layout.findBest(quantity, seatType, avoidSingleGaps);
+        if (positions == null) {
+            throw new SelectedSeatsNotAvailableException("No " + quantity + " adjacent "
+                    + (seatType == null ? "" : seatType + " ") + "seats are available");
+        }
+        List<Integer> seatIds = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            seatIds.add(inventory.getSeatId(position));
+        }
+        return seatIds;
+    }
+
+    private SeatLayout build(ShowInventory inventory) {
+        List<Integer> seatIds = new ArrayList<>(inventory.getSeats().size());
+        for (int position = 0; position < inventory.getSeats().size(); position++) {
+            seatIds.add(inventory.getSeatId(position));
+        }
+        Map<Integer, Seat> seats = new HashMap<>(seatIds.size() * 2);
+        for (Seat seat : seatRepository.findAllById(seatIds)) {
+            seats.put(seat.getId(), seat);
+        }
+        return new SeatLayout(inventory, seats);
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.bookMyShow.service;
+
+import com.example.bookMyShow.event.SeatsReleasedEvent;
+import com.example.bookMyShow.service.inventory.SeatHold;
+import com.example.bookMyShow.util.HashedTimingWheel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+Every seat hold carries a deadline (ShowSeat.lockedUntil). This service puts each hold on a hashed
+timing wheel and, when the deadline passes, releases all seats that expired in that tick with one
+statement per show. A scan at startup releases holds orphaned by a crash and re-arms the ones still running.
+Holds that were confirmed or released in the meantime are left alone: the release only touches
+seats that are still LOCKED with a deadline in the past.
+ */
+@Service
+public class SeatHoldExpiryService {
+
+    @Autowired
+    private ShowSeatService showSeatService;
+    @Autowired
+    private WalSeatStore walSeatStore;
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${bookmyshow.hold.ttl-seconds:600}")
+    private long holdTtlSeconds;
+    @Value("${bookmyshow.hold.expiry.tick-millis:1000}")
+    private long tickMillis;
+    @Value("${bookmyshow.hold.expiry.wheel-size:512}")
+    private int wheelSize;
+    @Value("${bookmyshow.hold.expiry.batch-size:500}")
+    private int batchSize;
+
+    private HashedTimingWheel<SeatHold> wheel;
+
+    @PostConstruct
+    public void start() {
+        wheel = new HashedTimingWheel<>("seat-hold-expiry", tickMillis, wheelSize, this::releaseExpired);
+    }
+
+    @PreDestroy
+    public void stop() {
+        wheel.close();
+    }
+
+    /**
+     * Deadline for a hold taken now, in whole seconds as the seat write-ahead log keeps it.
+     * Only decides when the hold expires, the hold itself is identified by its hold id.
+     * @return Hold deadline
+     */
+    public LocalDateTime newDeadline() {
+        return LocalDateTime.now().plusSeconds(holdTtlSeconds).truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    /**
+     * Release the hold once its deadline has passed
+     * @param hold Seats and deadline
+     */
+    public void scheduleExpiry(SeatHold hold) {
+        wheel.schedule(hold, toEpochMillis(hold.getLockedUntil()));
+    }
+
+    /**
+     * Number of holds waiting for their deadline
+     */
+    public int getScheduledHoldCount() {
+        return wheel.size();
+    }
+
+    /**
+     * Release holds left behind by a previous run and re-arm the ones that are still valid
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverHolds() {
+        LocalDateTime now = LocalDateTime.now();
+
+        Map<Integer, List<Integer>> expired = groupByShow(showSeatService.getExpiredLocks(now));
+        int released = 0;
+        for (Map.Entry<Integer, List<Integer>> entry : expired.entrySet()) {
+            released += release(entry.getKey(), entry.getValue(), now);
+        }
+
+        int rearmed = 0;
+        for (Object[] row : showSeatService.getLiveLocks(now)) {
+            int showId = (Integer) row[0];
+            int showSeatId = (Integer) row[1];
+            LocalDateTime lockedUntil = (LocalDateTime) row[2];
+            scheduleExpiry(new SeatHold(showId, List.of(showSeatId), lockedUntil));
+            rearmed++;
+        }
+        System.out.println("Seat hold recovery: released " + released + " expired seats, re-armed " + rearmed + " holds");
+    }
+
+    private void releaseExpired(List<SeatHold> holds) {
+        Map<Integer, List<Integer>> byShow = new HashMap<>();
+        for (SeatHold hold : holds) {
+            byShow.computeIfAbsent(hold.getShowId(), id -> new ArrayList<>()).addAll(hold.getShowSeatIds());
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<Integer, List<Integer>> entry : byShow.entrySet()) {
+            try {
+                release(entry.getKey(), entry.getValue(), now);
+            } catch (RuntimeException e) {
+                // the startup scan picks these up if they stay stuck
+                System.err.println("Failed to release expired holds of show " + entry.getKey() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private int release(int showId, List<Integer> showSeatIds, LocalDateTime now) {
+        int released = 0;
+        for (int from = 0; from < showSeatIds.size(); from += batchSize) {
+            List<Integer> batch = showSeatIds.subList(from, Math.min(from + batchSize, showSeatIds.size()));
+            List<Integer> releasedIds = walSeatStore.owns(showId)
+                    ? walSeatStore.releaseExpired(showId, batch, now)
+                    : showSeatService.releaseExpiredShowSeats(showId, batch, now);
+            seatInventoryService.release(showId, releasedIds);
+            if (!releasedIds.isEmpty()) {
+                eventPublisher.publishEvent(new SeatsReleasedEvent(showId, releasedIds));
+            }
+            released += releasedIds.size();
+        }
+        return released;
+    }
+
+    private static Map<Integer, List<Integer>> groupByShow(List<Object[]> rows) {
+        Map<Integer, List<Integer>> byShow = new HashMap<>();
+        for (Object[] row : rows) {
+            byShow.computeIfAbsent((Integer) row[0], id -> new ArrayList<>()).add((Integer) row[1]);
+        }
+        return byShow;
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.bookMyShow.service;
+
+import com.example.bookMyShow.exception.ShowSeatNotFoundException;
+import com.example.bookMyShow.model.ShowSeat;
+import com.example.bookMyShow.model.constant.ShowSeatStatus;
+import com.example.bookMyShow.repository.AuditoriumRepository;
+import com.example.bookMyShow.repository.ShowRepository;
+import com.example.bookMyShow.repository.ShowSeatRepository;
+import com.example.bookMyShow.service.inventory.ShowInventory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntPredicate;
+
+/*
+Keeps the seat statuses of every show that was booked recently as a packed bitmap in memory.
+Availability checks and holds are answered here with CAS in microseconds, the database is only
+written once the in-memory hold succeeded.
+ */
+@Service
+public class SeatInventoryService {
+
+    @Autowired
+    private ShowSeatRepository showSeatRepository;
+    @Autowired
+    private ShowRepository showRepository;
+    @Autowired
+    private AuditoriumRepository auditoriumRepository;
+
+    private final ConcurrentHashMap<Integer, ShowInventory> inventories = new ConcurrentHashMap<>();
+
+    /**
+     * Get the inventory of a show, loading it from the ShowSeat table on first use
+     * @param showId Show ID
+     * @return Show inventory
+     */
+    public ShowInventory getInventory(int showId) {
+        return inventories.computeIfAbsent(showId, id -> load(id, null, null));
+    }
+
+    /**
+     * Load the inventory of a show with the statuses the seat ledger restored, e.g. at startup.
+     * A seat whose row disagrees keeps the status of the row, e.g. a transition whose commit a crash cut off.
+     * @param showId Show ID
+     * @param statuses Status by show seat ID, seats missing from it are AVAILABLE
+     * @return Number of seats whose row had another status, -1 if the show was already loaded
+     */
+    public int seed(int showId, Map<Integer, ShowSeatStatus> statuses) {
+        int[] differing = {-1};
+        inventories.computeIfAbsent(showId, id -> {
+            differing[0] = 0;
+            return load(id, statuses, differing);
+        });
+        return differing[0];
+    }
+
+    /**
+     * Find the show the given show seats belong to
+     * @param showSeatIds List of show seat IDs
+     * @return Show ID
+     */
+    public int findShowId(List<Integer> showSeatIds) {
+        if (showSeatIds == null || showSeatIds.isEmpty()) {
+            throw new ShowSeatNotFoundException("No show seats selected");
+        }
+        int showSeatId = showSeatIds.get(0);
+        return showSeatRepository.findShowIdById(showSeatId).orElseThrow(
+                () -> new ShowSeatNotFoundException("ShowSeat with id " + showSeatId + " not found")
+        );
+    }
+
+    /**
+     * Hold all given seats, AVAILABLE -> LOCKED, all or nothing
+     * @param showId Show ID
+     * @param showSeatIds Show seat IDs, all from the same show
+     * @return true if every seat was available and is now held
+     */
+    public boolean hold(int showId, Collection<Integer> showSeatIds) {
+        ShowInventory inventory = getInventory(showId);
+        return inventory.getSeats().transition(inventory.positionsOf(showSeatIds),
+                ShowSeatStatus.AVAILABLE, ShowSeatStatus.LOCKED);
+    }
+
+    /**
+     * Release held seats, LOCKED -> AVAILABLE
+     */
+    public void release(int showId, Collection<Integer> showSeatIds) {
+        transitionEach(showId, showSeatIds, ShowSeatStatus.LOCKED, ShowSeatStatus.AVAILABLE);
+    }
+
+    /**
+     * Confirm held seats, LOCKED -> BOOKED
+     */
+    public void confirm(int showId, Collection<Integer> showSeatIds) {
+        transitionEach(showId, showSeatIds, ShowSeatStatus.LOCKED, ShowSeatStatus.BOOKED);
+    }
+
+    /**
+     * Give booked seats back, BOOKED -> AVAILABLE
+     */
+    public void cancel(int showId, Collection<Integer> showSeatIds) {
+        transitionEach(showId, showSeatIds, ShowSeatStatus.BOOKED, ShowSeatStatus.AVAILABLE);
+    }
+
+    /**
+     * Apply a transition another node committed, e.g. a release on a node that does not own the show.
+     * A transition from an unknown status or of seats this copy does not know drops the show instead.
+     * @param showId Show ID
+     * @param showSeatIds Show seats that moved
+     * @param from Status they moved from, null if not known
+     * @param to Status they moved to
+     */
+    public void apply(int showId, Collection<Integer> showSeatIds, ShowSeatStatus from, ShowSeatStatus to) {
+        if (from == null) {
+            evict(showId);
+            return;
+        }
+        try {
+            transitionEach(showId, showSeatIds, from, to);
+        } catch (ShowSeatNotFoundException e) {
+            evict(showId);
+        }
+    }
+
+    /**
+     * Mirror a show seat that was written directly, e.g. through PUT /showSeat
+     * @param showSeat Saved show seat
+     */
+    public void update(ShowSeat showSeat) {
+        if (showSeat.getShow() == null) {
+            return;
+        }
+        ShowInventory inventory = inventories.get(showSeat.getShow().getId());
+        if (inventory == null) {
+            return;
+        }
+        if (!inventory.contains(showSeat.getId())) {
+            evict(inventory.getShowId());
+            return;
+        }
+        ShowSeatStatus status = showSeat.getShowSeatStatus() == null ? ShowSeatStatus.AVAILABLE : showSeat.getShowSeatStatus();
+        inventory.getSeats().set(inventory.positionOf(showSeat.getId()), status);
+    }
+
+    /**
+     * Make show seats that were just created known to a loaded inventory, they start AVAILABLE
+     * @param showId Show ID
+     * @param showSeats Saved show seats of that show
+     */
+    public void register(int showId, List<ShowSeat> showSeats) {
+        ShowInventory inventory = inventories.get(showId);
+        if (inventory == null) {
+            return;
+        }
+        for (ShowSeat showSeat : showSeats) {
+            if (!inventory.containsSeat(showSeat.getSeat().getId())) {
+                evict(showId);
+                return;
+            }
+            inventory.register(showSeat.getId(), showSeat.getSeat().getId());
+        }
+    }
+
+    /**
+     * Drop the in-memory copy of a show, it is reloaded on next use
+     * @param showId Show ID
+     */
+    public void evict(int showId) {
+        inventories.remove(showId);
+    }
+
+    /**
+     * Drop the in-memory copy of every loaded show matching the filter
+     * @param showIds Filter on show IDs
+     */
+    public void evictIf(IntPredicate showIds) {
+        inventories.keySet().removeIf(showIds::test);
+    }
+
+    private void transitionEach(int showId, Collection<Integer> showSeatIds, ShowSeatStatus from, ShowSeatStatus to) {
+        ShowInventory inventory = inventories.get(showId);
+        if (inventory == null) {
+            return; // not loaded yet, it will be read fresh from the database
+        }
+        inventory.getSeats().transitionEach(inventory.positionsOf(showSeatIds), from, to);
+    }
+
+    private ShowInventory load(int showId, Map<Integer, ShowSeatStatus> ledgerStatuses, int[] differing) {
+        // positions follow the auditorium layout, so seats without a ShowSeat row (sparse shows) have one too
+        List<Object[]> rows = showSeatRepository.findSeatStatesByShowId(showId);
+        TreeSet<Integer> layout = new TreeSet<>(showRepository.findAuditoriumIdById(showId)
+                .map(auditoriumRepository::findSeatIdsByAuditoriumId)
+                .orElse(List.of()));
+        for (Object[] row : rows) {
+            if (row[1] != null) {
+                layout.add((Integer) row[1]);
+            }
+        }
+        int[] seatIds = layout.stream().mapToInt(Integer::intValue).toArray();
+
+        ShowInventory inventory = new ShowInventory(showId, seatIds);
+        for (Object[] row : rows) {
+            if (row[1] == null) {
+                continue; // a show seat without a seat is not bookable
+            }
+            int showSeatId = (Integer) row[0];
+            inventory.register(showSeatId, (Integer) row[1]);
+            ShowSeatStatus status = (ShowSeatStatus) row[2];
+            if (ledgerStatuses != null && ledgerStatuses.getOrDefault(showSeatId, ShowSeatStatus.AVAILABLE)
+                    != (status == null ? ShowSeatStatus.AVAILABLE : status)) {
+                differing[0]++;
+            }
+            if (status != null && status != ShowSeatStatus.AVAILABLE) {
+                inventory.getSeats().set(inventory.positionOf(showSeatId), status);
+            }
+        }
+        return inventory;
+    }
+}
@@ -0,0 +1,377 @@
+package com.example.bookMyShow.service;
+
+import com.example.bookMyShow.dto.SeatLedgerPage;
+import com.example.bookMyShow.dto.SeatTransitionEntry;
+import com.example.bookMyShow.event.SeatTransitionEvent;
+import com.example.bookMyShow.model.constant.SeatTransitionKind;
+import com.example.bookMyShow.model.constant.ShowSeatStatus;
+import com.example.bookMyShow.service.ledger.SeatLedgerLog;
+import com.example.bookMyShow.service.ledger.SeatLedgerRecord;
+import com.example.bookMyShow.service.ledger.SeatLedgerSnapshot;
+import com.example.bookMyShow.service.ledger.ShowSeatLedgerState;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*
+Append-only ledger of every seat transition (hold, confirm, release, expire, cancel), one 32 byte record
+per seat. Races can be audited from it, it serves as a change feed by sequence, and it keeps the latest
+status of every seat it saw in memory. Every so many records that state is written to a snapshot,
+at startup the newest snapshot is read and only the records after it are replayed.
+A transition is appended and forced to disk before its transaction commits, so no committed transition is
+missing from the ledger after a crash; concurrent appends share their fsyncs. If the transaction then
+does not commit, a ROLLBACK record puts the seats back to the status the ledger had for them.
+Once restored, the seat inventories of the shows in the ledger are rebuilt from it in the background.
+Off by default, every transition goes through one append lock while it is on.
+ */
+@Service
+public class SeatLedgerService {
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+    private static final int REPLAY_BATCH = 65536;
+
+    @Value("${bookmyshow.ledger.enabled:false}")
+    private boolean enabled;
+    @Value("${bookmyshow.ledger.directory:data/ledger}")
+    private String directory;
+    @Value("${bookmyshow.ledger.snapshot-every-records:1000000}")
+    private long snapshotEveryRecords;
+    @Value("${bookmyshow.ledger.snapshots-kept:2}")
+    private int snapshotsKept;
+
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+
+    private Path path;
+    private volatile SeatLedgerLog log;
+    private final Map<Integer, ShowSeatLedgerState> shows = new HashMap<>();
+    private long recordsSinceSnapshot;
+    private boolean snapshotRunning;
+
+    private final ExecutorService snapshotWriter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "seat-ledger-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ExecutorService inventorySeeder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "seat-ledger-seed");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public synchronized void restore() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        path = Paths.get(directory);
+        Files.createDirectories(path);
+        long sequence = 0;
+        for (Path file : snapshotFiles().descendingMap().values()) {
+            try {
+                SeatLedgerSnapshot snapshot = SeatLedgerSnapshot.read(file);
+                shows.putAll(snapshot.getShows());
+                sequence = snapshot.getSequence();
+                break;
+            } catch (IOException e) {
+                System.err.println("Skipping seat ledger snapshot " + file + ": " + e.getMessage());
+            }
+        }
+        log = new SeatLedgerLog(path, sequence + 1);
+
+        long replayed = 0;
+        List<SeatLedgerRecord> batch;
+        while (!(batch = log.read(sequence + 1, REPLAY_BATCH)).isEmpty()) {
+            for (SeatLedgerRecord record : batch) {
+                apply(record);
+            }
+            sequence = batch.get(batch.size() - 1).getSequence();
+            replayed += batch.size();
+        }
+        recordsSinceSnapshot = replayed;
+        System.out.println("Seat ledger: restored " + shows.size() + " shows up to sequence " + log.getLastSequence()
+                + ", replayed " + replayed + " records in " + (System.nanoTime() - started) / 1_000_000 + " ms");
+
+        Map<Integer, ShowSeatLedgerState> restored = copyShows();
+        inventorySeeder.execute(() -> seedInventories(restored));
+    }
+
+    @PreDestroy
+    public void close() {
+        inventorySeeder.shutdownNow();
+        snapshotWriter.shutdown();
+        synchronized (this) {
+            if (log == null) {
+                return;
+            }
+            try {
+                if (recordsSinceSnapshot > 0) {
+                    writeSnapshot(new SeatLedgerSnapshot(log.getLastSequence(), copyShows()));
+                }
+                log.close();
+            } catch (IOException e) {
+                System.err.println("Closing the seat ledger failed: " + e.getMessage());
+            }
+            log = null;
+        }
+    }
+
+    // written ahead of the commit: a failed append fails the transaction, a failed commit is taken back
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onSeatTransition(SeatTransitionEvent event) {
+        SeatLedgerLog current = log;
+        if (current == null || event.getShowSeatIds().isEmpty()) {
+            return;
+        }
+        boolean inTransaction = TransactionSynchronizationManager.isSynchronizationActive();
+        try {
+            Map<Integer, ShowSeatStatus> previous = new HashMap<>();
+            long sequence = append(event.getShowId(), event.getShowSeatIds(), event.getKind(), event.getFrom(),
+                    event.getTo(), event.getOccurredAtMillis(), previous);
+            if (inTransaction) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        if (status != STATUS_COMMITTED) {
+                            rollBack(event, previous);
+                        }
+                    }
+                });
+            }
+            current.force(sequence);
+        } catch (IOException e) {
+            if (inTransaction) {
+                throw new UncheckedIOException("Appending to the seat ledger failed for show " + event.getShowId(), e);
+            }
+            // no transaction, the change is already in the database
+            System.err.println("Appending to the seat ledger failed for show " + event.getShowId() + ": " + e.getMessage());
+        }
+    }
+
+    // the seats go back to the status the ledger had for them before the transition, AVAILABLE if it had none
+    private void rollBack(SeatTransitionEvent event, Map<Integer, ShowSeatStatus> previous) {
+        Map<ShowSeatStatus, List<Integer>> seatsByStatus = new EnumMap<>(ShowSeatStatus.class);
+        for (int showSeatId : event.getShowSeatIds()) {
+            seatsByStatus.computeIfAbsent(previous.getOrDefault(showSeatId, ShowSeatStatus.AVAILABLE),
+                    status -> new ArrayList<>()).add(showSeatId);
+        }
+        try {
+            long sequence = 0;
+            for (Map.Entry<ShowSeatStatus, List<Integer>> seats : seatsByStatus.entrySet()) {
+                sequence = append(event.getShowId(), seats.getValue(), SeatTransitionKind.ROLLBACK, event.getTo(),
+                        seats.getKey(), System.currentTimeMillis(), null);
+            }
+            SeatLedgerLog current = log;
+            if (current != null && sequence > 0) {
+                current.force(sequence);
+            }
+        } catch (IOException e) {
+            System.err.println("Taking back a seat transition of show " + event.getShowId()
+                    + " in the seat ledger failed: " + e.getMessage());
+        }
+    }
+
+    // appends and applies under the lock, returns the sequence of the last record, the force is left to the caller
+    private synchronized long append(int showId, List<Integer> showSeatIds, SeatTransitionKind kind, ShowSeatStatus from,
+                                     ShowSeatStatus to, long timestampMillis, Map<Integer, ShowSeatStatus> previous)
+            throws IOException {
+        if (log == null) {
+            return 0;
+        }
+        if (previous != null) {
+            ShowSeatLedgerState state = shows.get(showId);
+            for (int showSeatId : showSeatIds) {
+                ShowSeatStatus status = state == null ? null : state.getStatus(showSeatId);
+                if (status != null) {
+                    previous.put(showSeatId, status);
+                }
+            }
+        }
+        List<SeatLedgerRecord> records = log.append(showId, showSeatIds, kind, from, to, timestampMillis);
+        for (SeatLedgerRecord record : records) {
+            apply(record);
+        }
+        recordsSinceSnapshot += records.size();
+        if (recordsSinceSnapshot >= snapshotEveryRecords && !snapshotRunning) {
+            startSnapshot();
+        }
+        return records.get(records.size() - 1).getSequence();
+    }
+
+    // the layout of each show still comes from the database, the statuses from the ledger are checked against it
+    private void seedInventories(Map<Integer, ShowSeatLedgerState> restored) {
+        long started = System.nanoTime();
+        int seeded = 0;
+        int mismatched = 0;
+        for (Map.Entry<Integer, ShowSeatLedgerState> show : restored.entrySet()) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            ShowSeatLedgerState state = show.getValue();
+            Map<Integer, ShowSeatStatus> statuses = new HashMap<>(state.size() * 2);
+            for (int i = 0; i < state.size(); i++) {
+                statuses.put(state.getShowSeatId(i), state.getStatusAt(i));
+            }
+            try {
+                int differing = seatInventoryService.seed(show.getKey(), statuses);
+                if (differing >= 0) {
+                    seeded++;
+                    mismatched += differing;
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Seat ledger: could not seed the inventory of show " + show.getKey() + ": " + e.getMessage());
+            }
+        }
+        System.out.println("Seat ledger: seeded the inventories of " + seeded + " shows in "
+                + (System.nanoTime() - started) / 1_000_000 + " ms, " + mismatched + " seats differed from the database");
+    }
+
+    /**
+     * Read the change feed
+     * @param since First sequence wanted
+     * @param limit Maximum number of transitions
+     * @param showId Only transitions of this show, null for all
+     * @return Transitions and the sequence to continue from
+     */
+    public SeatLedgerPage getChanges(long since, int limit, Integer showId) throws IOException {
+        SeatLedgerLog current = log;
+        SeatLedgerPage page = new SeatLedgerPage();
+        List<SeatTransitionEntry> transitions = new ArrayList<>();
+        long next = since;
+        if (current != null) {
+            // a show filter may skip most records, scan a bounded window instead of the whole log
+            long scanEnd = showId == null ? Long.MAX_VALUE : since + 16L * limit;
+            while (transitions.size() < limit && next < scanEnd) {
+                List<SeatLedgerRecord> records = current.read(next, (int) Math.min(limit, scanEnd - next));
+                if (records.isEmpty()) {
+                    break;
+                }
+                for (SeatLedgerRecord record : records) {
+                    next = record.getSequence() + 1;
+                    if (showId == null || record.getShowId() == showId) {
+                        transitions.add(toEntry(record));
+                        if (transitions.size() == limit) {
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        page.setTransitions(transitions);
+        page.setNextSequence(next);
+        return page;
+    }
+
+    /**
+     * Latest status of every seat of a show the ledger saw change, seats missing from it are AVAILABLE
+     * @param showId Show ID
+     * @return Status by show seat ID
+     */
+    public synchronized Map<Integer, ShowSeatStatus> getShowState(int showId) {
+        Map<Integer, ShowSeatStatus> statuses = new LinkedHashMap<>();
+        ShowSeatLedgerState state = shows.get(showId);
+        if (state != null) {
+            for (int i = 0; i < state.size(); i++) {
+                statuses.put(state.getShowSeatId(i), state.getStatusAt(i));
+            }
+        }
+        return statuses;
+    }
+
+    private void apply(SeatLedgerRecord record) {
+        shows.computeIfAbsent(record.getShowId(), id -> new ShowSeatLedgerState())
+                .apply(record.getShowSeatId(), record.getTo());
+    }
+
+    // copy the state under the lock, write it on the snapshot thread
+    private void startSnapshot() throws IOException {
+        SeatLedgerSnapshot snapshot = new SeatLedgerSnapshot(log.getLastSequence(), copyShows());
+        log.roll();
+        recordsSinceSnapshot = 0;
+        snapshotRunning = true;
+        snapshotWriter.execute(() -> {
+            try {
+                writeSnapshot(snapshot);
+            } catch (IOException e) {
+                System.err.println("Writing seat ledger snapshot " + snapshot.getSequence() + " failed: " + e.getMessage());
+            } finally {
+                synchronized (this) {
+                    snapshotRunning = false;
+                }
+            }
+        });
+    }
+
+    private void writeSnapshot(SeatLedgerSnapshot snapshot) throws IOException {
+        long started = System.nanoTime();
+        snapshot.write(path.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, snapshot.getSequence(), SNAPSHOT_SUFFIX)));
+        TreeMap<Long, Path> snapshots = snapshotFiles();
+        while (snapshots.size() > snapshotsKept) {
+            Files.deleteIfExists(snapshots.pollFirstEntry().getValue());
+        }
+        // records up to the oldest kept snapshot are not needed for a restore any more
+        int deleted;
+        synchronized (this) {
+            deleted = log == null ? 0 : log.deleteBefore(snapshots.firstKey() + 1);
+        }
+        System.out.println("Seat ledger: snapshot at sequence " + snapshot.getSequence() + " of "
+                + snapshot.getShows().size() + " shows written in " + (System.nanoTime() - started) / 1_000_000
+                + " ms, " + deleted + " old segments deleted");
+    }
+
+    private Map<Integer, ShowSeatLedgerState> copyShows() {
+        Map<Integer, ShowSeatLedgerState> copy = new HashMap<>(shows.size() * 2);
+        for (Map.Entry<Integer, ShowSeatLedgerState> entry : shows.entrySet()) {
+            copy.put(entry.getKey(), entry.getValue().copy());
+        }
+        return copy;
+    }
+
+    private TreeMap<Long, Path> snapshotFiles() throws IOException {
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(path, SNAPSHOT_PREFIX + "*" + SNAPSHOT_SUFFIX)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                files.put(Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length())), file);
+            }
+        }
+        return files;
+    }
+
+    private static SeatTransitionEntry toEntry(SeatLedgerRecord record) {
+        SeatTransitionEntry entry = new SeatTransitionEntry();
+        entry.setSequence(record.getSequence());
+        entry.setOccurredAt(Instant.ofEpochMilli(record.getTimestampMillis()));
+        entry.setShowId(record.getShowId());
+        entry.setShowSeatId(record.getShowSeatId());
+        entry.setKind(record.getKind());
+        entry.setFrom(record.getFrom());
+        entry.setTo(record.getTo());
+        return entry;
+    }
+}
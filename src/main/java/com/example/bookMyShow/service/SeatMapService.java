@@ -0,0 +1,170 @@
+package com.example.bookMyShow.service;
+
+import com.example.bookMyShow.dto.SeatMapResponse;
+import com.example.bookMyShow.event.SeatTransitionEvent;
+import com.example.bookMyShow.exception.ShowSeatNotFoundException;
+import com.example.bookMyShow.model.Seat;
+import com.example.bookMyShow.model.constant.ShowSeatStatus;
+import com.example.bookMyShow.repository.SeatRepository;
+import com.example.bookMyShow.repository.ShowSeatRepository;
+import com.example.bookMyShow.service.inventory.SeatMap;
+import com.example.bookMyShow.service.inventory.ShowInventory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
+
+/*
+Serves the seat map of a show in a compact encoding with a version, and only the changed seats to clients
+that send the version they have. The map of a show is read from its ShowSeat rows on first use and then
+follows the committed seat transitions, which are also handed to watchers such as the live seat stream.
+Versions start at the load time in milliseconds and count up by one per transition, so a version handed
+out before a restart is always older than the new ones and gets a full map.
+ */
+@Service
+public class SeatMapService {
+
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+    @Autowired
+    private ShowSeatRepository showSeatRepository;
+    @Autowired
+    private SeatRepository seatRepository;
+    @Value("${bookmyshow.seat-map.delta-capacity:1024}")
+    private int deltaCapacity;
+
+    private final ConcurrentHashMap<Integer, SeatMap> seatMaps = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Set<Consumer<SeatMapResponse>>> watchers = new ConcurrentHashMap<>();
+
+    /**
+     * Seat map of a show
+     * @param showId Show ID
+     * @param since Version the client already has, null for a full map
+     * @return Changes since that version, or the full map if the client has none or is too far behind
+     */
+    public SeatMapResponse getSeatMap(int showId, Long since) {
+        return currentSeatMap(showId).toResponse(since);
+    }
+
+    /**
+     * Read the seat map of a show while no change is applied to it, so whatever the reader registers
+     * next to it sees every later change and nothing twice
+     * @param showId Show ID
+     * @param since Version the reader already has, null for a full map
+     * @param reader Receives the map, must not block
+     */
+    public void readSeatMap(int showId, Long since, Consumer<SeatMapResponse> reader) {
+        ShowInventory inventory = seatInventoryService.getInventory(showId);
+        seatMaps.compute(showId, (id, current) -> {
+            SeatMap seatMap = upToDate(current, inventory);
+            reader.accept(seatMap.toResponse(since));
+            return seatMap;
+        });
+    }
+
+    /**
+     * Get every change of a show's seat map as it is applied, in version order.
+     * A watcher is called while the change is being applied, it must hand the delta off without blocking.
+     * @param showId Show ID
+     * @param watcher Receives the delta of each version, or the full map if the map had to be rebuilt
+     */
+    public void watch(int showId, Consumer<SeatMapResponse> watcher) {
+        watchers.computeIfAbsent(showId, id -> new CopyOnWriteArraySet<>()).add(watcher);
+        currentSeatMap(showId); // loaded now, so it follows the transitions from here on
+    }
+
+    public void unwatch(int showId, Consumer<SeatMapResponse> watcher) {
+        watchers.computeIfPresent(showId, (id, showWatchers) -> {
+            showWatchers.remove(watcher);
+            return showWatchers.isEmpty() ? null : showWatchers;
+        });
+    }
+
+    // a show nobody asked for yet is read fresh on first use, its committed changes are already in the rows
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSeatTransition(SeatTransitionEvent event) {
+        if (event.getShowSeatIds().isEmpty()) {
+            return;
+        }
+        seatMaps.computeIfPresent(event.getShowId(), (showId, seatMap) -> {
+            ShowInventory inventory = seatInventoryService.getInventory(showId);
+            try {
+                notifyWatchers(showId, seatMap.apply(inventory.positionsOf(event.getShowSeatIds()), event.getTo()));
+                return seatMap;
+            } catch (ShowSeatNotFoundException e) {
+                // a seat the map does not know, the layout changed
+                SeatMap rebuilt = load(inventory);
+                notifyWatchers(showId, rebuilt.toResponse(null));
+                return rebuilt;
+            }
+        });
+    }
+
+    private SeatMap currentSeatMap(int showId) {
+        ShowInventory inventory = seatInventoryService.getInventory(showId);
+        return seatMaps.compute(showId, (id, current) -> upToDate(current, inventory));
+    }
+
+    // the map is rebuilt when the layout of the show changed, watchers get the new map in full
+    private SeatMap upToDate(SeatMap current, ShowInventory inventory) {
+        if (current != null && current.size() == inventory.getSeats().size()) {
+            return current;
+        }
+        SeatMap seatMap = load(inventory);
+        if (current != null) {
+            notifyWatchers(inventory.getShowId(), seatMap.toResponse(null));
+        }
+        return seatMap;
+    }
+
+    private void notifyWatchers(int showId, SeatMapResponse response) {
+        Set<Consumer<SeatMapResponse>> showWatchers = watchers.get(showId);
+        if (showWatchers == null) {
+            return;
+        }
+        for (Consumer<SeatMapResponse> watcher : showWatchers) {
+            try {
+                watcher.accept(response);
+            } catch (RuntimeException e) {
+                System.err.println("Seat map watcher of show " + showId + " failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private SeatMap load(ShowInventory inventory) {
+        int size = inventory.getSeats().size();
+        List<Integer> seatIds = new ArrayList<>(size);
+        for (int position = 0; position < size; position++) {
+            seatIds.add(inventory.getSeatId(position));
+        }
+        Map<Integer, Seat> seatById = new HashMap<>(size * 2);
+        for (Seat seat : seatRepository.findAllById(seatIds)) {
+            seatById.put(seat.getId(), seat);
+        }
+        List<Seat> seats = new ArrayList<>(size);
+        for (int seatId : seatIds) {
+            seats.add(seatById.get(seatId));
+        }
+
+        // seats of a sparse show without a ShowSeat row are AVAILABLE
+        ShowSeatStatus[] statuses = new ShowSeatStatus[size];
+        Arrays.fill(statuses, ShowSeatStatus.AVAILABLE);
+        for (Object[] row : showSeatRepository.findSeatStatesByShowId(inventory.getShowId())) {
+            if (row[2] != null && inventory.containsSeat((Integer) row[1])) {
+                statuses[inventory.positionOfSeat((Integer) row[1])] = (ShowSeatStatus) row[2];
+            }
+        }
+        return new SeatMap(inventory.getShowId(), seats, statuses, System.currentTimeMillis(), deltaCapacity);
+    }
+}
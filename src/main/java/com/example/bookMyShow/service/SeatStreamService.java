@@ -0,0 +1,248 @@
+package com.example.bookMyShow.service;
+
+import com.example.bookMyShow.dto.SeatMapResponse;
+import com.example.bookMyShow.exception.SeatStreamFullException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/*
+Pushes the seat map of a show to clients over Server-Sent Events instead of having them poll.
+A subscriber first gets the map (or the delta since the version it sent), then one "seats" event per
+version, with the version as event id so a reconnect resumes via Last-Event-ID.
+All subscribers of a show hang off one watcher of the seat map, each change is serialized once and
+offered to every subscriber's bounded buffer. A small pool drains the buffers into the connections, a
+subscriber whose buffer is full is too slow to keep up and is disconnected; it reconnects and resumes.
+ */
+@Service
+public class SeatStreamService {
+    private static final String EVENT_NAME = "seats";
+    private static final Frame HEARTBEAT = new Frame(null, null);
+
+    // an event ready to send, a null id is a heartbeat comment
+    private static class Frame {
+        final String id;
+        final String json;
+
+        Frame(String id, String json) {
+            this.id = id;
+            this.json = json;
+        }
+    }
+
+    private class Subscriber implements Runnable {
+        final int showId;
+        final SseEmitter emitter;
+        final ArrayBlockingQueue<Frame> buffer = new ArrayBlockingQueue<>(bufferSize);
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+
+        Subscriber(int showId, SseEmitter emitter) {
+            this.showId = showId;
+            this.emitter = emitter;
+        }
+
+        void offer(Frame frame) {
+            if (closed.get()) {
+                return;
+            }
+            if (!buffer.offer(frame)) {
+                slowConsumersDropped.increment();
+                close();
+                emitter.complete();
+                return;
+            }
+            if (scheduled.compareAndSet(false, true)) {
+                senders.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                Frame frame;
+                while (!closed.get() && (frame = buffer.poll()) != null) {
+                    emitter.send(frame.id == null
+                            ? SseEmitter.event().comment("")
+                            : SseEmitter.event().id(frame.id).name(EVENT_NAME).data(frame.json, MediaType.APPLICATION_JSON));
+                }
+            } catch (IOException | RuntimeException e) {
+                close(); // the client went away
+            } finally {
+                scheduled.set(false);
+                if (!closed.get() && !buffer.isEmpty() && scheduled.compareAndSet(false, true)) {
+                    senders.execute(this);
+                }
+            }
+        }
+
+        // never takes a lock, it runs inside seat map updates when a slow subscriber is dropped
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                ShowStream stream = streams.get(showId);
+                if (stream != null) {
+                    stream.subscribers.remove(this);
+                }
+                subscriberCount.decrementAndGet();
+            }
+        }
+    }
+
+    // the subscribers of one show, registered with the seat map as a single watcher
+    private class ShowStream implements Consumer<SeatMapResponse> {
+        final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        volatile long lastSubscribedAt = System.currentTimeMillis();
+
+        @Override
+        public void accept(SeatMapResponse response) {
+            if (subscribers.isEmpty()) {
+                return;
+            }
+            Frame frame = toFrame(response);
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(frame);
+            }
+        }
+    }
+
+    @Autowired
+    private SeatMapService seatMapService;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Value("${bookmyshow.seat-stream.buffer-size:32}")
+    private int bufferSize;
+    @Value("${bookmyshow.seat-stream.max-subscribers:10000}")
+    private int maxSubscribers;
+    @Value("${bookmyshow.seat-stream.timeout-minutes:30}")
+    private long timeoutMinutes;
+    @Value("${bookmyshow.seat-stream.heartbeat-seconds:15}")
+    private long heartbeatSeconds;
+    @Value("${bookmyshow.seat-stream.senders:4}")
+    private int senderCount;
+
+    private final ConcurrentHashMap<Integer, ShowStream> streams = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final LongAdder slowConsumersDropped = new LongAdder();
+    private ExecutorService senders;
+
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "seat-stream-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threads = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(senderCount, runnable -> {
+            Thread thread = new Thread(runnable, "seat-stream-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // also how connections closed by the client are noticed
+        heartbeat.scheduleWithFixedDelay(this::sendHeartbeats, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        senders.shutdownNow();
+        for (ShowStream stream : streams.values()) {
+            for (Subscriber subscriber : stream.subscribers) {
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    /**
+     * Open a live stream of the seat map of a show
+     * @param showId Show ID
+     * @param since Version the client already has, e.g. from Last-Event-ID, null for a full map first
+     * @return Emitter of the connection
+     * @throws SeatStreamFullException if this node serves as many streams as it may
+     */
+    public SseEmitter subscribe(int showId, Long since) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new SeatStreamFullException("Too many live seat map subscribers, poll GET /show/" + showId + "/seatMap/compact");
+        }
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(timeoutMinutes));
+        Subscriber subscriber = new Subscriber(showId, emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+
+        try {
+            // touched under the map lock, so the idle cleanup cannot drop it before the subscriber is in
+            ShowStream stream = streams.compute(showId, (id, current) -> {
+                ShowStream touched = current != null ? current : new ShowStream();
+                touched.lastSubscribedAt = System.currentTimeMillis();
+                return touched;
+            });
+            seatMapService.watch(showId, stream);
+            // the first frame and the registration happen while no change is applied, so nothing is missed
+            seatMapService.readSeatMap(showId, since, response -> {
+                stream.subscribers.add(subscriber);
+                subscriber.offer(toFrame(response));
+            });
+        } catch (RuntimeException e) {
+            subscriber.close();
+            throw e;
+        }
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    public long getSlowConsumersDropped() {
+        return slowConsumersDropped.sum();
+    }
+
+    private void sendHeartbeats() {
+        long idleSince = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(heartbeatSeconds);
+        for (Integer showId : streams.keySet()) {
+            streams.computeIfPresent(showId, (id, stream) -> {
+                // a stream just created may not have its first subscriber yet
+                if (stream.subscribers.isEmpty() && stream.lastSubscribedAt < idleSince) {
+                    seatMapService.unwatch(id, stream);
+                    return null;
+                }
+                return stream;
+            });
+        }
+        for (ShowStream stream : streams.values()) {
+            for (Subscriber subscriber : stream.subscribers) {
+                subscriber.offer(HEARTBEAT);
+            }
+        }
+    }
+
+    private Frame toFrame(SeatMapResponse response) {
+        try {
+            return new Frame(Long.toString(response.getVersion()), objectMapper.writeValueAsString(response));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the seat map of show " + response.getShowId(), e);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.bookMyShow.service;
+
+import com.example.bookMyShow.dto.ShowAvailabilityResponse;
+import com.example.bookMyShow.event.SeatTransitionEvent;
+import com.example.bookMyShow.exception.ShowNotFoundException;
+import com.example.bookMyShow.exception.ShowSeatNotFoundException;
+import com.example.bookMyShow.model.constant.SeatType;
+import com.example.bookMyShow.model.constant.ShowSeatStatus;
+import com.example.bookMyShow.model.constant.ShowStatus;
+import com.example.bookMyShow.repository.SeatRepository;
+import com.example.bookMyShow.repository.ShowRepository;
+import com.example.bookMyShow.repository.ShowSeatRepository;
+import com.example.bookMyShow.service.inventory.ShowAvailability;
+import com.example.bookMyShow.service.inventory.ShowInventory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*
+Keeps per show and seat type counters of available, locked and booked seats, so listings read a show's
+availability without counting its seats. The counters of a show are read from its ShowSeat rows on first
+use or on its first seat transition, and then follow the committed seat transitions.
+When the last available seat of a show goes the show becomes HOUSEFULL, when a seat comes back (a hold
+expires or a booking is cancelled) it goes back to YET_TO_START or RUNNING. The status is written by one
+background thread, so the commit of a hold never waits for it and the flips of a show stay in order.
+ */
+@Service
+public class ShowAvailabilityService {
+    // a show in any other status, e.g. CANCELLED, is not made HOUSEFULL
+    private static final Set<ShowStatus> OPEN = Set.of(ShowStatus.YET_TO_START, ShowStatus.RUNNING);
+
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+    @Autowired
+    private ShowSeatRepository showSeatRepository;
+    @Autowired
+    private SeatRepository seatRepository;
+    @Autowired
+    private ShowRepository showRepository;
+
+    private final ConcurrentHashMap<Integer, ShowAvailability> availabilities = new ConcurrentHashMap<>();
+
+    private final ExecutorService statusWriter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "show-status-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void shutdown() {
+        statusWriter.shutdown();
+    }
+
+    /**
+     * Seat counts of a show
+     * @param showId Show ID
+     * @return Counts by status, in total and per seat type, with the status of the show
+     */
+    public ShowAvailabilityResponse getAvailability(int showId) {
+        return currentAvailability(showId).toResponse();
+    }
+
+    /**
+     * Seat counts of many shows, e.g. for a listing
+     * @param showIds Show IDs
+     * @return Counts of every show that exists, in the given order
+     */
+    public List<ShowAvailabilityResponse> getAvailabilities(List<Integer> showIds) {
+        List<ShowAvailabilityResponse> responses = new ArrayList<>(showIds.size());
+        for (int showId : showIds) {
+            try {
+                responses.add(getAvailability(showId));
+            } catch (ShowNotFoundException e) {
+                // left out of the listing
+            }
+        }
+        return responses;
+    }
+
+    /**
+     * Drop the counters of a show, they are read again on next use
+     * @param showId Show ID
+     */
+    public void evict(int showId) {
+        availabilities.remove(showId);
+    }
+
+    // the counters of a show are loaded on its first transition, so a show sells out even if nobody listed it
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSeatTransition(SeatTransitionEvent event) {
+        if (event.getShowSeatIds().isEmpty()) {
+            return;
+        }
+        boolean[] soldOutChanged = new boolean[1];
+        availabilities.compute(event.getShowId(), (showId, availability) -> {
+            ShowInventory inventory = seatInventoryService.getInventory(showId);
+            if (availability == null) {
+                // read after the commit, the rows already have this transition
+                soldOutChanged[0] = true;
+                try {
+                    return load(inventory, findShowStatus(showId));
+                } catch (ShowNotFoundException e) {
+                    soldOutChanged[0] = false;
+                    return null;
+                }
+            }
+            try {
+                soldOutChanged[0] = availability.apply(inventory.positionsOf(event.getShowSeatIds()), event.getTo());
+                return availability;
+            } catch (ShowSeatNotFoundException e) {
+                // a seat the counters do not know, the layout changed
+                soldOutChanged[0] = true;
+                return load(inventory, availability.getShowStatus());
+            }
+        });
+        if (soldOutChanged[0]) {
+            statusWriter.execute(() -> updateShowStatus(event.getShowId()));
+        }
+    }
+
+    private ShowAvailability currentAvailability(int showId) {
+        ShowInventory inventory = seatInventoryService.getInventory(showId);
+        boolean[] loaded = new boolean[1];
+        ShowAvailability availability = availabilities.compute(showId, (id, current) -> {
+            if (current != null && current.size() == inventory.getSeats().size()) {
+                return current;
+            }
+            loaded[0] = true;
+            ShowStatus showStatus = current != null ? current.getShowStatus() : findShowStatus(showId);
+            return load(inventory, showStatus);
+        });
+        if (loaded[0]) {
+            // the status may not match the seats, e.g. after seats were changed while this node was down
+            statusWriter.execute(() -> updateShowStatus(showId));
+        }
+        return availability;
+    }
+
+    private ShowStatus findShowStatus(int showId) {
+        if (!showRepository.existsById(showId)) {
+            throw new ShowNotFoundException("Show with id " + showId + " not found");
+        }
+        return showRepository.findShowStatusById(showId).orElse(null);
+    }
+
+    // runs on the status writer only, so two flips of a show never race each other
+    private void updateShowStatus(int showId) {
+        ShowAvailability availability = availabilities.get(showId);
+        if (availability == null) {
+            return;
+        }
+        try {
+            ShowStatus current = availability.getShowStatus();
+            if (availability.isSoldOut() && (current == null || OPEN.contains(current))) {
+                writeShowStatus(availability, showRepository.updateShowStatusOrUnset(showId, OPEN, ShowStatus.HOUSEFULL),
+                        ShowStatus.HOUSEFULL);
+            } else if (!availability.isSoldOut() && current == ShowStatus.HOUSEFULL) {
+                LocalDateTime startTime = showRepository.findStartTimeById(showId).orElse(null);
+                ShowStatus reopened = startTime == null || LocalDateTime.now().isBefore(startTime)
+                        ? ShowStatus.YET_TO_START : ShowStatus.RUNNING;
+                writeShowStatus(availability, showRepository.updateShowStatus(showId, Set.of(ShowStatus.HOUSEFULL), reopened),
+                        reopened);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Could not update the status of show " + showId + ": " + e.getMessage());
+        }
+    }
+
+    // nothing changed if someone else moved the show meanwhile, e.g. cancelled it, their status is taken instead
+    private void writeShowStatus(ShowAvailability availability, int updated, ShowStatus written) {
+        if (updated > 0) {
+            availability.setShowStatus(written);
+        } else {
+            availability.setShowStatus(showRepository.findShowStatusById(availability.getShowId()).orElse(null));
+        }
+    }
+
+    private ShowAvailability load(ShowInventory inventory, ShowStatus showStatus) {
+        int size = inventory.getSeats().size();
+        List<Integer> seatIds = new ArrayList<>(size);
+        for (int position = 0; position < size; position++) {
+            seatIds.add(inventory.getSeatId(position));
+        }
+        Map<Integer, SeatType> seatTypeBySeatId = new HashMap<>(size * 2);
+        if (!seatIds.isEmpty()) {
+            for (Object[] row : seatRepository.findSeatTypesByIds(seatIds)) {
+                seatTypeBySeatId.put((Integer) row[0], (SeatType) row[1]);
+            }
+        }
+        SeatType[] seatTypes = new SeatType[size];
+        for (int position = 0; position < size; position++) {
+            seatTypes[position] = seatTypeBySeatId.get(seatIds.get(position));
+        }
+
+        // seats of a sparse show without a ShowSeat row are AVAILABLE
+        ShowSeatStatus[] statuses = new ShowSeatStatus[size];
+        Arrays.fill(statuses, ShowSeatStatus.AVAILABLE);
+        for (Object[] row : showSeatRepository.findSeatStatesByShowId(inventory.getShowId())) {
+            if (row[2] != null && row[1] != null && inventory.containsSeat((Integer) row[1])) {
+                statuses[inventory.positionOfSeat((Integer) row[1])] = (ShowSeatStatus) row[2];
+            }
+        }
+        return new ShowAvailability(inventory.getShowId(), seatTypes, statuses, showStatus);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.bookMyShow.service;
+
+import com.example.bookMyShow.dto.ShowLockStats;
+import com.example.bookMyShow.exception.ShowBusyException;
+import com.example.bookMyShow.util.StripedLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+Serializes the holds of one show inside this node before they reach the database.
+Without it every concurrent hold on a hot show races to the database and all but one fail there;
+with it they queue here, and each one sees the in-memory inventory as left by the one before, so
+holds for seats that are already gone are rejected without a database round trip.
+Shows hashing to different stripes proceed fully in parallel.
+ */
+@Service
+public class ShowLockManager {
+
+    public interface Action<T, E extends Throwable> {
+        T run() throws E;
+    }
+
+    private final StripedLock locks;
+    private final long timeoutMillis;
+
+    public ShowLockManager(@Value("${bookmyshow.show-lock.stripes:256}") int stripes,
+                           @Value("${bookmyshow.show-lock.fair:false}") boolean fair,
+                           @Value("${bookmyshow.show-lock.timeout-ms:2000}") long timeoutMillis) {
+        this.locks = new StripedLock(stripes, fair);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Run an action while holding the lock of a show
+     * @param showId Show ID
+     * @param action Action to run
+     * @return Result of the action
+     * @throws ShowBusyException if the lock could not be taken in time
+     */
+    public <T, E extends Throwable> T withShowLock(int showId, Action<T, E> action) throws E {
+        boolean locked;
+        try {
+            locked = locks.tryLock(showId, timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ShowBusyException("Interrupted while waiting for show " + showId);
+        }
+        if (!locked) {
+            throw new ShowBusyException("Too many bookings in progress for show " + showId + ", please retry");
+        }
+        try {
+            return action.run();
+        } finally {
+            locks.unlock(showId);
+        }
+    }
+
+    public ShowLockStats getStats() {
+        ShowLockStats stats = new ShowLockStats();
+        stats.setStripes(locks.getStripeCount());
+        stats.setAcquisitions(locks.getAcquisitions());
+        stats.setTimeouts(locks.getTimeouts());
+        long waits = locks.getAcquisitions() + locks.getTimeouts();
+        stats.setAverageWaitMicros(waits == 0 ? 0 : locks.getTotalWaitNanos() / 1000.0 / waits);
+        stats.setMaxWaitMicros(locks.getMaxWaitNanos() / 1000);
+        stats.setQueueDepth(locks.getQueueDepth());
+        stats.setMaxStripeQueueDepth(locks.getMaxStripeQueueDepth());
+        return stats;
+    }
+}
@@ -1,22 +1,74 @@
 package com.example.bookMyShow.service;
 
+import com.example.bookMyShow.event.SeatTransitionEvent;
+import com.example.bookMyShow.exception.SelectedSeatsNotAvailableException;
+import com.example.bookMyShow.exception.ShowNotFoundException;
+import com.example.bookMyShow.exception.ShowSeatConflictException;
 import com.example.bookMyShow.exception.ShowSeatNotFoundException;
 import com.example.bookMyShow.model.ShowSeat;
+import com.example.bookMyShow.model.Showw;
+import com.example.bookMyShow.model.constant.SeatTransitionKind;
+import com.example.bookMyShow.model.constant.ShowSeatStatus;
+import com.example.bookMyShow.repository.SeatRepository;
+import com.example.bookMyShow.repository.ShowRepository;
 import com.example.bookMyShow.repository.ShowSeatRepository;
+import com.example.bookMyShow.service.inventory.ShowInventory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class ShowSeatService {
 
     @Autowired
     private ShowSeatRepository showSeatRepository;
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+    @Autowired
+    private ShowRepository showRepository;
+    @Autowired
+    private SeatRepository seatRepository;
+    @Autowired
+    private ShowSeatStateService showSeatStateService;
+    @Autowired
+    private ContentionMetricsService contentionMetricsService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private WalSeatStore walSeatStore;
 
 
     public ShowSeat createShowSeat(ShowSeat showSeat) {
-        return showSeatRepository.save(showSeat);
+        showSeat = showSeatRepository.save(showSeat);
+        if (showSeat.getShow() != null) {
+            seatInventoryService.evict(showSeat.getShow().getId());
+            showSeatStateService.invalidate(showSeat.getShow().getId());
+        }
+        return showSeat;
+    }
+
+    /**
+     * Create show seats, the inserts are sent in JDBC batches
+     * @param showSeats Show seats of one or more shows
+     * @return Saved show seats
+     */
+    public List<ShowSeat> createShowSeats(List<ShowSeat> showSeats) {
+        showSeats = showSeatRepository.saveAll(showSeats);
+        for (ShowSeat showSeat : showSeats) {
+            if (showSeat.getShow() != null) {
+                seatInventoryService.evict(showSeat.getShow().getId());
+                showSeatStateService.invalidate(showSeat.getShow().getId());
+            }
+        }
+        return showSeats;
     }
 
     public ShowSeat getShowSeatById(int id) {
@@ -25,15 +77,223 @@ public class ShowSeatService {
         );
     }
 
+    /**
+     * Get show seats in one query
+     * @param ids Show seat IDs
+     * @return Show seats in the order of the given ids
+     */
+    public List<ShowSeat> getShowSeatsByIds(List<Integer> ids) {
+        List<ShowSeat> showSeats = showSeatRepository.findAllById(ids);
+        if (showSeats.size() != ids.size()) {
+            throw new ShowSeatNotFoundException("Some of the ShowSeats " + ids + " were not found");
+        }
+        showSeats.sort((a, b) -> Integer.compare(ids.indexOf(a.getId()), ids.indexOf(b.getId())));
+        return showSeats;
+    }
+
+    /**
+     * Get the show seats of the given seats of a show, creating the rows a sparse show does not have yet.
+     * New rows start AVAILABLE at the default price of the show. If another hold creates the same row
+     * concurrently the unique (show, seat) constraint fails this call, and a retry finds the row.
+     * @param showId Show ID
+     * @param seatIds Distinct seat IDs of the auditorium of the show
+     * @return Show seats in the order of the given seat ids
+     */
+    @Transactional
+    public List<ShowSeat> getOrCreateShowSeats(int showId, List<Integer> seatIds) {
+        ShowInventory inventory = seatInventoryService.getInventory(showId);
+        for (int seatId : seatIds) {
+            inventory.positionOfSeat(seatId); // the seat must be part of the auditorium
+        }
+
+        Map<Integer, ShowSeat> showSeatBySeatId = new HashMap<>(seatIds.size() * 2);
+        for (ShowSeat showSeat : showSeatRepository.findByShowIdAndSeatIds(showId, seatIds)) {
+            showSeatBySeatId.put(showSeat.getSeat().getId(), showSeat);
+        }
+
+        List<ShowSeat> created = new ArrayList<>();
+        if (showSeatBySeatId.size() < seatIds.size()) {
+            Showw show = showRepository.findById(showId).orElseThrow(
+                    () -> new ShowNotFoundException("Show with id " + showId + " not found")
+            );
+            for (int seatId : seatIds) {
+                if (!showSeatBySeatId.containsKey(seatId)) {
+                    ShowSeat showSeat = new ShowSeat();
+                    showSeat.setShow(show);
+                    showSeat.setSeat(seatRepository.getReferenceById(seatId));
+                    showSeat.setPrice(show.getDefaultPrice());
+                    showSeat.setShowSeatStatus(ShowSeatStatus.AVAILABLE);
+                    created.add(showSeat);
+                    showSeatBySeatId.put(seatId, showSeat);
+                }
+            }
+            showSeatRepository.saveAllAndFlush(created);
+            seatInventoryService.register(showId, created);
+        }
+
+        List<ShowSeat> showSeats = new ArrayList<>(seatIds.size());
+        for (int seatId : seatIds) {
+            showSeats.add(showSeatBySeatId.get(seatId));
+        }
+        return showSeats;
+    }
+
+    /**
+     * Get the show seat rows of a show, for a sparse show only the seats that were ever held
+     * @param showId Show ID
+     * @return Show seats
+     */
+    public List<ShowSeat> getShowSeatsByShowId(int showId) {
+        return showSeatRepository.findByShowId(showId);
+    }
+
     public List<ShowSeat> getAllShowSeats() {
         return showSeatRepository.findAll();
     }
 
     public void deleteShowSeatById(int id) {
+        showSeatRepository.findShowIdById(id).ifPresent(showId -> {
+            seatInventoryService.evict(showId);
+            showSeatStateService.invalidate(showId);
+        });
         showSeatRepository.deleteById(id);
     }
 
+    /**
+     * Overwrite a show seat, only if nobody changed it since the caller read it
+     * @param showSeat Show seat carrying the version it was read with
+     * @return Saved show seat with its new version
+     * @throws ShowSeatConflictException if the version is stale, or the seat state of the show is owned by the WAL store
+     */
     public ShowSeat updateShowSeat(ShowSeat showSeat) {
-        return showSeatRepository.save(showSeat);
+        if (showSeat.getShow() != null && walSeatStore.owns(showSeat.getShow().getId())) {
+            throw new ShowSeatConflictException("Seats of show " + showSeat.getShow().getId()
+                    + " are owned by the write-ahead log and cannot be overwritten");
+        }
+        try {
+            showSeat = showSeatRepository.save(showSeat);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            if (showSeat.getShow() != null) {
+                contentionMetricsService.recordConflict(showSeat.getShow().getId());
+            }
+            throw new ShowSeatConflictException("ShowSeat with id " + showSeat.getId()
+                    + " was changed concurrently, version " + showSeat.getVersion() + " is stale");
+        }
+        seatInventoryService.update(showSeat);
+        if (showSeat.getShow() != null) {
+            showSeatStateService.invalidate(showSeat.getShow().getId());
+            eventPublisher.publishEvent(new SeatTransitionEvent(showSeat.getShow().getId(), SeatTransitionKind.SET, null,
+                    showSeat.getShowSeatStatus() == null ? ShowSeatStatus.AVAILABLE : showSeat.getShowSeatStatus(),
+                    List.of(showSeat.getId())));
+        }
+        return showSeat;
+    }
+
+    /**
+     * Lock all given seats with a single conditional UPDATE.
+     * If some seat was not AVAILABLE fewer rows are changed, the exception rolls the partial hold back.
+     * @param showId Show ID
+     * @param ids Distinct show seat IDs of that show
+     * @param lockedUntil Deadline after which the hold expires
+     * @param holdId Id of the hold, later confirms and releases of the seats must name it
+     * @return Locked show seats
+     */
+    @Transactional(rollbackFor = SelectedSeatsNotAvailableException.class)
+    public List<ShowSeat> lockShowSeats(int showId, List<Integer> ids, LocalDateTime lockedUntil, String holdId)
+            throws SelectedSeatsNotAvailableException {
+        int locked = showSeatRepository.updateStatus(showId, ids,
+                ShowSeatStatus.AVAILABLE, ShowSeatStatus.LOCKED, lockedUntil, holdId);
+        if (locked != ids.size()) {
+            throw new SelectedSeatsNotAvailableException(
+                    "Only " + locked + " of " + ids.size() + " selected seats are available");
+        }
+        showSeatStateService.setStatusAfterCommit(showId, ids, ShowSeatStatus.LOCKED, true);
+        eventPublisher.publishEvent(new SeatTransitionEvent(showId, SeatTransitionKind.HOLD,
+                ShowSeatStatus.AVAILABLE, ShowSeatStatus.LOCKED, ids));
+        return getShowSeatsByIds(ids);
+    }
+
+    /**
+     * Mark the seats of a hold as booked, LOCKED -> BOOKED
+     * @param holdId Id of the hold, seats held by someone else are not touched
+     * @return Number of seats booked
+     */
+    @Transactional
+    public int bookShowSeats(int showId, List<Integer> ids, String holdId) {
+        int booked = showSeatRepository.updateHeldStatus(showId, ids,
+                ShowSeatStatus.LOCKED, ShowSeatStatus.BOOKED, holdId);
+        showSeatStateService.setStatusAfterCommit(showId, ids, ShowSeatStatus.BOOKED, booked == ids.size());
+        publishTransition(showId, ids, SeatTransitionKind.CONFIRM, ShowSeatStatus.LOCKED, ShowSeatStatus.BOOKED, booked);
+        return booked;
+    }
+
+    /**
+     * Release the seats of a hold, LOCKED -> AVAILABLE
+     * @param holdId Id of the hold, seats held by someone else are not touched
+     * @return Number of seats released
+     */
+    @Transactional
+    public int releaseShowSeats(int showId, List<Integer> ids, String holdId) {
+        int released = showSeatRepository.updateHeldStatus(showId, ids,
+                ShowSeatStatus.LOCKED, ShowSeatStatus.AVAILABLE, holdId);
+        showSeatStateService.setStatusAfterCommit(showId, ids, ShowSeatStatus.AVAILABLE, released == ids.size());
+        publishTransition(showId, ids, SeatTransitionKind.RELEASE, ShowSeatStatus.LOCKED, ShowSeatStatus.AVAILABLE, released);
+        return released;
+    }
+
+    /**
+     * Give booked seats back, BOOKED -> AVAILABLE
+     * @return Number of seats freed
+     */
+    @Transactional
+    public int cancelShowSeats(int showId, List<Integer> ids) {
+        int cancelled = showSeatRepository.updateStatus(showId, ids, ShowSeatStatus.BOOKED, ShowSeatStatus.AVAILABLE, null, null);
+        showSeatStateService.setStatusAfterCommit(showId, ids, ShowSeatStatus.AVAILABLE, cancelled == ids.size());
+        publishTransition(showId, ids, SeatTransitionKind.CANCEL, ShowSeatStatus.BOOKED, ShowSeatStatus.AVAILABLE, cancelled);
+        return cancelled;
+    }
+
+    /**
+     * Release the seats out of the given ones whose hold deadline has passed
+     * @param showId Show ID
+     * @param ids Show seat IDs of that show
+     * @param now Current time
+     * @return IDs of the seats that were released
+     */
+    @Transactional
+    public List<Integer> releaseExpiredShowSeats(int showId, List<Integer> ids, LocalDateTime now) {
+        List<Integer> expired = showSeatRepository.findExpiredLockIds(ids, ShowSeatStatus.LOCKED, now);
+        if (!expired.isEmpty()) {
+            int released = showSeatRepository.releaseExpiredLocks(expired, ShowSeatStatus.LOCKED, ShowSeatStatus.AVAILABLE, now);
+            showSeatStateService.setStatusAfterCommit(showId, expired, ShowSeatStatus.AVAILABLE, released == expired.size());
+            publishTransition(showId, expired, SeatTransitionKind.EXPIRE, ShowSeatStatus.LOCKED, ShowSeatStatus.AVAILABLE, released);
+        }
+        return expired;
+    }
+
+    // which seats of a partial move changed is not known, so their current statuses are recorded instead
+    private void publishTransition(int showId, List<Integer> ids, SeatTransitionKind kind,
+                                   ShowSeatStatus from, ShowSeatStatus to, int moved) {
+        if (moved == ids.size()) {
+            eventPublisher.publishEvent(new SeatTransitionEvent(showId, kind, from, to, ids));
+            return;
+        }
+        Map<ShowSeatStatus, List<Integer>> idsByStatus = new HashMap<>();
+        for (Object[] row : showSeatRepository.findStatusesByIds(ids)) {
+            ShowSeatStatus status = row[1] == null ? ShowSeatStatus.AVAILABLE : (ShowSeatStatus) row[1];
+            idsByStatus.computeIfAbsent(status, s -> new ArrayList<>()).add((Integer) row[0]);
+        }
+        for (Map.Entry<ShowSeatStatus, List<Integer>> entry : idsByStatus.entrySet()) {
+            eventPublisher.publishEvent(new SeatTransitionEvent(showId, SeatTransitionKind.SET, null,
+                    entry.getKey(), entry.getValue()));
+        }
+    }
+
+    public List<Object[]> getExpiredLocks(LocalDateTime now) {
+        return showSeatRepository.findExpiredLocks(ShowSeatStatus.LOCKED, now);
+    }
+
+    public List<Object[]> getLiveLocks(LocalDateTime now) {
+        return showSeatRepository.findLiveLocks(ShowSeatStatus.LOCKED, now);
     }
 }
@@ -0,0 +1,374 @@
+package com.example.bookMyShow.service;
+
+import com.example.bookMyShow.model.Seat;
+import com.example.bookMyShow.model.ShowSeat;
+import com.example.bookMyShow.model.ShowSeatState;
+import com.example.bookMyShow.model.Showw;
+import com.example.bookMyShow.model.constant.ShowSeatStatus;
+import com.example.bookMyShow.repository.ShowRepository;
+import com.example.bookMyShow.repository.ShowSeatRepository;
+import com.example.bookMyShow.repository.ShowSeatStateRepository;
+import com.example.bookMyShow.service.inventory.SeatBitmap;
+import com.example.bookMyShow.service.inventory.ShowInventory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*
+Keeps the packed ShowSeatState row of every show in line with its ShowSeat rows.
+Committed seat transitions are queued per show and written by a single background thread, so no
+request waits for the row and the transitions of a show that queue up meanwhile go out in one write.
+The write is a compare-and-set on the row version; only another node can race it, a lost race is retried
+on the fresh row. A row that cannot be updated, or whose transition did not move every seat, is rebuilt
+from the ShowSeat rows by the same thread, and only that thread creates rows.
+Reads lay the transitions not yet written over the row, so a hold shows up as soon as it committed.
+ */
+@Service
+public class ShowSeatStateService {
+
+    @Autowired
+    private ShowSeatStateRepository showSeatStateRepository;
+    @Autowired
+    private ShowSeatRepository showSeatRepository;
+    @Autowired
+    private ShowRepository showRepository;
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${bookmyshow.seat-state.max-attempts:16}")
+    private int maxAttempts;
+
+    private TransactionTemplate requiresNew;
+
+    private final ConcurrentHashMap<Integer, PendingStates> pendingByShow = new ConcurrentHashMap<>();
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "seat-state-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdown();
+    }
+
+    /**
+     * Statuses of all seats of a show from a single row read
+     * @param showId Show ID
+     * @return Statuses by position in the auditorium layout
+     */
+    public SeatBitmap getSeatStates(int showId) {
+        PendingStates pending = pendingByShow.get(showId);
+        if (pending != null && pending.isRebuilding()) {
+            return readShowSeats(showId); // the row is known to be stale
+        }
+        Optional<ShowSeatState> state = showSeatStateRepository.findByShowId(showId);
+        if (state.isEmpty()) {
+            // built here for this read only, the writer creates the row
+            rebuild(showId);
+            return readShowSeats(showId);
+        }
+        SeatBitmap states = SeatBitmap.fromBytes(state.get().getSeatStates(), state.get().getSeatCount());
+        if (pending != null && !pending.overlay(states)) {
+            return readShowSeats(showId);
+        }
+        return states;
+    }
+
+    /**
+     * ShowSeat views of a show built from the packed row, for callers that work with ShowSeats.
+     * Seats without a ShowSeat row have id 0, the price is the default price of the show.
+     * @param showId Show ID
+     * @return One show seat per seat of the auditorium
+     */
+    public List<ShowSeat> getShowSeatViews(int showId) {
+        SeatBitmap states = getSeatStates(showId);
+        ShowInventory inventory = seatInventoryService.getInventory(showId);
+        int defaultPrice = showRepository.findById(showId).map(Showw::getDefaultPrice).orElse(0);
+        List<ShowSeat> showSeats = new ArrayList<>(states.size());
+        for (int position = 0; position < states.size(); position++) {
+            Seat seat = new Seat();
+            seat.setId(inventory.getSeatId(position));
+            ShowSeat showSeat = new ShowSeat();
+            showSeat.setId(inventory.getShowSeatId(position));
+            showSeat.setSeat(seat);
+            showSeat.setPrice(defaultPrice);
+            showSeat.setShowSeatStatus(states.get(position));
+            showSeats.add(showSeat);
+        }
+        return showSeats;
+    }
+
+    /**
+     * Queue committed seat transitions for the packed row, returns without waiting for the write
+     * @param showId Show ID
+     * @param showSeatIds Show seats that are now in the given status
+     * @param status New status
+     */
+    public void setStatus(int showId, Collection<Integer> showSeatIds, ShowSeatStatus status) {
+        ShowInventory inventory = seatInventoryService.getInventory(showId);
+        int[] positions = inventory.positionsOf(showSeatIds);
+        if (pendingFor(showId).add(new Transition(positions, status, inventory.getSeats().size()))) {
+            writer.execute(() -> write(showId));
+        }
+    }
+
+    /**
+     * Apply a seat transition of the current transaction to the packed row once it committed.
+     * If not every seat moved we do not know which did, so the row is rebuilt instead.
+     * Never fails the transition, it is committed already: at worst the row is dropped and rebuilt.
+     * @param showId Show ID
+     * @param showSeatIds Show seats of the transition
+     * @param status New status
+     * @param allMoved Whether every seat was actually moved
+     */
+    public void setStatusAfterCommit(int showId, List<Integer> showSeatIds, ShowSeatStatus status, boolean allMoved) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            applyQuietly(showId, showSeatIds, status, allMoved);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                applyQuietly(showId, showSeatIds, status, allMoved);
+            }
+        });
+    }
+
+    /**
+     * Rebuild the packed row of a show from its ShowSeat rows, e.g. after they were written directly.
+     * Done by the writer once the current transaction committed, until then reads go to the ShowSeat rows.
+     * @param showId Show ID
+     */
+    public void invalidate(int showId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            rebuild(showId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                rebuild(showId);
+            }
+        });
+    }
+
+    private void applyQuietly(int showId, List<Integer> showSeatIds, ShowSeatStatus status, boolean allMoved) {
+        try {
+            if (allMoved) {
+                setStatus(showId, showSeatIds, status);
+            } else {
+                rebuild(showId);
+            }
+        } catch (RuntimeException e) {
+            // e.g. a seat the inventory does not know, the transition itself is committed
+            System.err.println("Could not queue seat states of show " + showId + ": " + e.getMessage());
+            rebuild(showId);
+        }
+    }
+
+    private void rebuild(int showId) {
+        if (pendingFor(showId).rebuild()) {
+            writer.execute(() -> write(showId));
+        }
+    }
+
+    private PendingStates pendingFor(int showId) {
+        return pendingByShow.computeIfAbsent(showId, id -> new PendingStates());
+    }
+
+    // runs on the writer only, everything queued for the show so far goes out in one write
+    private void write(int showId) {
+        PendingStates pending = pendingByShow.get(showId);
+        List<Transition> transitions = pending.take();
+        try {
+            if (transitions == null) {
+                requiresNew.executeWithoutResult(tx -> recreate(showId));
+            } else if (!transitions.isEmpty() && !compareAndSet(showId, transitions)) {
+                requiresNew.executeWithoutResult(tx -> recreate(showId));
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Could not write seat states of show " + showId + ": " + e.getMessage());
+            try {
+                requiresNew.executeWithoutResult(tx -> showSeatStateRepository.deleteByShowId(showId));
+            } catch (RuntimeException again) {
+                // the transitions themselves are committed, only the packed row is behind
+                System.err.println("Could not drop seat states of show " + showId + ": " + again.getMessage());
+            }
+        } finally {
+            pending.written();
+        }
+    }
+
+    // false if the row has to be rebuilt: it is missing, has another layout or kept losing races
+    private boolean compareAndSet(int showId, List<Transition> transitions) {
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            // a fresh transaction per attempt, so a retry reads the row as the winner of the race left it
+            Boolean written = requiresNew.execute(tx -> {
+                ShowSeatState state = showSeatStateRepository.findByShowId(showId).orElse(null);
+                if (state == null) {
+                    return null;
+                }
+                SeatBitmap states = SeatBitmap.fromBytes(state.getSeatStates(), state.getSeatCount());
+                for (Transition transition : transitions) {
+                    if (!transition.applyTo(states)) {
+                        return null; // the layout changed
+                    }
+                }
+                return showSeatStateRepository.compareAndSet(showId, state.getVersion(), states.toBytes()) == 1;
+            });
+            if (written == null) {
+                return false;
+            }
+            if (written) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void recreate(int showId) {
+        showSeatStateRepository.deleteByShowId(showId);
+        SeatBitmap states = readShowSeats(showId);
+        ShowSeatState state = new ShowSeatState();
+        state.setShow(showRepository.getReferenceById(showId));
+        state.setSeatCount(states.size());
+        state.setSeatStates(states.toBytes());
+        try {
+            showSeatStateRepository.saveAndFlush(state);
+        } catch (DataIntegrityViolationException e) {
+            // created by another node meanwhile, from the same rows
+        }
+    }
+
+    private SeatBitmap readShowSeats(int showId) {
+        ShowInventory inventory = seatInventoryService.getInventory(showId);
+        SeatBitmap states = new SeatBitmap(inventory.getSeats().size());
+        for (Object[] row : showSeatRepository.findSeatStatesByShowId(showId)) {
+            ShowSeatStatus status = (ShowSeatStatus) row[2];
+            if (row[1] != null && status != null && inventory.containsSeat((Integer) row[1])) {
+                states.set(inventory.positionOfSeat((Integer) row[1]), status);
+            }
+        }
+        return states;
+    }
+
+    private static class Transition {
+        final int[] positions;
+        final ShowSeatStatus status;
+        final int seatCount;
+
+        Transition(int[] positions, ShowSeatStatus status, int seatCount) {
+            this.positions = positions;
+            this.status = status;
+            this.seatCount = seatCount;
+        }
+
+        boolean applyTo(SeatBitmap states) {
+            if (states.size() != seatCount) {
+                return false;
+            }
+            for (int position : positions) {
+                states.set(position, status);
+            }
+            return true;
+        }
+    }
+
+    /*
+    What the writer has yet to put into the row of a show: queued transitions in commit order, or a rebuild,
+    which supersedes them as the ShowSeat rows already have every committed transition. The batch being
+    written stays visible to reads until its write is done, applying it twice gives the same states.
+     */
+    private static class PendingStates {
+        private List<Transition> queued = new ArrayList<>();
+        private List<Transition> writing = List.of();
+        private boolean rebuildQueued;
+        private boolean rebuilding;
+        private boolean scheduled;
+
+        // true if the writer has to be started for the show
+        synchronized boolean add(Transition transition) {
+            if (!rebuildQueued) {
+                queued.add(transition);
+            }
+            return schedule();
+        }
+
+        synchronized boolean rebuild() {
+            rebuildQueued = true;
+            queued.clear();
+            return schedule();
+        }
+
+        // null for a rebuild
+        synchronized List<Transition> take() {
+            scheduled = false;
+            if (rebuildQueued) {
+                rebuildQueued = false;
+                rebuilding = true;
+                return null;
+            }
+            writing = queued;
+            queued = new ArrayList<>();
+            return writing;
+        }
+
+        synchronized void written() {
+            writing = List.of();
+            rebuilding = false;
+        }
+
+        synchronized boolean isRebuilding() {
+            return rebuilding || rebuildQueued;
+        }
+
+        // false if a transition does not fit the layout of the row
+        synchronized boolean overlay(SeatBitmap states) {
+            for (Transition transition : writing) {
+                if (!transition.applyTo(states)) {
+                    return false;
+                }
+            }
+            for (Transition transition : queued) {
+                if (!transition.applyTo(states)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean schedule() {
+            if (scheduled) {
+                return false;
+            }
+            scheduled = true;
+            return true;
+        }
+    }
+}
@@ -1,17 +1,34 @@
 package com.example.bookMyShow.service;
 
+import com.example.bookMyShow.dto.BulkScheduleResponse;
+import com.example.bookMyShow.dto.SeatMapEntry;
+import com.example.bookMyShow.dto.ShowScheduleRequest;
+import com.example.bookMyShow.exception.AuditoriumNotFoundException;
+import com.example.bookMyShow.exception.MovieNotFoundException;
 import com.example.bookMyShow.exception.ShowNotFoundException;
+import com.example.bookMyShow.model.Auditorium;
+import com.example.bookMyShow.model.Movie;
 import com.example.bookMyShow.model.Seat;
 import com.example.bookMyShow.model.ShowSeat;
 import com.example.bookMyShow.model.Showw;
 import com.example.bookMyShow.model.constant.ShowSeatStatus;
+import com.example.bookMyShow.model.constant.ShowStatus;
+import com.example.bookMyShow.repository.AuditoriumRepository;
+import com.example.bookMyShow.repository.MovieRepository;
 import com.example.bookMyShow.repository.ShowRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class ShowService {
@@ -19,24 +36,161 @@ public class ShowService {
     private ShowRepository showRepository;
     @Autowired
     private ShowSeatService showSeatService;
+    @Autowired
+    private AuditoriumRepository auditoriumRepository;
+    @Autowired
+    private MovieRepository movieRepository;
+    @Autowired
+    private ShowAvailabilityService showAvailabilityService;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
 
+    /**
+     * Create a show with its seat inventory.
+     * One transaction, so the show and all its show seats go out in a few batched inserts at commit
+     * @param show Show to create
+     * @return Created show
+     */
+    @Transactional
     public Showw createShow(Showw show) {
+        if (show.isSparseInventory()) {
+            // show seats are created on first hold, see ShowSeatService.getOrCreateShowSeats
+            return showRepository.save(show);
+        }
         //create the showSeats for the show
-        List<ShowSeat> showSeats = new ArrayList<>();
+        List<Seat> seats = show.getAuditorium().getSeats();
+        List<ShowSeat> showSeats = new ArrayList<>(seats.size());
         show = showRepository.save(show);
 
-        List<Seat> seats = show.getAuditorium().getSeats();
         for (Seat seat : seats) {
             ShowSeat showSeat = new ShowSeat();
             showSeat.setSeat(seat);
-            showSeat.setPrice(100);
+            showSeat.setPrice(show.getDefaultPrice());
             showSeat.setShow(show);
             showSeat.setShowSeatStatus(ShowSeatStatus.AVAILABLE);
-            showSeat = showSeatService.createShowSeat(showSeat);
             showSeats.add(showSeat);
         }
-        show.setShowSeats(showSeats);
-        return showRepository.save(show);
+        show.setShowSeats(showSeatService.createShowSeats(showSeats));
+        return show;
+    }
+
+    /**
+     * Schedule many shows in one go, e.g. a week of showtimes for a multiplex.
+     * Show seats are built from the seat ids of each auditorium in one streaming pass and written in JDBC batches,
+     * the persistence context is flushed and cleared after every batch so memory stays flat.
+     * @param requests Shows to schedule
+     * @return Ids of the created shows and the write throughput
+     */
+    @Transactional
+    public BulkScheduleResponse scheduleShows(List<ShowScheduleRequest> requests) {
+        long start = System.nanoTime();
+
+        // validate everything up front, one query per distinct auditorium and movie
+        Map<Integer, List<Integer>> seatIdsByAuditorium = new HashMap<>();
+        Set<Integer> movieIds = new HashSet<>();
+        for (ShowScheduleRequest request : requests) {
+            seatIdsByAuditorium.computeIfAbsent(request.getAuditoriumId(), this::getSeatIdsOfAuditorium);
+            if (movieIds.add(request.getMovieId()) && !movieRepository.existsById(request.getMovieId())) {
+                throw new MovieNotFoundException("Movie with id " + request.getMovieId() + " not found");
+            }
+        }
+
+        List<Integer> showIds = new ArrayList<>(requests.size());
+        long rows = 0;
+        for (ShowScheduleRequest request : requests) {
+            Showw show = new Showw();
+            show.setAuditorium(entityManager.getReference(Auditorium.class, request.getAuditoriumId()));
+            show.setMovie(entityManager.getReference(Movie.class, request.getMovieId()));
+            show.setLanguage(request.getLanguage());
+            show.setStartTime(request.getStartTime());
+            show.setEndTime(request.getEndTime());
+            show.setShowStatus(ShowStatus.YET_TO_START);
+            show.setDefaultPrice(request.getSeatPrice());
+            show.setSparseInventory(request.isSparseInventory());
+            entityManager.persist(show); // the id is assigned here, no insert yet
+            showIds.add(show.getId());
+            rows++;
+            if (show.isSparseInventory()) {
+                continue;
+            }
+
+            Showw showReference = show;
+            for (Integer seatId : seatIdsByAuditorium.get(request.getAuditoriumId())) {
+                ShowSeat showSeat = new ShowSeat();
+                showSeat.setShow(showReference);
+                showSeat.setSeat(entityManager.getReference(Seat.class, seatId));
+                showSeat.setPrice(request.getSeatPrice());
+                showSeat.setShowSeatStatus(ShowSeatStatus.AVAILABLE);
+                entityManager.persist(showSeat);
+                if (++rows % batchSize == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                    showReference = entityManager.getReference(Showw.class, show.getId());
+                }
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        long elapsedNanos = Math.max(System.nanoTime() - start, 1);
+        BulkScheduleResponse response = new BulkScheduleResponse();
+        response.setShowIds(showIds);
+        response.setShowSeatCount(rows - showIds.size());
+        response.setElapsedMillis(elapsedNanos / 1_000_000);
+        response.setRowsPerSecond(rows * 1_000_000_000L / elapsedNanos);
+        System.out.println("Scheduled " + showIds.size() + " shows, " + rows + " rows in "
+                + response.getElapsedMillis() + " ms (" + response.getRowsPerSecond() + " rows/s)");
+        return response;
+    }
+
+    private List<Integer> getSeatIdsOfAuditorium(int auditoriumId) {
+        List<Integer> seatIds = auditoriumRepository.findSeatIdsByAuditoriumId(auditoriumId);
+        if (seatIds.isEmpty() && !auditoriumRepository.existsById(auditoriumId)) {
+            throw new AuditoriumNotFoundException("Auditorium with id " + auditoriumId + " not found");
+        }
+        return seatIds;
+    }
+
+    /**
+     * Seat map of a show: the seat layout of the auditorium merged with the show seat rows.
+     * Seats without a row (sparse shows) are AVAILABLE at the default price of the show.
+     * @param showId Show ID
+     * @return One entry per seat of the auditorium
+     */
+    @Transactional
+    public List<SeatMapEntry> getSeatMap(int showId) {
+        Showw show = getShowById(showId);
+        Map<Integer, ShowSeat> showSeatBySeatId = new HashMap<>();
+        for (ShowSeat showSeat : showSeatService.getShowSeatsByShowId(showId)) {
+            if (showSeat.getSeat() != null) {
+                showSeatBySeatId.put(showSeat.getSeat().getId(), showSeat);
+            }
+        }
+
+        List<Seat> seats = show.getAuditorium().getSeats();
+        List<SeatMapEntry> seatMap = new ArrayList<>(seats.size());
+        for (Seat seat : seats) {
+            SeatMapEntry entry = new SeatMapEntry();
+            entry.setSeatId(seat.getId());
+            entry.setSeatNumber(seat.getSeatNumber());
+            entry.setRow(seat.getRow());
+            entry.setCol(seat.getCol());
+            entry.setSeatType(seat.getSeatType());
+            ShowSeat showSeat = showSeatBySeatId.get(seat.getId());
+            if (showSeat == null) {
+                entry.setShowSeatStatus(ShowSeatStatus.AVAILABLE);
+                entry.setPrice(show.getDefaultPrice());
+            } else {
+                entry.setShowSeatId(showSeat.getId());
+                entry.setShowSeatStatus(showSeat.getShowSeatStatus());
+                entry.setPrice(showSeat.getPrice());
+            }
+            seatMap.add(entry);
+        }
+        return seatMap;
     }
 
     public Showw getShowById(int id) {
@@ -51,5 +205,6 @@ public class ShowService {
 
     public void deleteShowById(int id) {
         showRepository.deleteById(id);
+        showAvailabilityService.evict(id);
     }
 }
@@ -1,21 +1,45 @@
 package com.example.bookMyShow.service;
 
+import com.example.bookMyShow.dto.CartItem;
+import com.example.bookMyShow.event.SeatsReleasedEvent;
 import com.example.bookMyShow.exception.PaymentProcessingException;
 import com.example.bookMyShow.exception.SelectedSeatsNotAvailableException;
+import com.example.bookMyShow.exception.TicketNotFoundException;
+import com.example.bookMyShow.model.BookingSaga;
 import com.example.bookMyShow.model.Payment;
 import com.example.bookMyShow.model.ShowSeat;
 import com.example.bookMyShow.model.Ticket;
 import com.example.bookMyShow.model.User;
 import com.example.bookMyShow.model.constant.PaymentMethod;
+import com.example.bookMyShow.model.constant.PaymentStatus;
+import com.example.bookMyShow.model.constant.SeatType;
 import com.example.bookMyShow.model.constant.ShowSeatStatus;
+import com.example.bookMyShow.model.constant.TicketStatus;
 import com.example.bookMyShow.repository.TicketRepository;
+import com.example.bookMyShow.service.inventory.SeatHold;
+import com.example.bookMyShow.service.locking.SeatLockingStrategy;
+import com.example.bookMyShow.util.RetryPolicy;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Isolation;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 /*
 SpringBoot have very interesting concept IOC and DI
@@ -35,87 +59,729 @@ public class TicketService {
     private ShowService showService;
     @Autowired
     private PaymentService paymentService;
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+    @Autowired
+    private SeatHoldExpiryService seatHoldExpiryService;
+    @Autowired
+    private ContentionMetricsService contentionMetricsService;
+    @Autowired
+    private RetryPolicy retryPolicy;
+    @Autowired
+    private ShowLockManager showLockManager;
+    @Autowired
+    private AdmissionService admissionService;
+    @Autowired
+    private SeatAllocationService seatAllocationService;
+    @Autowired
+    private IdempotencyService idempotencyService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private WalSeatStore walSeatStore;
+    @Autowired
+    private BookingSagaService bookingSagaService;
+    @Autowired
+    private Map<String, SeatLockingStrategy> seatLockingStrategies;
+    @Value("${bookmyshow.seat-locking.strategy:" + SeatLockingStrategy.CONDITIONAL_UPDATE + "}")
+    private String seatLockingStrategyName;
+    private SeatLockingStrategy seatLockingStrategy;
+    @Autowired
+    @Qualifier("bookingExecutor")
+    private Executor bookingExecutor;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private static final int BEST_AVAILABLE_ATTEMPTS = 3;
+
+    @PostConstruct
+    public void selectSeatLockingStrategy() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        seatLockingStrategy = seatLockingStrategies.get(seatLockingStrategyName);
+        if (seatLockingStrategy == null) {
+            throw new IllegalStateException("Unknown seat locking strategy " + seatLockingStrategyName
+                    + ", expected one of " + seatLockingStrategies.keySet());
+        }
+    }
 
     /**
-     * Create a ticket with payment processing
+     * Create a ticket with payment processing.
+     * Runs both booking phases back to back for callers that want a single blocking call,
+     * no database transaction is open while the payment gateway is called.
      * @param userId User ID
      * @param showSeatIds List of show seat IDs
      * @param paymentMethod Payment method
      * @return Created ticket
      */
-    @Transactional
     public Ticket createTicket(int userId, List<Integer> showSeatIds, PaymentMethod paymentMethod)
             throws SelectedSeatsNotAvailableException, PaymentProcessingException {
 
+        Ticket ticket = holdSeats(userId, showSeatIds);
+        return awaitBooking(confirmBooking(ticket.getHoldToken(), paymentMethod));
+    }
+
+    private Ticket awaitBooking(CompletableFuture<Ticket> booking) throws PaymentProcessingException {
+        try {
+            return booking.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof PaymentProcessingException) {
+                throw (PaymentProcessingException) e.getCause();
+            }
+            throw new PaymentProcessingException("Ticket creation failed: " + e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Phase 1 of a booking: lock the seats and create an INPROGRESS ticket.
+     * Only short statements run here, the returned hold token is used to confirm the booking.
+     * @param userId User ID
+     * @param showSeatIds List of show seat IDs
+     * @return Ticket holding the seats until its holdExpiresAt
+     */
+    public Ticket holdSeats(int userId, List<Integer> showSeatIds) throws SelectedSeatsNotAvailableException {
         User user = userService.getUserById(userId);
-        List<ShowSeat> showSeats;
-        double totalCost = 0;
 
-        // Step 1: Check and lock seats
-        showSeats = checkAndLockShowSeats(showSeatIds);
+        // Step 1: Check and lock seats, held under the token handed out with the ticket
+        String holdToken = UUID.randomUUID().toString();
+        List<ShowSeat> showSeats = checkAndLockShowSeats(showSeatIds, holdToken);
 
-        // Step 2: Calculate total cost
+        // Step 2: Calculate total cost, with taxes and fees
+        double totalCost = 0;
         for (ShowSeat showSeat : showSeats) {
             totalCost += showSeat.getPrice();
         }
-
-        // Step 3: Apply taxes and fees
         totalCost = paymentService.calculateTotalAmount(totalCost);
 
-        // Step 4: Create ticket (initially without payment)
+        // Step 3: Create the ticket, it is paid for in confirmBooking
         Ticket ticket = new Ticket();
         ticket.setUser(user);
         ticket.setShowSeats(showSeats);
         ticket.setShow(showSeats.get(0).getShow());
         ticket.setTotalCost(totalCost);
+        ticket.setBookingTime(LocalDateTime.now());
+        ticket.setTicketStatus(TicketStatus.INPROGRESS);
+        ticket.setHoldToken(holdToken);
+        ticket.setHoldExpiresAt(showSeats.get(0).getLockedUntil());
+        BookingSaga saga = null;
+        try {
+            // from here on a crash is finished or undone by the saga recovery
+            saga = bookingSagaService.start(showSeatIdsOf(showSeats), ticket.getHoldExpiresAt(), holdToken);
+            ticket = saveWithIdempotencyKey(ticket);
+            bookingSagaService.ticketCreated(saga, ticket);
+            return ticket;
+        } catch (RuntimeException e) {
+            releaseSeatLocks(showSeats, holdToken);
+            compensateQuietly(saga);
+            throw e;
+        }
+    }
+
+    // the ticket and the COMPLETED key of the request that created it commit together
+    private Ticket saveWithIdempotencyKey(Ticket ticket) {
+        return transactionTemplate.execute(status -> {
+            Ticket saved = ticketRepository.save(ticket);
+            idempotencyService.completeInTransaction(saved.getId());
+            return saved;
+        });
+    }
+
+    // a confirm is COMPLETED with the saga step that starts the payment, so a retry never charges twice
+    private void paymentPending(int ticketId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            bookingSagaService.paymentPending(ticketId);
+            idempotencyService.completeInTransaction(ticketId);
+        });
+    }
+
+    // a saga that cannot be marked now is found by the recovery, whose release is a no-op by then
+    private void compensateQuietly(BookingSaga saga) {
+        if (saga == null) {
+            return;
+        }
+        try {
+            bookingSagaService.compensated(saga);
+        } catch (RuntimeException e) {
+            System.err.println("Could not mark booking saga " + saga.getId() + " compensated: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Phase 1 of a booking for a user coming through the waiting room
+     * @param userId User ID
+     * @param showSeatIds List of show seat IDs
+     * @param admissionToken Token from the waiting room, only checked while it is enabled
+     * @param idempotencyKey Key chosen by the client, a retry with it gets the first ticket back
+     * @return Ticket holding the seats until its holdExpiresAt
+     */
+    public Ticket holdSeats(int userId, List<Integer> showSeatIds, String admissionToken, String idempotencyKey)
+            throws SelectedSeatsNotAvailableException {
+        return idempotencyService.execute(idempotencyKey, "hold", userId + ":" + showSeatIds,
+                () -> admitted(seatInventoryService.findShowId(showSeatIds), userId, admissionToken,
+                        () -> holdSeats(userId, showSeatIds)),
+                Ticket::getId, this::getTicketById);
+    }
+
+    /**
+     * Phase 1 of a booking for seats picked from the seat map of a show.
+     * Sparse shows get the ShowSeat rows of the picked seats created here.
+     * @param userId User ID
+     * @param showId Show ID
+     * @param seatIds List of seat IDs of the auditorium
+     * @param admissionToken Token from the waiting room, only checked while it is enabled
+     * @param idempotencyKey Key chosen by the client, a retry with it gets the first ticket back
+     * @return Ticket holding the seats until its holdExpiresAt
+     */
+    public Ticket holdSeats(int userId, int showId, List<Integer> seatIds, String admissionToken, String idempotencyKey)
+            throws SelectedSeatsNotAvailableException {
+        return idempotencyService.execute(idempotencyKey, "hold-seats", userId + ":" + showId + ":" + seatIds,
+                () -> holdSeatsOfShow(userId, showId, seatIds, admissionToken), Ticket::getId, this::getTicketById);
+    }
+
+    private Ticket holdSeatsOfShow(int userId, int showId, List<Integer> seatIds, String admissionToken)
+            throws SelectedSeatsNotAvailableException {
+        return admitted(showId, userId, admissionToken, () -> holdSeatsOfShow(userId, showId, seatIds));
+    }
+
+    // the admission token is taken before the hold and given back if the hold fails
+    private Ticket admitted(int showId, int userId, String admissionToken,
+                            IdempotencyService.Action<Ticket, SelectedSeatsNotAvailableException> hold)
+            throws SelectedSeatsNotAvailableException {
+        admissionService.checkAdmission(showId, userId, admissionToken);
+        Ticket ticket;
+        try {
+            ticket = hold.run();
+        } catch (SelectedSeatsNotAvailableException | RuntimeException e) {
+            admissionService.restoreAdmission(showId, admissionToken);
+            throw e;
+        }
+        admissionService.consume(showId, admissionToken);
+        return ticket;
+    }
+
+    /**
+     * Hold seats offered to a user from the waitlist of a show, they skip the waiting room
+     * @param userId User ID
+     * @param showId Show ID
+     * @param seatIds List of seat IDs of the auditorium
+     * @return Ticket holding the seats until its holdExpiresAt
+     */
+    public Ticket holdSeatsForWaitlist(int userId, int showId, List<Integer> seatIds)
+            throws SelectedSeatsNotAvailableException {
+        return holdSeatsOfShow(userId, showId, seatIds);
+    }
+
+    private Ticket holdSeatsOfShow(int userId, int showId, List<Integer> seatIds)
+            throws SelectedSeatsNotAvailableException {
+        return holdSeats(userId, showSeatIdsOf(getOrCreateShowSeats(showId, seatIds)));
+    }
+
+    private List<ShowSeat> getOrCreateShowSeats(int showId, List<Integer> seatIds)
+            throws SelectedSeatsNotAvailableException {
+        if (seatIds == null || seatIds.isEmpty()) {
+            throw new SelectedSeatsNotAvailableException("No seats selected");
+        }
+        List<Integer> distinctSeatIds = new ArrayList<>(new LinkedHashSet<>(seatIds));
+        try {
+            return showSeatService.getOrCreateShowSeats(showId, distinctSeatIds);
+        } catch (DataIntegrityViolationException e) {
+            // another hold created one of the rows first, now they all exist
+            return showSeatService.getOrCreateShowSeats(showId, distinctSeatIds);
+        }
+    }
+
+    /**
+     * Phase 1 of a booking where the server picks the seats: the best block of adjacent seats is
+     * found and held under the lock of the show, so concurrent requests get different blocks.
+     * If the database disagrees with the in-memory view the search is run again on the corrected view.
+     * @param userId User ID
+     * @param showId Show ID
+     * @param quantity Number of adjacent seats
+     * @param seatType Type of seat, null for any
+     * @param admissionToken Token from the waiting room, only checked while it is enabled
+     * @param idempotencyKey Key chosen by the client, a retry with it gets the first ticket back
+     * @return Ticket holding the seats until its holdExpiresAt
+     */
+    public Ticket holdBestAvailable(int userId, int showId, int quantity, SeatType seatType, String admissionToken,
+                                    String idempotencyKey) throws SelectedSeatsNotAvailableException {
+        String request = userId + ":" + showId + ":" + quantity + ":" + seatType;
+        return idempotencyService.execute(idempotencyKey, "hold-best", request,
+                () -> admitted(showId, userId, admissionToken, () -> showLockManager.withShowLock(showId, () -> {
+                    for (int attempt = 1; ; attempt++) {
+                        List<Integer> seatIds = seatAllocationService.findBestAvailable(showId, quantity, seatType);
+                        try {
+                            return holdSeatsOfShow(userId, showId, seatIds);
+                        } catch (SelectedSeatsNotAvailableException e) {
+                            if (attempt >= BEST_AVAILABLE_ATTEMPTS) {
+                                throw e;
+                            }
+                        }
+                    }
+                })), Ticket::getId, this::getTicketById);
+    }
+
+    /**
+     * Phase 2 of a booking: pay for a hold and book its seats.
+     * Returns at once, the payment gateway is called on the booking executor without a database
+     * transaction or pooled connection held, so gateway latency does not limit booking throughput.
+     * @param holdToken Token of the ticket returned by holdSeats
+     * @param paymentMethod Payment method
+     * @return Future of the BOOKED ticket, completes exceptionally with PaymentProcessingException
+     * @throws PaymentProcessingException if the hold is no longer valid
+     */
+    public CompletableFuture<Ticket> confirmBooking(String holdToken, PaymentMethod paymentMethod)
+            throws PaymentProcessingException {
+        return confirmBooking(getHeldTicket(holdToken), paymentMethod);
+    }
+
+    /**
+     * Phase 2 of a booking, once per idempotency key.
+     * A retry with the same key does not charge again, it gets the ticket in whatever state it reached.
+     * @param holdToken Token of the ticket returned by holdSeats
+     * @param paymentMethod Payment method
+     * @param idempotencyKey Key chosen by the client, null to skip the check
+     * @return Ticket whose payment was started, poll it for the outcome
+     * @throws PaymentProcessingException if the hold is no longer valid
+     */
+    public Ticket confirmBooking(String holdToken, PaymentMethod paymentMethod, String idempotencyKey)
+            throws PaymentProcessingException {
+        return idempotencyService.execute(idempotencyKey, "confirm", holdToken + ":" + paymentMethod, () -> {
+            Ticket ticket = getHeldTicket(holdToken);
+            confirmBooking(ticket, paymentMethod);
+            return ticket;
+        }, Ticket::getId, this::getTicketById);
+    }
+
+    private CompletableFuture<Ticket> confirmBooking(Ticket ticket, PaymentMethod paymentMethod) {
+        paymentPending(ticket.getId());
+        // Step 1: Process payment, no transaction is open and no thread waits while the gateway answers
+        return paymentService.processPaymentAsync(ticket.getUser(), ticket, paymentMethod, ticket.getTotalCost())
+                .handleAsync((payment, error) -> {
+                    try {
+                        return completeBooking(ticket, payment, error);
+                    } catch (PaymentProcessingException e) {
+                        throw new CompletionException(e);
+                    }
+                }, bookingExecutor);
+    }
+
+    /**
+     * Give up a hold before paying
+     * @param holdToken Token of the ticket returned by holdSeats
+     * @return Cancelled ticket
+     */
+    public Ticket releaseHold(String holdToken) throws PaymentProcessingException {
+        Ticket ticket = getHeldTicket(holdToken);
+        releaseSeatLocks(ticket.getShowSeats(), holdIdOf(ticket));
+        ticket.setTicketStatus(TicketStatus.CANCELLED);
+        ticket.setCancelled(true);
         ticket = ticketRepository.save(ticket);
+        bookingSagaService.compensated(ticket.getId());
+        return ticket;
+    }
 
+    /**
+     * Phase 1 of a cart booking: hold the seats of several shows, all or nothing, one ticket per show.
+     * Shows are held one at a time in ascending show ID order and no show lock is kept while the next
+     * show is held, so carts sharing shows never wait on each other in a cycle. If one show fails
+     * the holds already taken are released.
+     * @param userId User ID
+     * @param items Seats per show
+     * @param idempotencyKey Key chosen by the client, a retry with it gets the first cart back
+     * @return INPROGRESS tickets sharing a cart token, in show order
+     */
+    public List<Ticket> holdCart(int userId, List<CartItem> items, String idempotencyKey)
+            throws SelectedSeatsNotAvailableException {
+        StringBuilder request = new StringBuilder().append(userId);
+        for (CartItem item : items) {
+            request.append(':').append(item.getShowId()).append(item.getSeatIds()).append(item.getShowSeatIds());
+        }
+        return idempotencyService.execute(idempotencyKey, "hold-cart", request.toString(),
+                () -> holdCart(userId, items), tickets -> tickets.get(0).getId(), this::getCartOfTicket);
+    }
+
+    private List<Ticket> holdCart(int userId, List<CartItem> items) throws SelectedSeatsNotAvailableException {
+        if (items == null || items.isEmpty()) {
+            throw new SelectedSeatsNotAvailableException("No seats selected");
+        }
+        User user = userService.getUserById(userId);
+
+        // Step 1: Show seats per show, the same show may come in several items
+        TreeMap<Integer, LinkedHashSet<Integer>> showSeatIdsByShow = new TreeMap<>();
+        Map<Integer, String> admissionTokens = new HashMap<>();
+        for (CartItem item : items) {
+            List<Integer> showSeatIds = item.getSeatIds() != null
+                    ? showSeatIdsOf(getOrCreateShowSeats(item.getShowId(), item.getSeatIds()))
+                    : item.getShowSeatIds();
+            if (showSeatIds == null || showSeatIds.isEmpty()) {
+                throw new SelectedSeatsNotAvailableException("No seats selected for show " + item.getShowId());
+            }
+            int showId = item.getSeatIds() != null ? item.getShowId() : seatInventoryService.findShowId(showSeatIds);
+            showSeatIdsByShow.computeIfAbsent(showId, id -> new LinkedHashSet<>()).addAll(showSeatIds);
+            if (item.getAdmissionToken() != null) {
+                admissionTokens.put(showId, item.getAdmissionToken());
+            }
+        }
+        Map<Integer, String> admitted = new HashMap<>();
         try {
-            // Step 5: Process payment
-            Payment payment = paymentService.processPayment(user, ticket, paymentMethod, totalCost);
-
-            // Step 6: If payment successful, confirm booking
-            if (payment.getPaymentStatus().name().equals("SUCCESS")) {
-                // Mark seats as booked
-                for (ShowSeat showSeat : showSeats) {
-                    showSeat.setShowSeatStatus(ShowSeatStatus.BOOKED);
-                    showSeatService.updateShowSeat(showSeat);
-                }
+            for (int showId : showSeatIdsByShow.keySet()) {
+                admissionService.checkAdmission(showId, userId, admissionTokens.get(showId));
+                admitted.put(showId, admissionTokens.get(showId));
+            }
+        } catch (RuntimeException e) {
+            restoreAdmissions(admitted);
+            throw e;
+        }
 
-                // Update ticket with payment reference
-                ticket.setPayment(payment);
-                ticket = ticketRepository.save(ticket);
+        // Step 2: Hold show by show in show ID order, all or nothing, every show under the cart token
+        String cartToken = UUID.randomUUID().toString();
+        List<List<ShowSeat>> held = new ArrayList<>(showSeatIdsByShow.size());
+        try {
+            for (LinkedHashSet<Integer> showSeatIds : showSeatIdsByShow.values()) {
+                held.add(checkAndLockShowSeats(new ArrayList<>(showSeatIds), cartToken));
+            }
+        } catch (SelectedSeatsNotAvailableException | RuntimeException e) {
+            releaseCartHolds(held, cartToken);
+            restoreAdmissions(admitted);
+            throw e;
+        }
+        List<Integer> heldShowSeatIds = new ArrayList<>();
+        for (List<ShowSeat> showSeats : held) {
+            heldShowSeatIds.addAll(showSeatIdsOf(showSeats));
+        }
 
-                return ticket;
-            } else {
-                // Payment failed, release seats and delete ticket
-                releaseSeatLocks(showSeats);
-                ticketRepository.delete(ticket);
-                throw new PaymentProcessingException("Payment failed: " + payment.getGatewayResponse());
+        // Step 3: One total for the whole cart, so taxes and the processing fee are charged once
+        double[] baseCosts = new double[held.size()];
+        double baseCost = 0;
+        for (int i = 0; i < held.size(); i++) {
+            for (ShowSeat showSeat : held.get(i)) {
+                baseCosts[i] += showSeat.getPrice();
             }
+            baseCost += baseCosts[i];
+        }
+        double totalCost = paymentService.calculateTotalAmount(baseCost);
 
-        } catch (PaymentProcessingException e) {
-            // Payment processing failed, release seats and delete ticket
-            releaseSeatLocks(showSeats);
-            ticketRepository.delete(ticket);
+        // Step 4: One ticket per show, each carrying its share of the total for refunds
+        List<Ticket> tickets = new ArrayList<>(held.size());
+        for (int i = 0; i < held.size(); i++) {
+            List<ShowSeat> showSeats = held.get(i);
+            Ticket ticket = new Ticket();
+            ticket.setUser(user);
+            ticket.setShowSeats(showSeats);
+            ticket.setShow(showSeats.get(0).getShow());
+            ticket.setTotalCost(baseCost > 0 ? totalCost * baseCosts[i] / baseCost : totalCost / held.size());
+            ticket.setBookingTime(LocalDateTime.now());
+            ticket.setTicketStatus(TicketStatus.INPROGRESS);
+            ticket.setHoldToken(UUID.randomUUID().toString());
+            ticket.setHoldExpiresAt(showSeats.get(0).getLockedUntil());
+            ticket.setCartToken(cartToken);
+            tickets.add(ticket);
+        }
+        BookingSaga saga = null;
+        try {
+            // one saga for the cart, it follows the first ticket
+            saga = bookingSagaService.start(heldShowSeatIds, tickets.get(0).getHoldExpiresAt(), cartToken);
+            List<Ticket> unsaved = tickets;
+            tickets = transactionTemplate.execute(status -> {
+                List<Ticket> saved = ticketRepository.saveAll(unsaved);
+                idempotencyService.completeInTransaction(saved.get(0).getId());
+                return saved;
+            });
+            bookingSagaService.ticketCreated(saga, tickets.get(0));
+        } catch (RuntimeException e) {
+            releaseCartHolds(held, cartToken);
+            compensateQuietly(saga);
+            restoreAdmissions(admitted);
             throw e;
-        } catch (Exception e) {
-            // Any other exception, release seats and delete ticket
-            releaseSeatLocks(showSeats);
-            ticketRepository.delete(ticket);
-            throw new PaymentProcessingException("Ticket creation failed: " + e.getMessage());
+        }
+        for (Map.Entry<Integer, String> admission : admitted.entrySet()) {
+            admissionService.consume(admission.getKey(), admission.getValue());
+        }
+        return tickets;
+    }
+
+    // admission tokens by show
+    private void restoreAdmissions(Map<Integer, String> admitted) {
+        for (Map.Entry<Integer, String> admission : admitted.entrySet()) {
+            admissionService.restoreAdmission(admission.getKey(), admission.getValue());
+        }
+    }
+
+    // a hold that cannot be released now is freed by its deadline
+    private void releaseCartHolds(List<List<ShowSeat>> held, String cartToken) {
+        for (List<ShowSeat> showSeats : held) {
+            try {
+                releaseSeatLocks(showSeats, cartToken);
+            } catch (RuntimeException e) {
+                System.err.println("Could not release the cart hold of show " + showSeats.get(0).getShow().getId()
+                        + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Phase 2 of a cart booking: one payment for all tickets of the cart, then all of them are booked.
+     * If the payment fails every hold is released, if a hold expired during the payment the seats
+     * already booked are given back too and the payment is refunded, so a cart never ends half booked.
+     * @param cartToken Token of the cart returned by holdCart
+     * @param paymentMethod Payment method
+     * @param idempotencyKey Key chosen by the client, null to skip the check
+     * @return Tickets whose payment was started, poll them for the outcome
+     * @throws PaymentProcessingException if a hold of the cart is no longer valid
+     */
+    public List<Ticket> confirmCart(String cartToken, PaymentMethod paymentMethod, String idempotencyKey)
+            throws PaymentProcessingException {
+        return idempotencyService.execute(idempotencyKey, "confirm-cart", cartToken + ":" + paymentMethod, () -> {
+            List<Ticket> tickets = getHeldCart(cartToken);
+            double totalCost = 0;
+            for (Ticket ticket : tickets) {
+                totalCost += ticket.getTotalCost();
+            }
+            // a single gateway call, the payment is recorded against the first ticket and shared by all
+            Ticket first = tickets.get(0);
+            paymentPending(first.getId());
+            paymentService.processPaymentAsync(first.getUser(), first, paymentMethod, totalCost)
+                    .handleAsync((payment, error) -> {
+                        try {
+                            return completeCart(tickets, payment, error);
+                        } catch (PaymentProcessingException e) {
+                            throw new CompletionException(e);
+                        }
+                    }, bookingExecutor);
+            return tickets;
+        }, tickets -> tickets.get(0).getId(), this::getCartOfTicket);
+    }
+
+    /**
+     * Give up all holds of a cart before paying
+     * @param cartToken Token of the cart returned by holdCart
+     * @return Cancelled tickets
+     */
+    public List<Ticket> releaseCart(String cartToken) throws PaymentProcessingException {
+        List<Ticket> tickets = getHeldCart(cartToken);
+        for (Ticket ticket : tickets) {
+            releaseSeatLocks(ticket.getShowSeats(), holdIdOf(ticket));
+            ticket.setTicketStatus(TicketStatus.CANCELLED);
+            ticket.setCancelled(true);
+        }
+        tickets = ticketRepository.saveAll(tickets);
+        bookingSagaService.compensated(tickets.get(0).getId());
+        return tickets;
+    }
+
+    /**
+     * Get the tickets of a cart
+     * @param cartToken Token of the cart returned by holdCart
+     * @return Tickets in show order
+     */
+    public List<Ticket> getCart(String cartToken) {
+        List<Ticket> tickets = ticketRepository.findByCartToken(cartToken);
+        if (tickets.isEmpty()) {
+            throw new TicketNotFoundException("Cart " + cartToken + " not found");
+        }
+        return tickets;
+    }
+
+    private List<Ticket> getCartOfTicket(int ticketId) {
+        return getCart(getTicketById(ticketId).getCartToken());
+    }
+
+    private List<Ticket> getHeldCart(String cartToken) throws PaymentProcessingException {
+        List<Ticket> tickets = getCart(cartToken);
+        for (Ticket ticket : tickets) {
+            checkHeld(ticket);
+        }
+        return tickets;
+    }
+
+    private List<Ticket> completeCart(List<Ticket> tickets, Payment payment, Throwable error)
+            throws PaymentProcessingException {
+        if (error == null && payment.getPaymentStatus() == PaymentStatus.PENDING) {
+            // left to the saga recovery, as for a single ticket
+            throw new PaymentProcessingException(payment.getGatewayResponse() + ", the booking completes once it is known");
+        }
+        if (error != null || payment.getPaymentStatus() != PaymentStatus.SUCCESS) {
+            for (Ticket ticket : tickets) {
+                failBooking(ticket, payment);
+            }
+            if (error == null) {
+                throw new PaymentProcessingException("Payment failed: " + payment.getGatewayResponse());
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof PaymentProcessingException) {
+                throw (PaymentProcessingException) cause;
+            }
+            throw new PaymentProcessingException("Cart booking failed: " + cause.getMessage());
+        }
+
+        // LOCKED -> BOOKED show by show, in the order the seats were held
+        for (int i = 0; i < tickets.size(); i++) {
+            Ticket ticket = tickets.get(i);
+            int showId = ticket.getShow().getId();
+            List<Integer> showSeatIds = showSeatIdsOf(ticket.getShowSeats());
+            if (bookHeldSeats(showId, showSeatIds, holdIdOf(ticket)) != showSeatIds.size()) {
+                undoCart(tickets, i, payment);
+                throw new PaymentProcessingException("Seat hold of show " + showId
+                        + " expired before the payment completed, cart payment refunded");
+            }
+        }
+        for (Ticket ticket : tickets) {
+            markBooked(ticket, payment);
+        }
+        tickets = ticketRepository.saveAll(tickets);
+        bookingSagaService.confirmed(tickets.get(0).getId());
+        return tickets;
+    }
+
+    // the tickets before the failed one are booked, the ones after it still hold their seats
+    private void undoCart(List<Ticket> tickets, int failed, Payment payment) {
+        for (int i = 0; i < tickets.size(); i++) {
+            Ticket ticket = tickets.get(i);
+            int showId = ticket.getShow().getId();
+            List<Integer> showSeatIds = showSeatIdsOf(ticket.getShowSeats());
+            if (i < failed) {
+                // still LOCKED in memory, the booking was never confirmed there
+                cancelBookedSeats(showId, showSeatIds);
+                seatInventoryService.evict(showId);
+                eventPublisher.publishEvent(new SeatsReleasedEvent(showId, showSeatIds));
+            } else if (i == failed) {
+                giveUpExpiredHold(showId, showSeatIds, holdIdOf(ticket));
+            } else {
+                releaseSeatLocks(ticket.getShowSeats(), holdIdOf(ticket));
+            }
+            ticket.setPayment(payment);
+            ticket.setTicketStatus(TicketStatus.CANCELLED);
+            ticket.setCancelled(true);
+        }
+        ticketRepository.saveAll(tickets);
+        bookingSagaService.compensated(tickets.get(0).getId());
+        refundAsync(payment);
+    }
+
+    private Ticket completeBooking(Ticket ticket, Payment payment, Throwable error) throws PaymentProcessingException {
+        int showId = ticket.getShow().getId();
+        List<Integer> showSeatIds = showSeatIdsOf(ticket.getShowSeats());
+
+        if (error != null) {
+            // Payment processing failed, release seats and cancel ticket
+            failBooking(ticket, null);
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof PaymentProcessingException) {
+                throw (PaymentProcessingException) cause;
+            }
+            throw new PaymentProcessingException("Ticket creation failed: " + cause.getMessage());
+        }
+
+        if (payment.getPaymentStatus() == PaymentStatus.PENDING) {
+            // the gateway did not answer, the charge may still go through: the hold stays and the saga
+            // recovery books or undoes the ticket once verifyPaymentStatus knows the outcome
+            throw new PaymentProcessingException(payment.getGatewayResponse() + ", the booking completes once it is known");
+        }
+
+        if (!payment.getPaymentStatus().equals(PaymentStatus.SUCCESS)) {
+            // Payment failed, release seats and cancel ticket
+            failBooking(ticket, payment);
+            throw new PaymentProcessingException("Payment failed: " + payment.getGatewayResponse());
+        }
+
+        // Step 2: Payment successful, LOCKED -> BOOKED for the seats of this hold only
+        int booked = bookHeldSeats(showId, showSeatIds, holdIdOf(ticket));
+        if (booked != showSeatIds.size()) {
+            // the hold expired during the payment and some seats went to someone else
+            giveUpExpiredHold(showId, showSeatIds, holdIdOf(ticket));
+            refundAsync(payment);
+            ticket.setPayment(payment);
+            ticket.setTicketStatus(TicketStatus.CANCELLED);
+            ticket.setCancelled(true);
+            ticketRepository.save(ticket);
+            bookingSagaService.compensated(ticket.getId());
+            throw new PaymentProcessingException("Seat hold expired before the payment completed, payment refunded");
+        }
+        markBooked(ticket, payment);
+
+        // Step 3: Update ticket with payment reference
+        Ticket saved = ticketRepository.save(ticket);
+        bookingSagaService.confirmed(saved.getId());
+        return saved;
+    }
+
+    // LOCKED -> BOOKED for the seats of one hold, in the write-ahead-logged store for hot shows
+    private int bookHeldSeats(int showId, List<Integer> showSeatIds, String holdId) {
+        return walSeatStore.owns(showId)
+                ? walSeatStore.book(showId, showSeatIds, holdId)
+                : retryPolicy.execute(() -> showSeatService.bookShowSeats(showId, showSeatIds, holdId),
+                        contentionMetricsService.listenerFor(showId));
+    }
+
+    // frees what is left of a hold that could not be booked in full, the in-memory copy is reloaded
+    private void giveUpExpiredHold(int showId, List<Integer> showSeatIds, String holdId) {
+        if (walSeatStore.owns(showId)) {
+            walSeatStore.release(showId, showSeatIds, holdId);
+        } else {
+            showSeatService.releaseShowSeats(showId, showSeatIds, holdId);
+        }
+        seatInventoryService.evict(showId);
+    }
+
+    private void markBooked(Ticket ticket, Payment payment) {
+        seatInventoryService.confirm(ticket.getShow().getId(), showSeatIdsOf(ticket.getShowSeats()));
+        for (ShowSeat showSeat : ticket.getShowSeats()) {
+            showSeat.setShowSeatStatus(ShowSeatStatus.BOOKED);
+            showSeat.setLockedUntil(null);
+            showSeat.setHoldId(null);
+        }
+        ticket.setPayment(payment);
+        ticket.setTicketStatus(TicketStatus.BOOKED);
+    }
+
+    private void refundAsync(Payment payment) {
+        paymentService.processRefundAsync(payment, payment.getAmount())
+                .exceptionally(refundError -> {
+                    System.err.println("Refund of payment " + payment.getId() + " failed: " + refundError.getMessage());
+                    return null;
+                });
+    }
+
+    private void failBooking(Ticket ticket, Payment payment) {
+        releaseSeatLocks(ticket.getShowSeats(), holdIdOf(ticket));
+        ticket.setPayment(payment);
+        ticket.setTicketStatus(TicketStatus.CANCELLED);
+        ticket.setCancelled(true);
+        ticketRepository.save(ticket);
+        bookingSagaService.compensated(ticket.getId()); // no saga for the later tickets of a cart, nothing happens
+    }
+
+    private Ticket getHeldTicket(String holdToken) throws PaymentProcessingException {
+        Ticket ticket = ticketRepository.findByHoldToken(holdToken).orElseThrow(
+                () -> new TicketNotFoundException("Ticket with hold token " + holdToken + " not found")
+        );
+        checkHeld(ticket);
+        return ticket;
+    }
+
+    private void checkHeld(Ticket ticket) throws PaymentProcessingException {
+        if (ticket.getTicketStatus() != TicketStatus.INPROGRESS) {
+            throw new PaymentProcessingException("Ticket " + ticket.getId() + " is " + ticket.getTicketStatus());
+        }
+        if (ticket.getHoldExpiresAt() != null && ticket.getHoldExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new PaymentProcessingException("Seat hold of ticket " + ticket.getId() + " has expired");
         }
     }
 
     /**
-     * Cancel a ticket and process refund
+     * Cancel a ticket and process refund.
+     * The ticket is moved from BOOKED to CANCELLED and its seats are given back before the gateway is called,
+     * so a retry or a concurrent cancellation finds it CANCELLED and can never refund it twice.
+     * Each step commits on its own so the refund call to the gateway runs without a transaction open.
      * @param ticketId Ticket ID
      * @return Refund payment
      */
-    @Transactional
     public Payment cancelTicket(int ticketId) throws PaymentProcessingException {
-        Ticket ticket = ticketRepository.findById(ticketId)
-                .orElseThrow(() -> new RuntimeException("Ticket not found"));
+        Ticket ticket = getTicketById(ticketId);
+        if (ticket.getTicketStatus() != TicketStatus.BOOKED) {
+            throw new PaymentProcessingException("Ticket " + ticketId + " is " + ticket.getTicketStatus());
+        }
 
         // Check if ticket can be cancelled (e.g., show hasn't started)
         if (!canCancelTicket(ticket)) {
@@ -125,63 +791,129 @@ public class TicketService {
         // Calculate refund amount (may include cancellation charges)
         double refundAmount = calculateRefundAmount(ticket);
 
-        // Process refund
-        Payment refund = paymentService.processRefund(ticket.getPayment(), refundAmount);
+        // Mark ticket as cancelled, only one cancellation gets past this
+        if (ticketRepository.cancel(ticketId, TicketStatus.BOOKED, TicketStatus.CANCELLED) == 0) {
+            throw new PaymentProcessingException("Ticket " + ticketId + " is already cancelled");
+        }
 
         // Release seats
-        for (ShowSeat showSeat : ticket.getShowSeats()) {
-            showSeat.setShowSeatStatus(ShowSeatStatus.AVAILABLE);
-            showSeatService.updateShowSeat(showSeat);
-        }
+        List<Integer> showSeatIds = showSeatIdsOf(ticket.getShowSeats());
+        cancelBookedSeats(ticket.getShow().getId(), showSeatIds);
 
-        // Mark ticket as cancelled
-        ticket.setCancelled(true);
-        ticketRepository.save(ticket);
+        // the waitlist of the show gets the seats before anyone else can race for them
+        eventPublisher.publishEvent(new SeatsReleasedEvent(ticket.getShow().getId(), showSeatIds));
+
+        // Process refund, a failed refund stays on record as a FAILED payment to be paid out again
+        return paymentService.processRefund(ticket.getPayment(), refundAmount);
+    }
 
-        return refund;
+    // BOOKED -> AVAILABLE
+    private void cancelBookedSeats(int showId, List<Integer> showSeatIds) {
+        if (walSeatStore.owns(showId)) {
+            walSeatStore.cancel(showId, showSeatIds);
+        } else {
+            showSeatService.cancelShowSeats(showId, showSeatIds);
+        }
+        seatInventoryService.cancel(showId, showSeatIds);
     }
 
     /**
-     * Check and lock show seats with proper concurrency control
+     * Check and lock show seats.
+     * The in-memory seat inventory rejects seats that are already taken without touching the database,
+     * the database is then updated with one conditional UPDATE that only succeeds if every seat is still
+     * AVAILABLE. No SERIALIZABLE read-then-write is needed, the row count decides.
+     * The hold carries a deadline, if it is neither confirmed nor released by then the seats are freed.
      * @param showSeatIds List of show seat IDs
+     * @param holdId Id the seats are held under, confirming or releasing the hold names it
      * @return List of locked show seats
      */
-    @Transactional(isolation = Isolation.SERIALIZABLE)
-    public List<ShowSeat> checkAndLockShowSeats(List<Integer> showSeatIds)
+    public List<ShowSeat> checkAndLockShowSeats(List<Integer> showSeatIds, String holdId)
             throws SelectedSeatsNotAvailableException {
 
-        List<ShowSeat> showSeats = new ArrayList<>();
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(showSeatIds));
+        int showId = seatInventoryService.findShowId(ids);
+        contentionMetricsService.recordAttempt(showId);
+        LocalDateTime lockedUntil = seatHoldExpiryService.newDeadline();
 
-        // Step 1: Check if all seats are available
-        for (int showSeatId : showSeatIds) {
-            ShowSeat showSeat = showSeatService.getShowSeatById(showSeatId);
-            if (!showSeat.getShowSeatStatus().equals(ShowSeatStatus.AVAILABLE)) {
-                throw new SelectedSeatsNotAvailableException(
-                        "Seat " + showSeat.getSeat().getSeatNumber() + " is not available");
-            }
-            showSeats.add(showSeat);
-        }
+        // Steps 1 and 2 run for one hold of the show at a time on this node, the others queue in memory
+        List<ShowSeat> showSeats = showLockManager.withShowLock(showId, () -> lockSeats(showId, ids, lockedUntil, holdId));
 
-        // Step 2: Lock all seats (separate loop to avoid partial locks)
-        for (ShowSeat showSeat : showSeats) {
-            showSeat.setShowSeatStatus(ShowSeatStatus.LOCKED);
-            showSeatService.updateShowSeat(showSeat);
+        // Step 3: Free the seats automatically if the hold is abandoned
+        seatHoldExpiryService.scheduleExpiry(new SeatHold(showId, ids, lockedUntil));
+        return showSeats;
+    }
+
+    private List<ShowSeat> lockSeats(int showId, List<Integer> ids, LocalDateTime lockedUntil, String holdId)
+            throws SelectedSeatsNotAvailableException {
+        // Step 1: Hold all seats in memory, all or nothing
+        if (!seatInventoryService.hold(showId, ids)) {
+            contentionMetricsService.recordUnavailable(showId);
+            throw new SelectedSeatsNotAvailableException("Selected seats are not available");
         }
 
-        return showSeats;
+        // Step 2: AVAILABLE -> LOCKED in the database with the configured strategy, retried if it loses a lock race.
+        // Hot shows are held in the write-ahead-logged store instead and reach the database with its next flush.
+        try {
+            if (walSeatStore.owns(showId)) {
+                return walSeatStore.lock(showId, ids, lockedUntil, holdId);
+            }
+            return retryPolicy.execute(() -> seatLockingStrategy.lock(showId, ids, lockedUntil, holdId),
+                    contentionMetricsService.listenerFor(showId));
+        } catch (SelectedSeatsNotAvailableException e) {
+            // the database disagrees with our copy, e.g. another node took the seat
+            contentionMetricsService.recordUnavailable(showId);
+            seatInventoryService.evict(showId);
+            throw e;
+        } catch (RuntimeException e) {
+            // the rows may have been locked before the failure, nobody else holds them under our hold id
+            if (!walSeatStore.owns(showId)) {
+                try {
+                    showSeatService.releaseShowSeats(showId, ids, holdId);
+                } catch (RuntimeException releaseFailed) {
+                    System.err.println("Could not release seats " + ids + " of show " + showId + ": " + releaseFailed.getMessage());
+                }
+            }
+            seatInventoryService.release(showId, ids);
+            throw e;
+        }
     }
 
     /**
      * Release seat locks (used when payment fails)
      * @param showSeats List of show seats to unlock
+     * @param holdId Id of the hold, seats held by someone else are not touched
      */
-    private void releaseSeatLocks(List<ShowSeat> showSeats) {
+    private void releaseSeatLocks(List<ShowSeat> showSeats, String holdId) {
+        int showId = showSeats.get(0).getShow().getId();
+        List<Integer> showSeatIds = showSeatIdsOf(showSeats);
+        if (walSeatStore.owns(showId)) {
+            walSeatStore.release(showId, showSeatIds, holdId);
+        } else {
+            retryPolicy.execute(() -> showSeatService.releaseShowSeats(showId, showSeatIds, holdId),
+                    contentionMetricsService.listenerFor(showId));
+        }
+        seatInventoryService.release(showId, showSeatIds);
+        eventPublisher.publishEvent(new SeatsReleasedEvent(showId, showSeatIds));
         for (ShowSeat showSeat : showSeats) {
             showSeat.setShowSeatStatus(ShowSeatStatus.AVAILABLE);
-            showSeatService.updateShowSeat(showSeat);
+            showSeat.setLockedUntil(null);
+            showSeat.setHoldId(null);
         }
     }
 
+    // a single ticket holds its seats under its hold token, the tickets of a cart share the cart token
+    private static String holdIdOf(Ticket ticket) {
+        return ticket.getCartToken() != null ? ticket.getCartToken() : ticket.getHoldToken();
+    }
+
+    private List<Integer> showSeatIdsOf(List<ShowSeat> showSeats) {
+        List<Integer> ids = new ArrayList<>(showSeats.size());
+        for (ShowSeat showSeat : showSeats) {
+            ids.add(showSeat.getId());
+        }
+        return ids;
+    }
+
     /**
      * Check if ticket can be cancelled based on business rules
      * @param ticket Ticket to check
@@ -219,13 +951,74 @@ public class TicketService {
         }
     }
 
+    /**
+     * Tickets of a booking saga, read by key
+     * @param saga Saga that got its ticket
+     * @return The ticket, or every ticket of the cart
+     */
+    public List<Ticket> getTicketsOfSaga(BookingSaga saga) {
+        if (saga.getCartToken() != null) {
+            return ticketRepository.findByCartToken(saga.getCartToken());
+        }
+        return saga.getTicketId() == null ? List.of()
+                : ticketRepository.findWithShowSeatsById(saga.getTicketId()).map(List::of).orElse(List.of());
+    }
+
+    /**
+     * Finish a booking whose payment outcome is known, for the saga recovery after a crash.
+     * Seats whose hold expired meanwhile are not booked, the payment is refunded instead.
+     * @param tickets Tickets of the saga, all INPROGRESS
+     * @param payment Payment of the booking, SUCCESS or final failure
+     * @return Booked tickets
+     * @throws PaymentProcessingException if the booking was undone instead
+     */
+    public List<Ticket> resumeBooking(List<Ticket> tickets, Payment payment) throws PaymentProcessingException {
+        if (tickets.get(0).getCartToken() == null) {
+            return List.of(completeBooking(tickets.get(0), payment, null));
+        }
+        return completeCart(tickets, payment, null);
+    }
+
+    /**
+     * Undo a booking that was never paid for and whose hold has expired, for the saga recovery.
+     * Only seats still held under the hold of the booking are released.
+     * @param tickets Tickets of the saga
+     */
+    public void abandonBooking(List<Ticket> tickets) {
+        for (Ticket ticket : tickets) {
+            if (ticket.getTicketStatus() != TicketStatus.INPROGRESS) {
+                continue;
+            }
+            giveUpExpiredHold(ticket.getShow().getId(), showSeatIdsOf(ticket.getShowSeats()), holdIdOf(ticket));
+            ticket.setTicketStatus(TicketStatus.CANCELLED);
+            ticket.setCancelled(true);
+        }
+        ticketRepository.saveAll(tickets);
+    }
+
+    /**
+     * Release seats of a hold that never got its ticket, for the saga recovery
+     * @param showSeatIds Held show seats, of one or several shows
+     * @param holdId Id of the hold, seats held by someone else are not touched
+     */
+    public void releaseAbandonedHold(List<Integer> showSeatIds, String holdId) {
+        Map<Integer, List<Integer>> showSeatIdsByShow = new TreeMap<>();
+        for (ShowSeat showSeat : showSeatService.getShowSeatsByIds(showSeatIds)) {
+            showSeatIdsByShow.computeIfAbsent(showSeat.getShow().getId(), id -> new ArrayList<>()).add(showSeat.getId());
+        }
+        for (Map.Entry<Integer, List<Integer>> entry : showSeatIdsByShow.entrySet()) {
+            giveUpExpiredHold(entry.getKey(), entry.getValue(), holdId);
+        }
+    }
+
     /**
      * Get ticket by ID
      * @param id Ticket ID
      * @return Ticket
      */
     public Ticket getTicketById(int id) {
-        return ticketRepository.findById(id)
+        // seats fetched with the ticket, callers read them after the transaction is gone
+        return ticketRepository.findWithShowSeatsById(id)
                 .orElseThrow(() -> new RuntimeException("Ticket not found"));
     }
 
@@ -0,0 +1,196 @@
+package com.example.bookMyShow.service;
+
+import com.example.bookMyShow.dto.WaitlistEntryStatus;
+import com.example.bookMyShow.event.SeatsReleasedEvent;
+import com.example.bookMyShow.exception.PaymentProcessingException;
+import com.example.bookMyShow.exception.SelectedSeatsNotAvailableException;
+import com.example.bookMyShow.exception.WaitlistEntryNotFoundException;
+import com.example.bookMyShow.model.Ticket;
+import com.example.bookMyShow.model.WaitlistEntry;
+import com.example.bookMyShow.model.constant.SeatType;
+import com.example.bookMyShow.model.constant.TicketStatus;
+import com.example.bookMyShow.model.constant.WaitlistStatus;
+import com.example.bookMyShow.repository.WaitlistEntryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/*
+Waitlist of sold out shows. Whenever seats of a show are released (cancelled ticket, expired or released
+hold, failed payment) they are offered right away to the oldest waiting entries that fit, matched by
+number of adjacent seats and SeatType, as a normal hold on a ticket of the waiting user.
+The user confirms it with the hold token like any other hold, an offer that is not confirmed expires
+and its seats go to the next entry. Users stop polling the seat map of a full show.
+An offer ends with its hold, the entry is then BOOKED or EXPIRED. That is recorded when the entry is read
+and whenever seats of the show are released, which is also when an unconfirmed offer goes away.
+ */
+@Service
+public class WaitlistService {
+
+    @Autowired
+    private WaitlistEntryRepository waitlistEntryRepository;
+    @Autowired
+    private TicketService ticketService;
+    @Autowired
+    private SeatAllocationService seatAllocationService;
+    @Autowired
+    private ShowLockManager showLockManager;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ShowService showService;
+
+    @Value("${bookmyshow.waitlist.max-quantity:10}")
+    private int maxQuantity;
+    @Value("${bookmyshow.waitlist.scan-size:100}")
+    private int scanSize;
+
+    /**
+     * Put a user on the waitlist of a show, if seats are free already they are offered at once
+     * @param showId Show ID
+     * @param userId User ID
+     * @param quantity Number of adjacent seats wanted
+     * @param seatType Type of seat, null for any
+     * @return The waitlist entry
+     */
+    public WaitlistEntryStatus join(int showId, int userId, int quantity, SeatType seatType) {
+        if (quantity < 1 || quantity > maxQuantity) {
+            throw new IllegalArgumentException("Quantity must be between 1 and " + maxQuantity);
+        }
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setShow(showService.getShowById(showId));
+        entry.setUser(userService.getUserById(userId));
+        entry.setQuantity(quantity);
+        entry.setSeatType(seatType);
+        entry.setStatus(WaitlistStatus.WAITING);
+        entry = waitlistEntryRepository.save(entry);
+
+        offerSeats(showId);
+        return getStatus(entry.getId());
+    }
+
+    public WaitlistEntryStatus getStatus(int entryId) {
+        WaitlistEntry entry = getEntry(entryId);
+        settleOffer(entry);
+        return toStatus(entry);
+    }
+
+    /**
+     * Leave the waitlist, an offered hold that was not paid for yet is released to the next entry
+     * @param entryId Waitlist entry ID
+     * @return The cancelled entry
+     */
+    public WaitlistEntryStatus cancel(int entryId) throws PaymentProcessingException {
+        WaitlistEntry entry = getEntry(entryId);
+        WaitlistStatus previous = entry.getStatus();
+        entry.setStatus(WaitlistStatus.CANCELLED);
+        waitlistEntryRepository.save(entry);
+        if (previous == WaitlistStatus.OFFERED && entry.getTicket() != null
+                && entry.getTicket().getTicketStatus() == TicketStatus.INPROGRESS) {
+            ticketService.releaseHold(entry.getTicket().getHoldToken());
+        }
+        return toStatus(entry);
+    }
+
+    @EventListener
+    public void onSeatsReleased(SeatsReleasedEvent event) {
+        try {
+            offerSeats(event.getShowId());
+        } catch (RuntimeException e) {
+            // the seats stay AVAILABLE, the next release or join offers them again
+            System.err.println("Offering released seats of show " + event.getShowId() + " failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Offer the free seats of a show to the waitlist, oldest entries first.
+     * Runs under the lock of the show, so the holds of the waitlist are not raced by other holds on this node.
+     * An entry that does not fit is skipped, a later one asking for fewer seats or another type may still fit.
+     * @param showId Show ID
+     * @return Number of entries that got an offer
+     */
+    public int offerSeats(int showId) {
+        for (WaitlistEntry entry : waitlistEntryRepository.findByShowIdAndStatus(
+                showId, WaitlistStatus.OFFERED, PageRequest.of(0, scanSize))) {
+            settleOffer(entry);
+        }
+        if (!waitlistEntryRepository.existsByShowIdAndStatus(showId, WaitlistStatus.WAITING)) {
+            return 0;
+        }
+        return showLockManager.withShowLock(showId, () -> {
+            int offered = 0;
+            List<WaitlistEntry> waiting = waitlistEntryRepository.findByShowIdAndStatus(
+                    showId, WaitlistStatus.WAITING, PageRequest.of(0, scanSize));
+            for (WaitlistEntry entry : waiting) {
+                try {
+                    // a full show rarely has a block that leaves no single seat, so those are accepted here
+                    List<Integer> seatIds = seatAllocationService.findBestAvailable(
+                            showId, entry.getQuantity(), entry.getSeatType(), false);
+                    Ticket ticket = ticketService.holdSeatsForWaitlist(entry.getUser().getId(), showId, seatIds);
+                    entry.setTicket(ticket);
+                    entry.setStatus(WaitlistStatus.OFFERED);
+                    entry.setOfferedAt(LocalDateTime.now());
+                    waitlistEntryRepository.save(entry);
+                    offered++;
+                } catch (SelectedSeatsNotAvailableException e) {
+                    // nothing that fits this entry is free
+                }
+            }
+            return offered;
+        });
+    }
+
+    // an offer is over once its ticket is booked, or its hold is gone without being paid for
+    private void settleOffer(WaitlistEntry entry) {
+        Ticket ticket = entry.getTicket();
+        if (ticket == null || (entry.getStatus() != WaitlistStatus.OFFERED && entry.getStatus() != WaitlistStatus.EXPIRED)) {
+            return;
+        }
+        WaitlistStatus settled = entry.getStatus();
+        if (ticket.getTicketStatus() == TicketStatus.BOOKED) {
+            // also an offer taken for EXPIRED while its payment was finishing right at the deadline
+            settled = WaitlistStatus.BOOKED;
+        } else if (ticket.getTicketStatus() == TicketStatus.CANCELLED
+                || ticket.getHoldExpiresAt() == null || ticket.getHoldExpiresAt().isBefore(LocalDateTime.now())) {
+            settled = WaitlistStatus.EXPIRED;
+        }
+        if (settled != entry.getStatus()) {
+            entry.setStatus(settled);
+            waitlistEntryRepository.save(entry);
+        }
+    }
+
+    private WaitlistEntry getEntry(int entryId) {
+        return waitlistEntryRepository.findById(entryId).orElseThrow(
+                () -> new WaitlistEntryNotFoundException("Waitlist entry with id " + entryId + " not found")
+        );
+    }
+
+    private WaitlistEntryStatus toStatus(WaitlistEntry entry) {
+        WaitlistEntryStatus status = new WaitlistEntryStatus();
+        status.setEntryId(entry.getId());
+        status.setShowId(entry.getShow().getId());
+        status.setStatus(entry.getStatus());
+        status.setQuantity(entry.getQuantity());
+        status.setSeatType(entry.getSeatType());
+        if (entry.getStatus() == WaitlistStatus.WAITING) {
+            status.setPosition(waitlistEntryRepository.countAhead(
+                    entry.getShow().getId(), WaitlistStatus.WAITING, entry.getId()));
+        }
+        Ticket ticket = entry.getTicket();
+        if (ticket != null) {
+            status.setTicketId(ticket.getId());
+            // the hold token is only of use while the offer stands
+            if (entry.getStatus() == WaitlistStatus.OFFERED) {
+                status.setHoldToken(ticket.getHoldToken());
+                status.setHoldExpiresAt(ticket.getHoldExpiresAt());
+            }
+        }
+        return status;
+    }
+}
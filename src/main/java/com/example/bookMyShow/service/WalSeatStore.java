@@ -0,0 +1,505 @@
+package com.example.bookMyShow.service;
+
+import com.example.bookMyShow.event.SeatTransitionEvent;
+import com.example.bookMyShow.exception.SelectedSeatsNotAvailableException;
+import com.example.bookMyShow.exception.ShowSeatNotFoundException;
+import com.example.bookMyShow.model.ShowSeat;
+import com.example.bookMyShow.model.constant.SeatTransitionKind;
+import com.example.bookMyShow.model.constant.ShowSeatStatus;
+import com.example.bookMyShow.repository.ShowSeatRepository;
+import com.example.bookMyShow.util.WriteAheadLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+Seat state of the hottest shows, owned in memory instead of by the ShowSeat table.
+Every hold, confirm, release, expiry and cancel of such a show is appended to a memory-mapped write-ahead
+log and forced to disk before it is applied and acknowledged; concurrent writers share the fsync.
+A background flusher writes the seats changed since the last flush to the ShowSeat table in batches,
+then records the last flushed sequence in a checkpoint file and drops the log segments before it.
+At startup the records after the checkpoint are replayed and written to the table before anything reads it.
+While a show is owned here its ShowSeat rows lag behind by up to one flush interval and must not be
+written by anyone else.
+ */
+@Service
+public class WalSeatStore {
+    private static final String CHECKPOINT = "checkpoint";
+    private static final long NO_DEADLINE = Long.MIN_VALUE;
+    private static final ShowSeatStatus[] STATUSES = ShowSeatStatus.values();
+    private static final int HAS_HOLD_ID = 0x80; // set on the status byte of records that carry a hold id
+
+    private static class SeatState {
+        final ShowSeatStatus status;
+        final LocalDateTime lockedUntil;
+        final String holdId;
+
+        SeatState(ShowSeatStatus status, LocalDateTime lockedUntil, String holdId) {
+            this.status = status == null ? ShowSeatStatus.AVAILABLE : status;
+            this.lockedUntil = lockedUntil;
+            this.holdId = holdId;
+        }
+    }
+
+    private static class HotShow {
+        final Map<Integer, SeatState> seats = new HashMap<>();
+        Set<Integer> dirty = new HashSet<>();
+    }
+
+    // seats flushed together share show, status, deadline and hold
+    private static class FlushKey {
+        final int showId;
+        final ShowSeatStatus status;
+        final LocalDateTime lockedUntil;
+        final String holdId;
+
+        FlushKey(int showId, SeatState state) {
+            this.showId = showId;
+            this.status = state.status;
+            this.lockedUntil = state.lockedUntil;
+            this.holdId = state.holdId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof FlushKey)) {
+                return false;
+            }
+            FlushKey other = (FlushKey) o;
+            return showId == other.showId && status == other.status && Objects.equals(lockedUntil, other.lockedUntil)
+                    && Objects.equals(holdId, other.holdId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(showId, status, lockedUntil, holdId);
+        }
+    }
+
+    @Autowired
+    private ShowSeatRepository showSeatRepository;
+    @Autowired
+    private ShowSeatStateService showSeatStateService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Value("${bookmyshow.wal.enabled:false}")
+    private boolean enabled;
+    @Value("${bookmyshow.wal.show-ids:}")
+    private String showIds;
+    @Value("${bookmyshow.wal.directory:data/wal}")
+    private String directory;
+    @Value("${bookmyshow.wal.segment-mb:64}")
+    private int segmentMb;
+    @Value("${bookmyshow.wal.flush-interval-ms:200}")
+    private long flushIntervalMs;
+    @Value("${bookmyshow.wal.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    private final Set<Integer> ownedShowIds = new HashSet<>();
+    private final Map<Integer, HotShow> shows = new ConcurrentHashMap<>();
+    // operations share the read lock, the flusher takes the write lock to cut a consistent checkpoint
+    private final ReentrantReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+    private Path path;
+    private WriteAheadLog wal;
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "wal-seat-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void recover() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        for (String id : showIds.split(",")) {
+            if (!id.isBlank()) {
+                ownedShowIds.add(Integer.parseInt(id.trim()));
+            }
+        }
+        path = Paths.get(directory);
+        Files.createDirectories(path);
+        long checkpoint = readCheckpoint();
+        wal = new WriteAheadLog(path, segmentMb * 1024 * 1024, checkpoint + 1);
+
+        // the last record of a seat wins, so only the final state of each replayed seat is written
+        Map<Integer, Integer> showIdBySeat = new HashMap<>();
+        Map<Integer, SeatState> replayed = new LinkedHashMap<>();
+        wal.replay(checkpoint, (sequence, payload) -> {
+            int showId = payload.getInt();
+            SeatState state = decodeState(payload);
+            int count = payload.getInt();
+            for (int i = 0; i < count; i++) {
+                int showSeatId = payload.getInt();
+                showIdBySeat.put(showSeatId, showId);
+                replayed.put(showSeatId, state);
+            }
+        });
+        Map<FlushKey, List<Integer>> groups = new HashMap<>();
+        for (Map.Entry<Integer, SeatState> entry : replayed.entrySet()) {
+            groups.computeIfAbsent(new FlushKey(showIdBySeat.get(entry.getKey()), entry.getValue()),
+                    k -> new ArrayList<>()).add(entry.getKey());
+        }
+        write(groups);
+        long last = wal.getLastSequence();
+        writeCheckpoint(last);
+        wal.deleteUpTo(last);
+        System.out.println("Seat WAL: owning shows " + ownedShowIds + ", replayed " + replayed.size()
+                + " seats after sequence " + checkpoint);
+
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (wal == null) {
+            return;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+            flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            System.err.println("Final seat WAL flush failed, the log is replayed at startup: " + e.getMessage());
+        }
+        try {
+            wal.close();
+        } catch (IOException e) {
+            System.err.println("Closing the seat WAL failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Whether the seat state of a show is owned by this store
+     * @param showId Show ID
+     * @return true if its seat writes must go through the store
+     */
+    public boolean owns(int showId) {
+        return wal != null && ownedShowIds.contains(showId);
+    }
+
+    /**
+     * Hold all given seats, AVAILABLE -> LOCKED, all or nothing
+     * @param showId Show ID
+     * @param ids Distinct show seat IDs of that show
+     * @param lockedUntil Deadline after which the hold expires
+     * @param holdId Id of the hold, later confirms and releases of the seats must name it
+     * @return Show seats carrying their new status, not attached to a persistence context
+     */
+    public List<ShowSeat> lock(int showId, List<Integer> ids, LocalDateTime lockedUntil, String holdId)
+            throws SelectedSeatsNotAvailableException {
+        HotShow show = hotShow(showId, ids);
+        checkpointLock.readLock().lock();
+        try {
+            synchronized (show) {
+                int available = 0;
+                for (int id : ids) {
+                    if (show.seats.get(id).status == ShowSeatStatus.AVAILABLE) {
+                        available++;
+                    }
+                }
+                if (available != ids.size()) {
+                    throw new SelectedSeatsNotAvailableException(
+                            "Only " + available + " of " + ids.size() + " selected seats are available");
+                }
+                apply(showId, show, ids, new SeatState(ShowSeatStatus.LOCKED, lockedUntil, holdId));
+            }
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+        eventPublisher.publishEvent(new SeatTransitionEvent(showId, SeatTransitionKind.HOLD,
+                ShowSeatStatus.AVAILABLE, ShowSeatStatus.LOCKED, ids));
+
+        List<ShowSeat> showSeats = showSeatRepository.findByShowIdAndIds(showId, ids);
+        for (ShowSeat showSeat : showSeats) {
+            showSeat.setShowSeatStatus(ShowSeatStatus.LOCKED);
+            showSeat.setLockedUntil(lockedUntil);
+            showSeat.setHoldId(holdId);
+        }
+        showSeats.sort((a, b) -> Integer.compare(ids.indexOf(a.getId()), ids.indexOf(b.getId())));
+        return showSeats;
+    }
+
+    /**
+     * Mark the seats of a hold as booked, LOCKED -> BOOKED
+     * @param holdId Id of the hold, seats held by someone else are not touched
+     * @return Number of seats booked
+     */
+    public int book(int showId, List<Integer> ids, String holdId) {
+        return move(showId, ids, SeatTransitionKind.CONFIRM, ShowSeatStatus.LOCKED, holdId,
+                new SeatState(ShowSeatStatus.BOOKED, null, null));
+    }
+
+    /**
+     * Release the seats of a hold, LOCKED -> AVAILABLE
+     * @param holdId Id of the hold, seats held by someone else are not touched
+     * @return Number of seats released
+     */
+    public int release(int showId, List<Integer> ids, String holdId) {
+        return move(showId, ids, SeatTransitionKind.RELEASE, ShowSeatStatus.LOCKED, holdId,
+                new SeatState(ShowSeatStatus.AVAILABLE, null, null));
+    }
+
+    /**
+     * Give booked seats back, BOOKED -> AVAILABLE
+     * @return Number of seats freed
+     */
+    public int cancel(int showId, List<Integer> ids) {
+        return move(showId, ids, SeatTransitionKind.CANCEL, ShowSeatStatus.BOOKED, null,
+                new SeatState(ShowSeatStatus.AVAILABLE, null, null));
+    }
+
+    /**
+     * Release the seats out of the given ones whose hold deadline has passed
+     * @param showId Show ID
+     * @param ids Show seat IDs of that show
+     * @param now Current time
+     * @return IDs of the seats that were released
+     */
+    public List<Integer> releaseExpired(int showId, List<Integer> ids, LocalDateTime now) {
+        HotShow show = hotShow(showId, ids);
+        List<Integer> expired = new ArrayList<>();
+        checkpointLock.readLock().lock();
+        try {
+            synchronized (show) {
+                for (int id : ids) {
+                    SeatState state = show.seats.get(id);
+                    if (state.status == ShowSeatStatus.LOCKED
+                            && (state.lockedUntil == null || !state.lockedUntil.isAfter(now))) {
+                        expired.add(id);
+                    }
+                }
+                if (!expired.isEmpty()) {
+                    apply(showId, show, expired, new SeatState(ShowSeatStatus.AVAILABLE, null, null));
+                }
+            }
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+        if (!expired.isEmpty()) {
+            eventPublisher.publishEvent(new SeatTransitionEvent(showId, SeatTransitionKind.EXPIRE,
+                    ShowSeatStatus.LOCKED, ShowSeatStatus.AVAILABLE, expired));
+        }
+        return expired;
+    }
+
+    // moves the seats that are in status "from" (and of the given hold, if any), skipping the others
+    private int move(int showId, List<Integer> ids, SeatTransitionKind kind, ShowSeatStatus from,
+                     String holdId, SeatState to) {
+        HotShow show = hotShow(showId, ids);
+        List<Integer> moved = new ArrayList<>(ids.size());
+        checkpointLock.readLock().lock();
+        try {
+            synchronized (show) {
+                for (int id : ids) {
+                    SeatState state = show.seats.get(id);
+                    if (state.status == from && (holdId == null || holdId.equals(state.holdId))) {
+                        moved.add(id);
+                    }
+                }
+                if (!moved.isEmpty()) {
+                    apply(showId, show, moved, to);
+                }
+            }
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+        if (!moved.isEmpty()) {
+            eventPublisher.publishEvent(new SeatTransitionEvent(showId, kind, from, to.status, moved));
+        }
+        return moved.size();
+    }
+
+    // durable first, only then visible
+    private void apply(int showId, HotShow show, List<Integer> ids, SeatState state) {
+        try {
+            wal.append(encode(showId, ids, state));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to the seat WAL of show " + showId, e);
+        }
+        for (int id : ids) {
+            show.seats.put(id, state);
+        }
+        show.dirty.addAll(ids);
+    }
+
+    // state of the show, rows created since it was loaded (e.g. of a sparse show) are read on first use
+    private HotShow hotShow(int showId, Collection<Integer> ids) {
+        HotShow show = shows.computeIfAbsent(showId, id -> {
+            HotShow loaded = new HotShow();
+            for (Object[] row : showSeatRepository.findHoldStatesByShowId(id)) {
+                loaded.seats.put((Integer) row[0],
+                        new SeatState((ShowSeatStatus) row[1], (LocalDateTime) row[2], (String) row[3]));
+            }
+            return loaded;
+        });
+        synchronized (show) {
+            List<Integer> missing = new ArrayList<>();
+            for (int id : ids) {
+                if (!show.seats.containsKey(id)) {
+                    missing.add(id);
+                }
+            }
+            if (!missing.isEmpty()) {
+                for (Object[] row : showSeatRepository.findHoldStatesByIds(missing)) {
+                    if ((Integer) row[1] == showId) {
+                        show.seats.put((Integer) row[0],
+                                new SeatState((ShowSeatStatus) row[2], (LocalDateTime) row[3], (String) row[4]));
+                    }
+                }
+                for (int id : missing) {
+                    if (!show.seats.containsKey(id)) {
+                        throw new ShowSeatNotFoundException("ShowSeat with id " + id + " not found in show " + showId);
+                    }
+                }
+            }
+        }
+        return show;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.err.println("Seat WAL flush failed, retrying next round: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Write the seats changed since the last flush to the ShowSeat table and move the checkpoint past them
+     */
+    public synchronized void flush() {
+        long sequence;
+        Map<Integer, Set<Integer>> dirtyByShow = new HashMap<>();
+        Map<FlushKey, List<Integer>> groups = new HashMap<>();
+        checkpointLock.writeLock().lock();
+        try {
+            sequence = wal.getLastSequence();
+            for (Map.Entry<Integer, HotShow> entry : shows.entrySet()) {
+                HotShow show = entry.getValue();
+                synchronized (show) {
+                    if (show.dirty.isEmpty()) {
+                        continue;
+                    }
+                    for (int id : show.dirty) {
+                        groups.computeIfAbsent(new FlushKey(entry.getKey(), show.seats.get(id)),
+                                k -> new ArrayList<>()).add(id);
+                    }
+                    dirtyByShow.put(entry.getKey(), show.dirty);
+                    show.dirty = new HashSet<>();
+                }
+            }
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+        if (groups.isEmpty()) {
+            return;
+        }
+
+        try {
+            write(groups);
+            writeCheckpoint(sequence);
+            wal.deleteUpTo(sequence);
+        } catch (IOException | RuntimeException e) {
+            // the seats are written again next round, overwriting is idempotent
+            for (Map.Entry<Integer, Set<Integer>> entry : dirtyByShow.entrySet()) {
+                HotShow show = shows.get(entry.getKey());
+                synchronized (show) {
+                    show.dirty.addAll(entry.getValue());
+                }
+            }
+            throw e instanceof IOException ? new UncheckedIOException((IOException) e) : (RuntimeException) e;
+        }
+    }
+
+    private void write(Map<FlushKey, List<Integer>> groups) {
+        for (Map.Entry<FlushKey, List<Integer>> entry : groups.entrySet()) {
+            FlushKey key = entry.getKey();
+            List<Integer> ids = entry.getValue();
+            for (int from = 0; from < ids.size(); from += flushBatchSize) {
+                List<Integer> batch = ids.subList(from, Math.min(from + flushBatchSize, ids.size()));
+                showSeatRepository.overwriteStatus(batch, key.status, key.lockedUntil, key.holdId);
+            }
+            try {
+                showSeatStateService.setStatus(key.showId, ids, key.status);
+            } catch (RuntimeException e) {
+                showSeatStateService.invalidate(key.showId);
+            }
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path file = path.resolve(CHECKPOINT);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        return Long.parseLong(Files.readString(file, StandardCharsets.US_ASCII).trim());
+    }
+
+    private void writeCheckpoint(long sequence) throws IOException {
+        Path temp = path.resolve(CHECKPOINT + ".tmp");
+        Files.writeString(temp, Long.toString(sequence), StandardCharsets.US_ASCII);
+        Files.move(temp, path.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // showId (4), status (1), deadline in epoch seconds (8), hold id as UUID (16, if flagged on the status),
+    // count (4), show seat ids (4 each)
+    private static byte[] encode(int showId, List<Integer> ids, SeatState state) {
+        UUID holdId = state.holdId == null ? null : UUID.fromString(state.holdId);
+        ByteBuffer buffer = ByteBuffer.allocate(17 + (holdId == null ? 0 : 16) + ids.size() * 4);
+        buffer.putInt(showId);
+        buffer.put((byte) (state.status.ordinal() | (holdId == null ? 0 : HAS_HOLD_ID)));
+        buffer.putLong(state.lockedUntil == null ? NO_DEADLINE : state.lockedUntil.toEpochSecond(ZoneOffset.UTC));
+        if (holdId != null) {
+            buffer.putLong(holdId.getMostSignificantBits());
+            buffer.putLong(holdId.getLeastSignificantBits());
+        }
+        buffer.putInt(ids.size());
+        for (int id : ids) {
+            buffer.putInt(id);
+        }
+        return buffer.array();
+    }
+
+    // records written before holds had ids carry none
+    private static SeatState decodeState(ByteBuffer payload) {
+        int flags = payload.get() & 0xff;
+        ShowSeatStatus status = STATUSES[flags & ~HAS_HOLD_ID];
+        long deadline = payload.getLong();
+        String holdId = (flags & HAS_HOLD_ID) == 0 ? null : new UUID(payload.getLong(), payload.getLong()).toString();
+        return new SeatState(status, deadline == NO_DEADLINE ? null : LocalDateTime.ofEpochSecond(deadline, 0, ZoneOffset.UTC),
+                holdId);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.bookMyShow.service.admission;
+
+/**
+ * One user waiting for a show. The sequence number is its place in the queue of the show,
+ * the admission token is set once the queue reached it.
+ */
+public class QueueEntry {
+    private final String queueId;
+    private final int showId;
+    private final int userId;
+    private final long sequence;
+    private volatile String admissionToken;
+    private volatile long tokenExpiresAtMillis;
+
+    public QueueEntry(String queueId, int showId, int userId, long sequence) {
+        this.queueId = queueId;
+        this.showId = showId;
+        this.userId = userId;
+        this.sequence = sequence;
+    }
+
+    public String getQueueId() {
+        return queueId;
+    }
+
+    public int getShowId() {
+        return showId;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public String getAdmissionToken() {
+        return admissionToken;
+    }
+
+    public long getTokenExpiresAtMillis() {
+        return tokenExpiresAtMillis;
+    }
+
+    public void admit(String admissionToken, long tokenExpiresAtMillis) {
+        this.tokenExpiresAtMillis = tokenExpiresAtMillis;
+        this.admissionToken = admissionToken;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.bookMyShow.service.admission;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded FIFO queue of the users waiting for one show.
+ * Users are let out at a fixed rate by a token bucket, so bursts are smoothed to what the
+ * seat engine can take. Joining is lock free; admit is only called by the admission tick.
+ */
+public class WaitingRoom {
+    private final int showId;
+    private final ConcurrentLinkedQueue<QueueEntry> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong lastSequence = new AtomicLong();
+    private volatile long lastAdmittedSequence;
+
+    // token bucket, only touched by the admission tick
+    private double allowance;
+    private long lastRefillNanos = System.nanoTime();
+
+    public WaitingRoom(int showId) {
+        this.showId = showId;
+    }
+
+    public int getShowId() {
+        return showId;
+    }
+
+    /**
+     * Put a user at the end of the queue
+     * @param queueId Id of the new entry
+     * @param userId User ID
+     * @param capacity Maximum number of waiting users
+     * @return The entry, null if the queue is full
+     */
+    public QueueEntry join(String queueId, int userId, int capacity) {
+        int current;
+        do {
+            current = size.get();
+            if (current >= capacity) {
+                return null;
+            }
+        } while (!size.compareAndSet(current, current + 1));
+        // sequence and offer are not atomic together, an entry may be admitted a tick early or late, never lost
+        QueueEntry entry = new QueueEntry(queueId, showId, userId, lastSequence.incrementAndGet());
+        queue.offer(entry);
+        return entry;
+    }
+
+    /**
+     * Let out as many users as the rate allows since the last call
+     * @param ratePerSecond Admissions per second
+     * @param burst Most admissions saved up while nobody was waiting
+     * @return Entries to admit, in queue order
+     */
+    public List<QueueEntry> admit(double ratePerSecond, int burst) {
+        long now = System.nanoTime();
+        allowance = Math.min(burst, allowance + ratePerSecond * (now - lastRefillNanos) / 1e9);
+        lastRefillNanos = now;
+
+        List<QueueEntry> admitted = new ArrayList<>();
+        while (allowance >= 1) {
+            QueueEntry entry = queue.poll();
+            if (entry == null) {
+                break;
+            }
+            size.decrementAndGet();
+            allowance--;
+            lastAdmittedSequence = entry.getSequence();
+            admitted.add(entry);
+        }
+        return admitted;
+    }
+
+    /**
+     * @return Number of users ahead of the entry, 0 once it is admitted
+     */
+    public long positionOf(QueueEntry entry) {
+        return Math.max(0, entry.getSequence() - lastAdmittedSequence);
+    }
+
+    public int size() {
+        return size.get();
+    }
+}
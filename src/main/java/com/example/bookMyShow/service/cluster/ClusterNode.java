@@ -0,0 +1,278 @@
+package com.example.bookMyShow.service.cluster;
+
+import com.example.bookMyShow.dto.AdmissionRequest;
+import com.example.bookMyShow.dto.BestAvailableRequest;
+import com.example.bookMyShow.dto.BookingResponse;
+import com.example.bookMyShow.dto.HoldRequest;
+import com.example.bookMyShow.dto.SeatChange;
+import com.example.bookMyShow.dto.WaitingRoomStatus;
+import com.example.bookMyShow.exception.SelectedSeatsNotAvailableException;
+import com.example.bookMyShow.util.ConsistentHashRing;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * One member of a cluster of booking nodes. Shows are spread over the members by consistent hashing
+ * on the show ID, holds of a show are run by its owner and forwarded there by every other member.
+ * The waiting room of a show lives on its owner too, and seats another member moved (a release,
+ * a confirmation, a cart) are sent to the owner so its in-memory copy of the show stays current.
+ * Each member keeps its own copy of the membership; joins and leaves are announced to the others
+ * and only the shows on the ring points that changed hands move.
+ */
+public class ClusterNode {
+
+    /**
+     * Runs the requests of the shows this node owns
+     */
+    public interface LocalHandler {
+        BookingResponse hold(HoldRequest request, String idempotencyKey) throws SelectedSeatsNotAvailableException;
+
+        BookingResponse holdBestAvailable(BestAvailableRequest request, String idempotencyKey)
+                throws SelectedSeatsNotAvailableException;
+
+        void seatsChanged(SeatChange change);
+
+        WaitingRoomStatus admission(AdmissionRequest request);
+    }
+
+    private final String nodeId;
+    private final int virtualNodes;
+    private final NodeTransport transport;
+    private final LocalHandler localHandler;
+    private final ToIntFunction<List<Integer>> showIdOfShowSeats;
+    private final Map<String, String> members = new TreeMap<>();
+    // replaced as a whole on every membership change, so routing reads it without locking
+    private volatile ConsistentHashRing ring;
+    private BiConsumer<ConsistentHashRing, ConsistentHashRing> rebalanceListener = (before, after) -> { };
+
+    private final LongAdder localHolds = new LongAdder();
+    private final LongAdder forwardedHolds = new LongAdder();
+
+    /**
+     * @param nodeId Name of this node, unique in the cluster
+     * @param url Base URL other nodes reach this one at
+     * @param virtualNodes Ring points per node
+     * @param transport Connection to the other nodes
+     * @param localHandler Runs the requests of the shows this node owns
+     * @param showIdOfShowSeats Finds the show of a hold that names show seats instead of a show
+     */
+    public ClusterNode(String nodeId, String url, int virtualNodes, NodeTransport transport,
+                       LocalHandler localHandler, ToIntFunction<List<Integer>> showIdOfShowSeats) {
+        this.nodeId = nodeId;
+        this.virtualNodes = virtualNodes;
+        this.transport = transport;
+        this.localHandler = localHandler;
+        this.showIdOfShowSeats = showIdOfShowSeats;
+        members.put(nodeId, url);
+        this.ring = buildRing();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public synchronized Map<String, String> getMembers() {
+        return new TreeMap<>(members);
+    }
+
+    public synchronized String urlOf(String memberId) {
+        return members.get(memberId);
+    }
+
+    /**
+     * Called with the ring before and after every membership change, e.g. to drop cached shows that moved
+     * @param rebalanceListener Listener
+     */
+    public void setRebalanceListener(BiConsumer<ConsistentHashRing, ConsistentHashRing> rebalanceListener) {
+        this.rebalanceListener = rebalanceListener;
+    }
+
+    public String ownerOf(int showId) {
+        return ring.nodeFor(showId);
+    }
+
+    public boolean owns(int showId) {
+        return nodeId.equals(ownerOf(showId));
+    }
+
+    public long getLocalHolds() {
+        return localHolds.sum();
+    }
+
+    public long getForwardedHolds() {
+        return forwardedHolds.sum();
+    }
+
+    /**
+     * Hold seats on the owner of their show
+     * @param request Hold request, either show seat IDs or a show with seat IDs
+     * @param idempotencyKey Key chosen by the client, may be null
+     * @return Hold created by the owner
+     */
+    public BookingResponse hold(HoldRequest request, String idempotencyKey) throws SelectedSeatsNotAvailableException {
+        int showId = request.getSeatIds() != null ? request.getShowId() : showIdOfShowSeats.applyAsInt(request.getShowSeatIds());
+        String owner = ownerOf(showId);
+        if (owner == null || owner.equals(nodeId)) {
+            return holdLocally(request, idempotencyKey);
+        }
+        forwardedHolds.increment();
+        return transport.hold(owner, request, idempotencyKey);
+    }
+
+    /**
+     * Hold the best available seats on the owner of the show
+     * @param request Best available request
+     * @param idempotencyKey Key chosen by the client, may be null
+     * @return Hold created by the owner
+     */
+    public BookingResponse holdBestAvailable(BestAvailableRequest request, String idempotencyKey)
+            throws SelectedSeatsNotAvailableException {
+        String owner = ownerOf(request.getShowId());
+        if (owner == null || owner.equals(nodeId)) {
+            return holdBestAvailableLocally(request, idempotencyKey);
+        }
+        forwardedHolds.increment();
+        return transport.holdBestAvailable(owner, request, idempotencyKey);
+    }
+
+    /**
+     * Run a hold on this node, used for holds forwarded by other nodes
+     */
+    public BookingResponse holdLocally(HoldRequest request, String idempotencyKey)
+            throws SelectedSeatsNotAvailableException {
+        localHolds.increment();
+        return localHandler.hold(request, idempotencyKey);
+    }
+
+    /**
+     * Run a best available hold on this node, used for holds forwarded by other nodes
+     */
+    public BookingResponse holdBestAvailableLocally(BestAvailableRequest request, String idempotencyKey)
+            throws SelectedSeatsNotAvailableException {
+        localHolds.increment();
+        return localHandler.holdBestAvailable(request, idempotencyKey);
+    }
+
+    /**
+     * Tell the owner of a show about seats this node moved, nothing is sent if this node owns the show
+     * @param change Committed transition
+     */
+    public void seatsChanged(SeatChange change) {
+        String owner = ownerOf(change.getShowId());
+        if (owner != null && !owner.equals(nodeId)) {
+            transport.seatsChanged(owner, change);
+        }
+    }
+
+    /**
+     * Apply seats another node moved, used for changes sent by other nodes
+     */
+    public void seatsChangedLocally(SeatChange change) {
+        localHandler.seatsChanged(change);
+    }
+
+    /**
+     * Run a waiting room call on the owner of its show, admission tokens are only known there
+     * @param request Waiting room call
+     * @return Place in the queue for JOIN and STATUS, null otherwise
+     */
+    public WaitingRoomStatus admission(AdmissionRequest request) {
+        String owner = ownerOf(request.getShowId());
+        if (owner == null || owner.equals(nodeId)) {
+            return admissionLocally(request);
+        }
+        return transport.admission(owner, request);
+    }
+
+    /**
+     * Run a waiting room call on this node, used for calls forwarded by other nodes
+     */
+    public WaitingRoomStatus admissionLocally(AdmissionRequest request) {
+        return localHandler.admission(request);
+    }
+
+    /**
+     * Add a member to the ring. A new node joins by being announced to any one member,
+     * that member tells the rest and sends the new node the current membership.
+     * @param memberId Node that joined
+     * @param url Base URL of that node
+     * @param announce Whether to tell the other members, false when this call is itself an announcement
+     */
+    public void join(String memberId, String url, boolean announce) {
+        Map<String, String> others;
+        String ownUrl;
+        synchronized (this) {
+            if (url.equals(members.get(memberId))) {
+                return;
+            }
+            members.put(memberId, url);
+            others = otherMembers(memberId);
+            ownUrl = members.get(nodeId);
+            rebalance();
+        }
+        if (announce) {
+            for (Map.Entry<String, String> other : others.entrySet()) {
+                announce(() -> transport.announceJoin(other.getKey(), memberId, url), other.getKey());
+                // the new member learns about everyone already in the cluster
+                announce(() -> transport.announceJoin(memberId, other.getKey(), other.getValue()), memberId);
+            }
+            announce(() -> transport.announceJoin(memberId, nodeId, ownUrl), memberId);
+        }
+    }
+
+    /**
+     * Remove a member from the ring, its shows move to the next points on the ring
+     * @param memberId Node that left
+     * @param announce Whether to tell the other members, false when this call is itself an announcement
+     */
+    public void leave(String memberId, boolean announce) {
+        Map<String, String> others;
+        synchronized (this) {
+            if (members.remove(memberId) == null) {
+                return;
+            }
+            others = otherMembers(memberId);
+            rebalance();
+        }
+        if (announce) {
+            for (String other : others.keySet()) {
+                announce(() -> transport.announceLeave(other, memberId), other);
+            }
+        }
+    }
+
+    private Map<String, String> otherMembers(String memberId) {
+        Map<String, String> others = new TreeMap<>(members);
+        others.remove(nodeId);
+        others.remove(memberId);
+        return others;
+    }
+
+    private void rebalance() {
+        ConsistentHashRing before = ring;
+        ring = buildRing();
+        rebalanceListener.accept(before, ring);
+    }
+
+    private ConsistentHashRing buildRing() {
+        ConsistentHashRing next = new ConsistentHashRing(virtualNodes);
+        for (String member : members.keySet()) {
+            next.add(member);
+        }
+        return next;
+    }
+
+    // a member that cannot be reached learns the membership when it is announced again
+    private void announce(Runnable call, String target) {
+        try {
+            call.run();
+        } catch (RuntimeException e) {
+            System.err.println("Node " + nodeId + " could not reach " + target + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.bookMyShow.service.cluster;
+
+import com.example.bookMyShow.dto.AdmissionRequest;
+import com.example.bookMyShow.dto.BestAvailableRequest;
+import com.example.bookMyShow.dto.BookingResponse;
+import com.example.bookMyShow.dto.ClusterMember;
+import com.example.bookMyShow.dto.HoldRequest;
+import com.example.bookMyShow.dto.SeatChange;
+import com.example.bookMyShow.dto.WaitingRoomStatus;
+import com.example.bookMyShow.exception.AdmissionRequiredException;
+import com.example.bookMyShow.exception.SelectedSeatsNotAvailableException;
+import com.example.bookMyShow.exception.WaitingRoomFullException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestClient;
+
+import java.util.function.Function;
+
+/**
+ * Transport between nodes over their HTTP API, see ClusterController for the receiving side.
+ * A 409 from the owner means the seats are taken and is turned back into SelectedSeatsNotAvailableException,
+ * a 403 or 503 from its waiting room into AdmissionRequiredException or WaitingRoomFullException.
+ */
+public class HttpNodeTransport implements NodeTransport {
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    private final RestClient restClient;
+    private final Function<String, String> urlOfNode;
+
+    /**
+     * @param restClient Client with the timeouts to use between nodes
+     * @param urlOfNode Base URL of a node by its name
+     */
+    public HttpNodeTransport(RestClient restClient, Function<String, String> urlOfNode) {
+        this.restClient = restClient;
+        this.urlOfNode = urlOfNode;
+    }
+
+    @Override
+    public BookingResponse hold(String nodeId, HoldRequest request, String idempotencyKey)
+            throws SelectedSeatsNotAvailableException {
+        return post(nodeId, "/cluster/hold", request, idempotencyKey);
+    }
+
+    @Override
+    public BookingResponse holdBestAvailable(String nodeId, BestAvailableRequest request, String idempotencyKey)
+            throws SelectedSeatsNotAvailableException {
+        return post(nodeId, "/cluster/hold/best", request, idempotencyKey);
+    }
+
+    @Override
+    public void seatsChanged(String nodeId, SeatChange change) {
+        restClient.post().uri(url(nodeId) + "/cluster/seatsChanged").body(change).retrieve().toBodilessEntity();
+    }
+
+    @Override
+    public WaitingRoomStatus admission(String nodeId, AdmissionRequest request) {
+        try {
+            return restClient.post().uri(url(nodeId) + "/cluster/admission").body(request)
+                    .retrieve().body(WaitingRoomStatus.class);
+        } catch (HttpClientErrorException e) {
+            if (e.getStatusCode() == HttpStatus.FORBIDDEN) {
+                throw new AdmissionRequiredException("Show " + request.getShowId() + " is behind the waiting room, join it with POST /waitingRoom/"
+                        + request.getShowId() + " and hold seats with the admission token");
+            }
+            throw e;
+        } catch (HttpServerErrorException e) {
+            if (e.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE) {
+                throw new WaitingRoomFullException("The waiting room of show " + request.getShowId() + " is full, please try again later");
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void announceJoin(String nodeId, String memberId, String memberUrl) {
+        ClusterMember member = new ClusterMember();
+        member.setNodeId(memberId);
+        member.setUrl(memberUrl);
+        restClient.post().uri(url(nodeId) + "/cluster/members?announce=false").body(member).retrieve().toBodilessEntity();
+    }
+
+    @Override
+    public void announceLeave(String nodeId, String memberId) {
+        restClient.delete().uri(url(nodeId) + "/cluster/members/{memberId}?announce=false", memberId)
+                .retrieve().toBodilessEntity();
+    }
+
+    private BookingResponse post(String nodeId, String path, Object request, String idempotencyKey)
+            throws SelectedSeatsNotAvailableException {
+        try {
+            RestClient.RequestBodySpec spec = restClient.post().uri(url(nodeId) + path);
+            if (idempotencyKey != null) {
+                spec.header(IDEMPOTENCY_KEY, idempotencyKey);
+            }
+            return spec.body(request).retrieve().body(BookingResponse.class);
+        } catch (HttpClientErrorException e) {
+            if (e.getStatusCode() == HttpStatus.CONFLICT) {
+                throw new SelectedSeatsNotAvailableException("Selected seats are not available on node " + nodeId);
+            }
+            throw e;
+        }
+    }
+
+    private String url(String nodeId) {
+        String url = urlOfNode.apply(nodeId);
+        if (url == null) {
+            throw new IllegalStateException("Node " + nodeId + " is not a member");
+        }
+        return url;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.bookMyShow.service.cluster;
+
+import com.example.bookMyShow.dto.AdmissionRequest;
+import com.example.bookMyShow.dto.BestAvailableRequest;
+import com.example.bookMyShow.dto.BookingResponse;
+import com.example.bookMyShow.dto.HoldRequest;
+import com.example.bookMyShow.dto.SeatChange;
+import com.example.bookMyShow.dto.WaitingRoomStatus;
+import com.example.bookMyShow.exception.SelectedSeatsNotAvailableException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Transport between nodes living in the same JVM, calls go straight to the receiving node.
+ * Stands in for the network when several nodes run in one process, e.g. in tests.
+ */
+public class LocalNodeTransport implements NodeTransport {
+    private final Map<String, ClusterNode> nodes = new ConcurrentHashMap<>();
+
+    public void register(ClusterNode node) {
+        nodes.put(node.getNodeId(), node);
+    }
+
+    public void unregister(String nodeId) {
+        nodes.remove(nodeId);
+    }
+
+    @Override
+    public BookingResponse hold(String nodeId, HoldRequest request, String idempotencyKey)
+            throws SelectedSeatsNotAvailableException {
+        return node(nodeId).holdLocally(request, idempotencyKey);
+    }
+
+    @Override
+    public BookingResponse holdBestAvailable(String nodeId, BestAvailableRequest request, String idempotencyKey)
+            throws SelectedSeatsNotAvailableException {
+        return node(nodeId).holdBestAvailableLocally(request, idempotencyKey);
+    }
+
+    @Override
+    public void seatsChanged(String nodeId, SeatChange change) {
+        node(nodeId).seatsChangedLocally(change);
+    }
+
+    @Override
+    public WaitingRoomStatus admission(String nodeId, AdmissionRequest request) {
+        return node(nodeId).admissionLocally(request);
+    }
+
+    @Override
+    public void announceJoin(String nodeId, String memberId, String memberUrl) {
+        node(nodeId).join(memberId, memberUrl, false);
+    }
+
+    @Override
+    public void announceLeave(String nodeId, String memberId) {
+        node(nodeId).leave(memberId, false);
+    }
+
+    private ClusterNode node(String nodeId) {
+        ClusterNode node = nodes.get(nodeId);
+        if (node == null) {
+            throw new IllegalStateException("Node " + nodeId + " is not reachable");
+        }
+        return node;
+    }
+}
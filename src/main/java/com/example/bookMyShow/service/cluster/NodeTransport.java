@@ -0,0 +1,67 @@
+package com.example.bookMyShow.service.cluster;
+
+import com.example.bookMyShow.dto.AdmissionRequest;
+import com.example.bookMyShow.dto.BestAvailableRequest;
+import com.example.bookMyShow.dto.BookingResponse;
+import com.example.bookMyShow.dto.HoldRequest;
+import com.example.bookMyShow.dto.SeatChange;
+import com.example.bookMyShow.dto.WaitingRoomStatus;
+import com.example.bookMyShow.exception.SelectedSeatsNotAvailableException;
+
+/**
+ * How a node reaches the other members of the cluster.
+ * Holds, seat changes and waiting room calls sent here are run by the receiving node itself and are never forwarded again,
+ * even if its view of the ring disagrees, so a request takes at most one hop.
+ */
+public interface NodeTransport {
+
+    /**
+     * Hold seats on another node
+     * @param nodeId Receiving node
+     * @param request Hold request
+     * @param idempotencyKey Key chosen by the client, may be null
+     * @return Hold created by the receiving node
+     */
+    BookingResponse hold(String nodeId, HoldRequest request, String idempotencyKey)
+            throws SelectedSeatsNotAvailableException;
+
+    /**
+     * Hold the best available seats on another node
+     * @param nodeId Receiving node
+     * @param request Best available request
+     * @param idempotencyKey Key chosen by the client, may be null
+     * @return Hold created by the receiving node
+     */
+    BookingResponse holdBestAvailable(String nodeId, BestAvailableRequest request, String idempotencyKey)
+            throws SelectedSeatsNotAvailableException;
+
+    /**
+     * Tell the owner of a show about seats another node moved, so its in-memory copy of the show follows
+     * @param nodeId Receiving node
+     * @param change Committed transition
+     */
+    void seatsChanged(String nodeId, SeatChange change);
+
+    /**
+     * Run a waiting room call on another node
+     * @param nodeId Receiving node
+     * @param request Waiting room call
+     * @return Place in the queue for JOIN and STATUS, null otherwise
+     */
+    WaitingRoomStatus admission(String nodeId, AdmissionRequest request);
+
+    /**
+     * Tell another node that a member joined
+     * @param nodeId Receiving node
+     * @param memberId Node that joined
+     * @param memberUrl Base URL of the node that joined
+     */
+    void announceJoin(String nodeId, String memberId, String memberUrl);
+
+    /**
+     * Tell another node that a member left
+     * @param nodeId Receiving node
+     * @param memberId Node that left
+     */
+    void announceLeave(String nodeId, String memberId);
+}
@@ -0,0 +1,224 @@
+package com.example.bookMyShow.service.inventory;
+
+import com.example.bookMyShow.model.constant.ShowSeatStatus;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Packed seat statuses of one show.
+ * Every seat takes 2 bits holding the ordinal of its ShowSeatStatus, so one long covers 32 seats
+ * and a 500 seat hall fits in 16 longs. All updates are lock free compare-and-set on whole words.
+ */
+public class SeatBitmap {
+    private static final int BITS_PER_SEAT = 2;
+    public static final int SEATS_PER_WORD = Long.SIZE / BITS_PER_SEAT;
+    private static final long SEAT_MASK = (1L << BITS_PER_SEAT) - 1;
+    private static final ShowSeatStatus[] STATUSES = ShowSeatStatus.values();
+
+    private final int size;
+    private final AtomicLongArray words;
+
+    public SeatBitmap(int size) {
+        this.size = size;
+        this.words = new AtomicLongArray((size + SEATS_PER_WORD - 1) / SEATS_PER_WORD);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public ShowSeatStatus get(int position) {
+        checkPosition(position);
+        long word = words.get(position / SEATS_PER_WORD);
+        return STATUSES[(int) ((word >>> shift(position)) & SEAT_MASK)];
+    }
+
+    /**
+     * Overwrite the status of a single seat regardless of its current value
+     * @param position Seat position
+     * @param status New status
+     */
+    public void set(int position, ShowSeatStatus status) {
+        checkPosition(position);
+        int index = position / SEATS_PER_WORD;
+        long mask = SEAT_MASK << shift(position);
+        long bits = (long) status.ordinal() << shift(position);
+        long current;
+        do {
+            current = words.get(index);
+        } while (!words.compareAndSet(index, current, (current & ~mask) | bits));
+    }
+
+    /**
+     * Move every given seat from one status to another, all or nothing.
+     * Seats sharing a word are switched by one CAS; if any seat is not in the expected status
+     * the words already switched are put back and nothing changes.
+     * @param positions Seat positions
+     * @param from Expected current status
+     * @param to New status
+     * @return true if all seats were moved
+     */
+    public boolean transition(int[] positions, ShowSeatStatus from, ShowSeatStatus to) {
+        int[] sorted = positions.clone();
+        Arrays.sort(sorted);
+        for (int position : sorted) {
+            checkPosition(position);
+        }
+
+        int[] appliedWords = new int[sorted.length];
+        long[] appliedMasks = new long[sorted.length];
+        int applied = 0;
+
+        int i = 0;
+        while (i < sorted.length) {
+            int index = sorted[i] / SEATS_PER_WORD;
+            long mask = 0;
+            long fromBits = 0;
+            long toBits = 0;
+            while (i < sorted.length && sorted[i] / SEATS_PER_WORD == index) {
+                int shift = shift(sorted[i]);
+                mask |= SEAT_MASK << shift;
+                fromBits |= (long) from.ordinal() << shift;
+                toBits |= (long) to.ordinal() << shift;
+                i++;
+            }
+
+            boolean switched = false;
+            while (true) {
+                long current = words.get(index);
+                if ((current & mask) != fromBits) {
+                    break;
+                }
+                if (words.compareAndSet(index, current, (current & ~mask) | toBits)) {
+                    switched = true;
+                    break;
+                }
+            }
+            if (!switched) {
+                // undo the words we already switched, these seats are ours so nobody else moved them
+                for (int j = 0; j < applied; j++) {
+                    replace(appliedWords[j], appliedMasks[j], from);
+                }
+                return false;
+            }
+            appliedWords[applied] = index;
+            appliedMasks[applied] = mask;
+            applied++;
+        }
+        return true;
+    }
+
+    /**
+     * Move each seat that is currently in the expected status, skipping the others
+     * @param positions Seat positions
+     * @param from Expected current status
+     * @param to New status
+     * @return Number of seats moved
+     */
+    public int transitionEach(int[] positions, ShowSeatStatus from, ShowSeatStatus to) {
+        int moved = 0;
+        for (int position : positions) {
+            checkPosition(position);
+            int index = position / SEATS_PER_WORD;
+            long mask = SEAT_MASK << shift(position);
+            long fromBits = (long) from.ordinal() << shift(position);
+            long toBits = (long) to.ordinal() << shift(position);
+            while (true) {
+                long current = words.get(index);
+                if ((current & mask) != fromBits) {
+                    break;
+                }
+                if (words.compareAndSet(index, current, (current & ~mask) | toBits)) {
+                    moved++;
+                    break;
+                }
+            }
+        }
+        return moved;
+    }
+
+    public int count(ShowSeatStatus status) {
+        int count = 0;
+        for (int position = 0; position < size; position++) {
+            if (get(position) == status) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Copy of the packed words, seat p lives in word p / 32 at bit offset (p % 32) * 2
+     * @return Packed words
+     */
+    public long[] snapshot() {
+        long[] copy = new long[words.length()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = words.get(i);
+        }
+        return copy;
+    }
+
+    /**
+     * Read one status out of words taken by snapshot
+     * @param words Packed words
+     * @param position Seat position
+     * @return Status of the seat
+     */
+    public static ShowSeatStatus statusAt(long[] words, int position) {
+        return STATUSES[(int) ((words[position / SEATS_PER_WORD] >>> shift(position)) & SEAT_MASK)];
+    }
+
+    /**
+     * Pack the statuses into bytes, 4 seats per byte, seat p at bit offset (p % 4) * 2 of byte p / 4
+     * @return Packed statuses, (size + 3) / 4 bytes
+     */
+    public byte[] toBytes() {
+        byte[] bytes = new byte[(size + 3) / 4];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (words.get(i / Long.BYTES) >>> ((i % Long.BYTES) * Byte.SIZE));
+        }
+        return bytes;
+    }
+
+    /**
+     * Unpack statuses written by toBytes
+     * @param bytes Packed statuses
+     * @param size Number of seats
+     * @return New bitmap
+     */
+    public static SeatBitmap fromBytes(byte[] bytes, int size) {
+        SeatBitmap bitmap = new SeatBitmap(size);
+        int length = Math.min(bytes.length, (size + 3) / 4);
+        for (int i = 0; i < length; i++) {
+            int index = i / Long.BYTES;
+            long bits = (bytes[i] & 0xFFL) << ((i % Long.BYTES) * Byte.SIZE);
+            bitmap.words.set(index, bitmap.words.get(index) | bits);
+        }
+        return bitmap;
+    }
+
+    private void replace(int index, long mask, ShowSeatStatus back) {
+        long backBits = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += BITS_PER_SEAT) {
+            if (((mask >>> shift) & SEAT_MASK) != 0) {
+                backBits |= (long) back.ordinal() << shift;
+            }
+        }
+        long current;
+        do {
+            current = words.get(index);
+        } while (!words.compareAndSet(index, current, (current & ~mask) | backBits));
+    }
+
+    private static int shift(int position) {
+        return (position % SEATS_PER_WORD) * BITS_PER_SEAT;
+    }
+
+    private void checkPosition(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Seat position " + position + " outside 0.." + (size - 1));
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.bookMyShow.service.inventory;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Seats of one show that are LOCKED until a deadline
+ */
+public class SeatHold {
+    private final int showId;
+    private final List<Integer> showSeatIds;
+    private final LocalDateTime lockedUntil;
+
+    public SeatHold(int showId, List<Integer> showSeatIds, LocalDateTime lockedUntil) {
+        this.showId = showId;
+        this.showSeatIds = showSeatIds;
+        this.lockedUntil = lockedUntil;
+    }
+
+    public int getShowId() {
+        return showId;
+    }
+
+    public List<Integer> getShowSeatIds() {
+        return showSeatIds;
+    }
+
+    public LocalDateTime getLockedUntil() {
+        return lockedUntil;
+    }
+}
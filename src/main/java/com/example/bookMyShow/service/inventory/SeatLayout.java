@@ -0,0 +1,179 @@
+package com.example.bookMyShow.service.inventory;
+
+import com.example.bookMyShow.model.Seat;
+import com.example.bookMyShow.model.constant.SeatType;
+import com.example.bookMyShow.model.constant.ShowSeatStatus;
+import com.example.bookMyShow.util.FreeRunTree;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Physical layout of the seats of one show, used to find blocks of adjacent free seats.
+ * Each row is cut into segments of seats with consecutive columns and the same SeatType, an aisle or a
+ * change of type ends a segment. Every segment keeps a FreeRunTree of its AVAILABLE seats, kept in
+ * step with the SeatBitmap of the inventory by diffing its packed words on each search.
+ */
+public class SeatLayout {
+
+    private static class Segment {
+        final int row;
+        final int rowRank; // distance from the preferred row, lower is better
+        final double rowCenter;
+        final SeatType seatType;
+        final int[] positions;
+        final int[] cols;
+        final FreeRunTree tree;
+
+        Segment(int row, int rowRank, double rowCenter, SeatType seatType, List<Seat> seats, List<Integer> positions) {
+            this.row = row;
+            this.rowRank = rowRank;
+            this.rowCenter = rowCenter;
+            this.seatType = seatType;
+            this.positions = positions.stream().mapToInt(Integer::intValue).toArray();
+            this.cols = seats.stream().mapToInt(Seat::getCol).toArray();
+            this.tree = new FreeRunTree(this.positions.length);
+        }
+    }
+
+    private final ShowInventory inventory;
+    private final List<Segment> segments = new ArrayList<>();
+    private final Segment[] segmentOf;
+    private final int[] indexOf;
+    private long[] words; // packed statuses the trees were last brought up to date with
+
+    /**
+     * @param inventory Inventory of the show, its positions are the ones allocated
+     * @param seats Seats of the auditorium by seat ID, seats missing here are never allocated
+     */
+    public SeatLayout(ShowInventory inventory, Map<Integer, Seat> seats) {
+        this.inventory = inventory;
+        int size = inventory.getSeats().size();
+        this.segmentOf = new Segment[size];
+        this.indexOf = new int[size];
+        // a fresh bitmap is all AVAILABLE, which is how the trees start
+        this.words = new long[(size + SeatBitmap.SEATS_PER_WORD - 1) / SeatBitmap.SEATS_PER_WORD];
+
+        TreeMap<Integer, List<Integer>> positionsByRow = new TreeMap<>();
+        for (int position = 0; position < size; position++) {
+            Seat seat = seats.get(inventory.getSeatId(position));
+            if (seat != null) {
+                positionsByRow.computeIfAbsent(seat.getRow(), row -> new ArrayList<>()).add(position);
+            }
+        }
+
+        // the preferred row sits two thirds of the way back, rows are ranked by their distance from it
+        List<Integer> rows = new ArrayList<>(positionsByRow.keySet());
+        int preferred = rows.size() * 2 / 3;
+        for (int r = 0; r < rows.size(); r++) {
+            List<Integer> positions = positionsByRow.get(rows.get(r));
+            positions.sort(Comparator.comparingInt(p -> seats.get(inventory.getSeatId(p)).getCol()));
+            int firstCol = seats.get(inventory.getSeatId(positions.get(0))).getCol();
+            int lastCol = seats.get(inventory.getSeatId(positions.get(positions.size() - 1))).getCol();
+            double rowCenter = (firstCol + lastCol) / 2.0;
+
+            int start = 0;
+            for (int i = 1; i <= positions.size(); i++) {
+                Seat previous = seats.get(inventory.getSeatId(positions.get(i - 1)));
+                Seat current = i < positions.size() ? seats.get(inventory.getSeatId(positions.get(i))) : null;
+                if (current == null || current.getCol() != previous.getCol() + 1
+                        || current.getSeatType() != previous.getSeatType()) {
+                    List<Integer> segmentPositions = positions.subList(start, i);
+                    List<Seat> segmentSeats = new ArrayList<>(segmentPositions.size());
+                    for (int position : segmentPositions) {
+                        segmentSeats.add(seats.get(inventory.getSeatId(position)));
+                    }
+                    Segment segment = new Segment(rows.get(r), Math.abs(r - preferred), rowCenter,
+                            previous.getSeatType(), segmentSeats, segmentPositions);
+                    for (int j = 0; j < segment.positions.length; j++) {
+                        segmentOf[segment.positions[j]] = segment;
+                        indexOf[segment.positions[j]] = j;
+                    }
+                    segments.add(segment);
+                    start = i;
+                }
+            }
+        }
+        segments.sort(Comparator.comparingInt((Segment s) -> s.rowRank).thenComparingInt(s -> s.row));
+    }
+
+    public ShowInventory getInventory() {
+        return inventory;
+    }
+
+    /**
+     * Find the best block of adjacent AVAILABLE seats.
+     * Rows closer to the preferred row win, within a row the block closest to the middle wins.
+     * A block is never chosen if it would leave a single free seat between it and the next taken
+     * seat, aisle or wall, such a seat is hard to sell later.
+     * @param quantity Number of seats
+     * @param seatType Type of seat, null for any
+     * @param avoidSingleGaps false to allow blocks that leave a single seat, e.g. when a sold out show is refilled
+     * @return Positions of the block in column order, null if there is none
+     */
+    public synchronized int[] findBest(int quantity, SeatType seatType, boolean avoidSingleGaps) {
+        refresh();
+        Segment bestSegment = null;
+        int bestStart = -1;
+        double bestDistance = Double.MAX_VALUE;
+        for (Segment segment : segments) {
+            if (bestSegment != null && segment.rowRank > bestSegment.rowRank) {
+                break; // segments are ordered by row rank, a worse row cannot win
+            }
+            if ((seatType != null && segment.seatType != seatType) || segment.tree.maxRun() < quantity) {
+                continue;
+            }
+            int from = 0;
+            int runStart;
+            while ((runStart = segment.tree.findFirst(quantity, from)) >= 0) {
+                int runEnd = runStart + quantity - 1;
+                while (runEnd + 1 < segment.positions.length && segment.tree.isFree(runEnd + 1)) {
+                    runEnd++;
+                }
+                for (int start = runStart; start + quantity - 1 <= runEnd; start++) {
+                    int leftGap = start - runStart;
+                    int rightGap = runEnd - (start + quantity - 1);
+                    if (avoidSingleGaps && (leftGap == 1 || rightGap == 1)) {
+                        continue;
+                    }
+                    double center = (segment.cols[start] + segment.cols[start + quantity - 1]) / 2.0;
+                    double distance = Math.abs(center - segment.rowCenter);
+                    if (distance < bestDistance) {
+                        bestSegment = segment;
+                        bestStart = start;
+                        bestDistance = distance;
+                    }
+                }
+                from = runEnd + 1;
+            }
+        }
+        if (bestSegment == null) {
+            return null;
+        }
+        int[] block = new int[quantity];
+        System.arraycopy(bestSegment.positions, bestStart, block, 0, quantity);
+        return block;
+    }
+
+    // only seats whose 2 bits changed since the last search touch the trees
+    private void refresh() {
+        long[] current = inventory.getSeats().snapshot();
+        for (int w = 0; w < current.length; w++) {
+            if (current[w] == words[w]) {
+                continue;
+            }
+            int first = w * SeatBitmap.SEATS_PER_WORD;
+            int last = Math.min(first + SeatBitmap.SEATS_PER_WORD, segmentOf.length);
+            for (int position = first; position < last; position++) {
+                ShowSeatStatus status = SeatBitmap.statusAt(current, position);
+                if (segmentOf[position] != null && status != SeatBitmap.statusAt(words, position)) {
+                    segmentOf[position].tree.set(indexOf[position], status == ShowSeatStatus.AVAILABLE);
+                }
+            }
+        }
+        words = current;
+    }
+}
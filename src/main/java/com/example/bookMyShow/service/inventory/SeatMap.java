@@ -0,0 +1,217 @@
+package com.example.bookMyShow.service.inventory;
+
+import com.example.bookMyShow.dto.SeatMapResponse;
+import com.example.bookMyShow.model.Seat;
+import com.example.bookMyShow.model.constant.ShowSeatStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Versioned seat map of one show for rendering clients. Seats are kept in row-major order of their
+ * row and column; every applied transition bumps the version and is remembered in a bounded ring of
+ * seat changes, so a client that sends its last version gets only the seats that changed since.
+ * All byte fields of a response are base64:
+ * grid - one bit per cell of the rows x cols rectangle, row-major, set where a seat is
+ * seatIds - runs of seat ids in seat order, each run is varint(zigzag(delta to previous id)), varint(length)
+ * statuses - BITMAP: 2 bits per seat (status ordinal), 4 seats per byte, seat i at bit (i % 4) * 2;
+ *            RLE: varint(runLength << 2 | status) per run; whichever is shorter
+ * changes - varint(seat index << 2 | status) per changed seat, latest status only
+ */
+public class SeatMap {
+    private static final Base64.Encoder BASE64 = Base64.getEncoder();
+
+    private final int showId;
+    private final int rows;
+    private final int cols;
+    private final String grid;
+    private final String seatIds;
+    private final int[] indexByPosition; // inventory position -> seat index
+    private final byte[] statuses; // by seat index
+
+    private long version;
+    private long floorVersion; // deltas can only start at or after this version
+    private final long[] changeVersions;
+    private final int[] changes; // seat index << 2 | status
+    private int changeCount;
+    private int nextChange;
+
+    /**
+     * @param showId Show ID
+     * @param seatsByPosition Seats of the auditorium by inventory position
+     * @param statusesByPosition Current status by inventory position
+     * @param firstVersion Version of the initial state, later versions count up from it
+     * @param deltaCapacity Number of seat changes remembered for deltas
+     */
+    public SeatMap(int showId, List<Seat> seatsByPosition, ShowSeatStatus[] statusesByPosition,
+                   long firstVersion, int deltaCapacity) {
+        this.showId = showId;
+        int size = seatsByPosition.size();
+        List<Integer> order = new ArrayList<>(size);
+        int minRow = Integer.MAX_VALUE, maxRow = Integer.MIN_VALUE, minCol = Integer.MAX_VALUE, maxCol = Integer.MIN_VALUE;
+        for (int position = 0; position < size; position++) {
+            Seat seat = seatsByPosition.get(position);
+            order.add(position);
+            minRow = Math.min(minRow, seat.getRow());
+            maxRow = Math.max(maxRow, seat.getRow());
+            minCol = Math.min(minCol, seat.getCol());
+            maxCol = Math.max(maxCol, seat.getCol());
+        }
+        order.sort(Comparator.<Integer>comparingInt(p -> seatsByPosition.get(p).getRow())
+                .thenComparingInt(p -> seatsByPosition.get(p).getCol())
+                .thenComparingInt(p -> seatsByPosition.get(p).getId()));
+        this.rows = size == 0 ? 0 : maxRow - minRow + 1;
+        this.cols = size == 0 ? 0 : maxCol - minCol + 1;
+
+        byte[] gridBits = new byte[(rows * cols + 7) / 8];
+        this.indexByPosition = new int[size];
+        this.statuses = new byte[size];
+        ByteArrayOutputStream idRuns = new ByteArrayOutputStream();
+        int previousId = 0;
+        int runDelta = 0;
+        int runLength = 0;
+        for (int index = 0; index < size; index++) {
+            int position = order.get(index);
+            Seat seat = seatsByPosition.get(position);
+            int cell = (seat.getRow() - minRow) * cols + (seat.getCol() - minCol);
+            gridBits[cell / 8] |= (byte) (1 << (cell % 8));
+            indexByPosition[position] = index;
+            statuses[index] = (byte) statusesByPosition[position].ordinal();
+
+            int delta = seat.getId() - previousId;
+            previousId = seat.getId();
+            if (runLength > 0 && delta == runDelta) {
+                runLength++;
+            } else {
+                if (runLength > 0) {
+                    writeVarint(idRuns, zigzag(runDelta));
+                    writeVarint(idRuns, runLength);
+                }
+                runDelta = delta;
+                runLength = 1;
+            }
+        }
+        if (runLength > 0) {
+            writeVarint(idRuns, zigzag(runDelta));
+            writeVarint(idRuns, runLength);
+        }
+        this.grid = BASE64.encodeToString(gridBits);
+        this.seatIds = BASE64.encodeToString(idRuns.toByteArray());
+
+        this.version = firstVersion;
+        this.floorVersion = firstVersion;
+        this.changeVersions = new long[Math.max(1, deltaCapacity)];
+        this.changes = new int[changeVersions.length];
+    }
+
+    public int size() {
+        return statuses.length;
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Record that seats moved to a status, as one new version
+     * @param positions Inventory positions of the seats
+     * @param status New status
+     * @return Delta from the previous version to the new one
+     */
+    public synchronized SeatMapResponse apply(int[] positions, ShowSeatStatus status) {
+        version++;
+        ByteArrayOutputStream delta = new ByteArrayOutputStream();
+        for (int position : positions) {
+            int index = indexByPosition[position];
+            statuses[index] = (byte) status.ordinal();
+            if (changeCount == changes.length) {
+                // the oldest change is dropped, a delta from before its version would miss it
+                floorVersion = Math.max(floorVersion, changeVersions[nextChange]);
+            } else {
+                changeCount++;
+            }
+            changeVersions[nextChange] = version;
+            changes[nextChange] = index << 2 | status.ordinal();
+            nextChange = (nextChange + 1) % changes.length;
+            writeVarint(delta, index << 2 | status.ordinal());
+        }
+        SeatMapResponse response = new SeatMapResponse();
+        response.setShowId(showId);
+        response.setVersion(version);
+        response.setSince(version - 1);
+        response.setChanges(BASE64.encodeToString(delta.toByteArray()));
+        return response;
+    }
+
+    /**
+     * Seat map for a client
+     * @param since Last version the client has, null for a full map
+     * @return Only the seats changed since that version if they are still known, otherwise the full map
+     */
+    public synchronized SeatMapResponse toResponse(Long since) {
+        SeatMapResponse response = new SeatMapResponse();
+        response.setShowId(showId);
+        response.setVersion(version);
+        if (since != null && since >= floorVersion && since <= version) {
+            Map<Integer, Integer> latest = new LinkedHashMap<>();
+            for (int i = 0; i < changeCount; i++) {
+                int slot = (nextChange - changeCount + i + changes.length) % changes.length;
+                if (changeVersions[slot] > since) {
+                    int index = changes[slot] >>> 2;
+                    latest.remove(index); // keep the order of the latest change
+                    latest.put(index, changes[slot]);
+                }
+            }
+            ByteArrayOutputStream delta = new ByteArrayOutputStream();
+            for (int change : latest.values()) {
+                writeVarint(delta, change);
+            }
+            response.setSince(since);
+            response.setChanges(BASE64.encodeToString(delta.toByteArray()));
+            return response;
+        }
+
+        response.setRows(rows);
+        response.setCols(cols);
+        response.setGrid(grid);
+        response.setSeatIds(seatIds);
+        byte[] bitmap = new byte[(statuses.length + 3) / 4];
+        for (int index = 0; index < statuses.length; index++) {
+            bitmap[index / 4] |= (byte) (statuses[index] << ((index % 4) * 2));
+        }
+        ByteArrayOutputStream rle = new ByteArrayOutputStream();
+        for (int index = 0; index < statuses.length; ) {
+            int run = 1;
+            while (index + run < statuses.length && statuses[index + run] == statuses[index]) {
+                run++;
+            }
+            writeVarint(rle, run << 2 | statuses[index]);
+            index += run;
+        }
+        if (rle.size() < bitmap.length) {
+            response.setEncoding("RLE");
+            response.setStatuses(BASE64.encodeToString(rle.toByteArray()));
+        } else {
+            response.setEncoding("BITMAP");
+            response.setStatuses(BASE64.encodeToString(bitmap));
+        }
+        return response;
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+}
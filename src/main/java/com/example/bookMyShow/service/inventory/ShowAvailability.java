@@ -0,0 +1,137 @@
+package com.example.bookMyShow.service.inventory;
+
+import com.example.bookMyShow.dto.ShowAvailabilityResponse;
+import com.example.bookMyShow.model.constant.SeatType;
+import com.example.bookMyShow.model.constant.ShowSeatStatus;
+import com.example.bookMyShow.model.constant.ShowStatus;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Seat counters of one show by seat type and status, kept up to date with every transition instead of
+ * counting the show seats on every read. The status of each seat is remembered too, so a transition
+ * whose previous status is not known (SET) or that is applied twice still moves every seat exactly once,
+ * and the counters always add up to the seats of the show.
+ * All counters of a transition change under one lock, a reader never sees a seat in two statuses.
+ * The status of the show is kept next to the counters, so a listing needs no database read either.
+ */
+public class ShowAvailability {
+    private static final SeatType[] SEAT_TYPES = SeatType.values();
+    private static final ShowSeatStatus[] STATUSES = ShowSeatStatus.values();
+
+    private final int showId;
+    private final byte[] typeByPosition; // seat type ordinal, -1 for a seat without a type
+    private final byte[] statusByPosition;
+    private final int[][] counts; // [seat type ordinal, or the last slot for none][status ordinal]
+    private final int[] totals; // by status ordinal
+    private volatile ShowStatus showStatus;
+
+    /**
+     * @param showId Show ID
+     * @param typesByPosition Seat type by inventory position, may contain nulls
+     * @param statusesByPosition Current status by inventory position
+     * @param showStatus Current status of the show
+     */
+    public ShowAvailability(int showId, SeatType[] typesByPosition, ShowSeatStatus[] statusesByPosition,
+                            ShowStatus showStatus) {
+        this.showId = showId;
+        this.showStatus = showStatus;
+        int size = typesByPosition.length;
+        this.typeByPosition = new byte[size];
+        this.statusByPosition = new byte[size];
+        this.counts = new int[SEAT_TYPES.length + 1][STATUSES.length];
+        this.totals = new int[STATUSES.length];
+        for (int position = 0; position < size; position++) {
+            typeByPosition[position] = (byte) (typesByPosition[position] == null ? -1 : typesByPosition[position].ordinal());
+            statusByPosition[position] = (byte) statusesByPosition[position].ordinal();
+            counts[slotOf(position)][statusByPosition[position]]++;
+            totals[statusByPosition[position]]++;
+        }
+    }
+
+    public int getShowId() {
+        return showId;
+    }
+
+    public int size() {
+        return statusByPosition.length;
+    }
+
+    public ShowStatus getShowStatus() {
+        return showStatus;
+    }
+
+    public void setShowStatus(ShowStatus showStatus) {
+        this.showStatus = showStatus;
+    }
+
+    /**
+     * Move seats to a status
+     * @param positions Inventory positions of the seats
+     * @param status New status
+     * @return Whether the show went from having available seats to none, or back
+     */
+    public synchronized boolean apply(int[] positions, ShowSeatStatus status) {
+        boolean wasSoldOut = isSoldOut();
+        int to = status.ordinal();
+        for (int position : positions) {
+            int from = statusByPosition[position];
+            if (from == to) {
+                continue;
+            }
+            int slot = slotOf(position);
+            counts[slot][from]--;
+            counts[slot][to]++;
+            totals[from]--;
+            totals[to]++;
+            statusByPosition[position] = (byte) to;
+        }
+        return wasSoldOut != isSoldOut();
+    }
+
+    // only a show with seats can be sold out
+    public synchronized boolean isSoldOut() {
+        return statusByPosition.length > 0 && totals[ShowSeatStatus.AVAILABLE.ordinal()] == 0;
+    }
+
+    public synchronized int count(ShowSeatStatus status) {
+        return totals[status.ordinal()];
+    }
+
+    /**
+     * Consistent copy of the counters
+     * @return Counts by status, in total and for every seat type the show has
+     */
+    public synchronized ShowAvailabilityResponse toResponse() {
+        ShowAvailabilityResponse response = new ShowAvailabilityResponse();
+        response.setShowId(showId);
+        response.setShowStatus(showStatus);
+        response.setAvailable(totals[ShowSeatStatus.AVAILABLE.ordinal()]);
+        response.setLocked(totals[ShowSeatStatus.LOCKED.ordinal()]);
+        response.setBooked(totals[ShowSeatStatus.BOOKED.ordinal()]);
+        Map<SeatType, Integer> available = new EnumMap<>(SeatType.class);
+        Map<SeatType, Integer> locked = new EnumMap<>(SeatType.class);
+        Map<SeatType, Integer> booked = new EnumMap<>(SeatType.class);
+        for (SeatType seatType : SEAT_TYPES) {
+            int[] typeCounts = counts[seatType.ordinal()];
+            int typeAvailable = typeCounts[ShowSeatStatus.AVAILABLE.ordinal()];
+            int typeLocked = typeCounts[ShowSeatStatus.LOCKED.ordinal()];
+            int typeBooked = typeCounts[ShowSeatStatus.BOOKED.ordinal()];
+            if (typeAvailable + typeLocked + typeBooked == 0) {
+                continue; // the show has no seat of this type
+            }
+            available.put(seatType, typeAvailable);
+            locked.put(seatType, typeLocked);
+            booked.put(seatType, typeBooked);
+        }
+        response.setAvailableBySeatType(available);
+        response.setLockedBySeatType(locked);
+        response.setBookedBySeatType(booked);
+        return response;
+    }
+
+    private int slotOf(int position) {
+        return typeByPosition[position] < 0 ? SEAT_TYPES.length : typeByPosition[position];
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.bookMyShow.service.inventory;
+
+import com.example.bookMyShow.exception.SeatNotFoundException;
+import com.example.bookMyShow.exception.ShowSeatNotFoundException;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * In-memory seat inventory of one show: the packed statuses, one position per seat of the
+ * auditorium layout, plus the mapping between ShowSeat ids and those positions.
+ * Shows with a sparse inventory only have ShowSeat rows for seats that were ever held,
+ * the other positions have no ShowSeat id yet and are AVAILABLE.
+ */
+public class ShowInventory {
+    private final int showId;
+    private final SeatBitmap seats;
+    private final int[] seatIds;
+    private final Map<Integer, Integer> positionBySeatId;
+    private final AtomicIntegerArray showSeatIds; // 0 while the seat has no ShowSeat row
+    private final Map<Integer, Integer> positionByShowSeatId;
+
+    /**
+     * @param showId Show ID
+     * @param seatIds Seat ids of the auditorium layout, the index is the position
+     */
+    public ShowInventory(int showId, int[] seatIds) {
+        this.showId = showId;
+        this.seats = new SeatBitmap(seatIds.length);
+        this.seatIds = seatIds;
+        this.positionBySeatId = new HashMap<>(seatIds.length * 2);
+        for (int position = 0; position < seatIds.length; position++) {
+            positionBySeatId.put(seatIds[position], position);
+        }
+        this.showSeatIds = new AtomicIntegerArray(seatIds.length);
+        this.positionByShowSeatId = new ConcurrentHashMap<>(seatIds.length * 2);
+    }
+
+    public int getShowId() {
+        return showId;
+    }
+
+    public SeatBitmap getSeats() {
+        return seats;
+    }
+
+    public int getSeatId(int position) {
+        return seatIds[position];
+    }
+
+    /**
+     * @return ShowSeat id at the position, 0 if the seat has no row yet
+     */
+    public int getShowSeatId(int position) {
+        return showSeatIds.get(position);
+    }
+
+    /**
+     * Record the ShowSeat row of a seat, e.g. after it was materialized for a hold
+     * @param showSeatId ShowSeat ID
+     * @param seatId Seat ID
+     */
+    public void register(int showSeatId, int seatId) {
+        int position = positionOfSeat(seatId);
+        showSeatIds.set(position, showSeatId);
+        positionByShowSeatId.put(showSeatId, position);
+    }
+
+    public boolean contains(int showSeatId) {
+        return positionByShowSeatId.containsKey(showSeatId);
+    }
+
+    public boolean containsSeat(int seatId) {
+        return positionBySeatId.containsKey(seatId);
+    }
+
+    public int positionOf(int showSeatId) {
+        Integer position = positionByShowSeatId.get(showSeatId);
+        if (position == null) {
+            throw new ShowSeatNotFoundException("ShowSeat with id " + showSeatId + " not found in show " + showId);
+        }
+        return position;
+    }
+
+    public int positionOfSeat(int seatId) {
+        Integer position = positionBySeatId.get(seatId);
+        if (position == null) {
+            throw new SeatNotFoundException("Seat with id " + seatId + " is not part of show " + showId);
+        }
+        return position;
+    }
+
+    public int[] positionsOf(Collection<Integer> showSeatIds) {
+        int[] positions = new int[showSeatIds.size()];
+        int i = 0;
+        for (int showSeatId : showSeatIds) {
+            positions[i++] = positionOf(showSeatId);
+        }
+        return positions;
+    }
+}
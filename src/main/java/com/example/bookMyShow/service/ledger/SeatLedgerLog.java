@@ -0,0 +1,249 @@
+package com.example.bookMyShow.service.ledger;
+
+import com.example.bookMyShow.model.constant.SeatTransitionKind;
+import com.example.bookMyShow.model.constant.ShowSeatStatus;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Append-only log of seat transitions in segment files named after the sequence of their first record.
+ * Sequences have no gaps, so a record is found by arithmetic instead of an index. On open the tail of
+ * the last segment is checked and cut back to the last complete record.
+ * Appends are synchronized, reads of records already appended may run alongside. force waits until a
+ * record is on disk; appenders that arrive while a force is running are covered by the next one, so
+ * concurrent appends share fsyncs (group commit).
+ */
+public class SeatLedgerLog implements Closeable {
+    private static final String PREFIX = "seats-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private FileChannel current;
+    private long currentFirst;
+    private volatile long nextSequence;
+    private final Object forceLock = new Object();
+    private long forcedSequence;
+
+    /**
+     * @param directory Directory of the segments, created if missing
+     * @param firstSequence Sequence of the first record if the directory has no segments yet
+     */
+    public SeatLedgerLog(Path directory, long firstSequence) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                segments.put(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())), file);
+            }
+        }
+        if (segments.isEmpty()) {
+            openSegment(Math.max(1, firstSequence));
+            return;
+        }
+        Map.Entry<Long, Path> last = segments.lastEntry();
+        currentFirst = last.getKey();
+        current = FileChannel.open(last.getValue(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long valid = countValid(current, currentFirst);
+        current.truncate(valid * SeatLedgerRecord.SIZE);
+        current.position(valid * SeatLedgerRecord.SIZE);
+        nextSequence = currentFirst + valid;
+        forcedSequence = nextSequence - 1;
+    }
+
+    /**
+     * Sequence of the last record, 0 if the log is empty
+     */
+    public long getLastSequence() {
+        return nextSequence - 1;
+    }
+
+    /**
+     * Sequence of the oldest record still kept
+     */
+    public synchronized long getFirstSequence() {
+        return segments.firstKey();
+    }
+
+    /**
+     * Append one record per seat, they get consecutive sequences
+     * @return The appended records
+     */
+    public synchronized List<SeatLedgerRecord> append(int showId, List<Integer> showSeatIds, SeatTransitionKind kind,
+                                                      ShowSeatStatus from, ShowSeatStatus to, long timestampMillis)
+            throws IOException {
+        List<SeatLedgerRecord> records = new ArrayList<>(showSeatIds.size());
+        ByteBuffer buffer = ByteBuffer.allocate(showSeatIds.size() * SeatLedgerRecord.SIZE);
+        long sequence = nextSequence;
+        for (int showSeatId : showSeatIds) {
+            SeatLedgerRecord record = new SeatLedgerRecord(sequence++, timestampMillis, showId, showSeatId, kind, from, to);
+            record.writeTo(buffer);
+            records.add(record);
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            current.write(buffer);
+        }
+        nextSequence = sequence;
+        return records;
+    }
+
+    /**
+     * Wait until every record up to the given sequence is on disk
+     * @param sequence Sequence of the caller's last record
+     */
+    public void force(long sequence) throws IOException {
+        synchronized (forceLock) {
+            if (forcedSequence >= sequence) {
+                return;
+            }
+            FileChannel channel;
+            long upTo;
+            synchronized (this) {
+                channel = current;
+                upTo = nextSequence - 1;
+            }
+            channel.force(false);
+            forcedSequence = upTo;
+        }
+    }
+
+    /**
+     * Read records in sequence order
+     * @param fromSequence First sequence wanted, older records that were compacted away are skipped
+     * @param limit Maximum number of records
+     * @return Records from fromSequence on
+     */
+    public List<SeatLedgerRecord> read(long fromSequence, int limit) throws IOException {
+        long end = nextSequence;
+        TreeMap<Long, Path> files;
+        synchronized (this) {
+            files = new TreeMap<>(segments);
+        }
+        List<SeatLedgerRecord> records = new ArrayList<>();
+        long sequence = Math.max(fromSequence, files.firstKey());
+        Map.Entry<Long, Path> segment = files.floorEntry(sequence);
+        while (segment != null && sequence < end && records.size() < limit) {
+            Long nextFirst = files.higherKey(segment.getKey());
+            long segmentEnd = nextFirst == null ? end : Math.min(nextFirst, end);
+            int count = (int) Math.min(segmentEnd - sequence, limit - records.size());
+            if (count > 0) {
+                ByteBuffer buffer = ByteBuffer.allocate(count * SeatLedgerRecord.SIZE);
+                try (FileChannel channel = FileChannel.open(segment.getValue(), StandardOpenOption.READ)) {
+                    long position = (sequence - segment.getKey()) * SeatLedgerRecord.SIZE;
+                    while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) >= 0) {
+                        // keep reading until the buffer is full
+                    }
+                }
+                buffer.flip();
+                while (buffer.remaining() >= SeatLedgerRecord.SIZE) {
+                    SeatLedgerRecord record = SeatLedgerRecord.readFrom(buffer);
+                    if (record == null) {
+                        throw new IOException("Corrupt ledger record " + sequence + " in " + segment.getValue());
+                    }
+                    records.add(record);
+                    sequence++;
+                }
+            }
+            sequence = Math.max(sequence, segmentEnd);
+            segment = nextFirst == null ? null : files.floorEntry(nextFirst);
+        }
+        return records;
+    }
+
+    /**
+     * Start a new segment, the next record goes there. Does nothing if the current one is empty.
+     */
+    public void roll() throws IOException {
+        // a force running on the current segment must not see it closed
+        synchronized (forceLock) {
+            synchronized (this) {
+                if (nextSequence == currentFirst) {
+                    return;
+                }
+                current.force(false);
+                forcedSequence = nextSequence - 1;
+                current.close();
+                openSegment(nextSequence);
+            }
+        }
+    }
+
+    /**
+     * Delete the segments that only hold records before the given sequence
+     * @return Number of segments deleted
+     */
+    public synchronized int deleteBefore(long sequence) throws IOException {
+        int deleted = 0;
+        while (segments.size() > 1) {
+            Map.Entry<Long, Path> oldest = segments.firstEntry();
+            Long nextFirst = segments.higherKey(oldest.getKey());
+            if (nextFirst > sequence) {
+                break;
+            }
+            Files.deleteIfExists(oldest.getValue());
+            segments.remove(oldest.getKey());
+            deleted++;
+        }
+        return deleted;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (forceLock) {
+            synchronized (this) {
+                current.force(false);
+                current.close();
+            }
+        }
+    }
+
+    private void openSegment(long first) throws IOException {
+        Path file = directory.resolve(String.format("%s%020d%s", PREFIX, first, SUFFIX));
+        current = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        current.position(current.size());
+        currentFirst = first;
+        nextSequence = first;
+        segments.put(first, file);
+    }
+
+    // number of intact records at the start of a segment, with the expected sequences
+    private static long countValid(FileChannel channel, long first) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SeatLedgerRecord.SIZE * 1024);
+        long valid = 0;
+        long position = 0;
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                return valid;
+            }
+            buffer.flip();
+            int consumed = 0;
+            while (buffer.remaining() >= SeatLedgerRecord.SIZE) {
+                SeatLedgerRecord record = SeatLedgerRecord.readFrom(buffer);
+                if (record == null || record.getSequence() != first + valid) {
+                    return valid;
+                }
+                valid++;
+                consumed += SeatLedgerRecord.SIZE;
+            }
+            if (consumed == 0) {
+                return valid; // only a torn record is left
+            }
+            position += consumed;
+        }
+    }
+}
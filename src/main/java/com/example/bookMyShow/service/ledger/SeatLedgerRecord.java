@@ -0,0 +1,113 @@
+package com.example.bookMyShow.service.ledger;
+
+import com.example.bookMyShow.model.constant.SeatTransitionKind;
+import com.example.bookMyShow.model.constant.ShowSeatStatus;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * One seat transition in the ledger, stored as a fixed 32 byte record:
+ * sequence (8), timestamp millis (8), show id (4), show seat id (4), kind (1), from status (1, -1 if unknown),
+ * to status (1), unused (1), CRC32 of the first 28 bytes (4).
+ * Fixed size records put sequence s of a segment at offset (s - first) * 32, and a torn write at the
+ * end of the log fails its CRC.
+ */
+public class SeatLedgerRecord {
+    public static final int SIZE = 32;
+    private static final int CHECKED_BYTES = 28;
+    private static final SeatTransitionKind[] KINDS = SeatTransitionKind.values();
+    private static final ShowSeatStatus[] STATUSES = ShowSeatStatus.values();
+
+    private final long sequence;
+    private final long timestampMillis;
+    private final int showId;
+    private final int showSeatId;
+    private final SeatTransitionKind kind;
+    private final ShowSeatStatus from;
+    private final ShowSeatStatus to;
+
+    public SeatLedgerRecord(long sequence, long timestampMillis, int showId, int showSeatId,
+                            SeatTransitionKind kind, ShowSeatStatus from, ShowSeatStatus to) {
+        this.sequence = sequence;
+        this.timestampMillis = timestampMillis;
+        this.showId = showId;
+        this.showSeatId = showSeatId;
+        this.kind = kind;
+        this.from = from;
+        this.to = to;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public int getShowId() {
+        return showId;
+    }
+
+    public int getShowSeatId() {
+        return showSeatId;
+    }
+
+    public SeatTransitionKind getKind() {
+        return kind;
+    }
+
+    public ShowSeatStatus getFrom() {
+        return from;
+    }
+
+    public ShowSeatStatus getTo() {
+        return to;
+    }
+
+    /**
+     * Write the record at the current position of the buffer, which moves on by SIZE
+     */
+    public void writeTo(ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.putLong(sequence);
+        buffer.putLong(timestampMillis);
+        buffer.putInt(showId);
+        buffer.putInt(showSeatId);
+        buffer.put((byte) kind.ordinal());
+        buffer.put(from == null ? -1 : (byte) from.ordinal());
+        buffer.put((byte) to.ordinal());
+        buffer.put((byte) 0);
+        buffer.putInt(crc(buffer, start));
+    }
+
+    /**
+     * Read a record at the current position of the buffer, which moves on by SIZE
+     * @return The record, null if it is torn or corrupt
+     */
+    public static SeatLedgerRecord readFrom(ByteBuffer buffer) {
+        int start = buffer.position();
+        long sequence = buffer.getLong();
+        long timestampMillis = buffer.getLong();
+        int showId = buffer.getInt();
+        int showSeatId = buffer.getInt();
+        int kind = buffer.get();
+        int from = buffer.get();
+        int to = buffer.get();
+        buffer.get();
+        int crc = buffer.getInt();
+        if (crc != crc(buffer, start) || kind < 0 || kind >= KINDS.length
+                || from >= STATUSES.length || to < 0 || to >= STATUSES.length) {
+            return null;
+        }
+        return new SeatLedgerRecord(sequence, timestampMillis, showId, showSeatId,
+                KINDS[kind], from < 0 ? null : STATUSES[from], STATUSES[to]);
+    }
+
+    private static int crc(ByteBuffer buffer, int start) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(start).limit(start + CHECKED_BYTES));
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.bookMyShow.service.ledger;
+
+import com.example.bookMyShow.model.constant.ShowSeatStatus;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * State of every show after a given ledger sequence, so a restart replays only the records after it.
+ * Layout: magic, version, sequence, show count, then per show its id, seat count, the sorted show seat
+ * ids and the statuses packed 4 per byte; a CRC32 of all of it closes the file.
+ * Written to a temporary file and moved into place, a crash never leaves half a snapshot behind.
+ */
+public class SeatLedgerSnapshot {
+    private static final int MAGIC = 0x424D534C; // "BMSL"
+    private static final int VERSION = 1;
+
+    private final long sequence;
+    private final Map<Integer, ShowSeatLedgerState> shows;
+
+    public SeatLedgerSnapshot(long sequence, Map<Integer, ShowSeatLedgerState> shows) {
+        this.sequence = sequence;
+        this.shows = shows;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Map<Integer, ShowSeatLedgerState> getShows() {
+        return shows;
+    }
+
+    public void write(Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new CheckedOutputStream(Files.newOutputStream(temporary), crc), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(sequence);
+            out.writeInt(shows.size());
+            for (Map.Entry<Integer, ShowSeatLedgerState> show : shows.entrySet()) {
+                ShowSeatLedgerState state = show.getValue();
+                out.writeInt(show.getKey());
+                out.writeInt(state.size());
+                for (int i = 0; i < state.size(); i++) {
+                    out.writeInt(state.getShowSeatId(i));
+                }
+                for (int i = 0; i < state.size(); i += 4) {
+                    int packed = 0;
+                    for (int j = 0; j < 4 && i + j < state.size(); j++) {
+                        packed |= state.getStatusAt(i + j).ordinal() << (j * 2);
+                    }
+                    out.writeByte(packed);
+                }
+            }
+            out.flush();
+            // the checksum covers everything written so far, it is appended unchecked
+            out.writeInt((int) crc.getValue());
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static SeatLedgerSnapshot read(Path file) throws IOException {
+        ShowSeatStatus[] statuses = ShowSeatStatus.values();
+        CRC32 crc = new CRC32();
+        // checked outside the buffer, so the checksum covers exactly the bytes read so far
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 1 << 16), crc))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a seat ledger snapshot: " + file);
+            }
+            long sequence = in.readLong();
+            int showCount = in.readInt();
+            Map<Integer, ShowSeatLedgerState> shows = new HashMap<>(showCount * 2);
+            for (int s = 0; s < showCount; s++) {
+                int showId = in.readInt();
+                int size = in.readInt();
+                int[] showSeatIds = new int[size];
+                for (int i = 0; i < size; i++) {
+                    showSeatIds[i] = in.readInt();
+                }
+                ShowSeatLedgerState state = new ShowSeatLedgerState(size);
+                for (int i = 0; i < size; i += 4) {
+                    int packed = in.readUnsignedByte();
+                    for (int j = 0; j < 4 && i + j < size; j++) {
+                        state.apply(showSeatIds[i + j], statuses[(packed >>> (j * 2)) & 3]);
+                    }
+                }
+                shows.put(showId, state);
+            }
+            int expected = (int) crc.getValue();
+            if (in.readInt() != expected) {
+                throw new IOException("Seat ledger snapshot " + file + " is corrupt");
+            }
+            return new SeatLedgerSnapshot(sequence, shows);
+        }
+    }
+}
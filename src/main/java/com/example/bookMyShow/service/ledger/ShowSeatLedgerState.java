@@ -0,0 +1,72 @@
+package com.example.bookMyShow.service.ledger;
+
+import com.example.bookMyShow.model.constant.ShowSeatStatus;
+
+import java.util.Arrays;
+
+/**
+ * Seat statuses of one show as the ledger last saw them, kept as a sorted array of show seat ids next to
+ * an array of status ordinals so 10k shows of 500 seats stay around 25 MB. Not thread safe.
+ */
+public class ShowSeatLedgerState {
+    private static final ShowSeatStatus[] STATUSES = ShowSeatStatus.values();
+
+    private int[] showSeatIds;
+    private byte[] statuses;
+    private int size;
+
+    public ShowSeatLedgerState() {
+        this(16);
+    }
+
+    public ShowSeatLedgerState(int capacity) {
+        this.showSeatIds = new int[Math.max(1, capacity)];
+        this.statuses = new byte[Math.max(1, capacity)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getShowSeatId(int index) {
+        return showSeatIds[index];
+    }
+
+    public ShowSeatStatus getStatusAt(int index) {
+        return STATUSES[statuses[index]];
+    }
+
+    /**
+     * @return Status of the seat, null if the ledger never saw it (it is AVAILABLE)
+     */
+    public ShowSeatStatus getStatus(int showSeatId) {
+        int index = Arrays.binarySearch(showSeatIds, 0, size, showSeatId);
+        return index < 0 ? null : STATUSES[statuses[index]];
+    }
+
+    public void apply(int showSeatId, ShowSeatStatus status) {
+        int index = Arrays.binarySearch(showSeatIds, 0, size, showSeatId);
+        if (index >= 0) {
+            statuses[index] = (byte) status.ordinal();
+            return;
+        }
+        index = -index - 1;
+        if (size == showSeatIds.length) {
+            showSeatIds = Arrays.copyOf(showSeatIds, size * 2);
+            statuses = Arrays.copyOf(statuses, size * 2);
+        }
+        System.arraycopy(showSeatIds, index, showSeatIds, index + 1, size - index);
+        System.arraycopy(statuses, index, statuses, index + 1, size - index);
+        showSeatIds[index] = showSeatId;
+        statuses[index] = (byte) status.ordinal();
+        size++;
+    }
+
+    public ShowSeatLedgerState copy() {
+        ShowSeatLedgerState copy = new ShowSeatLedgerState(size);
+        System.arraycopy(showSeatIds, 0, copy.showSeatIds, 0, size);
+        System.arraycopy(statuses, 0, copy.statuses, 0, size);
+        copy.size = size;
+        return copy;
+    }
+}
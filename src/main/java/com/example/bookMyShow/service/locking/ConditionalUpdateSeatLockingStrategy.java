@@ -0,0 +1,24 @@
+package com.example.bookMyShow.service.locking;
+
+import com.example.bookMyShow.exception.SelectedSeatsNotAvailableException;
+import com.example.bookMyShow.model.ShowSeat;
+import com.example.bookMyShow.service.ShowSeatService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// one UPDATE ... WHERE status = AVAILABLE for all seats, the row count decides; no row is read first
+@Component(SeatLockingStrategy.CONDITIONAL_UPDATE)
+public class ConditionalUpdateSeatLockingStrategy implements SeatLockingStrategy {
+
+    @Autowired
+    private ShowSeatService showSeatService;
+
+    @Override
+    public List<ShowSeat> lock(int showId, List<Integer> showSeatIds, LocalDateTime lockedUntil, String holdId)
+            throws SelectedSeatsNotAvailableException {
+        return showSeatService.lockShowSeats(showId, showSeatIds, lockedUntil, holdId);
+    }
+}
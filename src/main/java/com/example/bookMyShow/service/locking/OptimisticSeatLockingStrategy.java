@@ -0,0 +1,21 @@
+package com.example.bookMyShow.service.locking;
+
+import com.example.bookMyShow.exception.SelectedSeatsNotAvailableException;
+import com.example.bookMyShow.model.ShowSeat;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// plain read, the version check of the UPDATE at commit fails if another hold won; the caller retries
+@Component(SeatLockingStrategy.OPTIMISTIC)
+public class OptimisticSeatLockingStrategy extends RowLockingStrategy {
+
+    @Override
+    @Transactional(rollbackFor = SelectedSeatsNotAvailableException.class)
+    public List<ShowSeat> lock(int showId, List<Integer> showSeatIds, LocalDateTime lockedUntil, String holdId)
+            throws SelectedSeatsNotAvailableException {
+        return lockRows(showId, showSeatIds, showSeatRepository.findByShowIdAndIds(showId, showSeatIds), lockedUntil, holdId);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.bookMyShow.service.locking;
+
+import com.example.bookMyShow.exception.SelectedSeatsNotAvailableException;
+import com.example.bookMyShow.model.ShowSeat;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// SELECT ... FOR UPDATE in id order, so two holds on overlapping seats queue up instead of deadlocking
+@Component(SeatLockingStrategy.PESSIMISTIC)
+public class PessimisticSeatLockingStrategy extends RowLockingStrategy {
+
+    @Override
+    @Transactional(rollbackFor = SelectedSeatsNotAvailableException.class)
+    public List<ShowSeat> lock(int showId, List<Integer> showSeatIds, LocalDateTime lockedUntil, String holdId)
+            throws SelectedSeatsNotAvailableException {
+        return lockRows(showId, showSeatIds, showSeatRepository.findForUpdate(showId, showSeatIds), lockedUntil, holdId);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.bookMyShow.service.locking;
+
+import com.example.bookMyShow.event.SeatTransitionEvent;
+import com.example.bookMyShow.exception.SelectedSeatsNotAvailableException;
+import com.example.bookMyShow.model.ShowSeat;
+import com.example.bookMyShow.model.constant.SeatTransitionKind;
+import com.example.bookMyShow.model.constant.ShowSeatStatus;
+import com.example.bookMyShow.repository.ShowSeatRepository;
+import com.example.bookMyShow.service.ShowSeatStateService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/*
+Base of the strategies that read the seat rows first and then change them in the same transaction,
+they only differ in how the rows are read.
+ */
+abstract class RowLockingStrategy implements SeatLockingStrategy {
+
+    @Autowired
+    protected ShowSeatRepository showSeatRepository;
+    @Autowired
+    private ShowSeatStateService showSeatStateService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Mark the read rows LOCKED, they are written at commit
+     * @param rows Rows read for the given ids
+     * @return Rows in the order of the given ids
+     */
+    protected List<ShowSeat> lockRows(int showId, List<Integer> showSeatIds, List<ShowSeat> rows,
+                                      LocalDateTime lockedUntil, String holdId) throws SelectedSeatsNotAvailableException {
+        if (rows.size() != showSeatIds.size()) {
+            throw new SelectedSeatsNotAvailableException(
+                    "Only " + rows.size() + " of " + showSeatIds.size() + " selected seats could be locked");
+        }
+        for (ShowSeat showSeat : rows) {
+            if (showSeat.getShowSeatStatus() != ShowSeatStatus.AVAILABLE) {
+                throw new SelectedSeatsNotAvailableException("Selected seats are not available");
+            }
+        }
+        for (ShowSeat showSeat : rows) {
+            showSeat.setShowSeatStatus(ShowSeatStatus.LOCKED);
+            showSeat.setLockedUntil(lockedUntil);
+            showSeat.setHoldId(holdId);
+        }
+        showSeatStateService.setStatusAfterCommit(showId, showSeatIds, ShowSeatStatus.LOCKED, true);
+        eventPublisher.publishEvent(new SeatTransitionEvent(showId, SeatTransitionKind.HOLD,
+                ShowSeatStatus.AVAILABLE, ShowSeatStatus.LOCKED, showSeatIds));
+        rows.sort((a, b) -> Integer.compare(showSeatIds.indexOf(a.getId()), showSeatIds.indexOf(b.getId())));
+        return rows;
+    }
+}
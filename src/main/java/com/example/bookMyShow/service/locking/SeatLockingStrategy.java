@@ -0,0 +1,32 @@
+package com.example.bookMyShow.service.locking;
+
+import com.example.bookMyShow.exception.SelectedSeatsNotAvailableException;
+import com.example.bookMyShow.model.ShowSeat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * How the database locks the seats of a hold, AVAILABLE -> LOCKED, all or nothing.
+ * Implementations are beans named after the strategy, the one to use is picked with
+ * bookmyshow.seat-locking.strategy.
+ */
+public interface SeatLockingStrategy {
+    String CONDITIONAL_UPDATE = "conditional-update";
+    String PESSIMISTIC = "pessimistic";
+    String SKIP_LOCKED = "skip-locked";
+    String OPTIMISTIC = "optimistic";
+    String SERIALIZABLE = "serializable";
+
+    /**
+     * Lock the given seats of a show
+     * @param showId Show ID
+     * @param showSeatIds Distinct show seat IDs of that show
+     * @param lockedUntil Deadline of the hold
+     * @param holdId Id of the hold, later confirms and releases of the seats must name it
+     * @return Locked show seats in the order of the given ids
+     * @throws SelectedSeatsNotAvailableException if any seat is not AVAILABLE, nothing is locked then
+     */
+    List<ShowSeat> lock(int showId, List<Integer> showSeatIds, LocalDateTime lockedUntil, String holdId)
+            throws SelectedSeatsNotAvailableException;
+}
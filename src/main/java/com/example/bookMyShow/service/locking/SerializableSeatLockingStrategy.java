@@ -0,0 +1,22 @@
+package com.example.bookMyShow.service.locking;
+
+import com.example.bookMyShow.exception.SelectedSeatsNotAvailableException;
+import com.example.bookMyShow.model.ShowSeat;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// the original approach: read then write under SERIALIZABLE, concurrent holds abort as deadlock victims
+@Component(SeatLockingStrategy.SERIALIZABLE)
+public class SerializableSeatLockingStrategy extends RowLockingStrategy {
+
+    @Override
+    @Transactional(isolation = Isolation.SERIALIZABLE, rollbackFor = SelectedSeatsNotAvailableException.class)
+    public List<ShowSeat> lock(int showId, List<Integer> showSeatIds, LocalDateTime lockedUntil, String holdId)
+            throws SelectedSeatsNotAvailableException {
+        return lockRows(showId, showSeatIds, showSeatRepository.findByShowIdAndIds(showId, showSeatIds), lockedUntil, holdId);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.bookMyShow.service.locking;
+
+import com.example.bookMyShow.exception.SelectedSeatsNotAvailableException;
+import com.example.bookMyShow.model.ShowSeat;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// SELECT ... FOR UPDATE SKIP LOCKED: a seat someone else is locking right now counts as taken, nobody waits
+@Component(SeatLockingStrategy.SKIP_LOCKED)
+public class SkipLockedSeatLockingStrategy extends RowLockingStrategy {
+
+    @Override
+    @Transactional(rollbackFor = SelectedSeatsNotAvailableException.class)
+    public List<ShowSeat> lock(int showId, List<Integer> showSeatIds, LocalDateTime lockedUntil, String holdId)
+            throws SelectedSeatsNotAvailableException {
+        return lockRows(showId, showSeatIds, showSeatRepository.findForUpdateSkipLocked(showId, showSeatIds), lockedUntil, holdId);
+    }
+}
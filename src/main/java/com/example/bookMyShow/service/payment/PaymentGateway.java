@@ -0,0 +1,35 @@
+package com.example.bookMyShow.service.payment;
+
+import com.example.bookMyShow.model.Payment;
+import com.example.bookMyShow.model.constant.PaymentStatus;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Client of the external payment gateway.
+ * Calls never block the caller: the future completes when the gateway answers, so an in-flight
+ * payment does not occupy a thread while it waits on the network.
+ */
+public interface PaymentGateway {
+
+    /**
+     * Charge a payment
+     * @param payment Pending payment
+     * @return SUCCESS or FAILED (declined)
+     */
+    CompletableFuture<PaymentStatus> charge(Payment payment);
+
+    /**
+     * Refund a payment
+     * @param refund Pending refund, its originalPayment is the charge being refunded
+     * @return SUCCESS or FAILED
+     */
+    CompletableFuture<PaymentStatus> refund(Payment refund);
+
+    /**
+     * Ask the gateway for the status of a transaction
+     * @param transactionId Transaction ID
+     * @return Status known to the gateway
+     */
+    CompletableFuture<PaymentStatus> verify(String transactionId);
+}
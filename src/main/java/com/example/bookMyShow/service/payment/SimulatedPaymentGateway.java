@@ -0,0 +1,73 @@
+package com.example.bookMyShow.service.payment;
+
+import com.example.bookMyShow.model.Payment;
+import com.example.bookMyShow.model.constant.PaymentStatus;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+Stand-in for a real payment gateway until one is integrated.
+The network delay is simulated by completing the future from a timer instead of sleeping, so
+thousands of payments can be in flight on a single scheduler thread.
+ */
+@Component
+public class SimulatedPaymentGateway implements PaymentGateway {
+
+    @Value("${bookmyshow.payment.gateway.simulated-latency-ms:1000}")
+    private long latencyMillis;
+    @Value("${bookmyshow.payment.gateway.simulated-verify-latency-ms:500}")
+    private long verifyLatencyMillis;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "payment-gateway");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Override
+    public CompletableFuture<PaymentStatus> charge(Payment payment) {
+        // Simulate success/failure (90% success rate)
+        return respondAfter(latencyMillis, ThreadLocalRandom.current().nextInt(100) < 90
+                ? PaymentStatus.SUCCESS : PaymentStatus.FAILED);
+    }
+
+    @Override
+    public CompletableFuture<PaymentStatus> refund(Payment refund) {
+        // Simulate success/failure (95% success rate for refunds)
+        return respondAfter(latencyMillis, ThreadLocalRandom.current().nextInt(100) < 95
+                ? PaymentStatus.SUCCESS : PaymentStatus.FAILED);
+    }
+
+    @Override
+    public CompletableFuture<PaymentStatus> verify(String transactionId) {
+        // Simulate different statuses
+        int statusCode = ThreadLocalRandom.current().nextInt(10);
+        PaymentStatus status;
+        if (statusCode < 7) {
+            status = PaymentStatus.SUCCESS;
+        } else if (statusCode < 9) {
+            status = PaymentStatus.FAILED;
+        } else {
+            status = PaymentStatus.PENDING;
+        }
+        return respondAfter(verifyLatencyMillis, status);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private CompletableFuture<PaymentStatus> respondAfter(long delayMillis, PaymentStatus status) {
+        CompletableFuture<PaymentStatus> response = new CompletableFuture<>();
+        scheduler.schedule(() -> response.complete(status), delayMillis, TimeUnit.MILLISECONDS);
+        return response;
+    }
+}
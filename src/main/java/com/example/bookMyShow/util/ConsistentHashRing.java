@@ -0,0 +1,105 @@
+package com.example.bookMyShow.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Consistent hash ring of named nodes. Every node is placed at a number of virtual points on a 64-bit
+ * ring and a key belongs to the first point at or after its hash, wrapping around.
+ * Adding or removing a node only moves the keys of the points it gains or loses, about 1/n of them,
+ * and the virtual points spread the keys evenly. Not thread safe, callers guard it.
+ */
+public class ConsistentHashRing {
+    private final int virtualNodes;
+    private final NavigableMap<Long, String> points = new TreeMap<>();
+    private final Set<String> nodes = new TreeSet<>();
+
+    /**
+     * @param virtualNodes Number of points per node
+     */
+    public ConsistentHashRing(int virtualNodes) {
+        this.virtualNodes = Math.max(1, virtualNodes);
+    }
+
+    /**
+     * Place a node on the ring, nothing changes if it is already there
+     * @param node Node name
+     */
+    public void add(String node) {
+        if (!nodes.add(node)) {
+            return;
+        }
+        for (int i = 0; i < virtualNodes; i++) {
+            // on the rare collision the smaller name wins, so every ring with the same nodes agrees
+            points.merge(pointOf(node, i), node, (a, b) -> a.compareTo(b) <= 0 ? a : b);
+        }
+    }
+
+    /**
+     * Take a node off the ring
+     * @param node Node name
+     */
+    public void remove(String node) {
+        if (!nodes.remove(node)) {
+            return;
+        }
+        points.values().removeIf(node::equals);
+        // points it won on a collision go back to the other node
+        for (String other : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                points.putIfAbsent(pointOf(other, i), other);
+            }
+        }
+    }
+
+    public boolean contains(String node) {
+        return nodes.contains(node);
+    }
+
+    public Set<String> getNodes() {
+        return new TreeSet<>(nodes);
+    }
+
+    /**
+     * Node owning a key
+     * @param key Key, e.g. a show ID
+     * @return Node name, null if the ring is empty
+     */
+    public String nodeFor(long key) {
+        if (points.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> point = points.ceilingEntry(mix(key));
+        return point != null ? point.getValue() : points.firstEntry().getValue();
+    }
+
+    private static long pointOf(String node, int replica) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5")
+                    .digest((node + "#" + replica).getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                hash = (hash << 8) | (digest[i] & 0xFF);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+    }
+
+    // finalizer of MurmurHash3, consecutive keys land far apart on the ring
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.bookMyShow.util;
+
+/**
+ * Segment tree over a row of slots that are either free or taken.
+ * Every node keeps the free run at its left edge, at its right edge and the longest one inside,
+ * so the longest free run is known in O(1) and the leftmost run of a given length is found in O(log n).
+ * Not thread safe.
+ */
+public class FreeRunTree {
+    private final int size;
+    private final int leaves;
+    private final int[] prefix;
+    private final int[] suffix;
+    private final int[] best;
+
+    /**
+     * @param size Number of slots, all free at first
+     */
+    public FreeRunTree(int size) {
+        this.size = size;
+        this.leaves = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+        this.prefix = new int[2 * leaves];
+        this.suffix = new int[2 * leaves];
+        this.best = new int[2 * leaves];
+        for (int i = 0; i < size; i++) {
+            prefix[leaves + i] = suffix[leaves + i] = best[leaves + i] = 1;
+        }
+        for (int node = leaves - 1; node >= 1; node--) {
+            pull(node);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void set(int index, boolean free) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Slot " + index + " outside 0.." + (size - 1));
+        }
+        int node = leaves + index;
+        prefix[node] = suffix[node] = best[node] = free ? 1 : 0;
+        for (node >>= 1; node >= 1; node >>= 1) {
+            pull(node);
+        }
+    }
+
+    public boolean isFree(int index) {
+        return best[leaves + index] == 1;
+    }
+
+    public int maxRun() {
+        return best[1];
+    }
+
+    /**
+     * Find the leftmost window of free slots
+     * @param length Number of consecutive free slots needed
+     * @param from First slot the window may start at
+     * @return Start of the window, -1 if there is none
+     */
+    public int findFirst(int length, int from) {
+        if (length < 1 || from >= size || best[1] < length) {
+            return -1;
+        }
+        return search(1, 0, leaves - 1, Math.max(0, from), length, new int[1]);
+    }
+
+    // carry[0] is the free run, counted from "from", that ends right before slot l
+    private int search(int node, int l, int r, int from, int length, int[] carry) {
+        if (r < from) {
+            return -1;
+        }
+        if (l >= from) {
+            if (carry[0] + prefix[node] >= length) {
+                return l - carry[0];
+            }
+            if (best[node] < length) {
+                // no window ends inside this node, only its right edge run can start one
+                carry[0] = prefix[node] == r - l + 1 ? carry[0] + prefix[node] : suffix[node];
+                return -1;
+            }
+        }
+        int mid = (l + r) >>> 1;
+        int found = search(2 * node, l, mid, from, length, carry);
+        return found >= 0 ? found : search(2 * node + 1, mid + 1, r, from, length, carry);
+    }
+
+    private void pull(int node) {
+        int left = 2 * node;
+        int right = left + 1;
+        int half = leaves >> (32 - Integer.numberOfLeadingZeros(node));
+        prefix[node] = prefix[left] == half ? half + prefix[right] : prefix[left];
+        suffix[node] = suffix[right] == half ? half + suffix[left] : suffix[right];
+        best[node] = Math.max(Math.max(best[left], best[right]), suffix[left] + prefix[right]);
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.bookMyShow.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel (Varghese and Lauck) for a very large number of deadlines.
+ * Scheduling and cancelling are O(1): a new timeout goes into a lock free queue and the single ticker
+ * thread moves it into the bucket of its tick. Every tick the ticker walks one bucket and hands all
+ * due payloads to the expiry handler as one batch. Deadlines further away than one revolution just
+ * stay in their bucket for more rounds.
+ * @param <T> Payload type
+ */
+public class HashedTimingWheel<T> implements AutoCloseable {
+
+    private final long tickMillis;
+    private final int mask;
+    private final Slot<T>[] wheel;
+    private final Queue<Timeout<T>> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final Consumer<List<T>> expiryHandler;
+    private final ScheduledExecutorService ticker;
+    private final long startMillis;
+    private long currentTick; // only touched by the ticker thread
+
+    /**
+     * @param name Ticker thread name
+     * @param tickMillis Resolution of the wheel
+     * @param wheelSize Number of buckets, rounded up to a power of two
+     * @param expiryHandler Called on the ticker thread with the payloads that expired in one tick
+     */
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(String name, long tickMillis, int wheelSize, Consumer<List<T>> expiryHandler) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("tickMillis and wheelSize must be positive");
+        }
+        int buckets = Integer.highestOneBit(wheelSize - 1) << 1;
+        if (buckets <= 0) {
+            buckets = 1;
+        }
+        this.tickMillis = tickMillis;
+        this.mask = buckets - 1;
+        this.wheel = new Slot[buckets];
+        for (int i = 0; i < buckets; i++) {
+            wheel[i] = new Slot<>();
+        }
+        this.expiryHandler = expiryHandler;
+        this.startMillis = System.currentTimeMillis();
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Schedule a payload to expire at the given wall clock time
+     * @param payload Payload handed to the expiry handler
+     * @param deadlineMillis Epoch millis
+     * @return Handle that can cancel the timeout
+     */
+    public Timeout<T> schedule(T payload, long deadlineMillis) {
+        Timeout<T> timeout = new Timeout<>(payload, deadlineMillis);
+        pending.add(timeout);
+        size.incrementAndGet();
+        return timeout;
+    }
+
+    /**
+     * Number of scheduled timeouts that neither expired nor were swept after cancellation
+     */
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+    }
+
+    private void tick() {
+        try {
+            long targetTick = (System.currentTimeMillis() - startMillis) / tickMillis;
+            List<T> expired = new ArrayList<>();
+            // catch up if the ticker was delayed, e.g. by a slow expiry handler
+            while (currentTick <= targetTick) {
+                transferPending();
+                wheel[(int) (currentTick & mask)].expire(expired, size);
+                currentTick++;
+            }
+            if (!expired.isEmpty()) {
+                expiryHandler.accept(expired);
+            }
+        } catch (RuntimeException e) {
+            // never let an exception cancel the periodic task
+            System.err.println("Timing wheel tick failed: " + e.getMessage());
+        }
+    }
+
+    private void transferPending() {
+        Timeout<T> timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.cancelled) {
+                size.decrementAndGet();
+                continue;
+            }
+            long deadlineTick = Math.max((timeout.deadlineMillis - startMillis) / tickMillis, currentTick);
+            timeout.remainingRounds = (deadlineTick - currentTick) / wheel.length;
+            wheel[(int) (deadlineTick & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * A scheduled payload
+     */
+    public static class Timeout<T> {
+        private final T payload;
+        private final long deadlineMillis;
+        private long remainingRounds;
+        private Timeout<T> next;
+        private volatile boolean cancelled;
+
+        private Timeout(T payload, long deadlineMillis) {
+            this.payload = payload;
+            this.deadlineMillis = deadlineMillis;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        public long getDeadlineMillis() {
+            return deadlineMillis;
+        }
+
+        /**
+         * Cancel the timeout, it is dropped the next time the ticker visits its bucket
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    // singly linked list of timeouts, only used by the ticker thread
+    private static class Slot<T> {
+        private Timeout<T> head;
+
+        void add(Timeout<T> timeout) {
+            timeout.next = head;
+            head = timeout;
+        }
+
+        void expire(List<T> expired, AtomicInteger size) {
+            Timeout<T> previous = null;
+            Timeout<T> timeout = head;
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                boolean remove;
+                if (timeout.cancelled) {
+                    remove = true;
+                } else if (timeout.remainingRounds <= 0) {
+                    expired.add(timeout.payload);
+                    remove = true;
+                } else {
+                    timeout.remainingRounds--;
+                    remove = false;
+                }
+                if (remove) {
+                    if (previous == null) {
+                        head = next;
+                    } else {
+                        previous.next = next;
+                    }
+                    timeout.next = null;
+                    size.decrementAndGet();
+                } else {
+                    previous = timeout;
+                }
+                timeout = next;
+            }
+        }
+    }
+}
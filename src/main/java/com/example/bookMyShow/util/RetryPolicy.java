@@ -0,0 +1,80 @@
+package com.example.bookMyShow.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+Retries an operation that lost a race in the database: optimistic lock conflicts, deadlock victims and
+lock wait timeouts all surface as ConcurrencyFailureException. Between attempts it backs off exponentially
+with jitter so that the losers of one race do not collide again on the next attempt.
+Business failures (e.g. seats already taken) are never retried.
+ */
+@Component
+public class RetryPolicy {
+
+    public interface Attempt<T, E extends Throwable> {
+        T run() throws E;
+    }
+
+    public interface Listener {
+        default void onConflict(ConcurrencyFailureException e) {
+        }
+
+        default void onExhausted(ConcurrencyFailureException e) {
+        }
+    }
+
+    private static final Listener NO_LISTENER = new Listener() {
+    };
+
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final double multiplier;
+
+    public RetryPolicy(@Value("${bookmyshow.retry.max-attempts:3}") int maxAttempts,
+                       @Value("${bookmyshow.retry.initial-backoff-ms:20}") long initialBackoffMillis,
+                       @Value("${bookmyshow.retry.max-backoff-ms:200}") long maxBackoffMillis,
+                       @Value("${bookmyshow.retry.multiplier:2.0}") double multiplier) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMillis = Math.max(1, initialBackoffMillis);
+        this.maxBackoffMillis = Math.max(this.initialBackoffMillis, maxBackoffMillis);
+        this.multiplier = multiplier;
+    }
+
+    public <T, E extends Throwable> T execute(Attempt<T, E> attempt) throws E {
+        return execute(attempt, NO_LISTENER);
+    }
+
+    /**
+     * Run the attempt, retrying it on concurrency failures
+     * @param attempt Operation to run, must be safe to repeat, i.e. run in its own transaction
+     * @param listener Told about every conflict and when the attempts ran out
+     * @return Result of the first attempt that succeeded
+     * @throws E Whatever the attempt throws, or the last ConcurrencyFailureException
+     */
+    public <T, E extends Throwable> T execute(Attempt<T, E> attempt, Listener listener) throws E {
+        long backoff = initialBackoffMillis;
+        for (int attempts = 1; ; attempts++) {
+            try {
+                return attempt.run();
+            } catch (ConcurrencyFailureException e) {
+                listener.onConflict(e);
+                if (attempts >= maxAttempts) {
+                    listener.onExhausted(e);
+                    throw e;
+                }
+                try {
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                backoff = Math.min((long) (backoff * multiplier), maxBackoffMillis);
+            }
+        }
+    }
+}
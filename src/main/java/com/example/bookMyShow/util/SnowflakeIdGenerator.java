@@ -0,0 +1,84 @@
+package com.example.bookMyShow.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+Snowflake style 64 bit ids: 41 bits of milliseconds since EPOCH, 10 bits of node id, 12 bits of sequence.
+Ids from one node are strictly increasing and ids from all nodes are roughly time ordered,
+so inserts into a unique index always land at its right end.
+
+The last (timestamp, sequence) pair is packed into one AtomicLong and advanced with a CAS,
+nothing is allocated and no lock is taken per id.
+If the wall clock steps back, the generator keeps counting from the last timestamp it handed out
+instead of repeating ids.
+The node id must be set per node when clustering is on, startup fails if it is left out there.
+ */
+@Component
+public class SnowflakeIdGenerator {
+
+    // 2024-01-01T00:00:00Z, 41 bits of milliseconds last until 2093
+    public static final long EPOCH = 1704067200000L;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    // bookmyshow.node-id not set
+    private static final int UNSET = -1;
+
+    private final long nodeBits;
+    // (millis since EPOCH << SEQUENCE_BITS) | sequence of the last id
+    private final AtomicLong last = new AtomicLong();
+
+    public SnowflakeIdGenerator(@Value("${bookmyshow.node-id:-1}") int nodeId,
+                                @Value("${bookmyshow.cluster.enabled:false}") boolean clustered) {
+        if (nodeId == UNSET) {
+            if (clustered) {
+                // every node would hand out the same ids
+                throw new IllegalStateException("bookmyshow.node-id must be set to a different value on every node while bookmyshow.cluster.enabled is on");
+            }
+            nodeId = 0;
+        }
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ", got " + nodeId);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+    }
+
+    /**
+     * Generate the next id
+     * @return Unique, positive, time ordered id
+     */
+    public long nextId() {
+        while (true) {
+            long previous = last.get();
+            long now = (System.currentTimeMillis() - EPOCH) << SEQUENCE_BITS;
+            // a new millisecond starts at sequence 0, otherwise take the next sequence of the last one;
+            // when the 4096 sequences of a millisecond are used up this borrows from the next millisecond
+            long next = now > previous ? now : previous + 1;
+            if (last.compareAndSet(previous, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * @param id Id generated by nextId
+     * @return Epoch millis at which the id was generated
+     */
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH;
+    }
+
+    /**
+     * @param id Id generated by nextId
+     * @return Node that generated the id
+     */
+    public static int nodeIdOf(long id) {
+        return (int) ((id >>> SEQUENCE_BITS) & MAX_NODE_ID);
+    }
+}
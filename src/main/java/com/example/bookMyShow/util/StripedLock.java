@@ -0,0 +1,105 @@
+package com.example.bookMyShow.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks shared by any number of keys: a key always maps to the same stripe,
+ * so equal keys exclude each other while most different keys land on different stripes.
+ * Memory stays constant no matter how many keys exist, nothing is created or cleaned up per key.
+ * Records how long callers wait and how many are queued.
+ */
+public class StripedLock {
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * @param stripes Number of locks, rounded up to a power of two
+     * @param fair Whether waiters get the lock in arrival order
+     */
+    public StripedLock(int stripes, boolean fair) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock(fair);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Lock the stripe of a key, waiting at most the given time
+     * @return true if locked, the caller must unlock(key) then
+     */
+    public boolean tryLock(int key, long timeout, TimeUnit unit) throws InterruptedException {
+        ReentrantLock lock = stripeOf(key);
+        long start = System.nanoTime();
+        boolean locked = lock.tryLock(timeout, unit);
+        long waited = System.nanoTime() - start;
+        waitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        if (locked) {
+            acquisitions.increment();
+        } else {
+            timeouts.increment();
+        }
+        return locked;
+    }
+
+    public void unlock(int key) {
+        stripeOf(key).unlock();
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    public long getTotalWaitNanos() {
+        return waitNanos.sum();
+    }
+
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    /**
+     * @return Threads waiting on any stripe right now, an estimate
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (ReentrantLock stripe : stripes) {
+            depth += stripe.getQueueLength();
+        }
+        return depth;
+    }
+
+    /**
+     * @return Threads waiting on the busiest stripe right now, an estimate
+     */
+    public int getMaxStripeQueueDepth() {
+        int depth = 0;
+        for (ReentrantLock stripe : stripes) {
+            depth = Math.max(depth, stripe.getQueueLength());
+        }
+        return depth;
+    }
+
+    private ReentrantLock stripeOf(int key) {
+        int hash = key * 0x9E3779B9; // spread sequential ids over all stripes
+        return stripes[(hash ^ (hash >>> 16)) & mask];
+    }
+}
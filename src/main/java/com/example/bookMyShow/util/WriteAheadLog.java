@@ -0,0 +1,222 @@
+package com.example.bookMyShow.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead log in memory-mapped segment files of a fixed size, named after their first sequence.
+ * A record is length (4), CRC32 of sequence and payload (4), sequence (8) and payload; a zero length
+ * ends a segment. append returns once the record is forced to disk. Appenders that arrive while a
+ * force is running are covered by the next one, so concurrent appends share fsyncs (group commit).
+ */
+public class WriteAheadLog implements Closeable {
+    private static final String PREFIX = "wal-";
+    private static final String SUFFIX = ".log";
+    private static final int HEADER = 16;
+
+    private static class Segment {
+        final long first;
+        final Path file;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        volatile int written;
+        int forced;
+
+        Segment(long first, Path file, int size) throws IOException {
+            this.first = first;
+            this.file = file;
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+
+        // force everything written so far, unless an earlier force already covered the caller's record
+        synchronized void forceTo(int end) {
+            if (forced >= end) {
+                return;
+            }
+            int upTo = written;
+            buffer.force(forced, upTo - forced);
+            forced = upTo;
+        }
+    }
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private Segment current;
+    private long nextSequence;
+
+    /**
+     * Open the log, the tail of the last segment is scanned to find where appending continues
+     * @param directory Directory of the segments, created if missing
+     * @param segmentBytes Size of a segment, also the upper bound of a record
+     * @param firstSequence Sequence of the first record if the directory has no segments yet
+     */
+    public WriteAheadLog(Path directory, int segmentBytes, long firstSequence) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                segments.put(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())), file);
+            }
+        }
+        if (segments.isEmpty()) {
+            nextSequence = Math.max(1, firstSequence);
+            openSegment(nextSequence);
+            return;
+        }
+        Map.Entry<Long, Path> last = segments.lastEntry();
+        current = new Segment(last.getKey(), last.getValue(), segmentBytes);
+        long sequence = last.getKey();
+        int position = 0;
+        while (readAt(current.buffer, position, sequence) != null) {
+            position += HEADER + current.buffer.getInt(position);
+            sequence++;
+        }
+        // anything after the last intact record is a torn append, clear it so it can never be read
+        for (int i = position; i < Math.min(position + HEADER, segmentBytes); i++) {
+            current.buffer.put(i, (byte) 0);
+        }
+        current.written = position;
+        current.forced = 0;
+        current.forceTo(position);
+        nextSequence = sequence;
+    }
+
+    public synchronized long getLastSequence() {
+        return nextSequence - 1;
+    }
+
+    /**
+     * Append a record and wait until it is on disk
+     * @param payload Record payload
+     * @return Sequence of the record
+     */
+    public long append(byte[] payload) throws IOException {
+        if (payload.length + HEADER + 4 > segmentBytes) {
+            throw new IOException("Record of " + payload.length + " bytes does not fit a segment of " + segmentBytes);
+        }
+        Segment segment;
+        int end;
+        long sequence;
+        synchronized (this) {
+            // keep room for the zero length that ends a segment
+            if (current.written + HEADER + payload.length + 4 > segmentBytes) {
+                current.forceTo(current.written);
+                openSegment(nextSequence);
+            }
+            segment = current;
+            sequence = nextSequence++;
+            int position = segment.written;
+            MappedByteBuffer buffer = segment.buffer;
+            buffer.putLong(position + 8, sequence);
+            buffer.put(position + HEADER, payload);
+            buffer.putInt(position + 4, crc(buffer, position + 8, 8 + payload.length));
+            buffer.putInt(position, payload.length);
+            end = position + HEADER + payload.length;
+            segment.written = end;
+        }
+        segment.forceTo(end);
+        return sequence;
+    }
+
+    /**
+     * Hand every intact record after the given sequence to the consumer, in order
+     * @param afterSequence Records up to this sequence are skipped
+     * @param consumer Receives the sequence and a read-only view of the payload
+     */
+    public synchronized void replay(long afterSequence, BiConsumer<Long, ByteBuffer> consumer) throws IOException {
+        for (Map.Entry<Long, Path> entry : segments.entrySet()) {
+            Long nextFirst = segments.higherKey(entry.getKey());
+            if (nextFirst != null && nextFirst <= afterSequence + 1) {
+                continue; // every record of this segment is older
+            }
+            MappedByteBuffer buffer;
+            if (entry.getKey() == current.first) {
+                buffer = current.buffer;
+            } else {
+                try (FileChannel channel = FileChannel.open(entry.getValue(), StandardOpenOption.READ)) {
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                }
+            }
+            long sequence = entry.getKey();
+            int position = 0;
+            ByteBuffer payload;
+            while ((payload = readAt(buffer, position, sequence)) != null) {
+                // taken before the consumer reads the payload and moves its position
+                int length = payload.remaining();
+                if (sequence > afterSequence) {
+                    consumer.accept(sequence, payload);
+                }
+                position += HEADER + length;
+                sequence++;
+            }
+        }
+    }
+
+    /**
+     * Delete the segments that only hold records up to the given sequence, e.g. once they are checkpointed
+     * @return Number of segments deleted
+     */
+    public synchronized int deleteUpTo(long sequence) throws IOException {
+        int deleted = 0;
+        while (segments.size() > 1) {
+            Map.Entry<Long, Path> oldest = segments.firstEntry();
+            if (segments.higherKey(oldest.getKey()) > sequence + 1) {
+                break;
+            }
+            Files.deleteIfExists(oldest.getValue());
+            segments.remove(oldest.getKey());
+            deleted++;
+        }
+        return deleted;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        current.forceTo(current.written);
+        current.channel.close();
+    }
+
+    private void openSegment(long first) throws IOException {
+        if (current != null) {
+            current.channel.close(); // the mapping stays valid until it is collected
+        }
+        Path file = directory.resolve(String.format("%s%020d%s", PREFIX, first, SUFFIX));
+        current = new Segment(first, file, segmentBytes);
+        segments.put(first, file);
+    }
+
+    // payload of the record at the position, null at the end of the segment or for a torn record
+    private static ByteBuffer readAt(ByteBuffer buffer, int position, long expectedSequence) {
+        if (position + HEADER > buffer.limit()) {
+            return null;
+        }
+        int length = buffer.getInt(position);
+        if (length <= 0 || position + HEADER + length > buffer.limit()
+                || buffer.getLong(position + 8) != expectedSequence
+                || buffer.getInt(position + 4) != crc(buffer, position + 8, 8 + length)) {
+            return null;
+        }
+        return buffer.duplicate().position(position + HEADER).limit(position + HEADER + length).slice().asReadOnlyBuffer();
+    }
+
+    private static int crc(ByteBuffer buffer, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(offset).limit(offset + length));
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.bookMyShow;
+
+import com.example.bookMyShow.dto.AdmissionRequest;
+import com.example.bookMyShow.dto.BestAvailableRequest;
+import com.example.bookMyShow.dto.BookingResponse;
+import com.example.bookMyShow.dto.HoldRequest;
+import com.example.bookMyShow.dto.SeatChange;
+import com.example.bookMyShow.dto.WaitingRoomStatus;
+import com.example.bookMyShow.exception.SelectedSeatsNotAvailableException;
+import com.example.bookMyShow.model.constant.AdmissionOperation;
+import com.example.bookMyShow.model.constant.SeatTransitionKind;
+import com.example.bookMyShow.model.constant.ShowSeatStatus;
+import com.example.bookMyShow.service.cluster.ClusterNode;
+import com.example.bookMyShow.service.cluster.LocalNodeTransport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+Three nodes in one JVM connected by the local transport. Every hold must run on the owner of its show
+no matter which node it arrives at, and membership changes must only move the shows of the node that
+joined or left. Each node keeps the seats it knows to be held in memory, like its seat inventory,
+so a seat freed on another node must reach the owner before it can be held there again.
+ */
+class ClusterShardingTest {
+
+    private static final int SHOWS = 3000;
+
+    private final LocalNodeTransport transport = new LocalNodeTransport();
+    private final Map<String, ClusterNode> nodes = new LinkedHashMap<>();
+    private final Map<Integer, String> heldOn = new ConcurrentHashMap<>();
+    // seats each node has held in memory, by show
+    private final Map<String, Map<Integer, Set<Integer>>> heldSeats = new ConcurrentHashMap<>();
+    private final Map<Integer, String> admissionsOn = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void startCluster() {
+        for (String nodeId : List.of("node-1", "node-2", "node-3")) {
+            ClusterNode node = newNode(nodeId);
+            transport.register(node);
+            nodes.put(nodeId, node);
+        }
+        nodes.get("node-1").join("node-2", "local://node-2", true);
+        nodes.get("node-1").join("node-3", "local://node-3", true);
+    }
+
+    @Test
+    void holdsRunOnTheOwnerOfTheShow() throws Throwable {
+        for (ClusterNode node : nodes.values()) {
+            assertEquals(nodes.keySet(), node.getMembers().keySet());
+        }
+        Map<String, Integer> showsPerNode = new HashMap<>();
+        for (int showId = 1; showId <= SHOWS; showId++) {
+            String owner = nodes.get("node-1").ownerOf(showId);
+            int seatId = 0;
+            for (ClusterNode entry : nodes.values()) {
+                entry.hold(holdRequest(showId, ++seatId), null);
+                assertEquals(owner, heldOn.get(showId), "show " + showId + " held off its owner");
+            }
+            showsPerNode.merge(owner, 1, Integer::sum);
+        }
+        // virtual nodes keep the split close to even
+        for (int shows : showsPerNode.values()) {
+            assertTrue(shows > SHOWS / 3 * 0.7 && shows < SHOWS / 3 * 1.3, "uneven split " + showsPerNode);
+        }
+    }
+
+    @Test
+    void onlyShowsOfTheChangedNodeMove() {
+        Map<Integer, String> before = owners("node-1");
+        nodes.get("node-3").leave("node-3", true);
+        transport.unregister("node-3");
+
+        Map<Integer, String> after = owners("node-1");
+        assertEquals(after, owners("node-2"));
+        for (int showId = 1; showId <= SHOWS; showId++) {
+            if (!before.get(showId).equals("node-3")) {
+                assertEquals(before.get(showId), after.get(showId), "show " + showId + " moved between live nodes");
+            }
+        }
+
+        ClusterNode rejoined = newNode("node-3");
+        transport.register(rejoined);
+        nodes.put("node-3", rejoined);
+        nodes.get("node-2").join("node-3", "local://node-3", true);
+        assertEquals(before, owners("node-3"));
+        assertEquals(before, owners("node-1"));
+    }
+
+    @Test
+    void releaseOnAnotherNodeReachesTheOwner() throws Throwable {
+        int showId = 7;
+        String owner = nodes.get("node-1").ownerOf(showId);
+        String other = nodes.keySet().stream().filter(nodeId -> !nodeId.equals(owner)).findFirst().orElseThrow();
+
+        nodes.get(other).hold(holdRequest(showId), null);
+        assertEquals(owner, heldOn.get(showId));
+        assertThrows(SelectedSeatsNotAvailableException.class, () -> nodes.get(owner).hold(holdRequest(showId), null));
+
+        // the hold is released on a node that does not own the show, as a release request may arrive anywhere
+        SeatChange release = new SeatChange();
+        release.setShowId(showId);
+        release.setKind(SeatTransitionKind.RELEASE);
+        release.setFrom(ShowSeatStatus.LOCKED);
+        release.setTo(ShowSeatStatus.AVAILABLE);
+        release.setShowSeatIds(List.of(1));
+        nodes.get(other).seatsChanged(release);
+
+        nodes.get(owner).hold(holdRequest(showId), null);
+        assertEquals(owner, heldOn.get(showId));
+    }
+
+    @Test
+    void waitingRoomRunsOnTheOwnerOfTheShow() {
+        for (int showId = 1; showId <= 100; showId++) {
+            String owner = nodes.get("node-1").ownerOf(showId);
+            for (ClusterNode node : nodes.values()) {
+                AdmissionRequest request = new AdmissionRequest();
+                request.setOperation(AdmissionOperation.JOIN);
+                request.setShowId(showId);
+                node.admission(request);
+                assertEquals(owner, admissionsOn.get(showId), "waiting room of show " + showId + " off its owner");
+            }
+        }
+    }
+
+    private ClusterNode newNode(String nodeId) {
+        return new ClusterNode(nodeId, "local://" + nodeId, 128, transport, new ClusterNode.LocalHandler() {
+            @Override
+            public BookingResponse hold(HoldRequest request, String idempotencyKey) throws SelectedSeatsNotAvailableException {
+                Set<Integer> held = heldSeats.computeIfAbsent(nodeId, id -> new ConcurrentHashMap<>())
+                        .computeIfAbsent(request.getShowId(), id -> ConcurrentHashMap.newKeySet());
+                for (int seatId : request.getSeatIds()) {
+                    if (held.contains(seatId)) {
+                        throw new SelectedSeatsNotAvailableException("Seat " + seatId + " is held");
+                    }
+                }
+                held.addAll(request.getSeatIds());
+                heldOn.put(request.getShowId(), nodeId);
+                BookingResponse response = new BookingResponse();
+                response.setShowId(request.getShowId());
+                return response;
+            }
+
+            @Override
+            public BookingResponse holdBestAvailable(BestAvailableRequest request, String idempotencyKey) {
+                heldOn.put(request.getShowId(), nodeId);
+                return new BookingResponse();
+            }
+
+            @Override
+            public void seatsChanged(SeatChange change) {
+                Set<Integer> held = heldSeats.getOrDefault(nodeId, Map.of()).get(change.getShowId());
+                if (held != null && change.getTo() == ShowSeatStatus.AVAILABLE) {
+                    held.removeAll(change.getShowSeatIds());
+                }
+            }
+
+            @Override
+            public WaitingRoomStatus admission(AdmissionRequest request) {
+                admissionsOn.put(request.getShowId(), nodeId);
+                return new WaitingRoomStatus();
+            }
+        }, showSeatIds -> {
+            throw new IllegalStateException("holds in this test name their show");
+        });
+    }
+
+    private Map<Integer, String> owners(String nodeId) {
+        Map<Integer, String> owners = new HashMap<>();
+        for (int showId = 1; showId <= SHOWS; showId++) {
+            owners.put(showId, nodes.get(nodeId).ownerOf(showId));
+        }
+        return owners;
+    }
+
+    private static HoldRequest holdRequest(int showId) {
+        return holdRequest(showId, 1);
+    }
+
+    private static HoldRequest holdRequest(int showId, int seatId) {
+        HoldRequest request = new HoldRequest();
+        request.setShowId(showId);
+        request.setSeatIds(List.of(seatId));
+        return request;
+    }
+}
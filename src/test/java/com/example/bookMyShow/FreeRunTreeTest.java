@@ -0,0 +1,100 @@
+package com.example.bookMyShow;
+
+import com.example.bookMyShow.util.FreeRunTree;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+The tree against a plain scan of the slots. Runs that cross node boundaries need the carry of the
+search, and a search starting inside a run must only count the slots from its start.
+ */
+class FreeRunTreeTest {
+
+    @Test
+    void runAcrossNodeBoundariesIsFound() {
+        FreeRunTree tree = new FreeRunTree(16);
+        takeAllBut(tree, 16, 3, 4, 5, 6, 7, 8, 9, 10);
+        // slots 3..10 cross the middle of the tree and the middle of both halves
+        assertEquals(8, tree.maxRun());
+        assertEquals(3, tree.findFirst(8, 0));
+        assertEquals(3, tree.findFirst(5, 0));
+        assertEquals(-1, tree.findFirst(9, 0));
+    }
+
+    @Test
+    void searchStartingInsideARunOnlyCountsFromThere() {
+        FreeRunTree tree = new FreeRunTree(16);
+        takeAllBut(tree, 16, 2, 3, 4, 5, 6, 7, 8, 9);
+        assertEquals(5, tree.findFirst(3, 5));
+        assertEquals(5, tree.findFirst(5, 5));
+        assertEquals(-1, tree.findFirst(6, 5));
+        assertEquals(-1, tree.findFirst(1, 10));
+    }
+
+    @Test
+    void sizeThatIsNotAPowerOfTwo() {
+        FreeRunTree tree = new FreeRunTree(13);
+        assertEquals(13, tree.maxRun());
+        assertEquals(0, tree.findFirst(13, 0));
+        assertEquals(-1, tree.findFirst(14, 0));
+        tree.set(12, false);
+        assertEquals(12, tree.maxRun());
+        assertEquals(-1, tree.findFirst(2, 11));
+    }
+
+    @Test
+    void matchesAScanOfTheSlots() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            int size = 1 + random.nextInt(70);
+            FreeRunTree tree = new FreeRunTree(size);
+            boolean[] free = new boolean[size];
+            Arrays.fill(free, true);
+            for (int change = 0; change < 3 * size; change++) {
+                int index = random.nextInt(size);
+                free[index] = random.nextInt(3) > 0;
+                tree.set(index, free[index]);
+
+                assertEquals(scanMaxRun(free), tree.maxRun());
+                int length = 1 + random.nextInt(6);
+                int from = random.nextInt(size);
+                assertEquals(scanFindFirst(free, length, from), tree.findFirst(length, from),
+                        "length " + length + " from " + from + " in " + Arrays.toString(free));
+            }
+        }
+    }
+
+    private static void takeAllBut(FreeRunTree tree, int size, int... freeSlots) {
+        for (int i = 0; i < size; i++) {
+            tree.set(i, false);
+        }
+        for (int slot : freeSlots) {
+            tree.set(slot, true);
+        }
+    }
+
+    private static int scanMaxRun(boolean[] free) {
+        int best = 0;
+        int run = 0;
+        for (boolean slot : free) {
+            run = slot ? run + 1 : 0;
+            best = Math.max(best, run);
+        }
+        return best;
+    }
+
+    private static int scanFindFirst(boolean[] free, int length, int from) {
+        int run = 0;
+        for (int i = from; i < free.length; i++) {
+            run = free[i] ? run + 1 : 0;
+            if (run == length) {
+                return i - length + 1;
+            }
+        }
+        return -1;
+    }
+}
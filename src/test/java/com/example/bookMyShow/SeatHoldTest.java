@@ -0,0 +1,57 @@
+package com.example.bookMyShow;
+
+import com.example.bookMyShow.exception.SelectedSeatsNotAvailableException;
+import com.example.bookMyShow.model.ShowSeat;
+import com.example.bookMyShow.model.constant.ShowSeatStatus;
+import com.example.bookMyShow.repository.ShowSeatRepository;
+import com.example.bookMyShow.service.ShowSeatService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+Two holds on the same seat can get the same deadline, the seat must still only answer to the hold
+that has it: a release arriving late from the first hold leaves the second one alone.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class SeatHoldTest {
+
+    @Autowired
+    private ShowSeatRepository showSeatRepository;
+    @Autowired
+    private ShowSeatService showSeatService;
+
+    @Test
+    void lateReleaseOfAnEarlierHoldMissesTheNextOne() throws SelectedSeatsNotAvailableException {
+        // a seat in the middle of the show created at startup, the other tests hold from the ends
+        List<ShowSeat> showSeats = showSeatRepository.findAll();
+        showSeats.sort(Comparator.comparingInt(ShowSeat::getId));
+        ShowSeat showSeat = showSeats.get(showSeats.size() / 2);
+        int showId = showSeat.getShow().getId();
+        List<Integer> ids = List.of(showSeat.getId());
+        LocalDateTime lockedUntil = LocalDateTime.now().plusMinutes(10).truncatedTo(ChronoUnit.SECONDS);
+        String first = UUID.randomUUID().toString();
+        String second = UUID.randomUUID().toString();
+
+        showSeatService.lockShowSeats(showId, ids, lockedUntil, first);
+        assertEquals(1, showSeatService.releaseShowSeats(showId, ids, first));
+        showSeatService.lockShowSeats(showId, ids, lockedUntil, second);
+
+        assertEquals(0, showSeatService.releaseShowSeats(showId, ids, first));
+        assertEquals(0, showSeatService.bookShowSeats(showId, ids, first));
+        assertEquals(ShowSeatStatus.LOCKED, showSeatRepository.findById(showSeat.getId()).orElseThrow().getShowSeatStatus());
+
+        assertEquals(1, showSeatService.releaseShowSeats(showId, ids, second));
+        assertEquals(ShowSeatStatus.AVAILABLE, showSeatRepository.findById(showSeat.getId()).orElseThrow().getShowSeatStatus());
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.bookMyShow;
+
+import com.example.bookMyShow.model.Seat;
+import com.example.bookMyShow.model.constant.SeatType;
+import com.example.bookMyShow.model.constant.ShowSeatStatus;
+import com.example.bookMyShow.service.inventory.SeatLayout;
+import com.example.bookMyShow.service.inventory.ShowInventory;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/*
+Best available blocks in a single row, seat i sits in column i at position i - 1.
+A block that would leave one free seat next to it is skipped unless single gaps are allowed.
+ */
+class SeatLayoutTest {
+
+    @Test
+    void blockLeavingASingleSeatIsSkipped() {
+        SeatLayout layout = row(8);
+        // 2..7 is the most central block but leaves seats 1 and 8 alone, 1..6 leaves two seats
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4, 5}, layout.findBest(6, null, true));
+        assertArrayEquals(new int[]{1, 2, 3, 4, 5, 6}, layout.findBest(6, null, false));
+    }
+
+    @Test
+    void noBlockIfEveryChoiceLeavesASingleSeat() {
+        SeatLayout layout = row(6);
+        layout.getInventory().getSeats().set(0, ShowSeatStatus.BOOKED);
+        // seats 2..6 are free, a block of 4 leaves seat 2 or seat 6 alone
+        assertNull(layout.findBest(4, null, true));
+        assertArrayEquals(new int[]{1, 2, 3, 4}, layout.findBest(4, null, false));
+    }
+
+    @Test
+    void seatNextToAHeldSeatIsNotLeftAlone() {
+        SeatLayout layout = row(10);
+        layout.getInventory().getSeats().set(7, ShowSeatStatus.LOCKED);
+        // seat 8 is held: the central 5..6 would leave seat 7 alone, 4..5 is as close as it gets without
+        assertArrayEquals(new int[]{3, 4}, layout.findBest(2, null, true));
+        assertArrayEquals(new int[]{4, 5}, layout.findBest(2, null, false));
+        // the hold ends, the layout follows the inventory on the next search
+        layout.getInventory().getSeats().set(7, ShowSeatStatus.AVAILABLE);
+        assertArrayEquals(new int[]{4, 5}, layout.findBest(2, null, true));
+    }
+
+    @Test
+    void seatTypeChangeEndsABlock() {
+        Map<Integer, Seat> seats = new HashMap<>();
+        int[] seatIds = new int[6];
+        for (int i = 1; i <= 6; i++) {
+            seats.put(i, seat(i, i <= 3 ? SeatType.GOLD : SeatType.PLAT));
+            seatIds[i - 1] = i;
+        }
+        SeatLayout layout = new SeatLayout(new ShowInventory(1, seatIds), seats);
+        assertNull(layout.findBest(4, null, false));
+        assertArrayEquals(new int[]{3, 4, 5}, layout.findBest(3, SeatType.PLAT, true));
+    }
+
+    private static SeatLayout row(int seatCount) {
+        Map<Integer, Seat> seats = new HashMap<>();
+        int[] seatIds = new int[seatCount];
+        for (int i = 1; i <= seatCount; i++) {
+            seats.put(i, seat(i, SeatType.GOLD));
+            seatIds[i - 1] = i;
+        }
+        return new SeatLayout(new ShowInventory(1, seatIds), seats);
+    }
+
+    private static Seat seat(int id, SeatType seatType) {
+        Seat seat = new Seat();
+        seat.setId(id);
+        seat.setRow(1);
+        seat.setCol(id);
+        seat.setSeatType(seatType);
+        return seat;
+    }
+}
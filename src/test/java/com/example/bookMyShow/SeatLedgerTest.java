@@ -0,0 +1,81 @@
+package com.example.bookMyShow;
+
+import com.example.bookMyShow.dto.SeatTransitionEntry;
+import com.example.bookMyShow.exception.SelectedSeatsNotAvailableException;
+import com.example.bookMyShow.model.ShowSeat;
+import com.example.bookMyShow.model.constant.SeatTransitionKind;
+import com.example.bookMyShow.model.constant.ShowSeatStatus;
+import com.example.bookMyShow.repository.ShowSeatRepository;
+import com.example.bookMyShow.service.SeatLedgerService;
+import com.example.bookMyShow.service.ShowSeatService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/*
+The ledger records a transition before its transaction commits; when the transaction rolls back
+instead, a ROLLBACK record puts the seat back, so the ledger agrees with the database again.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:seat-ledger;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "bookmyshow.ledger.enabled=true",
+        "bookmyshow.ledger.directory=target/seat-ledger-test"
+})
+@ActiveProfiles("h2")
+class SeatLedgerTest {
+
+    @Autowired
+    private ShowSeatRepository showSeatRepository;
+    @Autowired
+    private ShowSeatService showSeatService;
+    @Autowired
+    private SeatLedgerService seatLedgerService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void rolledBackHoldIsTakenBack() throws Exception {
+        List<ShowSeat> showSeats = showSeatRepository.findAll();
+        showSeats.sort(Comparator.comparingInt(ShowSeat::getId));
+        ShowSeat showSeat = showSeats.get(0);
+        int showId = showSeat.getShow().getId();
+        List<Integer> ids = List.of(showSeat.getId());
+        // the ledger directory outlives a run, only what this test appends is looked at
+        long since = seatLedgerService.getChanges(1, Integer.MAX_VALUE, null).getNextSequence();
+
+        // the hold is in the ledger by the time a later step of the commit fails
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            try {
+                showSeatService.lockShowSeats(showId, ids, LocalDateTime.now().plusMinutes(10), UUID.randomUUID().toString());
+            } catch (SelectedSeatsNotAvailableException e) {
+                throw new RuntimeException(e);
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    throw new IllegalStateException("commit failed");
+                }
+            });
+        }));
+
+        List<SeatTransitionEntry> changes = seatLedgerService.getChanges(since, 10, showId).getTransitions();
+        assertEquals(2, changes.size());
+        assertEquals(SeatTransitionKind.HOLD, changes.get(0).getKind());
+        assertEquals(SeatTransitionKind.ROLLBACK, changes.get(1).getKind());
+        assertEquals(ShowSeatStatus.AVAILABLE, changes.get(1).getTo());
+        assertEquals(ShowSeatStatus.AVAILABLE, seatLedgerService.getShowState(showId).get(showSeat.getId()));
+        assertEquals(ShowSeatStatus.AVAILABLE, showSeatRepository.findById(showSeat.getId()).orElseThrow().getShowSeatStatus());
+    }
+}
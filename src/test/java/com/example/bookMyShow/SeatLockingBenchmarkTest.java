@@ -0,0 +1,230 @@
+package com.example.bookMyShow;
+
+import com.example.bookMyShow.exception.SelectedSeatsNotAvailableException;
+import com.example.bookMyShow.model.ShowSeat;
+import com.example.bookMyShow.model.constant.ShowSeatStatus;
+import com.example.bookMyShow.repository.ShowSeatRepository;
+import com.example.bookMyShow.service.ShowSeatService;
+import com.example.bookMyShow.service.locking.SeatLockingStrategy;
+import com.example.bookMyShow.util.RetryPolicy;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+Compares the seat locking strategies on an embedded H2 database under low to extreme contention.
+Each worker holds random seats out of a pool of "hot" seats and releases them again right away, so
+contention stays constant for the whole run. Reports throughput, p99 latency, abort rate and checks
+that no seat was ever held twice: every hold reads its seats back under its own hold id and releases
+all of them, and per seat no two [locked, released] intervals overlap.
+
+A plain test run makes a small pass on the hottest pool that only checks the strategies, the numbers
+come from mvn test -Dtest=SeatLockingBenchmarkTest -Dbenchmark=true
+H2 has no SKIP LOCKED, there skip-locked behaves like pessimistic; run against MySQL for that one.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:seat-locking-benchmark;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.datasource.hikari.maximum-pool-size=40",
+        "bookmyshow.retry.max-attempts=5"
+})
+@ActiveProfiles("h2")
+class SeatLockingBenchmarkTest {
+
+    private static final boolean BENCHMARK = Boolean.getBoolean("benchmark");
+    private static final int THREADS = BENCHMARK ? 32 : 8;
+    private static final int HOLDS_PER_THREAD = BENCHMARK ? 100 : 10;
+    private static final int SEATS_PER_HOLD = 2;
+    // 4 hot seats is a blockbuster opening, all 100 seats of the hall a weekday matinee
+    private static final int[] HOT_SEATS = BENCHMARK ? new int[]{4, 20, 100} : new int[]{4};
+    private static final String[] STRATEGIES = {
+            SeatLockingStrategy.CONDITIONAL_UPDATE,
+            SeatLockingStrategy.PESSIMISTIC,
+            SeatLockingStrategy.SKIP_LOCKED,
+            SeatLockingStrategy.OPTIMISTIC,
+            SeatLockingStrategy.SERIALIZABLE
+    };
+
+    @Autowired
+    private Map<String, SeatLockingStrategy> strategies;
+    @Autowired
+    private ShowSeatRepository showSeatRepository;
+    @Autowired
+    private ShowSeatService showSeatService;
+    @Autowired
+    private RetryPolicy retryPolicy;
+
+    private static class Result {
+        final LongAdder held = new LongAdder();
+        final LongAdder unavailable = new LongAdder();
+        final LongAdder conflicts = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final AtomicInteger doubleHeld = new AtomicInteger();
+        // [locked, released] in nanos of every hold of a seat, both taken inside the time the database held it
+        final Map<Integer, List<long[]>> heldIntervalsBySeat = new ConcurrentHashMap<>();
+        long elapsedNanos;
+        long[] latencies;
+    }
+
+    @Test
+    void compareStrategies() throws Exception {
+        // the show created by InitialisationService at startup, 100 seats
+        List<ShowSeat> showSeats = showSeatRepository.findAll();
+        int showId = showSeats.get(0).getShow().getId();
+        List<Integer> showSeatIds = new ArrayList<>();
+        for (ShowSeat showSeat : showSeats) {
+            if (showSeat.getShow().getId() == showId) {
+                showSeatIds.add(showSeat.getId());
+            }
+        }
+        showSeatIds.sort(Integer::compare);
+
+        System.out.printf("%-10s %-20s %12s %10s %10s %12s %12s %8s%n",
+                "hot seats", "strategy", "holds/s", "p99 ms", "held", "unavailable", "abort rate", "double");
+        for (int hotSeats : HOT_SEATS) {
+            List<Integer> pool = showSeatIds.subList(0, Math.min(hotSeats, showSeatIds.size()));
+            for (String name : STRATEGIES) {
+                Result result = run(strategies.get(name), showId, pool);
+                long attempts = (long) THREADS * HOLDS_PER_THREAD;
+                System.out.printf("%-10d %-20s %12.0f %10.2f %10d %12d %11.2f%% %8d%n",
+                        hotSeats, name,
+                        attempts * 1e9 / result.elapsedNanos,
+                        percentile(result.latencies, 0.99) / 1e6,
+                        result.held.sum(),
+                        result.unavailable.sum(),
+                        100.0 * (result.conflicts.sum() + result.failed.sum()) / attempts,
+                        result.doubleHeld.get());
+
+                assertEquals(0, result.doubleHeld.get(), name + " handed a seat to two holds");
+                assertEquals(0, countOverlaps(result.heldIntervalsBySeat), name + " had two holds on a seat at once");
+                assertEquals(0, countLocked(showId), name + " left seats locked");
+            }
+        }
+    }
+
+    private Result run(SeatLockingStrategy strategy, int showId, List<Integer> pool) throws InterruptedException {
+        Result result = new Result();
+        long[][] latencies = new long[THREADS][HOLDS_PER_THREAD];
+        RetryPolicy.Listener listener = new RetryPolicy.Listener() {
+            @Override
+            public void onConflict(ConcurrencyFailureException e) {
+                result.conflicts.increment();
+            }
+        };
+
+        ExecutorService workers = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            long[] threadLatencies = latencies[t];
+            workers.execute(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < HOLDS_PER_THREAD; i++) {
+                        List<Integer> ids = pick(pool);
+                        LocalDateTime lockedUntil = LocalDateTime.now().plusMinutes(10).truncatedTo(ChronoUnit.SECONDS);
+                        String holdId = UUID.randomUUID().toString();
+                        long begin = System.nanoTime();
+                        try {
+                            retryPolicy.execute(() -> strategy.lock(showId, ids, lockedUntil, holdId), listener);
+                            long locked = System.nanoTime();
+                            threadLatencies[i] = locked - begin;
+                            result.held.increment();
+                            // another hold on one of the seats shows up as its hold id, or as a seat not released
+                            for (Object[] row : showSeatRepository.findHoldStatesByIds(ids)) {
+                                if (row[2] != ShowSeatStatus.LOCKED || !holdId.equals(row[4])) {
+                                    result.doubleHeld.incrementAndGet();
+                                }
+                            }
+                            long released = System.nanoTime();
+                            if (showSeatService.releaseShowSeats(showId, ids, holdId) != ids.size()) {
+                                result.doubleHeld.incrementAndGet();
+                            }
+                            for (int id : ids) {
+                                result.heldIntervalsBySeat.computeIfAbsent(id, seat -> new CopyOnWriteArrayList<>())
+                                        .add(new long[]{locked, released});
+                            }
+                        } catch (SelectedSeatsNotAvailableException e) {
+                            threadLatencies[i] = System.nanoTime() - begin;
+                            result.unavailable.increment();
+                        } catch (RuntimeException e) {
+                            threadLatencies[i] = System.nanoTime() - begin;
+                            result.failed.increment();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        result.elapsedNanos = System.nanoTime() - begin;
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.MINUTES);
+
+        result.latencies = Arrays.stream(latencies).flatMapToLong(Arrays::stream).toArray();
+        return result;
+    }
+
+    private static List<Integer> pick(List<Integer> pool) {
+        List<Integer> ids = new ArrayList<>(SEATS_PER_HOLD);
+        while (ids.size() < Math.min(SEATS_PER_HOLD, pool.size())) {
+            int id = pool.get(ThreadLocalRandom.current().nextInt(pool.size()));
+            if (!ids.contains(id)) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private long countLocked(int showId) {
+        return showSeatRepository.findByShowId(showId).stream()
+                .filter(showSeat -> showSeat.getShowSeatStatus() == ShowSeatStatus.LOCKED)
+                .count();
+    }
+
+    private static int countOverlaps(Map<Integer, List<long[]>> intervalsBySeat) {
+        int overlaps = 0;
+        for (List<long[]> intervals : intervalsBySeat.values()) {
+            List<long[]> sorted = new ArrayList<>(intervals);
+            sorted.sort((a, b) -> Long.compare(a[0], b[0]));
+            for (int i = 1; i < sorted.size(); i++) {
+                if (sorted.get(i)[0] < sorted.get(i - 1)[1]) {
+                    overlaps++;
+                }
+            }
+        }
+        return overlaps;
+    }
+
+    private static double percentile(long[] values, double percentile) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.bookMyShow;
+
+import com.example.bookMyShow.model.ShowSeat;
+import com.example.bookMyShow.model.ShowSeatState;
+import com.example.bookMyShow.model.User;
+import com.example.bookMyShow.model.constant.ShowSeatStatus;
+import com.example.bookMyShow.repository.ShowSeatRepository;
+import com.example.bookMyShow.repository.ShowSeatStateRepository;
+import com.example.bookMyShow.service.SeatInventoryService;
+import com.example.bookMyShow.service.UserService;
+import com.example.bookMyShow.service.inventory.SeatBitmap;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+A hold goes through the whole request path and its seats must then show up as LOCKED in the seat states
+read right after it, and soon after in the packed row itself, which is written in the background.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class ShowSeatStateTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private ShowSeatRepository showSeatRepository;
+    @Autowired
+    private ShowSeatStateRepository showSeatStateRepository;
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+    @Autowired
+    private UserService userService;
+
+    @Test
+    void heldSeatsAreLockedInTheSeatStates() throws Exception {
+        // the show created by InitialisationService at startup
+        List<ShowSeat> showSeats = showSeatRepository.findAll();
+        int showId = showSeats.get(0).getShow().getId();
+        List<Integer> held = List.of(showSeats.get(0).getId(), showSeats.get(1).getId());
+        User user = new User();
+        user.setName("Seat state");
+        user = userService.createUser(user);
+
+        // read once before the hold, so the hold updates an existing row instead of building a new one
+        mockMvc.perform(get("/show/" + showId + "/showSeats")).andExpect(status().isOk());
+
+        mockMvc.perform(post("/ticket/hold")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("userId", user.getId(), "showSeatIds", held))))
+                .andExpect(status().isOk());
+
+        String body = mockMvc.perform(get("/show/" + showId + "/showSeats"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Map<Integer, String> statusById = new HashMap<>();
+        for (JsonNode showSeat : objectMapper.readTree(body)) {
+            statusById.put(showSeat.get("id").asInt(), showSeat.get("showSeatStatus").asText());
+        }
+        assertEquals(showSeats.size(), statusById.size());
+        for (ShowSeat showSeat : showSeats) {
+            assertEquals(held.contains(showSeat.getId()) ? "LOCKED" : "AVAILABLE", statusById.get(showSeat.getId()),
+                    "show seat " + showSeat.getId());
+        }
+
+        int[] positions = seatInventoryService.getInventory(showId).positionsOf(held);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!lockedInRow(showId, positions)) {
+            assertTrue(System.currentTimeMillis() < deadline, "seat state row not written");
+            Thread.sleep(20);
+        }
+    }
+
+    private boolean lockedInRow(int showId, int[] positions) {
+        ShowSeatState state = showSeatStateRepository.findByShowId(showId).orElse(null);
+        if (state == null) {
+            return false;
+        }
+        SeatBitmap states = SeatBitmap.fromBytes(state.getSeatStates(), state.getSeatCount());
+        for (int position : positions) {
+            if (states.get(position) != ShowSeatStatus.LOCKED) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
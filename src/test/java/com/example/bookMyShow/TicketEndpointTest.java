@@ -0,0 +1,124 @@
+package com.example.bookMyShow;
+
+import com.example.bookMyShow.model.IdempotencyRecord;
+import com.example.bookMyShow.model.ShowSeat;
+import com.example.bookMyShow.model.User;
+import com.example.bookMyShow.model.constant.IdempotencyStatus;
+import com.example.bookMyShow.repository.IdempotencyRecordRepository;
+import com.example.bookMyShow.repository.ShowSeatRepository;
+import com.example.bookMyShow.service.UserService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+Tickets are read back through the API after the transaction that loaded them is over, so their seats
+must come with them. Each test holds seats of its own from the end of the show created at startup.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class TicketEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private ShowSeatRepository showSeatRepository;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Test
+    void heldTicketCanBeFetched() throws Exception {
+        List<Integer> held = lastShowSeatIds(0, 2);
+        JsonNode hold = hold(held, null);
+
+        JsonNode ticket = readJson(mockMvc.perform(get("/ticket/" + hold.get("ticketId").asInt()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        assertEquals("INPROGRESS", ticket.get("ticketStatus").asText());
+        assertEquals(held, showSeatIdsOf(ticket));
+    }
+
+    @Test
+    void repeatedHoldGetsTheFirstTicketBack() throws Exception {
+        List<Integer> held = lastShowSeatIds(2, 2);
+        String key = "repeat-" + System.nanoTime();
+        User user = newUser();
+        JsonNode first = hold(user, held, key);
+        // the retry is answered from the stored result, the ticket is loaded again with its seats
+        JsonNode repeated = hold(user, held, key);
+
+        assertEquals(first.get("ticketId").asInt(), repeated.get("ticketId").asInt());
+        assertEquals(first.get("holdToken").asText(), repeated.get("holdToken").asText());
+        assertEquals(held, showSeatIdsOf(repeated));
+        // written with the ticket, a retry on another node finds it too
+        IdempotencyRecord record = idempotencyRecordRepository.findByIdempotencyKey("hold:" + key).orElseThrow();
+        assertEquals(IdempotencyStatus.COMPLETED, record.getStatus());
+        assertEquals(first.get("ticketId").asInt(), record.getResourceId());
+    }
+
+    private JsonNode hold(List<Integer> showSeatIds, String idempotencyKey) throws Exception {
+        return hold(newUser(), showSeatIds, idempotencyKey);
+    }
+
+    private User newUser() {
+        User user = new User();
+        user.setName("Ticket endpoint");
+        return userService.createUser(user);
+    }
+
+    private JsonNode hold(User user, List<Integer> showSeatIds, String idempotencyKey) throws Exception {
+        var request = post("/ticket/hold")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("userId", user.getId(), "showSeatIds", showSeatIds)));
+        if (idempotencyKey != null) {
+            request.header("Idempotency-Key", idempotencyKey);
+        }
+        return readJson(mockMvc.perform(request).andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+    }
+
+    // show seats counted from the end of the show, clear of the seats other tests hold from its start
+    private List<Integer> lastShowSeatIds(int skip, int count) {
+        List<ShowSeat> showSeats = new ArrayList<>(showSeatRepository.findAll());
+        showSeats.sort(Comparator.comparingInt(ShowSeat::getId).reversed());
+        List<Integer> ids = new ArrayList<>();
+        for (ShowSeat showSeat : showSeats.subList(skip, skip + count)) {
+            ids.add(showSeat.getId());
+        }
+        ids.sort(Comparator.naturalOrder());
+        return ids;
+    }
+
+    private static List<Integer> showSeatIdsOf(JsonNode ticket) {
+        List<Integer> ids = new ArrayList<>();
+        for (JsonNode id : ticket.get("showSeatIds")) {
+            ids.add(id.asInt());
+        }
+        ids.sort(Comparator.naturalOrder());
+        return ids;
+    }
+
+    private JsonNode readJson(String body) throws Exception {
+        return objectMapper.readTree(body);
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.bookMyShow;
+
+import com.example.bookMyShow.util.WriteAheadLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+A crash may leave half a record at the end of the log, reopening must cut it off and append after the
+last intact record. After a checkpoint, replay only hands out the records that are newer, also from
+a log that was reopened.
+ */
+class WriteAheadLogTest {
+
+    // length, CRC and sequence in front of every payload
+    private static final int HEADER = 16;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void tornTailIsCutOffOnOpen() throws IOException {
+        try (WriteAheadLog log = new WriteAheadLog(directory, 4096, 1)) {
+            for (int i = 1; i <= 3; i++) {
+                log.append(payload(i));
+            }
+        }
+        Path segment = onlySegment();
+        int recordBytes = HEADER + payload(1).length;
+        // the third record lost part of its payload, and half of a fourth header made it to disk
+        write(segment, 2 * recordBytes + HEADER + 1, new byte[]{0x7f});
+        write(segment, 3 * recordBytes, new byte[]{0, 0, 0, 8, 1, 2});
+
+        try (WriteAheadLog log = new WriteAheadLog(directory, 4096, 1)) {
+            assertEquals(2, log.getLastSequence());
+            assertEquals(List.of("record-1", "record-2"), replay(log, 0));
+            assertEquals(3, log.append("after-crash".getBytes(StandardCharsets.UTF_8)));
+        }
+        try (WriteAheadLog log = new WriteAheadLog(directory, 4096, 1)) {
+            assertEquals(List.of("record-1", "record-2", "after-crash"), replay(log, 0));
+        }
+    }
+
+    @Test
+    void replayAfterCheckpointSkipsOlderRecords() throws IOException {
+        // small segments, so the log spans several of them
+        try (WriteAheadLog log = new WriteAheadLog(directory, 128, 1)) {
+            for (int i = 1; i <= 20; i++) {
+                log.append(payload(i));
+            }
+            assertTrue(segmentCount() > 3);
+            int before = segmentCount();
+            assertTrue(log.deleteUpTo(12) > 0);
+            assertTrue(segmentCount() < before);
+            assertEquals(expected(13, 20), replay(log, 12));
+        }
+        try (WriteAheadLog log = new WriteAheadLog(directory, 128, 1)) {
+            assertEquals(20, log.getLastSequence());
+            assertEquals(expected(13, 20), replay(log, 12));
+            assertEquals(expected(16, 20), replay(log, 15));
+        }
+    }
+
+    private static byte[] payload(int i) {
+        return String.format("record-%d", i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> expected(int first, int last) {
+        List<String> records = new ArrayList<>();
+        for (int i = first; i <= last; i++) {
+            records.add("record-" + i);
+        }
+        return records;
+    }
+
+    private static List<String> replay(WriteAheadLog log, long afterSequence) throws IOException {
+        List<String> records = new ArrayList<>();
+        log.replay(afterSequence, (sequence, payload) -> {
+            byte[] bytes = new byte[payload.remaining()];
+            payload.get(bytes);
+            records.add(new String(bytes, StandardCharsets.UTF_8));
+        });
+        return records;
+    }
+
+    private Path onlySegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = files.toList();
+            assertEquals(1, segments.size());
+            return segments.get(0);
+        }
+    }
+
+    private int segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return (int) files.count();
+        }
+    }
+
+    private static void write(Path file, int position, byte[] bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes), position);
+        }
+    }
+}